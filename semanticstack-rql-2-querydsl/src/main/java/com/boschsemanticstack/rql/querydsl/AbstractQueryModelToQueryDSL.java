@@ -35,6 +35,7 @@ import com.boschsemanticstack.rql.exceptions.NoSuchFieldQueryException;
 import com.boschsemanticstack.rql.exceptions.NonComparableFieldQueryException;
 import com.boschsemanticstack.rql.exceptions.UnsupportedFieldTypeQueryException;
 import com.boschsemanticstack.rql.model.v1.RqlFieldDirection;
+import com.boschsemanticstack.rql.model.v1.RqlFieldPath;
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
 import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
 import com.boschsemanticstack.rql.model.v1.RqlSlice;
@@ -73,6 +74,7 @@ public abstract class AbstractQueryModelToQueryDSL<R> extends AbstractPathPredic
 
    private R predicate;
    private RqlSlice pagination;
+   private boolean alwaysFalse;
    private final List<OrderSpecifier<?>> ordering = new ArrayList<>();
    private final EntityPathBase rootResource;
    private List<PathPredicateResolver> predicateResolvers;
@@ -103,6 +105,7 @@ public abstract class AbstractQueryModelToQueryDSL<R> extends AbstractPathPredic
     * @throws UnsupportedFieldTypeQueryException if a field is not supported by the transformation
     */
    protected void applyModel( final RqlQueryModel query ) {
+      alwaysFalse = query.isAlwaysFalse();
       ordering.addAll( extractOrdering( query.getOptions().getOrder().fieldDirections() ) );
       pagination = query.getOptions().getSlice().orElse( null );
       predicate = query.getFilter()
@@ -123,7 +126,7 @@ public abstract class AbstractQueryModelToQueryDSL<R> extends AbstractPathPredic
    }
 
    private RqlFieldDirection existsSortAttribute( final RqlFieldDirection order ) {
-      final LinkedList<String> attributes = splitAttribute( order.attribute() );
+      final LinkedList<String> attributes = splitAttribute( order.attributePath() );
 
       //check if Field exists
       SimpleExpression expression = rootResource;
@@ -163,11 +166,11 @@ public abstract class AbstractQueryModelToQueryDSL<R> extends AbstractPathPredic
       if ( values.isEmpty() ) {
          throw new IllegalValueTypeQueryException( "No values given for predicate " + filter );
       }
-      return resolve( rootResource, null, splitAttribute( filter.getAttribute() ), filter );
+      return resolve( rootResource, null, splitAttribute( filter.getAttributePath() ), filter );
    }
 
-   private LinkedList<String> splitAttribute( final String attribute ) {
-      return new LinkedList<>( List.of( attribute.split( "[./]" ) ) );
+   private LinkedList<String> splitAttribute( final RqlFieldPath attribute ) {
+      return new LinkedList<>( attribute.getSegments() );
    }
 
    @Override
@@ -338,6 +341,14 @@ public abstract class AbstractQueryModelToQueryDSL<R> extends AbstractPathPredic
       return Optional.ofNullable( predicate );
    }
 
+   /**
+    * @return whether the filter of the query is known to match nothing, e.g. as a pre-processor proved it
+    *       contradictory, so the query need not be run; the predicate still matches nothing if it is
+    */
+   public boolean isAlwaysFalse() {
+      return alwaysFalse;
+   }
+
    public Optional<RqlSlice> getPagination() {
       return Optional.ofNullable( pagination );
    }
@@ -19,10 +19,13 @@ import java.util.List;
 import java.util.Queue;
 
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
 import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlTreeTraversal;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.EntityPathBase;
+import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.core.types.dsl.SimpleExpression;
 
 /**
@@ -96,35 +99,61 @@ public class QueryModelToQueryDSL extends AbstractQueryModelToQueryDSL<Predicate
       return RqlToQueryDslConverterBuilder.forGenericStore( rootResource ).build().applyTo( query );
    }
 
+   /**
+    * Transforms the filter and all filters nested in it without recursion, so their depth is not limited by the call
+    * stack.
+    */
    @Override
    protected Predicate digest( final RqlFilter filter ) {
-      switch ( filter.getFilterType() ) {
-         case AND:
-            final BooleanBuilder booleanBuilder = new BooleanBuilder();
-            filter.getChildren().forEach( operand -> booleanBuilder.and( digest( operand ) ) );
-            return booleanBuilder.getValue();
-         case OR:
-            final BooleanBuilder booleanBuilderOr = new BooleanBuilder();
-            filter.getChildren().forEach( operand -> booleanBuilderOr.or( digest( operand ) ) );
-            return booleanBuilderOr.getValue();
-         case NOT:
-            return digest( filter.getChildren() ).not();
-         case VALUE:
-            return getValuePredicate( filter );
-         default:
-            throw new IllegalArgumentException( "Unknown filter type " + filter.getFilterType() + " for " + filter );
+      return RqlTreeTraversal.fold( filter, new RqlTreeTraversal.FilterFolder<>() {
+         @Override
+         public Predicate combine( final RqlFilter node, final List<Predicate> operands ) {
+            return digest( node, operands );
+         }
+      } );
+   }
+
+   private Predicate digest( final RqlFilter filter, final List<Predicate> operands ) {
+      return switch ( filter ) {
+         case final RqlFilterNode.And and -> all( operands );
+         case final RqlFilterNode.Or or -> any( operands );
+         case final RqlFilterNode.Not not -> and( operands ).not();
+         case final RqlFilterNode.Comparison comparison -> getValuePredicate( filter );
+         case final RqlFilterNode.In in -> getValuePredicate( filter );
+         case final RqlFilterNode.Like like -> getValuePredicate( filter );
+         default -> switch ( filter.getFilterType() ) { // other implementations, without converting them
+            case AND -> all( operands );
+            case OR -> any( operands );
+            case NOT -> and( operands ).not();
+            case VALUE -> getValuePredicate( filter );
+         };
+      };
+   }
+
+   private static Predicate all( final List<Predicate> operands ) {
+      final BooleanBuilder booleanBuilder = new BooleanBuilder();
+      operands.forEach( booleanBuilder::and );
+      return booleanBuilder.getValue();
+   }
+
+   private static Predicate any( final List<Predicate> operands ) {
+      if ( operands.isEmpty() ) {
+         return Expressions.FALSE.isTrue(); // matches nothing, see RqlFilter#isAlwaysFalse()
       }
+      final BooleanBuilder booleanBuilderOr = new BooleanBuilder();
+      operands.forEach( booleanBuilderOr::or );
+      return booleanBuilderOr.getValue();
    }
 
-   private Predicate digest( final List<RqlFilter> children ) {
-      if ( children.isEmpty() ) {
+   private Predicate and( final List<Predicate> operands ) {
+      if ( operands.isEmpty() ) {
          return new BooleanBuilder().getValue();
       }
-      if ( children.size() == 1 ) {
-         return digest( children.getFirst() );
+      if ( operands.size() == 1 ) {
+         return operands.getFirst();
       }
       final BooleanBuilder booleanBuilder = new BooleanBuilder();
-      children.forEach( operand -> booleanBuilder.and( digest( operand ) ) );
+      operands.forEach( booleanBuilder::and );
       return booleanBuilder.getValue();
    }
 
@@ -22,6 +22,7 @@ import java.util.stream.IntStream;
 import com.boschsemanticstack.rql.exceptions.IllegalValueTypeQueryException;
 import com.boschsemanticstack.rql.exceptions.NonComparableFieldQueryException;
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
 import com.boschsemanticstack.rql.querydsl.resolvers.converters.TypeConverters;
 import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.core.types.Predicate;
@@ -74,10 +75,14 @@ public class SimpleValueResolver extends AbstractPathPredicateResolver<SimpleExp
    }
 
    private Predicate getMultiValuePredicate( final RqlFilter filter, final List<Object> values, final SimpleExpression property ) {
-      final List<Object> typeConvertedValues = values.stream()
-            .map( value -> typeConverters
-                  .convertTo( property.getType(), value ) )
-            .toList();
+      final List<Object> typeConvertedValues = values instanceof final RqlValueList valueList
+            && property.getType().isAssignableFrom( valueList.getElementType() )
+            // already of the property's type: no conversion needed, the values are only boxed when rendered
+            ? valueList
+            : values.stream()
+                  .map( value -> typeConverters
+                        .convertTo( property.getType(), value ) )
+                  .toList();
 
       if ( RqlFilter.Operator.IN == filter.getOperator() ) {
          return ExpressionUtils.inAny( property,
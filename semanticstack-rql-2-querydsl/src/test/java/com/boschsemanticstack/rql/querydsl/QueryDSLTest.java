@@ -23,7 +23,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -33,12 +35,17 @@ import com.boschsemanticstack.rql.exceptions.IllegalValueTypeQueryException;
 import com.boschsemanticstack.rql.exceptions.NoSuchFieldQueryException;
 import com.boschsemanticstack.rql.exceptions.ParseException;
 import com.boschsemanticstack.rql.model.v1.RqlBuilder;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
 import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlSliceImpl;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.RangeMergingRqlFilterPreProcessor;
 import com.boschsemanticstack.rql.parser.v1.RqlParser;
 import com.boschsemanticstack.rql.querydsl.entities.QEntity;
 import com.boschsemanticstack.rql.querydsl.entities.QWildcardEntity;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -311,8 +318,74 @@ class QueryDSLTest {
 
    //TODO gt, lt, lte, gte, edge cases
 
+   @Test
+   void deeplyNestedFilterShouldNotExhaustSmallStack() throws InterruptedException {
+      final RqlFilter comparison = new RqlFilterImpl( "name", RqlFilter.Operator.EQ, "a" );
+      RqlFilter filter = comparison;
+      for ( int i = 0; i < 10_000; i++ ) {
+         filter = new RqlFilterImpl( RqlFilter.FilterType.AND, comparison,
+               new RqlFilterImpl( RqlFilter.FilterType.NOT, filter ) );
+      }
+      final RqlQueryModel model = new RqlQueryModelImpl( null, filter, null );
+      final AtomicReference<Object> result = new AtomicReference<>();
+      final Thread thread = new Thread( null, () -> {
+         try {
+            result.set( getQuery( model ).getPredicate().orElseThrow() );
+         } catch ( final Throwable e ) {
+            result.set( e );
+         }
+      }, "small-stack", 128 * 1024 );
+      thread.start();
+      thread.join();
+
+      assertThat( result.get() ).isInstanceOf( Predicate.class );
+   }
+
+   @Test
+   void contradictoryFilterShouldBeAlwaysFalse() {
+      final RqlQueryModel model = RqlParser.preProcessFilter( RqlParser.from( "filter=and(eq(name,\"a\"),eq(name,\"b\"))" ),
+            List.of( new RangeMergingRqlFilterPreProcessor( attribute -> !attribute.startsWith( "subEntities." ) ) ) );
+
+      final QueryModelToQueryDSL query = getQuery( model );
+
+      assertThat( query.isAlwaysFalse() ).isTrue();
+      assertThat( query.getPredicate() ).hasValueSatisfying( predicate -> assertThat( predicate ).hasToString( "false = true" ) );
+      assertThat( getQuery( "filter=eq(name,\"a\")" ).isAlwaysFalse() ).isFalse();
+   }
+
+   @Test
+   void builtFilterShouldTranslateLikeParsedFilter() {
+      final RqlQueryModel parsed = RqlParser.from( "filter=and(eq(name,\"a\"),not(in(id,\"1\",\"2\")),or(like(name,\"x*\"),or()))" );
+      final RqlQueryModel built = RqlParser.builder()
+            .filter( RqlBuilder.and(
+                  RqlBuilder.eq( "name", "a" ),
+                  RqlBuilder.not( RqlBuilder.in( "id", "1", "2" ) ),
+                  RqlBuilder.or( RqlBuilder.like( "name", "x*" ), RqlBuilder.or() ) ) )
+            .build();
+
+      assertThat( built.getFilter() ).hasValueSatisfying( filter -> assertThat( filter ).isInstanceOf( RqlFilterImpl.class ) );
+      assertThat( getQuery( built ).getPredicate() ).isEqualTo( getQuery( parsed ).getPredicate() );
+   }
+
+   @Test
+   void conditionsOnCollectionElementsShouldNotBeContradictory() {
+      final RqlQueryModel model = RqlParser.preProcessFilter(
+            RqlParser.from( "filter=and(eq(subEntities.name,\"a\"),eq(subEntities.name,\"b\"),gt(subEntities.id,\"1\"))" ),
+            List.of( new RangeMergingRqlFilterPreProcessor() ) );
+
+      final QueryModelToQueryDSL query = getQuery( model );
+
+      assertThat( RqlParser.toString( model ) ).isEqualTo( "filter=and(eq(subEntities.name,\"a\"),eq(subEntities.name,\"b\"),gt(subEntities.id,\"1\"))" );
+      assertThat( query.isAlwaysFalse() ).isFalse();
+      assertThat( query.getPredicate() ).hasValueSatisfying( predicate -> assertThat( predicate ).isNotEqualTo( Expressions.FALSE.isTrue() ) );
+   }
+
    private QueryModelToQueryDSL getQuery( final String queryParams ) {
-      return QueryModelToQueryDSL.forJpa( QEntity.entity, RqlParser.from( queryParams ) );
+      return getQuery( RqlParser.from( queryParams ) );
+   }
+
+   private QueryModelToQueryDSL getQuery( final RqlQueryModel model ) {
+      return QueryModelToQueryDSL.forJpa( QEntity.entity, model );
    }
 
    private void getGenericQuery() {
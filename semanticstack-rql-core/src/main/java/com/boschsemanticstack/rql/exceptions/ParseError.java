@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.exceptions;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A problem found while parsing a query, reported as a plain value instead of a {@link ParseException} so that
+ * rejecting invalid input costs no stack trace.
+ */
+public final class ParseError {
+
+   private final String message;
+   private final SourceLocation sourceLocation;
+
+   public ParseError( final String message, final SourceLocation sourceLocation ) {
+      this.message = Objects.requireNonNull( message );
+      this.sourceLocation = sourceLocation;
+   }
+
+   /**
+    * @return the error described by an exception thrown by the parser, without its stack trace
+    */
+   public static ParseError of( final ParseException exception ) {
+      final SourceLocation location = exception.getSourceLocation().orElse( null );
+      String text = exception.getMessage() == null ? exception.getClass().getName() : exception.getMessage();
+      final String locationSuffix = " @" + location;
+      if ( location != null && text.endsWith( locationSuffix ) ) {
+         text = text.substring( 0, text.length() - locationSuffix.length() );
+      }
+      return new ParseError( text, location );
+   }
+
+   /**
+    * @return the description of the problem without its location
+    */
+   public String getMessage() {
+      return message;
+   }
+
+   /**
+    * @return The appropriate position in the source corresponding to the problem (if applicable)
+    */
+   public Optional<SourceLocation> getSourceLocation() {
+      return Optional.ofNullable( sourceLocation );
+   }
+
+   /**
+    * @return an exception describing this error, e.g. to throw it after all
+    */
+   public ParseException toException() {
+      return new ParseException( message, sourceLocation );
+   }
+
+   @Override
+   public boolean equals( final Object o ) {
+      if ( this == o ) {
+         return true;
+      }
+      if ( o == null || getClass() != o.getClass() ) {
+         return false;
+      }
+
+      final ParseError other = (ParseError) o;
+
+      return message.equals( other.message ) && Objects.equals( sourceLocation, other.sourceLocation );
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hash( message, sourceLocation );
+   }
+
+   @Override
+   public String toString() {
+      return sourceLocation == null ? message : message + " @" + sourceLocation;
+   }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+
+/**
+ * Immutable children of an {@link RqlFilterNode.And} or {@link RqlFilterNode.Or}, caching the hash code of the list,
+ * as records cannot cache the hash code of their node themselves.
+ */
+final class FilterChildren extends AbstractList<RqlFilter> implements RandomAccess {
+
+   /**
+    * Hashes a filter of any implementation bottom-up, see {@link RqlFilterNode#structuralHashCode(RqlFilter)}.
+    */
+   static final RqlTreeTraversal.FilterFolder<Integer> HASHER = new RqlTreeTraversal.FilterFolder<>() {
+      @Override
+      public Integer prune( final RqlFilter filter ) {
+         if ( filter instanceof RqlFilterImpl ) {
+            return filter.hashCode(); // cached by the filter
+         }
+         final FilterChildren children = cachedChildren( filter );
+         return children == null ? null : 31 * RqlFilterNode.headerHashCode( filter ) + children.hash;
+      }
+
+      @Override
+      public Integer combine( final RqlFilter filter, final List<Integer> childHashes ) {
+         int childrenHash = 1;
+         for ( final Integer childHash : childHashes ) {
+            childrenHash = 31 * childrenHash + childHash;
+         }
+         if ( filter.getChildren() instanceof final FilterChildren children ) {
+            children.hash = childrenHash;
+         }
+         return 31 * RqlFilterNode.headerHashCode( filter ) + childrenHash;
+      }
+   };
+
+   private final RqlFilter[] filters;
+   private int hash; // 0 until computed, like String
+
+   private FilterChildren( final RqlFilter[] filters ) {
+      this.filters = filters;
+   }
+
+   /**
+    * @return the filters as an immutable list, the list itself if it already is one
+    */
+   static FilterChildren of( final List<? extends RqlFilter> filters ) {
+      if ( filters instanceof final FilterChildren children ) {
+         return children;
+      }
+      final RqlFilter[] copy = filters.toArray( new RqlFilter[0] );
+      for ( final RqlFilter filter : copy ) {
+         Objects.requireNonNull( filter );
+      }
+      return new FilterChildren( copy );
+   }
+
+   /**
+    * @return the children of the filter if their hash code is cached, otherwise {@code null}
+    */
+   private static FilterChildren cachedChildren( final RqlFilter filter ) {
+      return filter instanceof RqlFilterNode && filter.getChildren() instanceof final FilterChildren children && children.hash != 0
+            ? children
+            : null;
+   }
+
+   @Override
+   public RqlFilter get( final int index ) {
+      return filters[index];
+   }
+
+   @Override
+   public int size() {
+      return filters.length;
+   }
+
+   @Override
+   public int hashCode() {
+      if ( hash == 0 ) {
+         int result = 1;
+         for ( final RqlFilter filter : filters ) {
+            result = 31 * result + filter.hashCode();
+         }
+         hash = result;
+      }
+      return hash;
+   }
+}
@@ -122,6 +122,30 @@ public class RqlBuilder {
       );
    }
 
+   public static RqlFilter in( final String attribute, final int[] values ) {
+      return new RqlFilterImpl( attribute, RqlFilter.Operator.IN,
+            values == null
+                  ? Collections.emptyList()
+                  : RqlValueList.ofInts( values )
+      );
+   }
+
+   public static RqlFilter in( final String attribute, final long[] values ) {
+      return new RqlFilterImpl( attribute, RqlFilter.Operator.IN,
+            values == null
+                  ? Collections.emptyList()
+                  : RqlValueList.ofLongs( values )
+      );
+   }
+
+   public static RqlFilter in( final String attribute, final double[] values ) {
+      return new RqlFilterImpl( attribute, RqlFilter.Operator.IN,
+            values == null
+                  ? Collections.emptyList()
+                  : RqlValueList.ofDoubles( values )
+      );
+   }
+
    public static RqlFilter like( final String attribute, final String value ) {
       return new RqlFilterImpl( attribute, RqlFilter.Operator.LIKE, value );
    }
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
+
+/**
+ * Rewrites filters into a canonical form, so that queries differing only in the order of commutative operands, like
+ * {@code and(eq(a,1),eq(b,2))} and {@code and(eq(b,2),eq(a,1))}, result in equal models, e.g. to share one entry of a
+ * result, plan or page cache. The canonical form
+ * <ul>
+ *    <li>flattens {@code and} and {@code or} operations nested in an operation of the same type,</li>
+ *    <li>sorts the operands of {@code and} and {@code or} operations and</li>
+ *    <li>sorts the values of {@code in} conditions and removes duplicates.</li>
+ * </ul>
+ * The order is deterministic and independent of the JVM. Select and options are kept as they are, since their order
+ * is significant. Unchanged parts of a filter are reused, so canonicalizing a canonical filter returns it as is.
+ */
+public final class RqlCanonicalizer {
+
+   private static final RqlTreeTraversal.FilterFolder<RqlFilter> CANONICALIZER = new RqlTreeTraversal.FilterFolder<>() {
+      @Override
+      public RqlFilter combine( final RqlFilter filter, final List<RqlFilter> children ) {
+         return switch ( filter.getFilterType() ) {
+            case VALUE -> filter.getOperator() == RqlFilter.Operator.IN ? canonicalIn( filter ) : filter;
+            case NOT -> children.get( 0 ) == filter.getChildren().get( 0 ) ? filter : new RqlFilterImpl( RqlFilter.FilterType.NOT, children );
+            case AND, OR -> canonicalOperation( filter, children );
+         };
+      }
+   };
+
+   private RqlCanonicalizer() {
+   }
+
+   /**
+    * @return the model with its filter in canonical form, the model itself if the filter already is
+    */
+   public static RqlQueryModel canonicalize( final RqlQueryModel model ) {
+      final RqlFilter filter = model.getFilter().orElse( null );
+      final RqlFilter canonical = canonicalize( filter );
+      return canonical == filter ? model : new RqlQueryModelImpl( model.getSelect(), canonical, model.getOptions() );
+   }
+
+   /**
+    * @param filter the filter, may be {@code null}
+    * @return the filter in canonical form, the filter itself if it already is
+    */
+   public static RqlFilter canonicalize( final RqlFilter filter ) {
+      return filter == null ? null : RqlTreeTraversal.fold( filter, CANONICALIZER );
+   }
+
+   /**
+    * @return the deterministic order in which the canonical form sorts operands: by type, operator, attribute and values
+    *       of the operands and then by the same properties of their nested filters in pre-order
+    */
+   public static Comparator<RqlFilter> filterOrder() {
+      return RqlCanonicalizer::compareFilters;
+   }
+
+   /**
+    * @return the deterministic order in which the canonical form sorts values: {@code null} first, then booleans,
+    *       numbers, strings and all other values, each ordered naturally
+    */
+   public static Comparator<Object> valueOrder() {
+      return RqlCanonicalizer::compareValues;
+   }
+
+   private static RqlFilter canonicalOperation( final RqlFilter filter, final List<RqlFilter> children ) {
+      final List<RqlFilter> operands = new ArrayList<>( children.size() );
+      for ( final RqlFilter child : children ) {
+         if ( child.getFilterType() == filter.getFilterType() ) {
+            operands.addAll( child.getChildren() ); // already flat, as the child is canonical
+         } else {
+            operands.add( child );
+         }
+      }
+      operands.sort( filterOrder() );
+      return sameElements( operands, filter.getChildren() ) ? filter : new RqlFilterImpl( filter.getFilterType(), operands );
+   }
+
+   /**
+    * Sorts values in {@link #valueOrder()} and removes duplicates. Values all being {@link Integer}s, {@link Long}s,
+    * {@link Double}s or {@link String}s are sorted as an array of primitives or strings and returned as a compact
+    * {@link RqlValueList}.
+    *
+    * @param values the values, which are not modified
+    * @return the sorted distinct values
+    */
+   public static List<Object> sortedDistinctValues( final List<?> values ) {
+      if ( values instanceof final RqlValueList valueList ) {
+         return sortedDistinct( valueList );
+      }
+      final RqlValueList packed = pack( values );
+      return packed != null ? sortedDistinct( packed ) : sortedDistinct( values );
+   }
+
+   /**
+    * Tells without copying the values whether {@link #sortedDistinctValues(List)} would return them unchanged.
+    *
+    * @param values the values to check
+    * @return whether the values are in {@link #valueOrder()} and free of duplicates
+    */
+   public static boolean isSortedDistinct( final List<?> values ) {
+      if ( values instanceof final RqlValueList valueList && valueList.getElementType() != String.class ) {
+         return valueList.getElementType() == Double.class ? isSortedDistinctDoubles( valueList ) : isSortedDistinctLongs( valueList );
+      }
+      for ( int i = 1; i < values.size(); i++ ) {
+         final Object previous = values.get( i - 1 );
+         final Object value = values.get( i );
+         if ( compareValues( previous, value ) > 0 || Objects.equals( previous, value ) ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static boolean isSortedDistinctLongs( final RqlValueList values ) {
+      for ( int i = 1; i < values.size(); i++ ) {
+         if ( values.getLong( i - 1 ) >= values.getLong( i ) ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static boolean isSortedDistinctDoubles( final RqlValueList values ) {
+      for ( int i = 1; i < values.size(); i++ ) {
+         if ( Double.compare( values.getDouble( i - 1 ), values.getDouble( i ) ) >= 0 ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static RqlFilter canonicalIn( final RqlFilter filter ) {
+      final List<Object> values = filter.getValues();
+      final List<Object> sorted = sortedDistinctValues( values );
+      return sorted.equals( values ) ? filter : new RqlFilterImpl( filter.getAttribute(), RqlFilter.Operator.IN, sorted );
+   }
+
+   /**
+    * @return the values as a list of primitives or strings, {@code null} if they are not all of one of these types
+    */
+   private static RqlValueList pack( final List<?> values ) {
+      if ( values.isEmpty() ) {
+         return null;
+      }
+      final Class<?> type = values.get( 0 ) == null ? null : values.get( 0 ).getClass();
+      for ( final Object value : values ) {
+         if ( value == null || value.getClass() != type ) {
+            return null;
+         }
+      }
+      final int size = values.size();
+      if ( type == Integer.class ) {
+         final int[] packed = new int[size];
+         for ( int i = 0; i < size; i++ ) {
+            packed[i] = (Integer) values.get( i );
+         }
+         return RqlValueList.ofInts( packed );
+      }
+      if ( type == Long.class ) {
+         final long[] packed = new long[size];
+         for ( int i = 0; i < size; i++ ) {
+            packed[i] = (Long) values.get( i );
+         }
+         return RqlValueList.ofLongs( packed );
+      }
+      if ( type == Double.class ) {
+         final double[] packed = new double[size];
+         for ( int i = 0; i < size; i++ ) {
+            packed[i] = (Double) values.get( i );
+         }
+         return RqlValueList.ofDoubles( packed );
+      }
+      return type == String.class ? RqlValueList.ofStrings( values.toArray( new String[0] ) ) : null;
+   }
+
+   private static List<Object> sortedDistinct( final List<?> values ) {
+      final List<Object> sorted = new ArrayList<>( values );
+      sorted.sort( valueOrder() );
+      int size = 0;
+      for ( final Object value : sorted ) {
+         if ( size == 0 || !Objects.equals( sorted.get( size - 1 ), value ) ) {
+            sorted.set( size++, value );
+         }
+      }
+      return sorted.subList( 0, size );
+   }
+
+   /**
+    * Sorts the primitive values without boxing them.
+    */
+   private static RqlValueList sortedDistinct( final RqlValueList values ) {
+      final int size = values.size();
+      final Class<?> type = values.getElementType();
+      if ( type == Integer.class ) {
+         final int[] sorted = new int[size];
+         for ( int i = 0; i < size; i++ ) {
+            sorted[i] = values.getInt( i );
+         }
+         Arrays.sort( sorted );
+         int distinct = 0;
+         for ( final int value : sorted ) {
+            if ( distinct == 0 || sorted[distinct - 1] != value ) {
+               sorted[distinct++] = value;
+            }
+         }
+         return RqlValueList.ofInts( sorted, distinct );
+      }
+      if ( type == Long.class ) {
+         final long[] sorted = new long[size];
+         for ( int i = 0; i < size; i++ ) {
+            sorted[i] = values.getLong( i );
+         }
+         Arrays.sort( sorted );
+         int distinct = 0;
+         for ( final long value : sorted ) {
+            if ( distinct == 0 || sorted[distinct - 1] != value ) {
+               sorted[distinct++] = value;
+            }
+         }
+         return RqlValueList.ofLongs( sorted, distinct );
+      }
+      if ( type == Double.class ) {
+         final double[] sorted = new double[size];
+         for ( int i = 0; i < size; i++ ) {
+            sorted[i] = values.getDouble( i );
+         }
+         Arrays.sort( sorted );
+         int distinct = 0;
+         for ( final double value : sorted ) {
+            if ( distinct == 0 || Double.compare( sorted[distinct - 1], value ) != 0 ) {
+               sorted[distinct++] = value;
+            }
+         }
+         return RqlValueList.ofDoubles( sorted, distinct );
+      }
+      final String[] sorted = new String[size];
+      for ( int i = 0; i < size; i++ ) {
+         sorted[i] = values.getString( i );
+      }
+      Arrays.sort( sorted );
+      int distinct = 0;
+      for ( final String value : sorted ) {
+         if ( distinct == 0 || !sorted[distinct - 1].equals( value ) ) {
+            sorted[distinct++] = value;
+         }
+      }
+      return RqlValueList.ofStrings( sorted, distinct );
+   }
+
+   private static boolean sameElements( final List<RqlFilter> left, final List<RqlFilter> right ) {
+      if ( left.size() != right.size() ) {
+         return false;
+      }
+      for ( int i = 0; i < left.size(); i++ ) {
+         if ( left.get( i ) != right.get( i ) ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Compares the filters node by node in pre-order, without recursion.
+    */
+   private static int compareFilters( final RqlFilter left, final RqlFilter right ) {
+      final Deque<RqlFilter> pending = new ArrayDeque<>();
+      pending.push( right );
+      pending.push( left );
+      while ( !pending.isEmpty() ) {
+         final RqlFilter leftNode = pending.pop();
+         final RqlFilter rightNode = pending.pop();
+         if ( leftNode == rightNode ) {
+            continue;
+         }
+         final int result = compareNodes( leftNode, rightNode );
+         if ( result != 0 ) {
+            return result;
+         }
+         final List<RqlFilter> leftChildren = leftNode.getChildren();
+         final List<RqlFilter> rightChildren = rightNode.getChildren();
+         for ( int i = leftChildren.size() - 1; i >= 0; i-- ) {
+            pending.push( rightChildren.get( i ) );
+            pending.push( leftChildren.get( i ) );
+         }
+      }
+      return 0;
+   }
+
+   /**
+    * Compares the filters without their children, except for their number.
+    */
+   private static int compareNodes( final RqlFilter left, final RqlFilter right ) {
+      int result = left.getFilterType().compareTo( right.getFilterType() );
+      if ( result == 0 ) {
+         result = Comparator.nullsFirst( Comparator.<RqlFilter.Operator> naturalOrder() ).compare( left.getOperator(), right.getOperator() );
+      }
+      if ( result == 0 ) {
+         result = Comparator.nullsFirst( Comparator.<String> naturalOrder() ).compare( left.getAttribute(), right.getAttribute() );
+      }
+      if ( result == 0 ) {
+         final List<Object> leftValues = left.getValues();
+         final List<Object> rightValues = right.getValues();
+         final int size = Math.min( leftValues.size(), rightValues.size() );
+         for ( int i = 0; i < size && result == 0; i++ ) {
+            result = compareValues( leftValues.get( i ), rightValues.get( i ) );
+         }
+         if ( result == 0 ) {
+            result = Integer.compare( leftValues.size(), rightValues.size() );
+         }
+      }
+      return result != 0 ? result : Integer.compare( left.getChildren().size(), right.getChildren().size() );
+   }
+
+   @SuppressWarnings( { "unchecked", "rawtypes" } )
+   private static int compareValues( final Object left, final Object right ) {
+      int result = Integer.compare( rank( left ), rank( right ) );
+      if ( result != 0 || left == null || right == null ) {
+         return result;
+      }
+      if ( left.getClass() == right.getClass() && left instanceof Comparable ) {
+         return ( (Comparable) left ).compareTo( right );
+      }
+      if ( left instanceof final Number leftNumber && right instanceof final Number rightNumber ) {
+         result = Double.compare( leftNumber.doubleValue(), rightNumber.doubleValue() );
+      }
+      if ( result == 0 ) {
+         result = left.getClass().getName().compareTo( right.getClass().getName() );
+      }
+      return result != 0 ? result : left.toString().compareTo( right.toString() );
+   }
+
+   private static int rank( final Object value ) {
+      if ( value == null ) {
+         return 0;
+      }
+      if ( value instanceof Boolean ) {
+         return 1;
+      }
+      if ( value instanceof Number ) {
+         return 2;
+      }
+      return value instanceof String ? 3 : 4;
+   }
+}
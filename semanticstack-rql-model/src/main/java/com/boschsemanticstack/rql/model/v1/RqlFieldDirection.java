@@ -29,6 +29,13 @@ public interface RqlFieldDirection extends RqlModelNode {
 
    String attribute();
 
+   /**
+    * @return the canonical path of the attribute
+    */
+   default RqlFieldPath attributePath() {
+      return RqlFieldPath.of( attribute() );
+   }
+
    Direction direction();
 
    @Override
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The name of a possibly nested field, e.g. {@code subEntity.name}, together with its segments, e.g.
+ * {@code [subEntity, name]}. Segments are separated by {@code .} or {@code /}.
+ *
+ * <p>Paths are immutable. Those created by {@link #of(String)} are canonicalized by the
+ * {@link RqlSymbolTable#shared() shared symbol table}, so the segments of a field are split only once and equal paths
+ * are usually the same instance.</p>
+ */
+public final class RqlFieldPath {
+
+   private final String path;
+   private final List<String> segments;
+
+   RqlFieldPath( final String path ) {
+      this.path = path;
+      segments = split( path );
+   }
+
+   /**
+    * @param path the name of the field
+    * @return the canonical path of the field
+    */
+   public static RqlFieldPath of( final String path ) {
+      return RqlSymbolTable.shared().fieldPath( path );
+   }
+
+   /**
+    * @return the name of the field as written in the query
+    */
+   public String getPath() {
+      return path;
+   }
+
+   /**
+    * @return the segments of the path from the root to the field itself
+    */
+   public List<String> getSegments() {
+      return segments;
+   }
+
+   /**
+    * Splits like {@code path.split( "[./]" )}, i.e. dropping trailing empty segments, without a regular expression.
+    */
+   private static List<String> split( final String path ) {
+      if ( path.isEmpty() ) {
+         return List.of( path );
+      }
+      final List<String> result = new ArrayList<>( 2 );
+      int start = 0;
+      for ( int i = 0; i <= path.length(); i++ ) {
+         if ( i == path.length() || path.charAt( i ) == '.' || path.charAt( i ) == '/' ) {
+            result.add( start == 0 && i == path.length() ? path : path.substring( start, i ) );
+            start = i + 1;
+         }
+      }
+      while ( !result.isEmpty() && result.getLast().isEmpty() ) {
+         result.removeLast();
+      }
+      return List.copyOf( result );
+   }
+
+   @Override
+   public boolean equals( final Object o ) {
+      if ( this == o ) {
+         return true;
+      }
+      if ( o == null || getClass() != o.getClass() ) {
+         return false;
+      }
+      return path.equals( ( (RqlFieldPath) o ).path );
+   }
+
+   @Override
+   public int hashCode() {
+      return path.hashCode();
+   }
+
+   @Override
+   public String toString() {
+      return path;
+   }
+}
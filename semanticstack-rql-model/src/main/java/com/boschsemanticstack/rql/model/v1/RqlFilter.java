@@ -73,6 +73,13 @@ public interface RqlFilter extends RqlModelNode {
 
    String getAttribute();
 
+   /**
+    * @return the canonical path of the attribute of a {@link FilterType#VALUE} filter, {@code null} for logical ones
+    */
+   default RqlFieldPath getAttributePath() {
+      return getAttribute() == null ? null : RqlFieldPath.of( getAttribute() );
+   }
+
    Operator getOperator();
 
    FilterType getFilterType();
@@ -80,7 +87,22 @@ public interface RqlFilter extends RqlModelNode {
    @Override
    List<RqlFilter> getChildren();
 
+   /**
+    * @return the values of the filter; for {@code in} filters this may be an {@link RqlValueList} whose values can be
+    *       read without boxing
+    */
    List<Object> getValues();
 
    Object getValue();
+
+   /**
+    * A filter no value matches is represented by an {@code or} without operands, like the empty disjunction in logic.
+    * Pre-processors produce it when they prove a filter contradictory, e.g. {@code and(eq(a,1),eq(a,2))}, so callers
+    * can skip querying the store.
+    *
+    * @return whether this is the filter no value matches
+    */
+   default boolean isAlwaysFalse() {
+      return getFilterType() == FilterType.OR && getChildren().isEmpty();
+   }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
+
+/**
+ * Thread-safe table hash-consing filters: structurally equal filters, and equal subtrees of different filters, are
+ * resolved to one shared instance, no matter whether they were built by the parser, {@link RqlBuilder} or a
+ * {@link RqlFilterPreProcessor}. Filters repeating a common restriction, e.g. of the tenant, then hold one copy of it,
+ * and caches keyed on subtrees can compare them by identity.
+ *
+ * <p>The table references its filters weakly, so a filter no longer used elsewhere is collected and its entry removed
+ * on a later access. Interning a filter interns its subtrees bottom-up without recursion; a node is only copied if one
+ * of its children was replaced by an equal, already interned one. Filters of other implementations than
+ * {@link RqlFilterNode} and {@link RqlFilterImpl} are returned as they are, since only these are known to be
+ * immutable.</p>
+ */
+public final class RqlFilterInterner {
+
+   private final Map<Ref, Ref> table = new ConcurrentHashMap<>();
+   private final ReferenceQueue<RqlFilter> collected = new ReferenceQueue<>();
+
+   private final RqlTreeTraversal.FilterFolder<RqlFilter> interning = new RqlTreeTraversal.FilterFolder<>() {
+      @Override
+      public RqlFilter prune( final RqlFilter filter ) {
+         return filter instanceof RqlFilterImpl || filter instanceof RqlFilterNode ? null : filter;
+      }
+
+      @Override
+      public RqlFilter combine( final RqlFilter filter, final List<RqlFilter> children ) {
+         return lookup( withChildren( filter, children ) );
+      }
+   };
+
+   /**
+    * @param model the model, whose select and options are kept as they are
+    * @return the model with its filter interned, the model itself if the filter already is
+    */
+   public RqlQueryModel intern( final RqlQueryModel model ) {
+      final RqlFilter filter = model.getFilter().orElse( null );
+      final RqlFilter interned = intern( filter );
+      return interned == filter ? model : new RqlQueryModelImpl( model.getSelect(), interned, model.getOptions() );
+   }
+
+   /**
+    * @param filter the filter, may be {@code null}
+    * @return the shared instance equal to the filter, the filter itself if it is the first one interned
+    */
+   public RqlFilter intern( final RqlFilter filter ) {
+      expungeCollected();
+      return filter == null ? null : RqlTreeTraversal.fold( filter, interning );
+   }
+
+   /**
+    * @return the number of interned nodes, including ones collected but not yet removed
+    */
+   public int size() {
+      expungeCollected();
+      return table.size();
+   }
+
+   private RqlFilter lookup( final RqlFilter filter ) {
+      final Ref probe = new Ref( filter, null );
+      while ( true ) {
+         final Ref existing = table.get( probe );
+         final RqlFilter shared = existing == null ? null : existing.get();
+         if ( shared != null ) {
+            return shared;
+         }
+         final Ref ref = new Ref( filter, collected );
+         final Ref previous = table.putIfAbsent( ref, ref );
+         if ( previous == null ) {
+            return filter;
+         }
+         final RqlFilter concurrent = previous.get();
+         if ( concurrent != null ) {
+            return concurrent;
+         }
+         // the equal filter was collected in the meantime, its entry is removed with the next access
+         table.remove( previous );
+      }
+   }
+
+   private void expungeCollected() {
+      for ( Object ref = collected.poll(); ref != null; ref = collected.poll() ) {
+         table.remove( ref );
+      }
+   }
+
+   /**
+    * @return the node itself if the children are the same, otherwise a copy with the children of the same implementation
+    */
+   private static RqlFilter withChildren( final RqlFilter node, final List<RqlFilter> children ) {
+      final List<RqlFilter> originalChildren = node.getChildren();
+      for ( int i = 0; i < children.size(); i++ ) {
+         if ( children.get( i ) != originalChildren.get( i ) ) {
+            return node instanceof RqlFilterNode
+                  ? RqlFilterNode.logical( node.getFilterType(), children )
+                  : new RqlFilterImpl( node.getFilterType(), children );
+         }
+      }
+      return node;
+   }
+
+   /**
+    * Weak key of the table, equal to another key referencing an equal filter. Once collected, a key is only equal to
+    * itself, so it can still be removed.
+    */
+   private static final class Ref extends WeakReference<RqlFilter> {
+      private final int hash;
+
+      Ref( final RqlFilter filter, final ReferenceQueue<RqlFilter> queue ) {
+         super( filter, queue );
+         hash = filter.hashCode();
+      }
+
+      @Override
+      public boolean equals( final Object other ) {
+         if ( this == other ) {
+            return true;
+         }
+         if ( !( other instanceof final Ref ref ) || hash != ref.hash ) {
+            return false;
+         }
+         final RqlFilter filter = get();
+         return filter != null && filter.equals( ref.get() );
+      }
+
+      @Override
+      public int hashCode() {
+         return hash;
+      }
+   }
+}
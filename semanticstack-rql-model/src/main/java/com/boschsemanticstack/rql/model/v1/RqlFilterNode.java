@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+import com.boschsemanticstack.rql.model.v1.impl.RqlToStringWriter;
+
+/**
+ * Closed hierarchy of compact, immutable filters, one record per kind of node, as produced by the parser. Unlike
+ * switching on {@link #getFilterType()} and {@link #getOperator()}, a {@code switch} over the records is checked for
+ * exhaustiveness by the compiler and deconstructs the node in one go:
+ * <pre>
+ * return switch ( RqlFilterNode.of( filter ) ) {
+ *    case RqlFilterNode.And( List&lt;RqlFilter&gt; children ) -&gt; ...
+ *    case RqlFilterNode.Comparison( RqlFieldPath attributePath, RqlFilter.Operator operator, Object value ) -&gt; ...
+ *    ...
+ * };
+ * </pre>
+ * Callers preferring double dispatch implement a {@link Visitor} instead.
+ *
+ * <p>The records still are {@link RqlFilter}s, so all existing consumers keep working. Filters of all implementations
+ * are equal if their trees are structurally equal, see {@link #structurallyEqual(RqlFilter, RqlFilter)}, so a parsed
+ * filter equals one built by {@link RqlBuilder}. The hash codes of {@code and} and {@code or} nodes are cached in
+ * their children list.</p>
+ */
+public sealed interface RqlFilterNode extends RqlFilter {
+
+   /**
+    * @param filter a filter of any implementation
+    * @return the filter itself if it already is a node, otherwise a node with its properties and the same children
+    */
+   static RqlFilterNode of( final RqlFilter filter ) {
+      if ( filter instanceof final RqlFilterNode node ) {
+         return node;
+      }
+      return switch ( filter.getFilterType() ) {
+         case AND, OR, NOT -> logical( filter.getFilterType(), filter.getChildren() );
+         case VALUE -> condition( filter.getAttributePath(), filter.getOperator(), filter.getValues() );
+      };
+   }
+
+   /**
+    * @param type the type of the logical operation
+    * @param children its operands, exactly one for {@code not}
+    * @return the node of the operation
+    */
+   static RqlFilterNode logical( final FilterType type, final List<? extends RqlFilter> children ) {
+      return switch ( type ) {
+         case AND -> new And( FilterChildren.of( children ) );
+         case OR -> new Or( FilterChildren.of( children ) );
+         case NOT -> {
+            if ( children.size() != 1 ) {
+               throw new IllegalArgumentException( "A not filter needs exactly one operand, but got " + children.size() + "." );
+            }
+            yield new Not( children.get( 0 ) );
+         }
+         case VALUE -> throw new IllegalArgumentException( "Not a logical operation: " + type );
+      };
+   }
+
+   /**
+    * @param attributePath the attribute to compare, canonicalized by the symbol table of the caller
+    * @param operator how to compare it
+    * @param value the value to compare with, a list of values for {@code in}
+    * @return the node of the condition
+    */
+   @SuppressWarnings( "unchecked" )
+   static RqlFilterNode condition( final RqlFieldPath attributePath, final Operator operator, final Object value ) {
+      return switch ( operator.getGroup() ) {
+         case IN -> new In( attributePath, value instanceof List ? (List<Object>) value : Collections.singletonList( value ) );
+         case LIKE -> new Like( attributePath, operator == Operator.LIKE_IGNORE_CASE, (String) singleValue( value ) );
+         case COMPARE -> new Comparison( attributePath, operator, singleValue( value ) );
+      };
+   }
+
+   /**
+    * @param attribute the attribute to compare, canonicalized by the {@link RqlSymbolTable#shared() shared symbol table}
+    * @param operator how to compare it
+    * @param value the value to compare with, a list of values for {@code in}
+    * @return the node of the condition
+    */
+   static RqlFilterNode condition( final String attribute, final Operator operator, final Object value ) {
+      return condition( RqlFieldPath.of( attribute ), operator, value );
+   }
+
+   private static Object singleValue( final Object value ) {
+      if ( value instanceof final List<?> values ) {
+         if ( values.size() != 1 ) {
+            throw new IllegalArgumentException( "Expected a single value, but got " + values.size() + "." );
+         }
+         return values.get( 0 );
+      }
+      return value;
+   }
+
+   /**
+    * Calls the method of the visitor for the type of this node.
+    */
+   default <R> R accept( final Visitor<R> visitor ) {
+      return switch ( this ) {
+         case final And and -> visitor.visitAnd( and );
+         case final Or or -> visitor.visitOr( or );
+         case final Not not -> visitor.visitNot( not );
+         case final Comparison comparison -> visitor.visitComparison( comparison );
+         case final In in -> visitor.visitIn( in );
+         case final Like like -> visitor.visitLike( like );
+      };
+   }
+
+   @Override
+   default <T> T accept( final RqlModelVisitor<? extends T> visitor ) {
+      return visitor.visitFilter( this );
+   }
+
+   @Override
+   default FilterType getFilterType() {
+      return FilterType.VALUE;
+   }
+
+   @Override
+   default String getAttribute() {
+      return null;
+   }
+
+   @Override
+   default Operator getOperator() {
+      return null;
+   }
+
+   @Override
+   default List<RqlFilter> getChildren() {
+      return List.of();
+   }
+
+   @Override
+   default List<Object> getValues() {
+      return List.of();
+   }
+
+   @Override
+   default Object getValue() {
+      return null;
+   }
+
+   @Override
+   default int getChildCount() {
+      return getChildren().size();
+   }
+
+   /**
+    * Visits the nodes of a filter by their type.
+    *
+    * @param <R> the result of visiting a node
+    */
+   interface Visitor<R> {
+      R visitAnd( And and );
+
+      R visitOr( Or or );
+
+      R visitNot( Not not );
+
+      R visitComparison( Comparison comparison );
+
+      R visitIn( In in );
+
+      R visitLike( Like like );
+   }
+
+   /**
+    * A conjunction of filters.
+    */
+   record And( List<RqlFilter> children ) implements RqlFilterNode {
+      public And {
+         children = FilterChildren.of( children );
+      }
+
+      @Override
+      public FilterType getFilterType() {
+         return FilterType.AND;
+      }
+
+      @Override
+      public List<RqlFilter> getChildren() {
+         return children;
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         return o instanceof final RqlFilter other && structurallyEqual( this, other );
+      }
+
+      @Override
+      public int hashCode() {
+         return structuralHashCode( this );
+      }
+
+      @Override
+      public String toString() {
+         return new RqlToStringWriter().visitFilter( this );
+      }
+   }
+
+   /**
+    * A disjunction of filters; without operands the filter no value matches.
+    */
+   record Or( List<RqlFilter> children ) implements RqlFilterNode {
+      public Or {
+         children = FilterChildren.of( children );
+      }
+
+      @Override
+      public FilterType getFilterType() {
+         return FilterType.OR;
+      }
+
+      @Override
+      public List<RqlFilter> getChildren() {
+         return children;
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         return o instanceof final RqlFilter other && structurallyEqual( this, other );
+      }
+
+      @Override
+      public int hashCode() {
+         return structuralHashCode( this );
+      }
+
+      @Override
+      public String toString() {
+         return new RqlToStringWriter().visitFilter( this );
+      }
+   }
+
+   /**
+    * The negation of a filter.
+    */
+   record Not( RqlFilter child ) implements RqlFilterNode {
+      public Not {
+         Objects.requireNonNull( child );
+      }
+
+      /**
+       * @return the singleton list of the child, as a view for consumers of {@link RqlFilter#getChildren()}
+       */
+      public List<RqlFilter> children() {
+         return List.of( child );
+      }
+
+      @Override
+      public FilterType getFilterType() {
+         return FilterType.NOT;
+      }
+
+      @Override
+      public List<RqlFilter> getChildren() {
+         return children();
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         return o instanceof final RqlFilter other && structurallyEqual( this, other );
+      }
+
+      @Override
+      public int hashCode() {
+         return structuralHashCode( this );
+      }
+
+      @Override
+      public String toString() {
+         return new RqlToStringWriter().visitFilter( this );
+      }
+   }
+
+   /**
+    * A comparison of an attribute with a single value, which may be {@code null}.
+    */
+   record Comparison( RqlFieldPath attributePath, Operator operator, Object value ) implements RqlFilterNode {
+      public Comparison {
+         Objects.requireNonNull( attributePath );
+         if ( operator.getGroup() != OperatorGroup.COMPARE ) {
+            throw new IllegalArgumentException( "Not a comparison: " + operator );
+         }
+      }
+
+      public Comparison( final String attribute, final Operator operator, final Object value ) {
+         this( RqlFieldPath.of( attribute ), operator, value );
+      }
+
+      /**
+       * @return the singleton list of the value, as a view for consumers of {@link RqlFilter#getValues()}
+       */
+      public List<Object> values() {
+         return Collections.singletonList( value );
+      }
+
+      @Override
+      public String getAttribute() {
+         return attributePath.getPath();
+      }
+
+      @Override
+      public RqlFieldPath getAttributePath() {
+         return attributePath;
+      }
+
+      @Override
+      public Operator getOperator() {
+         return operator;
+      }
+
+      @Override
+      public Object getValue() {
+         return value;
+      }
+
+      @Override
+      public List<Object> getValues() {
+         return values();
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         return o instanceof final RqlFilter other && structurallyEqual( this, other );
+      }
+
+      @Override
+      public int hashCode() {
+         return structuralHashCode( this );
+      }
+
+      @Override
+      public String toString() {
+         return new RqlToStringWriter().visitFilter( this );
+      }
+   }
+
+   /**
+    * A test whether an attribute has one of a list of values; the values may be an {@link RqlValueList}.
+    */
+   record In( RqlFieldPath attributePath, List<Object> values ) implements RqlFilterNode {
+      public In {
+         Objects.requireNonNull( attributePath );
+         values = values instanceof RqlValueList ? values : Collections.unmodifiableList( new ArrayList<>( values ) );
+      }
+
+      public In( final String attribute, final List<Object> values ) {
+         this( RqlFieldPath.of( attribute ), values );
+      }
+
+      @Override
+      public String getAttribute() {
+         return attributePath.getPath();
+      }
+
+      @Override
+      public RqlFieldPath getAttributePath() {
+         return attributePath;
+      }
+
+      @Override
+      public Operator getOperator() {
+         return Operator.IN;
+      }
+
+      @Override
+      public Object getValue() {
+         return values.size() == 1 ? values.get( 0 ) : values.isEmpty() ? null : values;
+      }
+
+      @Override
+      public List<Object> getValues() {
+         return values;
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         return o instanceof final RqlFilter other && structurallyEqual( this, other );
+      }
+
+      @Override
+      public int hashCode() {
+         return structuralHashCode( this );
+      }
+
+      @Override
+      public String toString() {
+         return new RqlToStringWriter().visitFilter( this );
+      }
+   }
+
+   /**
+    * A match of an attribute against a pattern with wildcards.
+    */
+   record Like( RqlFieldPath attributePath, boolean ignoreCase, String pattern ) implements RqlFilterNode {
+      public Like {
+         Objects.requireNonNull( attributePath );
+      }
+
+      public Like( final String attribute, final boolean ignoreCase, final String pattern ) {
+         this( RqlFieldPath.of( attribute ), ignoreCase, pattern );
+      }
+
+      /**
+       * @return the singleton list of the pattern, as a view for consumers of {@link RqlFilter#getValues()}
+       */
+      public List<Object> values() {
+         return Collections.singletonList( pattern );
+      }
+
+      @Override
+      public String getAttribute() {
+         return attributePath.getPath();
+      }
+
+      @Override
+      public RqlFieldPath getAttributePath() {
+         return attributePath;
+      }
+
+      @Override
+      public Operator getOperator() {
+         return ignoreCase ? Operator.LIKE_IGNORE_CASE : Operator.LIKE;
+      }
+
+      @Override
+      public Object getValue() {
+         return pattern;
+      }
+
+      @Override
+      public List<Object> getValues() {
+         return values();
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         return o instanceof final RqlFilter other && structurallyEqual( this, other );
+      }
+
+      @Override
+      public int hashCode() {
+         return structuralHashCode( this );
+      }
+
+      @Override
+      public String toString() {
+         return new RqlToStringWriter().visitFilter( this );
+      }
+   }
+
+   /**
+    * Defines equality of filters of all implementations: filters are equal if they have the same type, operator,
+    * attribute and values and equal children in the same order. Compares without recursion.
+    */
+   static boolean structurallyEqual( final RqlFilter left, final RqlFilter right ) {
+      final Deque<RqlFilter> pending = new ArrayDeque<>();
+      pending.push( right );
+      pending.push( left );
+      while ( !pending.isEmpty() ) {
+         final RqlFilter leftNode = pending.pop();
+         final RqlFilter rightNode = pending.pop();
+         if ( leftNode == rightNode ) {
+            continue;
+         }
+         final List<RqlFilter> leftChildren = leftNode.getChildren();
+         final List<RqlFilter> rightChildren = rightNode.getChildren();
+         if ( leftNode.getFilterType() != rightNode.getFilterType()
+               || leftNode.getOperator() != rightNode.getOperator()
+               || !Objects.equals( leftNode.getAttribute(), rightNode.getAttribute() )
+               || leftChildren.size() != rightChildren.size()
+               || !leftNode.getValues().equals( rightNode.getValues() ) ) {
+            return false;
+         }
+         for ( int i = leftChildren.size() - 1; i >= 0; i-- ) {
+            pending.push( rightChildren.get( i ) );
+            pending.push( leftChildren.get( i ) );
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Defines the hash code of filters of all implementations consistent with
+    * {@link #structurallyEqual(RqlFilter, RqlFilter)}: {@code 31} times the {@link #headerHashCode(RqlFilter) hash
+    * code of the node} plus the hash code of the list of its children. Hashes without recursion.
+    */
+   static int structuralHashCode( final RqlFilter filter ) {
+      return RqlTreeTraversal.fold( filter, FilterChildren.HASHER );
+   }
+
+   /**
+    * Hashes a filter without its children; enums contribute their ordinal to keep hash codes stable across JVMs.
+    */
+   static int headerHashCode( final RqlFilter filter ) {
+      int result = filter.getFilterType().ordinal();
+      result = 31 * result + ( filter.getOperator() == null ? -1 : filter.getOperator().ordinal() );
+      result = 31 * result + Objects.hashCode( filter.getAttribute() );
+      return 31 * result + filter.getValues().hashCode();
+   }
+}
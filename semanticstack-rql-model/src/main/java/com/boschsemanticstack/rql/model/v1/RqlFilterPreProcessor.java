@@ -28,24 +28,30 @@ public interface RqlFilterPreProcessor {
 
    /**
     * The entry point of the transformation.
-    * This method will visit the subtree recursively and replace the matching parts.
+    * This method will visit the subtree and replace the matching parts; it does so without recursion, so the depth
+    * of the subtree is not limited by the call stack.
     *
     * @param filter the subtree to visit
     * @return the transformed subtree.
     */
    default RqlFilter visit( final RqlFilter filter ) {
-      if ( matches( filter ) ) {
-         return replaceSubTree( filter );
-      }
-      if ( filter.getChildCount() == 0 ) {
-         return filter;
-      }
-      final List<RqlFilter> originalChildren = filter.getChildren();
-      final List<RqlFilter> visitedChildren = originalChildren.stream().map( this::visit ).toList();
-      if ( originalChildren.equals( visitedChildren ) ) {
-         return filter;
-      }
-      return new RqlFilterImpl( filter.getFilterType(), visitedChildren );
+      return RqlTreeTraversal.fold( filter, new RqlTreeTraversal.FilterFolder<>() {
+         @Override
+         public RqlFilter prune( final RqlFilter node ) {
+            return matches( node ) ? replaceSubTree( node ) : null;
+         }
+
+         @Override
+         public RqlFilter combine( final RqlFilter node, final List<RqlFilter> visitedChildren ) {
+            final List<RqlFilter> originalChildren = node.getChildren();
+            for ( int i = 0; i < visitedChildren.size(); i++ ) {
+               if ( visitedChildren.get( i ) != originalChildren.get( i ) ) {
+                  return new RqlFilterImpl( node.getFilterType(), visitedChildren );
+               }
+            }
+            return node; // unchanged subtrees are kept as they are
+         }
+      } );
    }
 
    RqlFilter replaceSubTree( RqlFilter filter );
@@ -54,4 +54,12 @@ public interface RqlQueryModel extends RqlModelNode {
    default boolean isEmpty() {
       return getChildren().isEmpty();
    }
+
+   /**
+    * @return whether the filter is known to match nothing, so the query has an empty result
+    * @see RqlFilter#isAlwaysFalse()
+    */
+   default boolean isAlwaysFalse() {
+      return getFilter().map( RqlFilter::isAlwaysFalse ).orElse( false );
+   }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+
+/**
+ * Applies a set of {@link RqlFilterPreProcessor rules} to a filter in one bottom-up pass: once the children of a node
+ * are rewritten, the first rule {@link RqlFilterPreProcessor#matches(RqlFilter) matching} the node
+ * {@link RqlFilterPreProcessor#replaceSubTree(RqlFilter) replaces} it, the new parts of the replacement are rewritten
+ * the same way and the rules are tried again, until none matches. So, unlike applying the rules one after the other,
+ * a rule also sees what a later rule produced, e.g. the {@code eq} of a {@code not(ne(...))} within an {@code or}.
+ *
+ * <p>Subtrees no rule changes are shared with the original filter, and a subtree occurring several times is rewritten
+ * once. The traversal needs no recursion for deep filters. An engine is immutable and can be shared between threads;
+ * its rules must be, too.</p>
+ */
+public final class RqlRewriteEngine {
+
+   /**
+    * How often the rules may replace one node before they are considered not to terminate.
+    */
+   static final int MAX_REPLACEMENTS_PER_NODE = 100;
+
+   private final List<RqlFilterPreProcessor> rules;
+
+   /**
+    * @param rules the rules, tried in this order
+    */
+   public RqlRewriteEngine( final List<? extends RqlFilterPreProcessor> rules ) {
+      this.rules = List.copyOf( rules );
+   }
+
+   /**
+    * @return the rules, in the order they are tried
+    */
+   public List<RqlFilterPreProcessor> getRules() {
+      return rules;
+   }
+
+   /**
+    * @return the filter rewritten until no rule matches any of its nodes
+    * @throws IllegalStateException if the rules keep replacing a node
+    */
+   public RqlFilter rewrite( final RqlFilter filter ) {
+      return rewriteAndCount( filter ).filter();
+   }
+
+   /**
+    * Like {@link #rewrite(RqlFilter)}, additionally counting how often each rule fired.
+    *
+    * @throws IllegalStateException if the rules keep replacing a node
+    */
+   public Result rewriteAndCount( final RqlFilter filter ) {
+      final Pass pass = new Pass();
+      final RqlFilter result = filter == null ? null : pass.rewrite( filter );
+      final Map<RqlFilterPreProcessor, Integer> fireCounts = new LinkedHashMap<>();
+      for ( int i = 0; i < rules.size(); i++ ) {
+         fireCounts.put( rules.get( i ), pass.fireCounts[i] );
+      }
+      return new Result( result, Collections.unmodifiableMap( fireCounts ) );
+   }
+
+   /**
+    * @param filter the rewritten filter, {@code null} if there was none
+    * @param fireCounts how often each rule replaced a node, in the order of the rules
+    */
+   public record Result( RqlFilter filter, Map<RqlFilterPreProcessor, Integer> fireCounts ) {
+
+      /**
+       * @return how often all rules together replaced a node
+       */
+      public int totalFireCount() {
+         return fireCounts.values().stream().mapToInt( Integer::intValue ).sum();
+      }
+   }
+
+   /**
+    * The state of rewriting one filter.
+    */
+   private final class Pass implements RqlTreeTraversal.FilterFolder<RqlFilter> {
+      private final int[] fireCounts = new int[rules.size()];
+      /**
+       * Maps each node visited so far, original or replacement, to its rewritten form.
+       */
+      private final Map<RqlFilter, RqlFilter> rewritten = new IdentityHashMap<>();
+
+      RqlFilter rewrite( final RqlFilter filter ) {
+         return RqlTreeTraversal.fold( filter, this );
+      }
+
+      @Override
+      public RqlFilter prune( final RqlFilter node ) {
+         return rewritten.get( node );
+      }
+
+      @Override
+      public RqlFilter combine( final RqlFilter node, final List<RqlFilter> children ) {
+         RqlFilter current = withChildren( node, children );
+         for ( int replacements = 0; ; replacements++ ) {
+            final int rule = firstMatchingRule( current );
+            if ( rule < 0 ) {
+               break;
+            }
+            if ( replacements == MAX_REPLACEMENTS_PER_NODE ) {
+               throw new IllegalStateException( "Filter rules replaced a node " + MAX_REPLACEMENTS_PER_NODE
+                     + " times without reaching a result, they seem to replace each other's results." );
+            }
+            fireCounts[rule]++;
+            final RqlFilter replacement = rules.get( rule ).replaceSubTree( current );
+            final List<RqlFilter> replacementChildren = replacement.getChildren();
+            final RqlFilter[] rewrittenChildren = new RqlFilter[replacementChildren.size()];
+            for ( int i = 0; i < rewrittenChildren.length; i++ ) {
+               rewrittenChildren[i] = rewrite( replacementChildren.get( i ) );
+            }
+            current = withChildren( replacement, List.of( rewrittenChildren ) );
+         }
+         rewritten.put( node, current );
+         rewritten.put( current, current );
+         return current;
+      }
+
+      private int firstMatchingRule( final RqlFilter filter ) {
+         for ( int i = 0; i < rules.size(); i++ ) {
+            if ( rules.get( i ).matches( filter ) ) {
+               return i;
+            }
+         }
+         return -1;
+      }
+
+      /**
+       * @return the node itself if the children are the same, otherwise a copy with the children
+       */
+      private static RqlFilter withChildren( final RqlFilter node, final List<RqlFilter> children ) {
+         final List<RqlFilter> originalChildren = node.getChildren();
+         for ( int i = 0; i < children.size(); i++ ) {
+            if ( children.get( i ) != originalChildren.get( i ) ) {
+               return node instanceof RqlFilterNode
+                     ? RqlFilterNode.logical( node.getFilterType(), children )
+                     : new RqlFilterImpl( node.getFilterType(), children );
+            }
+         }
+         return node;
+      }
+   }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The shape of a query: its structure without the literal values, e.g. to share a query plan or to group metrics.
+ * {@code and(eq(a,1),gt(b,"x"))} and {@code and(eq(a,7),gt(b,"y"))} have the same shape, whose
+ * {@link #fingerprint(RqlQueryModel) fingerprint} is a stable 64-bit hash over
+ * <ul>
+ *    <li>the selected attributes,</li>
+ *    <li>the filter structure with its attributes and operators, whether a compared value is {@code null}, a boolean,
+ *    a number, a string or another value, and the number of values of an {@code in} condition rounded up to a power
+ *    of two,</li>
+ *    <li>the sorted attributes with their directions and</li>
+ *    <li>whether the query has a limit or a cursor.</li>
+ * </ul>
+ * The fingerprint is independent of the JVM, so it may be shared between processes. It is computed in one pass over
+ * the model, which itself allocates nothing beyond the optionals returned by the model, except for filters nested
+ * deeper than {@value #MAX_RECURSION_DEPTH} levels.
+ *
+ * <p>The values left out are returned by {@link #literals(RqlQueryModel)}; queries of one shape return as many
+ * literals in the same order, unless they differ in the size of an {@code in} condition.</p>
+ */
+public final class RqlShape {
+
+   /**
+    * Depth up to which filters are traversed recursively; deeper ones are traversed with an explicit stack.
+    */
+   static final int MAX_RECURSION_DEPTH = 64;
+
+   private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+   private static final long PRIME = 0x100000001b3L;
+
+   private static final int NO_VALUE = 0;
+   private static final int NULL_VALUE = 1;
+   private static final int BOOLEAN_VALUE = 2;
+   private static final int NUMBER_VALUE = 3;
+   private static final int STRING_VALUE = 4;
+   private static final int OTHER_VALUE = 5;
+
+   private RqlShape() {
+   }
+
+   /**
+    * @return the fingerprint of the shape of the query
+    */
+   public static long fingerprint( final RqlQueryModel model ) {
+      long hash = OFFSET_BASIS;
+      final List<String> attributes = model.getSelect().attributes();
+      hash = mix( hash, attributes.size() );
+      for ( int i = 0; i < attributes.size(); i++ ) {
+         hash = mix( hash, attributes.get( i ) );
+      }
+      final RqlFilter filter = model.getFilter().orElse( null );
+      hash = filter == null ? mix( hash, -1 ) : hashFilter( filter, hash, 0 );
+      return finish( hashOptions( model.getOptions(), hash ) );
+   }
+
+   /**
+    * @return the fingerprint of the shape of the filter
+    */
+   public static long fingerprint( final RqlFilter filter ) {
+      return finish( hashFilter( filter, OFFSET_BASIS, 0 ) );
+   }
+
+   /**
+    * @return the literals of the query in a fixed order: the values of the filter conditions in the order they are
+    *       written, then offset and limit of the slice and then the cursor, if present, and its limit
+    */
+   public static List<Object> literals( final RqlQueryModel model ) {
+      final List<Object> literals = model.getFilter().map( RqlShape::literals ).orElseGet( ArrayList::new );
+      final RqlOptions options = model.getOptions();
+      options.getSlice().ifPresent( slice -> {
+         literals.add( slice.offset() );
+         literals.add( slice.limit() );
+      } );
+      options.getCursor().ifPresent( cursor -> {
+         cursor.cursor().ifPresent( literals::add );
+         literals.add( cursor.limit() );
+      } );
+      return literals;
+   }
+
+   /**
+    * @return the values of the filter conditions in the order they are written
+    */
+   public static List<Object> literals( final RqlFilter filter ) {
+      final List<Object> literals = new ArrayList<>();
+      final Deque<RqlFilter> pending = new ArrayDeque<>();
+      pending.push( filter );
+      while ( !pending.isEmpty() ) {
+         final RqlFilter node = pending.pop();
+         if ( node.getFilterType() == RqlFilter.FilterType.VALUE ) {
+            literals.addAll( node.getValues() );
+         }
+         pushChildren( node, pending );
+      }
+      return literals;
+   }
+
+   private static long hashFilter( final RqlFilter filter, final long hash, final int depth ) {
+      if ( depth == MAX_RECURSION_DEPTH ) {
+         return hashDeepFilter( filter, hash );
+      }
+      long result = hashNode( filter, hash );
+      final List<RqlFilter> children = filter.getChildren();
+      for ( int i = 0; i < children.size(); i++ ) {
+         result = hashFilter( children.get( i ), result, depth + 1 );
+      }
+      return result;
+   }
+
+   /**
+    * Hashes the nodes in the same order as {@link #hashFilter(RqlFilter, long, int)}, without recursion.
+    */
+   private static long hashDeepFilter( final RqlFilter filter, final long hash ) {
+      long result = hash;
+      final Deque<RqlFilter> pending = new ArrayDeque<>();
+      pending.push( filter );
+      while ( !pending.isEmpty() ) {
+         final RqlFilter node = pending.pop();
+         result = hashNode( node, result );
+         pushChildren( node, pending );
+      }
+      return result;
+   }
+
+   private static void pushChildren( final RqlFilter filter, final Deque<RqlFilter> pending ) {
+      final List<RqlFilter> children = filter.getChildren();
+      for ( int i = children.size() - 1; i >= 0; i-- ) {
+         pending.push( children.get( i ) );
+      }
+   }
+
+   /**
+    * Hashes the filter without its children, except for their number, which keeps the pre-order of nodes unambiguous.
+    */
+   private static long hashNode( final RqlFilter filter, final long hash ) {
+      long result = mix( hash, filter.getFilterType().ordinal() );
+      if ( filter.getFilterType() != RqlFilter.FilterType.VALUE ) {
+         return mix( result, filter.getChildren().size() );
+      }
+      result = mix( result, filter.getOperator().ordinal() );
+      result = mix( result, filter.getAttribute() );
+      final List<Object> values = filter.getValues();
+      if ( filter.getOperator() == RqlFilter.Operator.IN ) {
+         return mix( result, sizeBucket( values.size() ) );
+      }
+      return mix( result, values.isEmpty() ? NO_VALUE : valueKind( values.get( 0 ) ) );
+   }
+
+   private static long hashOptions( final RqlOptions options, final long hash ) {
+      final List<RqlFieldDirection> fieldDirections = options.getOrder().fieldDirections();
+      long result = mix( hash, fieldDirections.size() );
+      for ( int i = 0; i < fieldDirections.size(); i++ ) {
+         final RqlFieldDirection fieldDirection = fieldDirections.get( i );
+         result = mix( result, fieldDirection.attribute() );
+         result = mix( result, fieldDirection.direction().ordinal() );
+      }
+      result = mix( result, options.getSlice().isPresent() ? 1 : 0 );
+      final RqlCursor cursor = options.getCursor().orElse( null );
+      return mix( result, cursor == null ? 0 : cursor.cursor().isPresent() ? 2 : 1 );
+   }
+
+   /**
+    * @return the exponent of the smallest power of two not less than the size
+    */
+   private static int sizeBucket( final int size ) {
+      return size <= 1 ? size : 33 - Integer.numberOfLeadingZeros( size - 1 );
+   }
+
+   private static int valueKind( final Object value ) {
+      if ( value == null ) {
+         return NULL_VALUE;
+      }
+      if ( value instanceof Boolean ) {
+         return BOOLEAN_VALUE;
+      }
+      if ( value instanceof Number ) {
+         return NUMBER_VALUE;
+      }
+      return value instanceof String ? STRING_VALUE : OTHER_VALUE;
+   }
+
+   /**
+    * Mixes the value into the hash like FNV-1a does with a byte.
+    */
+   private static long mix( final long hash, final long value ) {
+      return ( hash ^ value ) * PRIME;
+   }
+
+   private static long mix( final long hash, final String value ) {
+      long result = mix( hash, value.length() );
+      for ( int i = 0; i < value.length(); i++ ) {
+         result = mix( result, value.charAt( i ) );
+      }
+      return result;
+   }
+
+   /**
+    * Spreads the bits of the hash, as the last step of MurmurHash3 does.
+    */
+   private static long finish( final long hash ) {
+      long result = hash;
+      result ^= result >>> 33;
+      result *= 0xff51afd7ed558ccdL;
+      result ^= result >>> 33;
+      result *= 0xc4ceb9f97a53e1a5L;
+      return result ^ result >>> 33;
+   }
+}
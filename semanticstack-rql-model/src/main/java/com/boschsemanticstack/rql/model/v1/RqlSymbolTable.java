@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe table canonicalizing the symbols that recur across queries: field names, which are turned into
+ * shared {@link RqlFieldPath}s, and optionally short string literals such as status codes. Models built with one table
+ * share the instances of these symbols, so caches keyed on them compare by identity most of the time.
+ *
+ * <p>Fields and literals are each held in two generations of at most half the maximum size. Once the young generation
+ * is full, it becomes the old one and the previous old one is dropped; symbols found in the old generation are moved
+ * back into the young one. Symbols still in use thus stay shared, while ones from unusual queries are evicted after two
+ * generations instead of filling the table for good.</p>
+ */
+public final class RqlSymbolTable {
+
+   /**
+    * Default maximum number of fields and of literals held by a table.
+    */
+   public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+   private static final RqlSymbolTable SHARED = new RqlSymbolTable( DEFAULT_MAXIMUM_SIZE, 0 );
+
+   private final int maximumLiteralLength;
+   private final Generations<RqlFieldPath> fieldPaths;
+   private final Generations<String> literals;
+
+   /**
+    * @param maximumSize how many fields and, separately, how many literals the table holds at most
+    * @param maximumLiteralLength up to which length string literals are interned, {@code 0} to intern none
+    */
+   public RqlSymbolTable( final int maximumSize, final int maximumLiteralLength ) {
+      if ( maximumSize < 0 || maximumLiteralLength < 0 ) {
+         throw new IllegalArgumentException( "Sizes must not be negative." );
+      }
+      this.maximumLiteralLength = maximumLiteralLength;
+      fieldPaths = new Generations<>( maximumSize / 2 );
+      literals = new Generations<>( maximumSize / 2 );
+   }
+
+   /**
+    * @return the table used by default, which canonicalizes fields but no literals
+    */
+   public static RqlSymbolTable shared() {
+      return SHARED;
+   }
+
+   /**
+    * @param field the name of a possibly nested field
+    * @return the canonical path of the field
+    */
+   public RqlFieldPath fieldPath( final String field ) {
+      return fieldPaths.get( field, RqlFieldPath::new );
+   }
+
+   /**
+    * @param field the name of a possibly nested field
+    * @return the canonical instance of the name
+    */
+   public String field( final String field ) {
+      return fieldPath( field ).getPath();
+   }
+
+   /**
+    * @param literal the value of a string literal
+    * @return the canonical instance of the value if it is short enough to be interned, otherwise the value itself
+    */
+   public String literal( final String literal ) {
+      if ( literal == null || literal.length() > maximumLiteralLength ) {
+         return literal;
+      }
+      return literals.get( literal, Function.identity() );
+   }
+
+   /**
+    * @return the number of fields held by the table
+    */
+   public int getFieldCount() {
+      return fieldPaths.size();
+   }
+
+   /**
+    * @return the number of literals held by the table
+    */
+   public int getLiteralCount() {
+      return literals.size();
+   }
+
+   /**
+    * A young and an old generation of symbols by their text.
+    */
+   private static final class Generations<V> {
+      private final int generationSize;
+      private volatile Map<String, V> young = new ConcurrentHashMap<>();
+      private volatile Map<String, V> old = Map.of();
+
+      Generations( final int generationSize ) {
+         this.generationSize = generationSize;
+      }
+
+      V get( final String key, final Function<String, V> create ) {
+         final Map<String, V> current = young;
+         final V cached = current.get( key );
+         if ( cached != null ) {
+            return cached;
+         }
+         final V promoted = old.get( key );
+         final V value = promoted == null ? create.apply( key ) : promoted;
+         if ( generationSize == 0 ) {
+            return value;
+         }
+         if ( current.size() >= generationSize ) {
+            rotate( current );
+         }
+         final V previous = young.putIfAbsent( key, value );
+         return previous == null ? value : previous;
+      }
+
+      private synchronized void rotate( final Map<String, V> full ) {
+         if ( young == full ) {
+            old = full;
+            young = new ConcurrentHashMap<>();
+         }
+      }
+
+      int size() {
+         final Map<String, V> current = young;
+         int size = current.size();
+         for ( final String key : old.keySet() ) {
+            if ( !current.containsKey( key ) ) {
+               size++;
+            }
+         }
+         return size;
+      }
+   }
+}
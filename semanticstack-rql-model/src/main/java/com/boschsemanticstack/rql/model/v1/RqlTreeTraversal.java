@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Processes trees, like filters, bottom-up without recursion: the path from the root to the current node is kept on
+ * an explicit stack on the heap instead of the call stack. A deeply nested filter, e.g. generated by a machine, thus
+ * needs no more call stack than a shallow one, which matters most on virtual threads with their small stacks.
+ */
+public final class RqlTreeTraversal {
+
+   private RqlTreeTraversal() {
+   }
+
+   /**
+    * Folds a tree into the result of its root, computing the result of each node from the results of its children,
+    * which are folded in order.
+    *
+    * @param root the root of the tree
+    * @param folder how to descend into the tree and combine the results
+    * @param <N> the type of the nodes
+    * @param <R> the type of the results
+    * @return the result of the root
+    */
+   public static <N, R> R fold( final N root, final Folder<N, R> folder ) {
+      final Deque<Frame<N, R>> path = new ArrayDeque<>();
+      N node = root;
+      while ( true ) {
+         R result = folder.prune( node );
+         if ( result == null ) {
+            final List<? extends N> children = folder.children( node );
+            if ( !children.isEmpty() ) {
+               path.push( new Frame<>( node, children ) );
+               node = children.get( 0 );
+               continue;
+            }
+            result = folder.combine( node, List.of() );
+         }
+
+         while ( true ) {
+            final Frame<N, R> parent = path.peek();
+            if ( parent == null ) {
+               return result;
+            }
+            parent.results.add( result );
+            if ( parent.results.size() < parent.children.size() ) {
+               node = parent.children.get( parent.results.size() );
+               break;
+            }
+            path.pop();
+            result = folder.combine( parent.node, parent.results );
+         }
+      }
+   }
+
+   /**
+    * Tells {@link #fold(Object, Folder)} how to descend into a tree and how to combine the results of its nodes.
+    *
+    * @param <N> the type of the nodes
+    * @param <R> the type of the results
+    */
+   public interface Folder<N, R> {
+
+      /**
+       * @return the children of the node in the order they are folded, empty for a leaf
+       */
+      List<? extends N> children( N node );
+
+      /**
+       * Called for each node before its children; allows computing its result without descending into them.
+       *
+       * @return the result of the node or {@code null} to fold its children and {@link #combine(Object, List)} their
+       *       results
+       */
+      default R prune( final N node ) {
+         return null;
+      }
+
+      /**
+       * @param childResults the results of the children of the node in their order, empty for a leaf; the list is not
+       *       used by the traversal afterwards
+       * @return the result of the node, which may be {@code null}
+       */
+      R combine( N node, List<R> childResults );
+   }
+
+   /**
+    * A {@link Folder} of filters descending into {@link RqlFilter#getChildren()}.
+    *
+    * @param <R> the type of the results
+    */
+   public interface FilterFolder<R> extends Folder<RqlFilter, R> {
+
+      @Override
+      default List<RqlFilter> children( final RqlFilter filter ) {
+         return filter.getChildren();
+      }
+   }
+
+   private static final class Frame<N, R> {
+      private final N node;
+      private final List<? extends N> children;
+      private final List<R> results;
+
+      Frame( final N node, final List<? extends N> children ) {
+         this.node = node;
+         this.children = children;
+         results = new ArrayList<>( children.size() );
+      }
+   }
+}
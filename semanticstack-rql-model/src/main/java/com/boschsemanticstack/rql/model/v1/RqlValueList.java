@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.model.v1;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of the values of an {@code in} filter that are all of the same type, stored in a plain array.
+ *
+ * <p>Numbers are kept unboxed: {@link #get(int)} boxes on every call, while {@link #getInt(int)},
+ * {@link #getLong(int)} and {@link #getDouble(int)} read them without allocating. Equality and hash code follow the
+ * {@link List} contract, so a list of ints equals a list of the same {@link Integer}s.</p>
+ */
+public abstract class RqlValueList extends AbstractList<Object> implements RandomAccess {
+
+   private RqlValueList() {
+   }
+
+   /**
+    * @param values the values, copied into the list
+    * @return the values as a list of {@link Integer}s
+    */
+   public static RqlValueList ofInts( final int... values ) {
+      return ofInts( values, values.length );
+   }
+
+   /**
+    * @param values an array holding the values at its beginning, copied into the list
+    * @param length the number of values
+    * @return the values as a list of {@link Integer}s
+    */
+   public static RqlValueList ofInts( final int[] values, final int length ) {
+      return new IntValues( Arrays.copyOf( values, length ) );
+   }
+
+   /**
+    * @param values the values, copied into the list
+    * @return the values as a list of {@link Long}s
+    */
+   public static RqlValueList ofLongs( final long... values ) {
+      return ofLongs( values, values.length );
+   }
+
+   /**
+    * @param values an array holding the values at its beginning, copied into the list
+    * @param length the number of values
+    * @return the values as a list of {@link Long}s
+    */
+   public static RqlValueList ofLongs( final long[] values, final int length ) {
+      return new LongValues( Arrays.copyOf( values, length ) );
+   }
+
+   /**
+    * @param values the values, copied into the list
+    * @return the values as a list of {@link Double}s
+    */
+   public static RqlValueList ofDoubles( final double... values ) {
+      return ofDoubles( values, values.length );
+   }
+
+   /**
+    * @param values an array holding the values at its beginning, copied into the list
+    * @param length the number of values
+    * @return the values as a list of {@link Double}s
+    */
+   public static RqlValueList ofDoubles( final double[] values, final int length ) {
+      return new DoubleValues( Arrays.copyOf( values, length ) );
+   }
+
+   /**
+    * @param values the values, copied into the list
+    * @return the values as a list of {@link String}s
+    */
+   public static RqlValueList ofStrings( final String... values ) {
+      return ofStrings( values, values.length );
+   }
+
+   /**
+    * @param values an array holding the values at its beginning, copied into the list
+    * @param length the number of values
+    * @return the values as a list of {@link String}s
+    */
+   public static RqlValueList ofStrings( final String[] values, final int length ) {
+      return new StringValues( Arrays.copyOf( values, length ) );
+   }
+
+   /**
+    * @return the class of all values returned by {@link #get(int)}: {@code Integer}, {@code Long}, {@code Double} or
+    *       {@code String}
+    */
+   public abstract Class<?> getElementType();
+
+   /**
+    * @throws UnsupportedOperationException if the values are not ints
+    */
+   public int getInt( final int index ) {
+      throw unsupported( int.class );
+   }
+
+   /**
+    * @throws UnsupportedOperationException if the values are neither ints nor longs
+    */
+   public long getLong( final int index ) {
+      throw unsupported( long.class );
+   }
+
+   /**
+    * @throws UnsupportedOperationException if the values are strings or longs, which a double cannot hold exactly
+    */
+   public double getDouble( final int index ) {
+      throw unsupported( double.class );
+   }
+
+   /**
+    * @throws UnsupportedOperationException if the values are not strings
+    */
+   public String getString( final int index ) {
+      throw unsupported( String.class );
+   }
+
+   private UnsupportedOperationException unsupported( final Class<?> type ) {
+      return new UnsupportedOperationException( "Cannot read " + getElementType().getSimpleName() + " values as " + type.getSimpleName() );
+   }
+
+   private static final class IntValues extends RqlValueList {
+      private final int[] values;
+
+      private IntValues( final int[] values ) {
+         this.values = values;
+      }
+
+      @Override
+      public Class<?> getElementType() {
+         return Integer.class;
+      }
+
+      @Override
+      public Object get( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public int size() {
+         return values.length;
+      }
+
+      @Override
+      public int getInt( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public long getLong( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public double getDouble( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         return o instanceof final IntValues other ? Arrays.equals( values, other.values ) : super.equals( o );
+      }
+
+      @Override
+      public int hashCode() {
+         int hashCode = 1;
+         for ( final int value : values ) {
+            hashCode = 31 * hashCode + Integer.hashCode( value );
+         }
+         return hashCode;
+      }
+   }
+
+   private static final class LongValues extends RqlValueList {
+      private final long[] values;
+
+      private LongValues( final long[] values ) {
+         this.values = values;
+      }
+
+      @Override
+      public Class<?> getElementType() {
+         return Long.class;
+      }
+
+      @Override
+      public Object get( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public int size() {
+         return values.length;
+      }
+
+      @Override
+      public long getLong( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         return o instanceof final LongValues other ? Arrays.equals( values, other.values ) : super.equals( o );
+      }
+
+      @Override
+      public int hashCode() {
+         int hashCode = 1;
+         for ( final long value : values ) {
+            hashCode = 31 * hashCode + Long.hashCode( value );
+         }
+         return hashCode;
+      }
+   }
+
+   private static final class DoubleValues extends RqlValueList {
+      private final double[] values;
+
+      private DoubleValues( final double[] values ) {
+         this.values = values;
+      }
+
+      @Override
+      public Class<?> getElementType() {
+         return Double.class;
+      }
+
+      @Override
+      public Object get( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public int size() {
+         return values.length;
+      }
+
+      @Override
+      public double getDouble( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public boolean equals( final Object o ) {
+         // Arrays.equals compares like Double.equals, so NaN equals NaN and 0.0 differs from -0.0 as in a boxed list
+         return o instanceof final DoubleValues other ? Arrays.equals( values, other.values ) : super.equals( o );
+      }
+
+      @Override
+      public int hashCode() {
+         int hashCode = 1;
+         for ( final double value : values ) {
+            hashCode = 31 * hashCode + Double.hashCode( value );
+         }
+         return hashCode;
+      }
+   }
+
+   private static final class StringValues extends RqlValueList {
+      private final String[] values;
+
+      private StringValues( final String[] values ) {
+         this.values = values;
+      }
+
+      @Override
+      public Class<?> getElementType() {
+         return String.class;
+      }
+
+      @Override
+      public Object get( final int index ) {
+         return values[index];
+      }
+
+      @Override
+      public int size() {
+         return values.length;
+      }
+
+      @Override
+      public String getString( final int index ) {
+         return values[index];
+      }
+   }
+}
@@ -14,6 +14,7 @@
 package com.boschsemanticstack.rql.model.v1.impl;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -21,12 +22,14 @@ import java.util.stream.Collectors;
 import com.boschsemanticstack.rql.model.v1.RqlCursor;
 import com.boschsemanticstack.rql.model.v1.RqlFieldDirection;
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
 import com.boschsemanticstack.rql.model.v1.RqlModelVisitor;
 import com.boschsemanticstack.rql.model.v1.RqlOptions;
 import com.boschsemanticstack.rql.model.v1.RqlOrder;
 import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
 import com.boschsemanticstack.rql.model.v1.RqlSelect;
 import com.boschsemanticstack.rql.model.v1.RqlSlice;
+import com.boschsemanticstack.rql.model.v1.RqlTreeTraversal;
 
 public abstract class AbstractRqlWriter extends RqlModelVisitor<String> {
    @Override
@@ -39,36 +42,77 @@ public abstract class AbstractRqlWriter extends RqlModelVisitor<String> {
 
    @Override
    public String visitFilter( final RqlFilter model ) {
-      return switch ( model.getFilterType() ) {
-         case VALUE -> visitComparison( model );
-         case OR, AND, NOT -> visitLogicOperation( model );
+      return switch ( model ) {
+         case final RqlFilterNode.And and -> visitLogicOperation( model );
+         case final RqlFilterNode.Or or -> visitLogicOperation( model );
+         case final RqlFilterNode.Not not -> visitLogicOperation( model );
+         case final RqlFilterNode.Comparison comparison -> visitComparison( model );
+         case final RqlFilterNode.In in -> visitComparison( model );
+         case final RqlFilterNode.Like like -> visitComparison( model );
+         default -> model.getFilterType() == RqlFilter.FilterType.VALUE // other implementations, without converting them
+               ? visitComparison( model )
+               : visitLogicOperation( model );
       };
    }
 
+   /**
+    * Writes a logical operation and all filters nested in it, leaving the comparisons to
+    * {@link #visitComparison(RqlFilter)} and the operations to {@link #writeLogicOperation(RqlFilter, List)}. The
+    * nested filters are traversed without recursion, so their depth is not limited by the call stack.
+    */
    @Override
    public String visitLogicOperation( final RqlFilter filter ) {
-      return switch ( filter.getFilterType() ) {
-         case OR -> filter.getChildren().stream()
-               .map( this::visitFilter )
-               .collect( Collectors.joining( ",", "or(", ")" ) );
-         case AND -> filter.getChildren().stream()
-               .map( this::visitFilter )
-               .collect( Collectors.joining( ",", "and(", ")" ) );
-         case NOT -> filter.getChildren().stream()
-               .map( this::visitFilter )
-               .collect( Collectors.joining( ",", "not(", ")" ) );
+      if ( filter.getFilterType() == RqlFilter.FilterType.VALUE ) {
+         throw new IllegalArgumentException( filter.getFilterType() + "-filter is not a "
+               + "valid argument for visitLogicOperation!" );
+      }
+      return RqlTreeTraversal.fold( filter, new RqlTreeTraversal.FilterFolder<>() {
+         @Override
+         public String combine( final RqlFilter node, final List<String> operands ) {
+            return node.getFilterType() == RqlFilter.FilterType.VALUE
+                  ? visitComparison( node )
+                  : writeLogicOperation( node, operands );
+         }
+      } );
+   }
+
+   /**
+    * @param operands the already written operands of the operation
+    */
+   protected String writeLogicOperation( final RqlFilter filter, final List<String> operands ) {
+      final String prefix = switch ( filter.getFilterType() ) {
+         case OR -> "or(";
+         case AND -> "and(";
+         case NOT -> "not(";
          default -> throw new IllegalArgumentException( filter.getFilterType() + "-filter is not a "
                + "valid argument for visitLogicOperation!" );
       };
+      return operands.stream().collect( Collectors.joining( ",", prefix, ")" ) );
    }
 
    @Override
    public String visitComparison( final RqlFilter filter ) {
-      return filter.getOperator().getName() + "(" + filter.getAttribute() + "," + valuesToString( filter ) + ")";
+      final String values = switch ( filter ) {
+         case final RqlFilterNode.Comparison comparison -> getValueAsString( comparison.value() );
+         case final RqlFilterNode.Like like -> getValueAsString( like.pattern() );
+         case final RqlFilterNode.In in -> getValuesAsString( in.values() );
+         case final RqlFilterNode node -> throw invalidComparison( node );
+         default -> {
+            if ( filter.getFilterType() != RqlFilter.FilterType.VALUE ) {
+               throw invalidComparison( filter );
+            }
+            yield getValuesAsString( filter.getValues() );
+         }
+      };
+      return filter.getOperator().getName() + "(" + filter.getAttribute() + "," + values + ")";
+   }
+
+   private static IllegalArgumentException invalidComparison( final RqlFilter filter ) {
+      return new IllegalArgumentException( filter.getFilterType() + "-filter is not a valid argument for visitComparison!" );
    }
 
-   private String valuesToString( final RqlFilter filter ) {
-      return filter.getValues().stream()
+   private String getValuesAsString( final List<Object> values ) {
+      return values.stream()
             .map( this::getValueAsString )
             .collect( Collectors.joining( "," ) );
    }
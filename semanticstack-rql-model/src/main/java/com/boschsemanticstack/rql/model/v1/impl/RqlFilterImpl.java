@@ -12,35 +12,74 @@
  */
 package com.boschsemanticstack.rql.model.v1.impl;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Objects;
 
+import com.boschsemanticstack.rql.model.v1.RqlFieldPath;
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
 import com.boschsemanticstack.rql.model.v1.RqlModelVisitor;
+import com.boschsemanticstack.rql.model.v1.RqlTreeTraversal;
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
 
 /**
  * Parsing RQL expressions results in a RqlFilter object or a tree of RqlFilter
  * objects. Every RqlFilter represents a condition of the RQL expression.
+ *
+ * <p>Filters are equal if their trees are structurally equal, also to filters of other implementations like the
+ * {@link RqlFilterNode} records; comparing and hashing walk the tree without recursion, and the hash code of each node
+ * is cached once computed.</p>
  */
 public class RqlFilterImpl implements RqlFilter {
 
+   private static final RqlTreeTraversal.FilterFolder<Integer> HASHER = new RqlTreeTraversal.FilterFolder<>() {
+      @Override
+      public Integer prune( final RqlFilter filter ) {
+         if ( filter instanceof final RqlFilterImpl impl ) {
+            return impl.hash != 0 ? impl.hash : null;
+         }
+         return filter.hashCode();
+      }
+
+      @Override
+      public Integer combine( final RqlFilter filter, final List<Integer> childHashes ) {
+         final RqlFilterImpl impl = (RqlFilterImpl) filter;
+         int childrenHash = 1;
+         for ( final Integer childHash : childHashes ) {
+            childrenHash = 31 * childrenHash + childHash;
+         }
+         impl.hash = 31 * RqlFilterNode.headerHashCode( impl ) + childrenHash;
+         return impl.hash;
+      }
+   };
+
+   private static final RqlFilterImpl ALWAYS_FALSE = new RqlFilterImpl( FilterType.OR, List.of() );
+
    private final List<RqlFilter> subFilters;
 
    private final RqlFilter.FilterType filterType;
    private final String attribute;
    private final Operator operator;
-   private final List<Object> values = new ArrayList<>();
+   private final List<Object> values; // unmodifiable, as models are shared through the parse cache
+
+   private int hash; // 0 until computed, like String
+   private RqlFieldPath attributePath; // null until resolved
 
    public RqlFilterImpl( final String name, final Operator comparisonType, final Object value ) {
       filterType = FilterType.VALUE;
       attribute = name;
       operator = comparisonType;
-      if ( value instanceof List ) {
-         values.addAll( (Collection<?>) value );
+      if ( value instanceof final RqlValueList valueList ) {
+         values = valueList; // immutable and compact, no copy needed
+      } else if ( value instanceof List ) {
+         values = Collections.unmodifiableList( new ArrayList<>( (Collection<?>) value ) );
       } else {
-         values.add( value );
+         values = Collections.singletonList( value );
       }
       subFilters = Collections.emptyList();
    }
@@ -54,6 +93,7 @@ public class RqlFilterImpl implements RqlFilter {
       this.filterType = filterType;
       attribute = null;
       operator = null;
+      values = Collections.emptyList();
 
       this.subFilters = null == subFilters
             ? Collections.emptyList()
@@ -64,12 +104,21 @@ public class RqlFilterImpl implements RqlFilter {
       this.filterType = filterType;
       attribute = null;
       operator = null;
+      values = Collections.emptyList();
 
       this.subFilters = null == subFilters
             ? Collections.emptyList()
             : List.copyOf( subFilters ); // defensive copy
    }
 
+   /**
+    * @return the filter no value matches
+    * @see RqlFilter#isAlwaysFalse()
+    */
+   public static RqlFilterImpl alwaysFalse() {
+      return ALWAYS_FALSE;
+   }
+
    @Override
    public FilterType getFilterType() {
       return filterType;
@@ -85,6 +134,14 @@ public class RqlFilterImpl implements RqlFilter {
       return subFilters;
    }
 
+   @Override
+   public RqlFieldPath getAttributePath() {
+      if ( attributePath == null && attribute != null ) {
+         attributePath = RqlFieldPath.of( attribute ); // racy but idempotent, like the hash
+      }
+      return attributePath;
+   }
+
    @Override
    public Operator getOperator() {
       return operator;
@@ -103,7 +160,7 @@ public class RqlFilterImpl implements RqlFilter {
 
    @Override
    public List<Object> getValues() {
-      return Collections.unmodifiableList( values );
+      return values;
    }
 
    @Override
@@ -115,4 +172,63 @@ public class RqlFilterImpl implements RqlFilter {
    public int getChildCount() {
       return subFilters.size();
    }
+
+   @Override
+   public boolean equals( final Object o ) {
+      if ( this == o ) {
+         return true;
+      }
+      if ( !( o instanceof final RqlFilterImpl other ) ) {
+         return o instanceof final RqlFilter filter && RqlFilterNode.structurallyEqual( this, filter );
+      }
+      final Deque<RqlFilterImpl> pending = new ArrayDeque<>();
+      pending.push( other );
+      pending.push( this );
+      while ( !pending.isEmpty() ) {
+         final RqlFilterImpl left = pending.pop();
+         final RqlFilterImpl right = pending.pop();
+         if ( left == right ) {
+            continue;
+         }
+         if ( left.hash != 0 && right.hash != 0 && left.hash != right.hash ) {
+            return false;
+         }
+         if ( !left.headerEquals( right ) ) {
+            return false;
+         }
+         for ( int i = 0; i < left.subFilters.size(); i++ ) {
+            final RqlFilter leftChild = left.subFilters.get( i );
+            final RqlFilter rightChild = right.subFilters.get( i );
+            if ( leftChild instanceof final RqlFilterImpl leftImpl && rightChild instanceof final RqlFilterImpl rightImpl ) {
+               pending.push( rightImpl );
+               pending.push( leftImpl );
+            } else if ( !leftChild.equals( rightChild ) ) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   @Override
+   public int hashCode() {
+      final int result = hash;
+      return result != 0 ? result : RqlTreeTraversal.fold( this, HASHER );
+   }
+
+   /**
+    * Compares this node to another without their children, except for their number.
+    */
+   private boolean headerEquals( final RqlFilterImpl other ) {
+      return filterType == other.filterType
+            && operator == other.operator
+            && Objects.equals( attribute, other.attribute )
+            && values.equals( other.values )
+            && subFilters.size() == other.subFilters.size();
+   }
+
+   @Override
+   public String toString() {
+      return new RqlToStringWriter().visitFilter( this );
+   }
 }
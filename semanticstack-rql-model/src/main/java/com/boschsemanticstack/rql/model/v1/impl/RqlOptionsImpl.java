@@ -15,6 +15,7 @@ package com.boschsemanticstack.rql.model.v1.impl;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 import com.boschsemanticstack.rql.model.v1.RqlCursor;
@@ -33,6 +34,8 @@ public class RqlOptionsImpl implements RqlOptions {
 
    private final RqlOrder order;
 
+   private int hash; // 0 until computed
+
    public RqlOptionsImpl( final RqlSlice slice, final RqlOrder order, final RqlCursor cursor ) {
       this.slice = slice;
       this.cursor = cursor;
@@ -83,4 +86,27 @@ public class RqlOptionsImpl implements RqlOptions {
    public static RqlOptions emptyOptions() {
       return new RqlOptionsImpl( null, null, null );
    }
+
+   @Override
+   public boolean equals( final Object o ) {
+      if ( this == o ) {
+         return true;
+      }
+      if ( !( o instanceof final RqlOptionsImpl other ) ) {
+         return false;
+      }
+      return Objects.equals( slice, other.slice )
+            && Objects.equals( cursor, other.cursor )
+            && order.equals( other.order );
+   }
+
+   @Override
+   public int hashCode() {
+      int result = hash;
+      if ( result == 0 ) {
+         result = Objects.hash( slice, cursor, order );
+         hash = result;
+      }
+      return result;
+   }
 }
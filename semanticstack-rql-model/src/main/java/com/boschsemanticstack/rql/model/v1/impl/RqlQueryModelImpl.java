@@ -14,6 +14,7 @@
 package com.boschsemanticstack.rql.model.v1.impl;
 
 import java.util.Collections;
+import java.util.Objects;
 import java.util.Optional;
 
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
@@ -21,11 +22,18 @@ import com.boschsemanticstack.rql.model.v1.RqlOptions;
 import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
 import com.boschsemanticstack.rql.model.v1.RqlSelect;
 
+/**
+ * The model of a parsed query. Models are equal if their select, filter and options are structurally equal, so they
+ * can serve as cache keys; {@link com.boschsemanticstack.rql.model.v1.RqlCanonicalizer} additionally maps semantically
+ * equal models to one key.
+ */
 public class RqlQueryModelImpl implements RqlQueryModel {
    private final RqlSelect select;
    private final RqlFilter filter;
    private final RqlOptions options;
 
+   private int hash; // 0 until computed
+
    public RqlQueryModelImpl( final RqlSelect select, final RqlFilter filter, final RqlOptions options ) {
       this.select = null == select ? new RqlSelectImpl( Collections.emptyList() ) : select;
       this.filter = filter;
@@ -46,4 +54,33 @@ public class RqlQueryModelImpl implements RqlQueryModel {
    public RqlOptions getOptions() {
       return options;
    }
+
+   @Override
+   public boolean equals( final Object o ) {
+      if ( this == o ) {
+         return true;
+      }
+      if ( !( o instanceof final RqlQueryModelImpl other ) ) {
+         return false;
+      }
+      return ( hash == 0 || other.hash == 0 || hash == other.hash )
+            && select.equals( other.select )
+            && Objects.equals( filter, other.filter )
+            && options.equals( other.options );
+   }
+
+   @Override
+   public int hashCode() {
+      int result = hash;
+      if ( result == 0 ) {
+         result = Objects.hash( select, filter, options );
+         hash = result;
+      }
+      return result;
+   }
+
+   @Override
+   public String toString() {
+      return new RqlToStringWriter().visitModel( this );
+   }
 }
@@ -13,7 +13,9 @@
 
 package com.boschsemanticstack.rql.model.v1.impl.preprocessor;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
 
@@ -23,7 +25,8 @@ import com.boschsemanticstack.rql.model.v1.RqlFilter;
  * <p>
  * This class provides convenience methods to check the structure of RQL
  * filters and to extract information from them. It is intended to be
- * extended by specific pre-processor implementations.
+ * extended by specific pre-processor implementations. The checks are run
+ * on every node of a filter, so they avoid streams.
  */
 public class BaseRqlFilterPreProcessor {
 
@@ -38,15 +41,27 @@ public class BaseRqlFilterPreProcessor {
    protected boolean allChildrenHaveOperator(
          final RqlFilter filter,
          final RqlFilter.Operator operator ) {
-      return filter.getChildren().stream()
-            .allMatch( child -> child.getOperator() == operator );
+      final List<RqlFilter> children = filter.getChildren();
+      for ( int i = 0; i < children.size(); i++ ) {
+         if ( children.get( i ).getOperator() != operator ) {
+            return false;
+         }
+      }
+      return true;
    }
 
    protected boolean allChildrenHaveSameAttribute( final RqlFilter filter ) {
-      return filter.getChildren().stream()
-                   .map( RqlFilter::getAttribute )
-                   .distinct()
-                   .count() == 1L;
+      final List<RqlFilter> children = filter.getChildren();
+      if ( children.isEmpty() ) {
+         return false;
+      }
+      final String attribute = children.get( 0 ).getAttribute();
+      for ( int i = 1; i < children.size(); i++ ) {
+         if ( !Objects.equals( children.get( i ).getAttribute(), attribute ) ) {
+            return false;
+         }
+      }
+      return true;
    }
 
    protected RqlFilter.Operator firstChildOperator( final RqlFilter filter ) {
@@ -58,8 +73,11 @@ public class BaseRqlFilterPreProcessor {
    }
 
    protected List<Object> childValuesAsList( final RqlFilter filter ) {
-      return filter.getChildren().stream()
-            .map( RqlFilter::getValue )
-            .toList();
+      final List<RqlFilter> children = filter.getChildren();
+      final List<Object> values = new ArrayList<>( children.size() );
+      for ( int i = 0; i < children.size(); i++ ) {
+         values.add( children.get( i ).getValue() );
+      }
+      return values;
    }
 }
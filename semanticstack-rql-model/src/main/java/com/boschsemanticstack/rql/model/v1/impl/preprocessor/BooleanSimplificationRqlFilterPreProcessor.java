@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1.impl.preprocessor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
+import com.boschsemanticstack.rql.model.v1.RqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.RqlRewriteEngine;
+
+/**
+ * This preprocessor simplifies the logical operations of a filter, as
+ * machine-generated filters often nest them needlessly. It
+ * <ul>
+ *    <li>flattens AND and OR filters nested in a filter of the same type,</li>
+ *    <li>removes duplicate children of AND and OR filters,</li>
+ *    <li>applies absorption, dropping an OR child of an AND filter that
+ *    contains another child of the AND filter, and vice versa,</li>
+ *    <li>eliminates double negations and</li>
+ *    <li>replaces AND and OR filters with a single child by the child.</li>
+ * </ul>
+ *
+ * <p>
+ * Example:
+ * <pre>
+ * and(
+ *    and(eq(a, 1)),
+ *    and(eq(a, 1), eq(b, 2)),
+ *    or(eq(b, 2), eq(c, 3)),
+ *    not(not(eq(d, 4)))
+ * )
+ * </pre>
+ * becomes
+ * <pre>
+ *    and(eq(a, 1), eq(b, 2), eq(d, 4))
+ * </pre>
+ *
+ * <p>
+ * {@link #replaceSubTree(RqlFilter)} simplifies a single node, expecting its
+ * children to be simplified already, as a {@link RqlRewriteEngine} does;
+ * {@link #visit(RqlFilter)} simplifies a whole filter.
+ */
+public class BooleanSimplificationRqlFilterPreProcessor
+      extends BaseRqlFilterPreProcessor implements RqlFilterPreProcessor {
+
+   private static final int PAIRWISE_SCAN_LIMIT = 16;
+
+   private final RqlRewriteEngine engine = new RqlRewriteEngine( List.of( this ) );
+
+   @Override
+   public boolean matches( final RqlFilter filter ) {
+      return switch ( filter.getFilterType() ) {
+         case NOT -> isUnary( filter ) && firstChild( filter ).getFilterType() == RqlFilter.FilterType.NOT;
+         case AND, OR -> isUnary( filter ) || hasChildOfSameType( filter ) || hasDuplicateOrAbsorbedChild( filter );
+         case VALUE -> false;
+      };
+   }
+
+   @Override
+   public RqlFilter replaceSubTree( final RqlFilter filter ) {
+      if ( filter.getFilterType() == RqlFilter.FilterType.NOT ) {
+         return firstChild( firstChild( filter ) );
+      }
+      final Set<RqlFilter> operands = new LinkedHashSet<>();
+      for ( final RqlFilter child : filter.getChildren() ) {
+         if ( child.getFilterType() == filter.getFilterType() ) {
+            operands.addAll( child.getChildren() );
+         } else {
+            operands.add( child );
+         }
+      }
+      final List<RqlFilter> children = new ArrayList<>( operands.size() );
+      for ( final RqlFilter operand : operands ) {
+         if ( !isAbsorbed( filter.getFilterType(), operand, operands ) ) {
+            children.add( operand );
+         }
+      }
+      return children.size() == 1 ? children.get( 0 ) : RqlFilterNode.logical( filter.getFilterType(), children );
+   }
+
+   /**
+    * Simplifies the whole filter, bottom-up.
+    */
+   @Override
+   public RqlFilter visit( final RqlFilter filter ) {
+      return engine.rewrite( filter );
+   }
+
+   private static RqlFilter firstChild( final RqlFilter filter ) {
+      return filter.getChildren().get( 0 );
+   }
+
+   private static boolean hasChildOfSameType( final RqlFilter filter ) {
+      for ( final RqlFilter child : filter.getChildren() ) {
+         if ( child.getFilterType() == filter.getFilterType() ) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * @return whether a child of the AND or OR filter equals or absorbs another one; few children are compared pairwise,
+    *       so the common small filters are checked without allocating
+    */
+   private static boolean hasDuplicateOrAbsorbedChild( final RqlFilter filter ) {
+      final List<RqlFilter> children = filter.getChildren();
+      if ( children.size() > PAIRWISE_SCAN_LIMIT ) {
+         final Set<RqlFilter> operands = new HashSet<>( children );
+         if ( operands.size() < children.size() ) {
+            return true;
+         }
+         for ( final RqlFilter child : children ) {
+            if ( isAbsorbed( filter.getFilterType(), child, operands ) ) {
+               return true;
+            }
+         }
+         return false;
+      }
+      final RqlFilter.FilterType dual = dual( filter.getFilterType() );
+      for ( int i = 0; i < children.size(); i++ ) {
+         final RqlFilter child = children.get( i );
+         if ( indexOf( children, child, i ) >= 0 ) {
+            return true;
+         }
+         if ( child.getFilterType() == dual ) {
+            final List<RqlFilter> nested = child.getChildren();
+            for ( int j = 0; j < nested.size(); j++ ) {
+               if ( indexOf( children, nested.get( j ), children.size() ) >= 0 ) {
+                  return true;
+               }
+            }
+         }
+      }
+      return false;
+   }
+
+   /**
+    * @return the index of the first of the filters before the end equal to the filter, {@code -1} if there is none
+    */
+   private static int indexOf( final List<RqlFilter> filters, final RqlFilter filter, final int end ) {
+      for ( int i = 0; i < end; i++ ) {
+         if ( filters.get( i ).equals( filter ) ) {
+            return i;
+         }
+      }
+      return -1;
+   }
+
+   private static RqlFilter.FilterType dual( final RqlFilter.FilterType type ) {
+      return type == RqlFilter.FilterType.AND ? RqlFilter.FilterType.OR : RqlFilter.FilterType.AND;
+   }
+
+   /**
+    * @return whether the operand of an AND (OR) filter is an OR (AND) filter containing one of the other operands,
+    *       which makes it redundant: {@code a and (a or b)} equals {@code a}
+    */
+   private static boolean isAbsorbed( final RqlFilter.FilterType type, final RqlFilter operand, final Set<RqlFilter> operands ) {
+      if ( operand.getFilterType() != dual( type ) ) {
+         return false;
+      }
+      for ( final RqlFilter nested : operand.getChildren() ) {
+         if ( operands.contains( nested ) ) {
+            return true;
+         }
+      }
+      return false;
+   }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1.impl.preprocessor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.boschsemanticstack.rql.model.v1.RqlCanonicalizer;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+
+/**
+ * This preprocessor merges the EQ and IN children of an OR filter on the
+ * same attribute into a single IN filter, leaving the other children as
+ * they are, and sorts the values of IN filters and removes duplicates.
+ * Numbers and strings are sorted as arrays of primitives and strings, see
+ * {@link RqlCanonicalizer#sortedDistinctValues(List)}. Sorted lists without
+ * duplicates need fewer bind parameters and allow the store to scan an
+ * index in order.
+ *
+ * <p>
+ * Example:
+ * <pre>
+ * or(
+ *    in(attribute, 5, 1, 2),
+ *    eq(attribute, 3),
+ *    gt(other, 7),
+ *    in(attribute, 2, 4)
+ * )
+ * </pre>
+ * becomes
+ * <pre>
+ * or(
+ *    in(attribute, 1, 2, 3, 4, 5),
+ *    gt(other, 7)
+ * )
+ * </pre>
+ *
+ * <p>
+ * Conditions comparing with {@code null} are left as they are; merged
+ * conditions with a single value become an EQ filter.
+ */
+public class InNormalizationRqlFilterPreProcessor
+      extends BaseRqlFilterPreProcessor implements RqlFilterPreProcessor {
+
+   private static final int PAIRWISE_SCAN_LIMIT = 16;
+
+   @Override
+   public boolean matches( final RqlFilter filter ) {
+      return switch ( filter.getFilterType() ) {
+         case VALUE -> filter.getOperator() == RqlFilter.Operator.IN && isNormalizable( filter )
+               && !RqlCanonicalizer.isSortedDistinct( filter.getValues() );
+         case OR -> hasMergeableConditions( filter.getChildren() );
+         case AND, NOT -> false;
+      };
+   }
+
+   @Override
+   public RqlFilter replaceSubTree( final RqlFilter filter ) {
+      if ( filter.getFilterType() == RqlFilter.FilterType.VALUE ) {
+         return in( filter.getAttribute(), RqlCanonicalizer.sortedDistinctValues( filter.getValues() ) );
+      }
+      return normalize( filter );
+   }
+
+   /**
+    * @return the OR filter with the conditions on each attribute merged, the filter itself if there is nothing to merge
+    */
+   private static RqlFilter normalize( final RqlFilter filter ) {
+      final Map<String, List<RqlFilter>> conditionsByAttribute = new LinkedHashMap<>();
+      for ( final RqlFilter child : filter.getChildren() ) {
+         if ( isNormalizable( child ) ) {
+            conditionsByAttribute.computeIfAbsent( child.getAttribute(), attribute -> new ArrayList<>() ).add( child );
+         }
+      }
+      boolean changed = false;
+      for ( final List<RqlFilter> conditions : conditionsByAttribute.values() ) {
+         changed |= conditions.size() > 1;
+      }
+      if ( !changed ) {
+         return filter;
+      }
+
+      final List<RqlFilter> children = new ArrayList<>();
+      for ( final RqlFilter child : filter.getChildren() ) {
+         final List<RqlFilter> conditions = isNormalizable( child ) ? conditionsByAttribute.get( child.getAttribute() ) : null;
+         if ( conditions == null || conditions.size() == 1 ) {
+            children.add( child );
+         } else if ( conditions.get( 0 ) == child ) {
+            final List<Object> values = new ArrayList<>();
+            for ( final RqlFilter condition : conditions ) {
+               values.addAll( condition.getValues() );
+            }
+            children.add( in( child.getAttribute(), RqlCanonicalizer.sortedDistinctValues( values ) ) );
+         }
+      }
+      return children.size() == 1 ? children.get( 0 ) : new RqlFilterImpl( RqlFilter.FilterType.OR, children );
+   }
+
+   /**
+    * @return whether {@link #normalize(RqlFilter)} merges any of the children; small OR filters are scanned pairwise,
+    *       so the common case allocates nothing
+    */
+   private static boolean hasMergeableConditions( final List<RqlFilter> children ) {
+      if ( children.size() > PAIRWISE_SCAN_LIMIT ) {
+         final Set<String> attributes = new HashSet<>();
+         for ( final RqlFilter child : children ) {
+            if ( isNormalizable( child ) && !attributes.add( child.getAttribute() ) ) {
+               return true;
+            }
+         }
+         return false;
+      }
+      for ( int i = 1; i < children.size(); i++ ) {
+         final RqlFilter child = children.get( i );
+         for ( int j = 0; j < i; j++ ) {
+            final RqlFilter other = children.get( j );
+            if ( child.getAttribute() != null && child.getAttribute().equals( other.getAttribute() )
+                  && isNormalizable( child ) && isNormalizable( other ) ) {
+               return true;
+            }
+         }
+      }
+      return false;
+   }
+
+   private static boolean isNormalizable( final RqlFilter filter ) {
+      if ( filter.getFilterType() != RqlFilter.FilterType.VALUE
+            || ( filter.getOperator() != RqlFilter.Operator.EQ && filter.getOperator() != RqlFilter.Operator.IN ) ) {
+         return false;
+      }
+      final List<Object> values = filter.getValues();
+      if ( values.isEmpty() ) {
+         return false;
+      }
+      for ( int i = 0; i < values.size(); i++ ) {
+         if ( values.get( i ) == null ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static RqlFilter in( final String attribute, final List<Object> values ) {
+      return values.size() == 1
+            ? new RqlFilterImpl( attribute, RqlFilter.Operator.EQ, values.get( 0 ) )
+            : new RqlFilterImpl( attribute, RqlFilter.Operator.IN, values );
+   }
+}
@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.model.v1.impl.preprocessor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+
+/**
+ * This preprocessor merges the conditions of an AND filter on the same
+ * attribute into one value interval or value set and replaces the AND
+ * filter with {@link RqlFilterImpl#alwaysFalse()} if it proves that no
+ * value can match.
+ *
+ * <p>
+ * Only attributes known to hold a single value are merged that way. A
+ * condition on a collection path matches if any element does, so
+ * {@code and(eq(tags, "a"), eq(tags, "b"))} matches entities tagged with
+ * both. By default, all attributes are treated as possibly holding several
+ * values, and only bounds in the same direction are merged, e.g.
+ * {@code and(gt(a, 1), gt(a, 5))} to {@code gt(a, 5)}, which holds for
+ * collections as well. Pass a predicate telling the single valued
+ * attributes to {@link #RangeMergingRqlFilterPreProcessor(Predicate)} to
+ * merge everything shown below.
+ *
+ * <p>
+ * Example:
+ * <pre>
+ * and(
+ *    ge(ts, 2024-01-01T00:00:00Z),
+ *    lt(ts, 2024-02-01T00:00:00Z),
+ *    ge(ts, 2024-01-15T00:00:00Z),
+ *    in(status, "A", "B"),
+ *    eq(status, "B")
+ * )
+ * </pre>
+ * becomes
+ * <pre>
+ * and(
+ *    ge(ts, 2024-01-15T00:00:00Z),
+ *    lt(ts, 2024-02-01T00:00:00Z),
+ *    eq(status, "B")
+ * )
+ * </pre>
+ * while {@code and(eq(status, "A"), eq(status, "B"))} becomes always false,
+ * as does an AND filter with an always false child.
+ *
+ * <p>
+ * Numbers and times are merged with {@code eq}, {@code in}, {@code gt},
+ * {@code ge}, {@code lt} and {@code le}; numbers are compared by value and
+ * times by instant. Other values, like strings, are only merged with
+ * {@code eq} and {@code in} and compared exactly, as the order and equality
+ * of strings in a store may depend on its collation. Conditions comparing
+ * {@code null} or mixing types of values are left as they are.
+ */
+public class RangeMergingRqlFilterPreProcessor
+      extends BaseRqlFilterPreProcessor implements RqlFilterPreProcessor {
+
+   private final Predicate<String> singleValued;
+
+   /**
+    * Creates a preprocessor merging only bounds in the same direction, which is correct for collection paths.
+    */
+   public RangeMergingRqlFilterPreProcessor() {
+      this( attribute -> false );
+   }
+
+   /**
+    * @param singleValued tells whether an attribute holds a single value, so that all of its conditions can be merged
+    *       and contradictions detected; attributes of collection paths must not match
+    */
+   public RangeMergingRqlFilterPreProcessor( final Predicate<String> singleValued ) {
+      this.singleValued = Objects.requireNonNull( singleValued );
+   }
+
+   @Override
+   public boolean matches( final RqlFilter filter ) {
+      return filter.getFilterType() == RqlFilter.FilterType.AND && merge( filter ) != filter;
+   }
+
+   @Override
+   public RqlFilter replaceSubTree( final RqlFilter filter ) {
+      return merge( filter );
+   }
+
+   /**
+    * @return the merged filter, the filter itself if nothing can be merged
+    */
+   private RqlFilter merge( final RqlFilter filter ) {
+      final Map<String, Group> groups = new LinkedHashMap<>();
+      final Map<RqlFilter, Group> groupOfCondition = new IdentityHashMap<>();
+      for ( final RqlFilter child : filter.getChildren() ) {
+         if ( child.isAlwaysFalse() ) {
+            return RqlFilterImpl.alwaysFalse();
+         }
+         final Kind kind = Kind.of( child );
+         if ( kind != null && ( isBound( child.getOperator() ) || singleValued.test( child.getAttribute() ) ) ) {
+            final Group group = groups.computeIfAbsent( child.getAttribute(),
+                  attribute -> new Group( attribute, kind, singleValued.test( attribute ) ) );
+            group.add( child, kind );
+            groupOfCondition.put( child, group );
+         }
+      }
+
+      boolean changed = false;
+      for ( final Group group : groups.values() ) {
+         if ( group.isMerged() ) {
+            if ( group.merged == null ) {
+               return RqlFilterImpl.alwaysFalse();
+            }
+            changed = true;
+         }
+      }
+      if ( !changed ) {
+         return filter;
+      }
+
+      final List<RqlFilter> children = new ArrayList<>();
+      for ( final RqlFilter child : filter.getChildren() ) {
+         final Group group = groupOfCondition.get( child );
+         if ( group == null || !group.isMerged() ) {
+            children.add( child );
+         } else if ( group.conditions.get( 0 ) == child ) {
+            children.addAll( group.merged );
+         }
+      }
+      return children.size() == 1 ? children.get( 0 ) : new RqlFilterImpl( RqlFilter.FilterType.AND, children );
+   }
+
+   private static boolean isBound( final RqlFilter.Operator operator ) {
+      return operator == RqlFilter.Operator.GT || operator == RqlFilter.Operator.GE
+            || operator == RqlFilter.Operator.LT || operator == RqlFilter.Operator.LE;
+   }
+
+   /**
+    * The type of values a condition compares its attribute with.
+    */
+   private enum Kind {
+      NUMBER,
+      TIME,
+      OTHER;
+
+      /**
+       * @return the kind of the values of the condition, {@code null} if the condition cannot be merged
+       */
+      static Kind of( final RqlFilter filter ) {
+         if ( filter.getFilterType() != RqlFilter.FilterType.VALUE ) {
+            return null;
+         }
+         final RqlFilter.Operator operator = filter.getOperator();
+         if ( operator == RqlFilter.Operator.NE || operator.getGroup() == RqlFilter.OperatorGroup.LIKE ) {
+            return null;
+         }
+         final boolean ordered = operator.getGroup() == RqlFilter.OperatorGroup.COMPARE && operator != RqlFilter.Operator.EQ;
+         Kind kind = null;
+         for ( final Object value : filter.getValues() ) {
+            final Kind valueKind = of( value );
+            if ( valueKind == null || ( kind != null && valueKind != kind ) ) {
+               return null;
+            }
+            kind = valueKind;
+         }
+         return ordered && kind == OTHER ? null : kind;
+      }
+
+      private static Kind of( final Object value ) {
+         if ( value instanceof final Double number ) {
+            return Double.isFinite( number ) ? NUMBER : null;
+         }
+         if ( value instanceof Integer || value instanceof Long || value instanceof BigInteger || value instanceof BigDecimal ) {
+            return NUMBER;
+         }
+         if ( value instanceof OffsetDateTime ) {
+            return TIME;
+         }
+         return value == null || value instanceof Number ? null : OTHER;
+      }
+
+      int compare( final Object left, final Object right ) {
+         return switch ( this ) {
+            case NUMBER -> compareNumbers( (Number) left, (Number) right );
+            case TIME -> ( (OffsetDateTime) left ).toInstant().compareTo( ( (OffsetDateTime) right ).toInstant() );
+            case OTHER -> left.equals( right ) ? 0 : 1;
+         };
+      }
+
+      private static int compareNumbers( final Number left, final Number right ) {
+         if ( ( left instanceof Integer || left instanceof Long ) && ( right instanceof Integer || right instanceof Long ) ) {
+            return Long.compare( left.longValue(), right.longValue() );
+         }
+         return toBigDecimal( left ).compareTo( toBigDecimal( right ) );
+      }
+
+      private static BigDecimal toBigDecimal( final Number number ) {
+         if ( number instanceof final BigDecimal decimal ) {
+            return decimal;
+         }
+         if ( number instanceof final BigInteger integer ) {
+            return new BigDecimal( integer );
+         }
+         return number instanceof Double ? new BigDecimal( number.doubleValue() ) : BigDecimal.valueOf( number.longValue() );
+      }
+   }
+
+   /**
+    * The conditions of an AND filter on one attribute; only bounds unless the attribute holds a single value.
+    */
+   private static final class Group {
+      private final String attribute;
+      private final boolean singleValued;
+      private final List<RqlFilter> conditions = new ArrayList<>();
+      /**
+       * The kind of all values, {@code null} if the conditions compare different kinds of values.
+       */
+      private Kind kind;
+      private List<Object> allowed;
+      private Object lower;
+      private boolean lowerInclusive;
+      private Object upper;
+      private boolean upperInclusive;
+      private List<RqlFilter> merged;
+      private boolean isMerged;
+      private boolean isComputed;
+
+      Group( final String attribute, final Kind kind, final boolean singleValued ) {
+         this.attribute = attribute;
+         this.kind = kind;
+         this.singleValued = singleValued;
+      }
+
+      void add( final RqlFilter condition, final Kind conditionKind ) {
+         conditions.add( condition );
+         if ( conditionKind != kind ) {
+            kind = null;
+         }
+      }
+
+      /**
+       * @return whether the conditions are merged into fewer ones, with {@link #merged} {@code null} if none matches
+       */
+      boolean isMerged() {
+         if ( !isComputed ) {
+            isComputed = true;
+            isMerged = kind != null && conditions.size() > 1 && computeMerged();
+         }
+         return isMerged;
+      }
+
+      private boolean computeMerged() {
+         for ( final RqlFilter condition : conditions ) {
+            final Object value = condition.getValues().get( 0 );
+            switch ( condition.getOperator() ) {
+               case EQ, IN -> restrictTo( condition.getValues() );
+               case GT -> raiseLower( value, false );
+               case GE -> raiseLower( value, true );
+               case LT -> lowerUpper( value, false );
+               case LE -> lowerUpper( value, true );
+               default -> throw new IllegalStateException( "Cannot merge " + condition.getOperator() );
+            }
+         }
+
+         if ( allowed != null ) {
+            final List<Object> values = new ArrayList<>();
+            for ( final Object value : allowed ) {
+               if ( isWithinBounds( value ) ) {
+                  values.add( value );
+               }
+            }
+            merged = values.isEmpty() ? null
+                  : List.of( values.size() == 1
+                  ? new RqlFilterImpl( attribute, RqlFilter.Operator.EQ, values.get( 0 ) )
+                  : new RqlFilterImpl( attribute, RqlFilter.Operator.IN, values ) );
+            return true;
+         }
+         if ( singleValued && lower != null && upper != null ) {
+            final int comparison = kind.compare( lower, upper );
+            if ( comparison > 0 || ( comparison == 0 && !( lowerInclusive && upperInclusive ) ) ) {
+               merged = null;
+               return true;
+            }
+            if ( comparison == 0 ) {
+               merged = List.of( new RqlFilterImpl( attribute, RqlFilter.Operator.EQ, lower ) );
+               return true;
+            }
+         }
+         final List<RqlFilter> bounds = new ArrayList<>( 2 );
+         if ( lower != null ) {
+            bounds.add( new RqlFilterImpl( attribute, lowerInclusive ? RqlFilter.Operator.GE : RqlFilter.Operator.GT, lower ) );
+         }
+         if ( upper != null ) {
+            bounds.add( new RqlFilterImpl( attribute, upperInclusive ? RqlFilter.Operator.LE : RqlFilter.Operator.LT, upper ) );
+         }
+         merged = bounds;
+         return bounds.size() < conditions.size();
+      }
+
+      /**
+       * Restricts the allowed values to the given ones, keeping the order of the values first allowed.
+       */
+      private void restrictTo( final List<Object> values ) {
+         final List<Object> restricted = new ArrayList<>();
+         for ( final Object value : allowed == null ? values : allowed ) {
+            if ( ( allowed == null || contains( values, value ) ) && !contains( restricted, value ) ) {
+               restricted.add( value );
+            }
+         }
+         allowed = restricted;
+      }
+
+      private boolean contains( final List<Object> values, final Object value ) {
+         for ( final Object candidate : values ) {
+            if ( kind.compare( candidate, value ) == 0 ) {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      private void raiseLower( final Object value, final boolean inclusive ) {
+         final int comparison = lower == null ? 1 : kind.compare( value, lower );
+         if ( comparison > 0 || ( comparison == 0 && !inclusive ) ) {
+            lower = value;
+            lowerInclusive = inclusive;
+         }
+      }
+
+      private void lowerUpper( final Object value, final boolean inclusive ) {
+         final int comparison = upper == null ? -1 : kind.compare( value, upper );
+         if ( comparison < 0 || ( comparison == 0 && !inclusive ) ) {
+            upper = value;
+            upperInclusive = inclusive;
+         }
+      }
+
+      private boolean isWithinBounds( final Object value ) {
+         if ( lower != null ) {
+            final int comparison = kind.compare( value, lower );
+            if ( comparison < 0 || ( comparison == 0 && !lowerInclusive ) ) {
+               return false;
+            }
+         }
+         if ( upper != null ) {
+            final int comparison = kind.compare( value, upper );
+            return comparison < 0 || ( comparison == 0 && upperInclusive );
+         }
+         return true;
+      }
+   }
+}
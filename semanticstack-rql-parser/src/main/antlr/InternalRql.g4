@@ -48,6 +48,18 @@ filterList // entrypoint for filter if already partitioned
 optionList // entrypoint for options if already partitioned
     : 'option' '=' optionExpression
     ;
+
+selectFragment // entrypoint for the value of a separately passed select parameter
+    : fieldList EOF
+    ;
+
+filterFragment // entrypoint for the value of a separately passed filter parameter
+    : filterExpression EOF
+    ;
+
+optionFragment // entrypoint for the value of a separately passed option parameter
+    : optionExpression EOF
+    ;
 // end toplevel expressions
 
 filterExpression
@@ -60,7 +72,7 @@ filterExpression
 logicalOperator
     : 'not' '(' filterExpression ')'
     | 'and' filterList
-    | 'or' filterList
+    | 'or' '(' (filterExpression (',' filterExpression)*)? ')' // or() is the filter no value matches, e.g. a contradiction
     ;
 
 multiComparison
@@ -13,73 +13,90 @@
 
 package com.boschsemanticstack.rql.parser.v1;
 
+import java.io.Reader;
 import java.util.function.Function;
 
-import com.boschsemanticstack.rql.exceptions.ParseException;
-import com.boschsemanticstack.rql.exceptions.SourceLocation;
-import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlLexer;
 import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
 
-import org.antlr.v4.runtime.BaseErrorListener;
-import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.DefaultErrorStrategy;
 import org.antlr.v4.runtime.ParserRuleContext;
-import org.antlr.v4.runtime.RecognitionException;
-import org.antlr.v4.runtime.Recognizer;
 
 class BaseRqlParserApi {
+   private final RqlParserConfig config;
+   private final ParserSessionPool sessionPool;
+
+   BaseRqlParserApi( final RqlParserConfig config ) {
+      this.config = config;
+      sessionPool = ParserSessionPool.forConfig( config );
+   }
+
+   protected RqlParserConfig getConfig() {
+      return config;
+   }
+
+   ParserSessionPool getSessionPool() {
+      return sessionPool;
+   }
+
    public ParseResult createParseTree( final String rqlQuery ) {
       return createParseTree( rqlQuery, InternalRqlParser::query );
    }
 
    public ParseResult createParseTree( final String rqlQuery, final Function<InternalRqlParser, ParserRuleContext> startingRule ) {
-      final ParseResult result = new ParseResult();
-      final CollectingErrorListener errorListener = new CollectingErrorListener( result );
-      final InternalRqlLexer lexer = new InternalRqlLexer( CharStreams.fromString( rqlQuery ) );
-      final InternalRqlParser parser = new InternalRqlParser( new CommonTokenStream( lexer ) );
-      lexer.removeErrorListeners(); // default error listener prints to System.out
-      lexer.addErrorListener( errorListener );
-
-      parser.setErrorHandler( new DefaultErrorStrategy() );
-      parser.removeErrorListeners(); // default error listener prints to System.out
-      parser.addErrorListener( errorListener );
-      result.setParser( parser );
-
-      try {
-         result.setParseTree( startingRule.apply( parser ) );
-      } catch ( final RecognitionException e ) {
-         new DefaultErrorStrategy().reportError( parser, e ); // should not happen - loops back to collecting Error listener above
+      if ( rqlQuery != null ) {
+         QueryLimitGuard.check( rqlQuery, config );
       }
-      return result;
+      return parse( rqlQuery, startingRule, false );
    }
 
-   private static class CollectingErrorListener extends BaseErrorListener {
-      private final ParseResult result;
+   /**
+    * Parses a complete query that has already been checked against the limits of the config. Depending on
+    * {@link RqlParserConfig#getModelConstruction()} the result holds either the parse tree or the model already built
+    * while parsing.
+    */
+   ParseResult parseQuery( final String rqlQuery ) {
+      return parse( rqlQuery, InternalRqlParser::query,
+            config.getModelConstruction() == RqlParserConfig.ModelConstruction.PARSE_EVENTS );
+   }
 
-      CollectingErrorListener( final ParseResult result ) {
-         this.result = result;
-      }
+   /**
+    * Parses the value of a single query parameter that has already been checked against the limits of the config into
+    * a parse tree.
+    */
+   ParseResult parseFragment( final String fragment, final Function<InternalRqlParser, ParserRuleContext> startingRule ) {
+      return parse( fragment, startingRule, false );
+   }
 
-      @Override
-      public void syntaxError(
-            final Recognizer<?, ?> recognizer,
-            final Object offendingSymbol,
-            final int line,
-            final int charPositionInLine,
-            final String msg,
-            final RecognitionException e ) {
+   /**
+    * Parses a complete query while reading it, always building the model from parse events. The limits of the config
+    * are checked while reading, so an over-limit query is rejected without reading it to its end.
+    */
+   ParseResult parseQuery( final Reader rqlQuery ) {
+      final ParserSession session = sessionPool.acquire();
+      session.configure( config );
+      try {
+         return session.parseStream( QueryLimitGuard.guard( rqlQuery, config ) );
+      } finally {
+         sessionPool.release( session );
+      }
+   }
 
-         if ( line < 0 || charPositionInLine < 0 ) { // ANTLRs way of telling us it has no information on location
-            result.getErrors().add( new ParseException( msg ) );
-            return;
+   private ParseResult parse(
+         final String rqlQuery,
+         final Function<InternalRqlParser, ParserRuleContext> startingRule,
+         final boolean buildModel ) {
+      final ParserSession session = sessionPool.acquire();
+      session.configure( config );
+      try {
+         // stopping at the first error, the single LL pass costs as much as the SLL one, which would only repeat it
+         if ( config.getPredictionStrategy() == RqlParserConfig.PredictionStrategy.SLL_THEN_LL && !config.isStopAtFirstError() ) {
+            final ParseResult sllResult = session.parseSll( rqlQuery, startingRule, buildModel );
+            if ( sllResult != null ) {
+               return sllResult;
+            }
          }
-
-         result.getErrors().add(
-               new ParseException(
-                     msg,
-                     new SourceLocation( line, charPositionInLine + 1 )
-               ) );
+         return session.parseLl( rqlQuery, startingRule, buildModel );
+      } finally {
+         sessionPool.release( session );
       }
    }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A count-min sketch estimating how often a key has been requested recently.
+ *
+ * <p>Counters saturate at 15 and are halved once enough increments have been recorded, so that the estimate
+ * favours keys that are popular now over keys that were popular a long time ago.</p>
+ */
+class FrequencySketch {
+
+   private static final int MAX_FREQUENCY = 15;
+   private static final int[] SEEDS = { 0x97cb3127, 0x2b6b6d49, 0xa5a5a5a5, 0x3c6ef372 };
+
+   private final AtomicIntegerArray counters;
+   private final int mask;
+   private final int resetThreshold;
+   private final AtomicInteger additions = new AtomicInteger();
+
+   FrequencySketch( final int expectedEntries ) {
+      final int size = Integer.highestOneBit( Math.max( 16, expectedEntries * 4 ) - 1 ) << 1;
+      counters = new AtomicIntegerArray( size );
+      mask = size - 1;
+      resetThreshold = Math.max( 160, expectedEntries * 10 );
+   }
+
+   int frequency( final Object key ) {
+      final int hash = spread( key.hashCode() );
+      int frequency = MAX_FREQUENCY;
+      for ( final int seed : SEEDS ) {
+         frequency = Math.min( frequency, counters.get( indexOf( hash, seed ) ) );
+      }
+      return frequency;
+   }
+
+   void increment( final Object key ) {
+      final int hash = spread( key.hashCode() );
+      boolean added = false;
+      for ( final int seed : SEEDS ) {
+         final int index = indexOf( hash, seed );
+         final int previous = counters.getAndUpdate( index, count -> Math.min( MAX_FREQUENCY, count + 1 ) );
+         added |= previous < MAX_FREQUENCY;
+      }
+      if ( added && additions.incrementAndGet() >= resetThreshold ) {
+         reset();
+      }
+   }
+
+   private void reset() {
+      additions.set( 0 );
+      for ( int i = 0; i < counters.length(); i++ ) {
+         counters.getAndUpdate( i, count -> count >>> 1 );
+      }
+   }
+
+   private int indexOf( final int hash, final int seed ) {
+      int h = ( hash ^ seed ) * 0x9e3779b9;
+      h ^= h >>> 16;
+      return h & mask;
+   }
+
+   private static int spread( final int hashCode ) {
+      final int h = hashCode * 0x85ebca6b;
+      return h ^ ( h >>> 13 );
+   }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.Arrays;
+
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
+
+/**
+ * Collects the values of one literal list without boxing them and turns them into a compact {@link RqlValueList}.
+ *
+ * <p>The grammar only allows lists of a single literal type, so a buffer is filled by just one of the add methods
+ * between two calls of {@link #build()}.</p>
+ */
+final class LiteralListBuffer {
+
+   private static final int INITIAL_CAPACITY = 8;
+
+   private int[] ints;
+   private double[] doubles;
+   private String[] strings;
+   private int size;
+
+   void addInt( final int value ) {
+      if ( ints == null ) {
+         ints = new int[INITIAL_CAPACITY];
+      } else if ( size == ints.length ) {
+         ints = Arrays.copyOf( ints, size * 2 );
+      }
+      ints[size++] = value;
+   }
+
+   void addDouble( final double value ) {
+      if ( doubles == null ) {
+         doubles = new double[INITIAL_CAPACITY];
+      } else if ( size == doubles.length ) {
+         doubles = Arrays.copyOf( doubles, size * 2 );
+      }
+      doubles[size++] = value;
+   }
+
+   void addString( final String value ) {
+      if ( strings == null ) {
+         strings = new String[INITIAL_CAPACITY];
+      } else if ( size == strings.length ) {
+         strings = Arrays.copyOf( strings, size * 2 );
+      }
+      strings[size++] = value;
+   }
+
+   /**
+    * @return the collected values; the buffer is empty afterwards
+    */
+   RqlValueList build() {
+      final RqlValueList values;
+      if ( ints != null ) {
+         values = RqlValueList.ofInts( ints, size );
+      } else if ( doubles != null ) {
+         values = RqlValueList.ofDoubles( doubles, size );
+      } else if ( strings != null ) {
+         values = RqlValueList.ofStrings( strings, size );
+      } else {
+         values = RqlValueList.ofStrings();
+      }
+      clear();
+      return values;
+   }
+
+   /**
+    * Drops the collected values, e.g. after a parse failed half way through a list.
+    */
+   void clear() {
+      ints = null;
+      doubles = null;
+      strings = null;
+      size = 0;
+   }
+}
@@ -16,15 +16,16 @@ package com.boschsemanticstack.rql.parser.v1;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.boschsemanticstack.rql.exceptions.ParseException;
-import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
+import com.boschsemanticstack.rql.exceptions.ParseError;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 
 class ParseResult {
-   private final List<ParseException> errors = new ArrayList<>();
+   private final List<ParseError> errors = new ArrayList<>();
    private ParserRuleContext parseTree;
-   private InternalRqlParser parser;
+   private RqlQueryModel model;
+   private RuntimeException modelFailure;
 
    public ParserRuleContext getParseTree() {
       return parseTree;
@@ -34,15 +35,33 @@ class ParseResult {
       this.parseTree = parseTree;
    }
 
-   public InternalRqlParser getParser() {
-      return parser;
+   /**
+    * @return whether the model was already built while parsing, see {@link RqlModelBuildingListener}
+    */
+   public boolean hasModel() {
+      return model != null || modelFailure != null;
    }
 
-   public void setParser( final InternalRqlParser parser ) {
-      this.parser = parser;
+   /**
+    * @return the model built while parsing
+    * @throws RuntimeException if the query is syntactically valid, but its model could not be built
+    */
+   public RqlQueryModel getModel() {
+      if ( modelFailure != null ) {
+         throw modelFailure;
+      }
+      return model;
    }
 
-   public List<ParseException> getErrors() {
+   public void setModel( final RqlQueryModel model ) {
+      this.model = model;
+   }
+
+   public void setModelFailure( final RuntimeException modelFailure ) {
+      this.modelFailure = modelFailure;
+   }
+
+   public List<ParseError> getErrors() {
       return errors;
    }
 }
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+/**
+ * Ends a parse early once its outcome is known, e.g. after the first error when only that one is reported.
+ *
+ * <p>Thrown often, so {@link #INSTANCE} is shared; it has neither a stack trace nor suppressed exceptions, which would
+ * otherwise accumulate on the shared instance.</p>
+ */
+final class ParseStoppedException extends RuntimeException {
+
+   static final ParseStoppedException INSTANCE = new ParseStoppedException();
+
+   private static final long serialVersionUID = 1L;
+
+   private ParseStoppedException() {
+      super( "Parsing stopped early.", null, false, false );
+   }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+import com.boschsemanticstack.rql.exceptions.ParseError;
+import com.boschsemanticstack.rql.exceptions.SourceLocation;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlLexer;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.UnbufferedCharStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * A lexer and parser pair that is reset for every query instead of being created anew.
+ *
+ * <p>A session must only be used by one thread at a time, see {@link ParserSessionPool}.</p>
+ */
+final class ParserSession {
+
+   /**
+    * Initial size of the character buffer of streamed input, which only grows to hold the longest token.
+    */
+   private static final int STREAM_BUFFER_SIZE = 4096;
+   private static final CommonTokenFactory STREAMED_TOKEN_FACTORY = new StreamedTokenFactory();
+
+   private final InternalRqlLexer lexer;
+   private final CommonTokenStream tokens;
+   private final InternalRqlParser parser;
+   private final SessionErrorListener errorListener = new SessionErrorListener();
+   private final DefaultErrorStrategy defaultErrorStrategy = new DefaultErrorStrategy();
+   private final BailErrorStrategy bailErrorStrategy = new BailErrorStrategy();
+   private final RqlModelBuildingListener modelBuilder = new RqlModelBuildingListener();
+   private ParserSessionPool.SharedDfa dfa;
+
+   ParserSession( final ParserSessionPool.SharedDfa dfa ) {
+      lexer = new InternalRqlLexer( CharStreams.fromString( "" ) );
+      tokens = new CommonTokenStream( lexer );
+      parser = new InternalRqlParser( tokens );
+      lexer.removeErrorListeners(); // default error listener prints to System.out
+      lexer.addErrorListener( errorListener );
+      parser.removeErrorListeners(); // default error listener prints to System.out
+      parser.addErrorListener( errorListener );
+      useDfa( dfa );
+   }
+
+   /**
+    * Applies the settings of the config of the current parse to the pooled session, which is shared by all configs
+    * with the same pool settings: whether parsing in LL mode ends with the first lexer or parser error instead of
+    * collecting all of them, and the symbol table of the built models.
+    */
+   void configure( final RqlParserConfig config ) {
+      errorListener.stopAtFirstError = config.isStopAtFirstError();
+      modelBuilder.useSymbolTable( config.getSymbolTable() );
+   }
+
+   ParserSessionPool.SharedDfa getDfa() {
+      return dfa;
+   }
+
+   void useDfa( final ParserSessionPool.SharedDfa dfa ) {
+      this.dfa = dfa;
+      lexer.setInterpreter( new LexerATNSimulator( lexer, InternalRqlLexer._ATN, dfa.lexerDfa(), dfa.contextCache() ) );
+      parser.setInterpreter( new ParserATNSimulator( parser, InternalRqlParser._ATN, dfa.parserDfa(), dfa.contextCache() ) );
+   }
+
+   /**
+    * Parses in SLL mode, giving up on the first lexer or parser error.
+    *
+    * @param buildModel whether to build the query model while parsing instead of a parse tree; only supported for
+    *       the {@code query} rule
+    * @return the result or {@code null} if the query has to be parsed again in LL mode
+    */
+   ParseResult parseSll(
+         final String rqlQuery,
+         final Function<InternalRqlParser, ParserRuleContext> startingRule,
+         final boolean buildModel ) {
+      final ParseResult result = new ParseResult();
+      reset( rqlQuery, null, bailErrorStrategy, PredictionMode.SLL );
+      useModelBuilder( buildModel, null );
+      try {
+         complete( result, startingRule.apply( parser ), buildModel );
+         return result;
+      } catch ( final ParseCancellationException e ) {
+         return null;
+      }
+   }
+
+   /**
+    * Parses in LL mode, collecting all lexer and parser errors.
+    *
+    * @param buildModel whether to build the query model while parsing instead of a parse tree; only supported for
+    *       the {@code query} rule
+    */
+   ParseResult parseLl(
+         final String rqlQuery,
+         final Function<InternalRqlParser, ParserRuleContext> startingRule,
+         final boolean buildModel ) {
+      final ParseResult result = new ParseResult();
+      reset( rqlQuery, result, defaultErrorStrategy, PredictionMode.LL );
+      useModelBuilder( buildModel, result );
+      try {
+         complete( result, startingRule.apply( parser ), buildModel );
+      } catch ( final RecognitionException e ) {
+         defaultErrorStrategy.reportError( parser, e ); // should not happen - loops back to collecting Error listener above
+      } catch ( final ParseStoppedException e ) {
+         // stopped at the first error, which is already collected
+      }
+      return result;
+   }
+
+   /**
+    * Parses a query while reading it, building the query model from parse events. Neither the characters nor the
+    * tokens of the query are kept once the parser has moved past them.
+    *
+    * <p>As streamed input cannot be parsed a second time, it is always parsed in LL mode.</p>
+    *
+    * @throws java.io.UncheckedIOException if reading the query fails
+    */
+   ParseResult parseStream( final Reader rqlQuery ) {
+      final ParseResult result = new ParseResult();
+      errorListener.result = result;
+      try {
+         lexer.setInputStream( new StreamedCharStream( rqlQuery ) );
+         lexer.setTokenFactory( STREAMED_TOKEN_FACTORY );
+         parser.setErrorHandler( defaultErrorStrategy );
+         parser.setTokenStream( new UnbufferedTokenStream<>( lexer ) );
+         parser.setState( ATNState.INVALID_STATE_NUMBER );
+         parser.getInterpreter().setPredictionMode( PredictionMode.LL );
+         useModelBuilder( true, result );
+         complete( result, parser.query(), true );
+      } catch ( final RecognitionException e ) {
+         defaultErrorStrategy.reportError( parser, e ); // should not happen - loops back to collecting Error listener above
+      } catch ( final ParseStoppedException e ) {
+         // stopped at the first error, which is already collected
+      } catch ( final RuntimeException e ) {
+         if ( e.getCause() instanceof final IOException ioException ) { // how UnbufferedCharStream reports read failures
+            throw new UncheckedIOException( ioException );
+         }
+         throw e;
+      }
+      return result;
+   }
+
+   /**
+    * Drops all references to the last query so that an idle session does not keep it reachable.
+    */
+   void clear() {
+      reset( "", null, defaultErrorStrategy, PredictionMode.LL );
+      modelBuilder.reset( null );
+   }
+
+   private void useModelBuilder( final boolean buildModel, final ParseResult result ) {
+      parser.setBuildParseTree( !buildModel );
+      parser.removeParseListener( modelBuilder );
+      if ( buildModel ) {
+         modelBuilder.reset( result );
+         parser.addParseListener( modelBuilder );
+      }
+   }
+
+   private void complete( final ParseResult result, final ParserRuleContext parseTree, final boolean buildModel ) {
+      if ( !buildModel ) {
+         result.setParseTree( parseTree );
+      } else if ( result.getErrors().isEmpty() ) {
+         try {
+            result.setModel( modelBuilder.getModel() );
+         } catch ( final RuntimeException e ) {
+            result.setModelFailure( e );
+         }
+      }
+   }
+
+   private void reset(
+         final String rqlQuery,
+         final ParseResult result,
+         final DefaultErrorStrategy errorStrategy,
+         final PredictionMode predictionMode ) {
+      errorListener.result = result;
+      lexer.setInputStream( CharStreams.fromString( rqlQuery ) );
+      lexer.setTokenFactory( CommonTokenFactory.DEFAULT );
+      tokens.setTokenSource( lexer );
+      parser.setErrorHandler( errorStrategy );
+      parser.setTokenStream( tokens );
+      parser.setState( ATNState.INVALID_STATE_NUMBER ); // not reset by the parser, but the root context must not have an invoking state
+      parser.getInterpreter().setPredictionMode( predictionMode );
+   }
+
+   /**
+    * Collects errors into the current result or, without one, cancels the SLL parse on the first error. The errors are
+    * plain values, so a flood of invalid queries does not create an exception with a stack trace per error.
+    */
+   private static class SessionErrorListener extends BaseErrorListener {
+      private ParseResult result;
+      private boolean stopAtFirstError;
+
+      @Override
+      public void syntaxError(
+            final Recognizer<?, ?> recognizer,
+            final Object offendingSymbol,
+            final int line,
+            final int charPositionInLine,
+            final String msg,
+            final RecognitionException e ) {
+         if ( result == null ) {
+            throw new ParseCancellationException( msg, e );
+         }
+
+         if ( line < 0 || charPositionInLine < 0 ) { // ANTLRs way of telling us it has no information on location
+            result.getErrors().add( new ParseError( msg, null ) );
+         } else {
+            result.getErrors().add( new ParseError( msg, new SourceLocation( line, charPositionInLine + 1 ) ) );
+         }
+         if ( stopAtFirstError ) {
+            throw ParseStoppedException.INSTANCE; // ends the LL parse after its first error
+         }
+      }
+   }
+
+   /**
+    * Keeps the end of input marker out of the text of an error at the very end of streamed input.
+    */
+   private static class StreamedCharStream extends UnbufferedCharStream {
+
+      StreamedCharStream( final Reader input ) {
+         super( input, STREAM_BUFFER_SIZE );
+      }
+
+      @Override
+      public String getText( final Interval interval ) {
+         final int last = interval.b - ( currentCharIndex - p ); // index into the buffer starting at char p
+         if ( last >= 0 && last < n && data[last] == IntStream.EOF ) {
+            return super.getText( Interval.of( interval.a, interval.b - 1 ) );
+         }
+         return super.getText( interval );
+      }
+   }
+
+   /**
+    * Copies the text of each token as the characters of streamed input are discarded once consumed.
+    */
+   private static class StreamedTokenFactory extends CommonTokenFactory {
+
+      StreamedTokenFactory() {
+         super( true );
+      }
+
+      @Override
+      public CommonToken create(
+            final Pair<TokenSource, CharStream> source,
+            final int type,
+            final String text,
+            final int channel,
+            final int start,
+            final int stop,
+            final int line,
+            final int charPositionInLine ) {
+         final CommonToken token = super.create( source, type, text, channel, start, stop, line, charPositionInLine );
+         if ( type == Token.EOF ) {
+            token.setText( "<EOF>" ); // as a buffered CommonToken reports it
+         }
+         return token;
+      }
+   }
+}
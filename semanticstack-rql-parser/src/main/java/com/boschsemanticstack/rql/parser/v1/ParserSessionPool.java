@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlLexer;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
+
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+
+/**
+ * Keeps idle {@link ParserSession}s for reuse and manages the DFA they share.
+ *
+ * <p>Instead of the static DFA generated by ANTLR, which only ever grows, all sessions of a pool share one
+ * {@link SharedDfa}. Once it holds more states than the configured limit it is replaced by an empty one; sessions
+ * switch over the next time they are acquired, while parses still running keep using the old one.</p>
+ */
+final class ParserSessionPool {
+
+   private static final Map<PoolKey, ParserSessionPool> POOLS = new ConcurrentHashMap<>();
+
+   private final BlockingQueue<ParserSession> idleSessions;
+   private final int dfaStateLimit;
+   private final LongAdder dfaResets = new LongAdder();
+   private volatile SharedDfa dfa = new SharedDfa();
+
+   ParserSessionPool( final int sessionPoolSize, final int dfaStateLimit ) {
+      idleSessions = sessionPoolSize > 0 ? new ArrayBlockingQueue<>( sessionPoolSize ) : null;
+      this.dfaStateLimit = dfaStateLimit;
+   }
+
+   /**
+    * @return the pool shared by all parser APIs configured with the same pool size and DFA state limit
+    */
+   static ParserSessionPool forConfig( final RqlParserConfig config ) {
+      return POOLS.computeIfAbsent( new PoolKey( config.getSessionPoolSize(), config.getDfaStateLimit() ),
+            key -> new ParserSessionPool( key.sessionPoolSize(), key.dfaStateLimit() ) );
+   }
+
+   ParserSession acquire() {
+      final ParserSession session = idleSessions == null ? null : idleSessions.poll();
+      if ( session == null ) {
+         return new ParserSession( dfa );
+      }
+      final SharedDfa current = dfa;
+      if ( session.getDfa() != current ) {
+         session.useDfa( current );
+      }
+      return session;
+   }
+
+   void release( final ParserSession session ) {
+      final SharedDfa used = session.getDfa();
+      if ( used == dfa && used.stateCount() > dfaStateLimit ) {
+         resetDfa( used );
+      }
+      if ( idleSessions != null ) {
+         session.clear();
+         idleSessions.offer( session );
+      }
+   }
+
+   private synchronized void resetDfa( final SharedDfa expected ) {
+      if ( dfa == expected ) {
+         dfa = new SharedDfa();
+         dfaResets.increment();
+      }
+   }
+
+   int getIdleSessionCount() {
+      return idleSessions == null ? 0 : idleSessions.size();
+   }
+
+   long getDfaResetCount() {
+      return dfaResets.sum();
+   }
+
+   SharedDfa getDfa() {
+      return dfa;
+   }
+
+   /**
+    * One generation of the lexer and parser DFAs together with their prediction context cache.
+    */
+   record SharedDfa( DFA[] lexerDfa, DFA[] parserDfa, PredictionContextCache contextCache ) {
+
+      SharedDfa() {
+         this( createDfa( InternalRqlLexer._ATN ), createDfa( InternalRqlParser._ATN ), new PredictionContextCache() );
+      }
+
+      private static DFA[] createDfa( final ATN atn ) {
+         final DFA[] dfa = new DFA[atn.getNumberOfDecisions()];
+         for ( int i = 0; i < dfa.length; i++ ) {
+            dfa[i] = new DFA( atn.getDecisionState( i ), i );
+         }
+         return dfa;
+      }
+
+      /**
+       * @return the approximate number of states cached in both DFAs, read without locking
+       */
+      int stateCount() {
+         int count = 0;
+         for ( final DFA decision : lexerDfa ) {
+            count += decision.states.size();
+         }
+         for ( final DFA decision : parserDfa ) {
+            count += decision.states.size();
+         }
+         return count;
+      }
+   }
+
+   private record PoolKey( int sessionPoolSize, int dfaStateLimit ) {
+   }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import com.boschsemanticstack.rql.exceptions.ParseError;
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.exceptions.SourceLocation;
+
+/**
+ * Enforces the resource limits of a {@link RqlParserConfig} on the raw characters of a query, before the lexer and
+ * parser (or the fast path) spend any work on it.
+ *
+ * <p>The guard is a small state machine that only tracks string literals, parentheses, commas and the name of the
+ * current parameter and call. It fails with a {@link ParseException} pointing at the first character exceeding a
+ * limit, so an over-limit query is rejected after reading at most about as many characters as the limit allows.
+ * For valid queries its counts are exact; for invalid ones it may count differently, but those are rejected by the
+ * parser anyway.</p>
+ */
+final class QueryLimitGuard {
+
+   private static final int MAX_NAME_LENGTH = 6;
+
+   private final int maxInputLength;
+   private final int maxNestingDepth;
+   private final int maxFilterNodes;
+   private final int maxInListValues;
+   private final int maxSortFields;
+
+   private final StringBuilder name = new StringBuilder( MAX_NAME_LENGTH );
+   private int length;
+   private int line = 1;
+   private int column;
+   private boolean inString;
+   private boolean escaped;
+   private boolean inParameterName = true;
+   private boolean inFilter;
+   private boolean inOption;
+   private boolean nameEnded;
+   private int depth;
+   private int filterNodes;
+   private int inListDepth = -1;
+   private int inListValues;
+   private int sortDepth = -1;
+   private int sortFields;
+
+   private QueryLimitGuard( final RqlParserConfig config ) {
+      maxInputLength = config.getMaxInputLength();
+      maxNestingDepth = config.getMaxNestingDepth();
+      maxFilterNodes = config.getMaxFilterNodes();
+      maxInListValues = config.getMaxInListValues();
+      maxSortFields = config.getMaxSortFields();
+   }
+
+   /**
+    * @throws ParseException if the query exceeds one of the limits of the config
+    */
+   static void check( final CharSequence rqlQuery, final RqlParserConfig config ) {
+      final ParseError error = findViolation( rqlQuery, config );
+      if ( error != null ) {
+         throw error.toException();
+      }
+   }
+
+   /**
+    * @return the first limit of the config the query exceeds or {@code null} if it is within all of them
+    */
+   static ParseError findViolation( final CharSequence rqlQuery, final RqlParserConfig config ) {
+      if ( !config.hasLimits() ) {
+         return null;
+      }
+      return new QueryLimitGuard( config ).scan( rqlQuery );
+   }
+
+   /**
+    * @param fragment the value of a single query parameter
+    * @param parameter the name of the parameter
+    * @throws ParseException if the value exceeds one of the limits of the config
+    */
+   static void checkFragment( final CharSequence fragment, final String parameter, final RqlParserConfig config ) {
+      if ( !config.hasLimits() ) {
+         return;
+      }
+      final QueryLimitGuard guard = new QueryLimitGuard( config );
+      guard.inParameterName = false;
+      guard.inFilter = "filter".equals( parameter );
+      guard.inOption = "option".equals( parameter );
+      final ParseError error = guard.scan( fragment );
+      if ( error != null ) {
+         throw error.toException();
+      }
+   }
+
+   /**
+    * Cheap check for callers that already know the structure of the query is within the limits, e.g. because an
+    * equivalent query has been parsed with the same config before.
+    *
+    * @throws ParseException if the query is longer than allowed by the config
+    */
+   static void checkLength( final CharSequence rqlQuery, final RqlParserConfig config ) {
+      if ( rqlQuery.length() > config.getMaxInputLength() ) {
+         check( rqlQuery, config );
+      }
+   }
+
+   /**
+    * @return a reader checking the limits of the config while the query is read from it; the reader fails with a
+    *       {@link ParseException} as soon as a limit is exceeded
+    */
+   static Reader guard( final Reader rqlQuery, final RqlParserConfig config ) {
+      if ( !config.hasLimits() ) {
+         return rqlQuery;
+      }
+      final QueryLimitGuard guard = new QueryLimitGuard( config );
+      return new FilterReader( rqlQuery ) {
+         @Override
+         public int read() throws IOException {
+            final int c = super.read();
+            if ( c >= 0 ) {
+               guard.acceptOrThrow( (char) c );
+            }
+            return c;
+         }
+
+         @Override
+         public int read( final char[] buffer, final int offset, final int count ) throws IOException {
+            final int read = super.read( buffer, offset, count );
+            for ( int i = 0; i < read; i++ ) {
+               guard.acceptOrThrow( buffer[offset + i] );
+            }
+            return read;
+         }
+      };
+   }
+
+   private ParseError scan( final CharSequence input ) {
+      final int end = (int) Math.min( input.length(), maxInputLength + 1L );
+      try {
+         for ( int i = 0; i < end; i++ ) {
+            accept( input.charAt( i ) );
+         }
+         return null;
+      } catch ( final LimitExceeded e ) {
+         return e.error;
+      }
+   }
+
+   private void acceptOrThrow( final char c ) {
+      try {
+         accept( c );
+      } catch ( final LimitExceeded e ) {
+         throw e.error.toException();
+      }
+   }
+
+   private void accept( final char c ) {
+      length++;
+      if ( c == '\n' ) {
+         line++;
+         column = 0;
+      } else {
+         column++;
+      }
+      if ( length > maxInputLength ) {
+         throw exceeded( "Query exceeds the maximum length of " + maxInputLength + " characters." );
+      }
+      if ( inString ) {
+         if ( escaped ) {
+            escaped = false;
+         } else if ( c == '\\' ) {
+            escaped = true;
+         } else if ( c == '"' ) {
+            inString = false;
+         }
+         return;
+      }
+      if ( isNameChar( c ) ) {
+         if ( nameEnded ) {
+            name.setLength( 0 );
+            nameEnded = false;
+         }
+         if ( name.length() < MAX_NAME_LENGTH ) {
+            name.append( c );
+         } else {
+            name.setCharAt( 0, '#' ); // too long to be a name of interest
+         }
+         return;
+      }
+      if ( c == ' ' || c == '\t' || c == '\r' || c == '\n' ) {
+         nameEnded = true; // but the name may still be followed by '(' or '='
+         return;
+      }
+      switch ( c ) {
+         case '"' -> inString = true;
+         case '=' -> enterParameter();
+         case '&' -> leaveParameter();
+         case '(' -> openCall();
+         case ')' -> closeCall();
+         case ',' -> separateArguments();
+         default -> {
+            // other characters do not influence any limit
+         }
+      }
+      name.setLength( 0 );
+      nameEnded = false;
+   }
+
+   private void enterParameter() {
+      if ( inParameterName ) {
+         inFilter = "filter".contentEquals( name );
+         inOption = "option".contentEquals( name );
+         inParameterName = false;
+      }
+   }
+
+   private void leaveParameter() {
+      inParameterName = true;
+      inFilter = false;
+      inOption = false;
+      depth = 0;
+      inListDepth = -1;
+      sortDepth = -1;
+   }
+
+   private void openCall() {
+      depth++;
+      if ( depth > maxNestingDepth ) {
+         throw exceeded( "Query exceeds the maximum nesting depth of " + maxNestingDepth + "." );
+      }
+      if ( inFilter ) {
+         filterNodes++;
+         if ( filterNodes > maxFilterNodes ) {
+            throw exceeded( "Filter exceeds the maximum of " + maxFilterNodes + " nodes." );
+         }
+         if ( "in".contentEquals( name ) ) {
+            inListDepth = depth;
+            inListValues = 0;
+         }
+      } else if ( inOption && "sort".contentEquals( name ) ) {
+         sortDepth = depth;
+         sortFields = 1;
+         checkSortFields();
+      }
+   }
+
+   private void closeCall() {
+      if ( depth == inListDepth ) {
+         inListDepth = -1;
+      }
+      if ( depth == sortDepth ) {
+         sortDepth = -1;
+      }
+      depth = Math.max( 0, depth - 1 );
+   }
+
+   private void separateArguments() {
+      if ( depth == inListDepth ) {
+         inListValues++; // the first comma separates the field from the first value
+         if ( inListValues > maxInListValues ) {
+            throw exceeded( "In list exceeds the maximum of " + maxInListValues + " values." );
+         }
+      } else if ( depth == sortDepth ) {
+         sortFields++;
+         checkSortFields();
+      }
+   }
+
+   private void checkSortFields() {
+      if ( sortFields > maxSortFields ) {
+         throw exceeded( "Sort exceeds the maximum of " + maxSortFields + " fields." );
+      }
+   }
+
+   private LimitExceeded exceeded( final String message ) {
+      return new LimitExceeded( new ParseError( message, new SourceLocation( line, column ) ) );
+   }
+
+   private static boolean isNameChar( final char c ) {
+      return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '.';
+   }
+
+   /**
+    * Unwinds the state machine on the first exceeded limit without the cost of a stack trace.
+    */
+   private static final class LimitExceeded extends RuntimeException {
+      private static final long serialVersionUID = 1L;
+
+      private final transient ParseError error;
+
+      LimitExceeded( final ParseError error ) {
+         super( error.getMessage(), null, false, false );
+         this.error = error;
+      }
+   }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import com.boschsemanticstack.rql.exceptions.ParseError;
+
+/**
+ * Parses batches of queries concurrently, e.g. all sub-requests of a batch endpoint.
+ *
+ * <p>The queries are split into about as many consecutive chunks as the configured parallelism, each parsed by one
+ * task; by default every task runs on its own virtual thread. All tasks share the pooled lexer/parser sessions and
+ * the parse cache, so a batch costs no more setup than parsing its queries one by one. The result of each query,
+ * model or errors, is returned at the position of the query; an invalid query never fails the whole batch.</p>
+ *
+ * <p>Instances are immutable and thread-safe.</p>
+ */
+public final class RqlBatchParser {
+
+   private static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().name( "rql-batch-parser" ).start( task );
+
+   private final Executor executor;
+   private final int parallelism;
+   private final Function<String, RqlParseOutcome> parser;
+
+   private RqlBatchParser( final Builder builder ) {
+      executor = builder.executor;
+      parallelism = builder.parallelism;
+      parser = builder.parser;
+   }
+
+   /**
+    * @return a batch parser using virtual threads, one per available processor, and {@link RqlParser#getParseCache()}
+    */
+   public static RqlBatchParser defaultParser() {
+      return builder().build();
+   }
+
+   public static Builder builder() {
+      return new Builder();
+   }
+
+   /**
+    * @param queries the queries to parse; {@code null} elements are reported as invalid
+    * @return the outcome of each query in the order of the queries
+    */
+   public List<RqlParseOutcome> parseAll( final Collection<String> queries ) {
+      final String[] input = queries.toArray( new String[0] );
+      final RqlParseOutcome[] outcomes = new RqlParseOutcome[input.length];
+      final int chunkCount = Math.min( parallelism, input.length );
+      if ( chunkCount <= 1 ) {
+         parseRange( input, outcomes, 0, input.length );
+         return Arrays.asList( outcomes );
+      }
+      final CompletableFuture<?>[] chunks = new CompletableFuture<?>[chunkCount];
+      for ( int chunk = 0; chunk < chunkCount; chunk++ ) {
+         final int from = (int) ( (long) input.length * chunk / chunkCount );
+         final int to = (int) ( (long) input.length * ( chunk + 1 ) / chunkCount );
+         chunks[chunk] = CompletableFuture.runAsync( () -> parseRange( input, outcomes, from, to ), executor );
+      }
+      CompletableFuture.allOf( chunks ).join();
+      return Arrays.asList( outcomes );
+   }
+
+   /**
+    * @param queries the queries to parse; the stream is consumed completely before parsing starts
+    * @return the outcome of each query in the encounter order of the stream
+    */
+   public List<RqlParseOutcome> parseAll( final Stream<String> queries ) {
+      return parseAll( queries.toList() );
+   }
+
+   private void parseRange( final String[] input, final RqlParseOutcome[] outcomes, final int from, final int to ) {
+      for ( int i = from; i < to; i++ ) {
+         outcomes[i] = parseOne( input[i] );
+      }
+   }
+
+   private RqlParseOutcome parseOne( final String query ) {
+      try {
+         return parser.apply( query );
+      } catch ( final RuntimeException e ) { // not expected, but must not fail the other queries of the batch
+         return RqlParseOutcome.invalid( new ParseError( String.valueOf( e.getMessage() ), null ), e );
+      }
+   }
+
+   /**
+    * Builder for {@link RqlBatchParser} instances.
+    */
+   public static final class Builder {
+      private Executor executor = VIRTUAL_THREADS;
+      private int parallelism = Runtime.getRuntime().availableProcessors();
+      private Function<String, RqlParseOutcome> parser = RqlParser::tryParse;
+
+      private Builder() {
+      }
+
+      /**
+       * @param executor runs the tasks parsing the chunks of a batch; by default each task gets a virtual thread
+       */
+      public Builder executor( final Executor executor ) {
+         this.executor = Objects.requireNonNull( executor );
+         return this;
+      }
+
+      /**
+       * @param parallelism how many tasks parse a batch at most, by default the number of available processors;
+       *       {@code 1} parses on the calling thread
+       */
+      public Builder parallelism( final int parallelism ) {
+         if ( parallelism <= 0 ) {
+            throw new IllegalArgumentException( "Parallelism must be positive." );
+         }
+         this.parallelism = parallelism;
+         return this;
+      }
+
+      /**
+       * @param parseCache the cache consulted for and populated with valid queries, by default
+       *       {@link RqlParser#getParseCache()}
+       */
+      public Builder parseCache( final RqlParseCache parseCache ) {
+         parser = Objects.requireNonNull( parseCache )::tryParse;
+         return this;
+      }
+
+      /**
+       * @param config the settings to parse all queries with, bypassing any parse cache
+       */
+      public Builder uncached( final RqlParserConfig config ) {
+         final RqlParserApi parserApi = new RqlParserApi( Objects.requireNonNull( config ) );
+         parser = parserApi::tryParseFullQuery;
+         return this;
+      }
+
+      public RqlBatchParser build() {
+         return new RqlBatchParser( this );
+      }
+   }
+}
@@ -0,0 +1,639 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.boschsemanticstack.rql.model.v1.RqlCursor;
+import com.boschsemanticstack.rql.model.v1.RqlFieldDirection;
+import com.boschsemanticstack.rql.model.v1.RqlFieldPath;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
+import com.boschsemanticstack.rql.model.v1.RqlOptions;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlSelect;
+import com.boschsemanticstack.rql.model.v1.RqlSlice;
+import com.boschsemanticstack.rql.model.v1.RqlSymbolTable;
+import com.boschsemanticstack.rql.model.v1.impl.RqlCursorImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFieldDirectionImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlOptionsImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlOrderImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlSelectImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlSliceImpl;
+
+/**
+ * A hand-written recursive-descent parser for {@code InternalRql.g4} building the model directly from the input.
+ *
+ * <p>It tokenizes exactly like the generated lexer (longest match, keywords before identifiers) and creates the
+ * same model as {@link RqlParseTreeVisitor}. It never reports errors itself: as soon as the input is not a valid
+ * query, or would make the visitor throw, it gives up and returns {@code null}, so that the ANTLR parser can
+ * produce the proper {@link com.boschsemanticstack.rql.exceptions.ParseException}.</p>
+ *
+ * <p>Instances are single-use and not thread-safe; use {@link #tryParse(CharSequence)}.</p>
+ */
+final class RqlFastParser {
+
+   private static final String SELECT = "select";
+   private static final String FILTER = "filter";
+   private static final String OPTION = "option";
+   private static final String NOT = "not";
+   private static final String AND = "and";
+   private static final String OR = "or";
+   private static final String IN = "in";
+   private static final String EQ = "eq";
+   private static final String NE = "ne";
+   private static final String LT = "lt";
+   private static final String LE = "le";
+   private static final String GT = "gt";
+   private static final String GE = "ge";
+   private static final String LIKE = "like";
+   private static final String LIKE_IGNORE_CASE = "likeIgnoreCase";
+   private static final String SORT = "sort";
+   private static final String LIMIT = "limit";
+   private static final String CURSOR = "cursor";
+   private static final String NULL = "null";
+   private static final String TRUE = "true";
+   private static final String FALSE = "false";
+
+   private static final String[][] KEYWORDS_BY_LENGTH = {
+         {},
+         {},
+         { OR, IN, EQ, NE, LT, LE, GT, GE },
+         { NOT, AND },
+         { LIKE, SORT, NULL, TRUE },
+         { LIMIT, FALSE },
+         { SELECT, FILTER, OPTION, CURSOR },
+         {}, {}, {}, {}, {}, {}, {},
+         { LIKE_IGNORE_CASE }
+   };
+
+   /**
+    * Thrown to abandon the fast path; carries no stack trace as it is expected and never escapes this class.
+    */
+   private static final RuntimeException GIVE_UP = new RuntimeException( "not handled by the fast parser", null, false, false ) {
+   };
+
+   private final CharSequence input;
+   private final RqlSymbolTable symbols;
+   private final int length;
+   private int position;
+
+   private RqlFastParser( final CharSequence input, final RqlSymbolTable symbols ) {
+      this.input = input;
+      this.symbols = symbols;
+      length = input.length();
+   }
+
+   /**
+    * @param rqlQuery the query to parse
+    * @return the model of the query or {@code null} if the query has to be parsed by the ANTLR parser
+    */
+   static RqlQueryModel tryParse( final CharSequence rqlQuery ) {
+      return tryParse( rqlQuery, RqlSymbolTable.shared() );
+   }
+
+   /**
+    * @param rqlQuery the query to parse
+    * @param symbols the table canonicalizing fields and literals
+    * @return the model of the query or {@code null} if it has to be parsed by the ANTLR parser
+    */
+   static RqlQueryModel tryParse( final CharSequence rqlQuery, final RqlSymbolTable symbols ) {
+      return tryParse( rqlQuery, symbols, RqlFastParser::query );
+   }
+
+   /**
+    * @param select the value of a {@code select} parameter
+    * @param symbols the table canonicalizing fields and literals
+    * @return the model of the fields or {@code null} if they have to be parsed by the ANTLR parser
+    */
+   static RqlSelect tryParseSelect( final CharSequence select, final RqlSymbolTable symbols ) {
+      return tryParse( select, symbols, parser -> new RqlSelectImpl( parser.fieldList() ) );
+   }
+
+   /**
+    * @param filter the value of a {@code filter} parameter
+    * @param symbols the table canonicalizing fields and literals
+    * @return the model of the filter or {@code null} if it has to be parsed by the ANTLR parser
+    */
+   static RqlFilter tryParseFilter( final CharSequence filter, final RqlSymbolTable symbols ) {
+      return tryParse( filter, symbols, RqlFastParser::filterExpression );
+   }
+
+   /**
+    * @param options the value of an {@code option} parameter
+    * @param symbols the table canonicalizing fields and literals
+    * @return the model of the options or {@code null} if they have to be parsed by the ANTLR parser
+    */
+   static RqlOptions tryParseOptions( final CharSequence options, final RqlSymbolTable symbols ) {
+      return tryParse( options, symbols, RqlFastParser::optionExpression );
+   }
+
+   private static <T> T tryParse( final CharSequence input, final RqlSymbolTable symbols, final Function<RqlFastParser, T> rule ) {
+      try {
+         final RqlFastParser parser = new RqlFastParser( input, symbols );
+         final T result = rule.apply( parser );
+         parser.skipWhitespace();
+         return parser.position == parser.length ? result : null;
+      } catch ( final RuntimeException e ) {
+         if ( e == GIVE_UP || e instanceof NumberFormatException || e instanceof DateTimeParseException ) {
+            return null;
+         }
+         throw e;
+      }
+   }
+
+   private RqlQueryModel query() {
+      RqlSelect select = null;
+      RqlFilter filter = null;
+      RqlOptions options = null;
+      skipWhitespace();
+      if ( position == length ) {
+         return new RqlQueryModelImpl( null, null, null );
+      }
+      do {
+         final String keyword = keyword();
+         expect( '=' );
+         switch ( keyword ) {
+            case SELECT -> select = select == null ? new RqlSelectImpl( fieldList() ) : giveUp();
+            case FILTER -> filter = filter == null ? filterExpression() : giveUp();
+            case OPTION -> options = options == null ? optionExpression() : giveUp();
+            case null, default -> giveUp();
+         }
+      } while ( accept( '&' ) );
+      skipWhitespace();
+      if ( position != length ) {
+         giveUp();
+      }
+      return new RqlQueryModelImpl( select, filter, options );
+   }
+
+   private List<String> fieldList() {
+      skipWhitespace();
+      if ( position == length || input.charAt( position ) == '&' ) {
+         return List.of();
+      }
+      final List<String> fields = new ArrayList<>();
+      do {
+         fields.add( fieldIdentifier() );
+      } while ( accept( ',' ) );
+      return fields;
+   }
+
+   private RqlOptions optionExpression() {
+      RqlOrderImpl order = null;
+      RqlSlice slice = null;
+      RqlCursor cursor = null;
+      final String first = keyword();
+      if ( SORT.equals( first ) ) {
+         order = sortExpression();
+         if ( accept( ',' ) ) {
+            final String second = keyword();
+            if ( LIMIT.equals( second ) ) {
+               slice = limitExpression();
+            } else if ( CURSOR.equals( second ) ) {
+               cursor = cursorExpression();
+            } else {
+               giveUp();
+            }
+         }
+      } else {
+         if ( LIMIT.equals( first ) ) {
+            slice = limitExpression();
+         } else if ( CURSOR.equals( first ) ) {
+            cursor = cursorExpression();
+         } else {
+            giveUp();
+         }
+         if ( accept( ',' ) ) {
+            if ( !SORT.equals( keyword() ) ) {
+               giveUp();
+            }
+            order = sortExpression();
+         }
+      }
+      return new RqlOptionsImpl( slice, order, cursor );
+   }
+
+   private RqlOrderImpl sortExpression() {
+      expect( '(' );
+      final List<RqlFieldDirection> fieldDirections = new ArrayList<>();
+      do {
+         skipWhitespace();
+         final RqlFieldDirection.Direction direction = switch ( peek() ) {
+            case '+' -> RqlFieldDirection.Direction.ASCENDING;
+            case '-' -> RqlFieldDirection.Direction.DESCENDING;
+            default -> giveUp();
+         };
+         position++;
+         fieldDirections.add( new RqlFieldDirectionImpl( fieldIdentifier(), direction ) );
+      } while ( accept( ',' ) );
+      expect( ')' );
+      return new RqlOrderImpl( fieldDirections );
+   }
+
+   private RqlSlice limitExpression() {
+      expect( '(' );
+      final long offset = Long.parseLong( intLiteral() );
+      expect( ',' );
+      final long limit = Long.parseLong( intLiteral() );
+      expect( ')' );
+      return new RqlSliceImpl( offset, limit );
+   }
+
+   private RqlCursor cursorExpression() {
+      expect( '(' );
+      skipWhitespace();
+      if ( peek() != '"' ) {
+         final long limit = Long.parseLong( intLiteral() );
+         expect( ')' );
+         return new RqlCursorImpl( limit );
+      }
+      final String cursor = stringLiteral();
+      expect( ',' );
+      final long limit = Long.parseLong( intLiteral() );
+      expect( ')' );
+      return new RqlCursorImpl( cursor, limit );
+   }
+
+   private RqlFilter filterExpression() {
+      final String keyword = keyword();
+      if ( keyword == null ) {
+         return giveUp();
+      }
+      expect( '(' );
+      final RqlFilter filter = switch ( keyword ) {
+         case NOT -> new RqlFilterNode.Not( filterExpression() );
+         case AND -> new RqlFilterNode.And( filterList() );
+         case OR -> new RqlFilterNode.Or( isAt( ')' ) ? List.of() : filterList() );
+         case IN -> comparison( RqlFilter.Operator.IN );
+         case EQ -> comparison( RqlFilter.Operator.EQ );
+         case NE -> comparison( RqlFilter.Operator.NE );
+         case LT -> comparison( RqlFilter.Operator.LT );
+         case LE -> comparison( RqlFilter.Operator.LE );
+         case GT -> comparison( RqlFilter.Operator.GT );
+         case GE -> comparison( RqlFilter.Operator.GE );
+         case LIKE -> comparison( RqlFilter.Operator.LIKE );
+         case LIKE_IGNORE_CASE -> comparison( RqlFilter.Operator.LIKE_IGNORE_CASE );
+         default -> giveUp();
+      };
+      expect( ')' );
+      return filter;
+   }
+
+   private List<RqlFilter> filterList() {
+      final List<RqlFilter> filters = new ArrayList<>();
+      do {
+         filters.add( filterExpression() );
+      } while ( accept( ',' ) );
+      return filters;
+   }
+
+   private RqlFilter comparison( final RqlFilter.Operator operator ) {
+      final RqlFieldPath fieldPath = fieldPath();
+      expect( ',' );
+      final Object value = switch ( operator ) {
+         case IN -> literalList();
+         case EQ, NE -> literal( true );
+         case LIKE, LIKE_IGNORE_CASE -> {
+            skipWhitespace();
+            yield peek() == '"' ? stringLiteral() : giveUp();
+         }
+         default -> literal( false );
+      };
+      return RqlFilterNode.condition( fieldPath, operator, value );
+   }
+
+   private List<Object> literalList() {
+      skipWhitespace();
+      final LiteralListBuffer values = new LiteralListBuffer();
+      if ( peek() == '"' ) {
+         do {
+            skipWhitespace();
+            values.addString( peek() == '"' ? stringLiteral() : giveUp() );
+         } while ( accept( ',' ) );
+         return values.build();
+      }
+      Kind kind = null;
+      do {
+         skipWhitespace();
+         final int start = position;
+         final Kind literalKind = numericLiteral();
+         if ( literalKind == Kind.TIME || kind != null && literalKind != kind ) {
+            giveUp();
+         }
+         kind = literalKind;
+         final String text = input.subSequence( start, position ).toString();
+         if ( kind == Kind.FLOAT ) {
+            values.addDouble( Double.parseDouble( text ) );
+         } else {
+            values.addInt( Integer.parseInt( text ) );
+         }
+      } while ( accept( ',' ) );
+      return values.build();
+   }
+
+   private Object literal( final boolean allowKeywords ) {
+      skipWhitespace();
+      final char next = peek();
+      if ( next == '"' ) {
+         return stringLiteral();
+      }
+      if ( isIdentifierStart( next ) ) {
+         if ( !allowKeywords ) {
+            return giveUp();
+         }
+         return switch ( keyword() ) {
+            case NULL -> null;
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case null, default -> giveUp();
+         };
+      }
+      final int start = position;
+      return switch ( numericLiteral() ) {
+         case INT -> RqlLiteralDecoder.parseIntoSmallestIntegerType( input, start, position );
+         case FLOAT -> new BigDecimal( input.subSequence( start, position ).toString() );
+         case TIME -> RqlLiteralDecoder.parseOffsetDateTime( input, start, position );
+      };
+   }
+
+   private String intLiteral() {
+      skipWhitespace();
+      final int start = position;
+      if ( numericLiteral() != Kind.INT ) {
+         giveUp();
+      }
+      return input.subSequence( start, position ).toString();
+   }
+
+   private enum Kind {
+      INT, FLOAT, TIME
+   }
+
+   /**
+    * Scans an {@code IntLiteral}, {@code FloatLiteral} or {@code TimeLiteral} token the way the lexer would.
+    */
+   private Kind numericLiteral() {
+      final int start = position;
+      final boolean signed = peek() == '+' || peek() == '-';
+      if ( signed ) {
+         position++;
+      }
+      if ( !isDigit( peek() ) ) {
+         return giveUp(); // a lone Sign token
+      }
+      if ( !signed && timeLiteral() ) {
+         return Kind.TIME;
+      }
+      position = signed ? start + 1 : start;
+      if ( peek() == '0' ) {
+         position++;
+         if ( peek() == '.' && isDigit( peekAt( position + 1 ) ) ) {
+            position++;
+            skipDigits();
+            exponent();
+            return Kind.FLOAT;
+         }
+         return signed ? giveUp() : Kind.INT; // the lexer would split a signed zero into Sign and IntLiteral
+      }
+      skipDigits();
+      if ( peek() == '.' && isDigit( peekAt( position + 1 ) ) ) {
+         position++;
+         skipDigits();
+         exponent();
+         return Kind.FLOAT;
+      }
+      return exponent() ? Kind.FLOAT : Kind.INT;
+   }
+
+   /**
+    * Consumes an {@code ExponentPart} if a complete one follows.
+    */
+   private boolean exponent() {
+      if ( peek() != 'e' && peek() != 'E' ) {
+         return false;
+      }
+      int end = position + 1;
+      if ( peekAt( end ) == '+' || peekAt( end ) == '-' ) {
+         end++;
+      }
+      if ( !isDigit( peekAt( end ) ) ) {
+         return false;
+      }
+      position = end;
+      skipDigits();
+      return true;
+   }
+
+   /**
+    * Consumes a complete {@code TimeLiteral}; any partial match leaves the position undefined and returns false.
+    */
+   private boolean timeLiteral() {
+      if ( !( digits( 4 ) && accept1( '-' ) && digits( 2 ) && accept1( '-' ) && digits( 2 ) ) ) {
+         return false;
+      }
+      if ( !( accept1( 'T' ) || accept1( 't' ) ) ) {
+         return giveUp(); // the lexer would backtrack to an IntLiteral, which the grammar never accepts here
+      }
+      if ( !( digits( 2 ) && accept1( ':' ) && digits( 2 ) && accept1( ':' ) && digits( 2 ) ) ) {
+         return giveUp();
+      }
+      if ( ( peek() == '.' || peek() == ',' ) && isDigit( peekAt( position + 1 ) ) ) {
+         position++;
+         skipDigits();
+      }
+      if ( accept1( 'Z' ) || accept1( 'z' ) ) {
+         return true;
+      }
+      if ( ( accept1( '+' ) || accept1( '-' ) ) && digits( 2 ) && accept1( ':' ) && digits( 2 ) ) {
+         return true;
+      }
+      return giveUp();
+   }
+
+   private String stringLiteral() {
+      position++; // opening quote
+      final StringBuilder value = new StringBuilder();
+      boolean terminated = false; // the visitor's StreamTokenizer stops at a raw line break
+      while ( position < length ) {
+         char c = input.charAt( position++ );
+         if ( c == '"' ) {
+            return symbols.literal( value.toString() );
+         }
+         if ( c == '\\' ) {
+            c = switch ( peek() ) {
+               case 'b' -> '\b';
+               case 't' -> '\t';
+               case 'n' -> '\n';
+               case 'f' -> '\f';
+               case 'r' -> '\r';
+               case '"' -> '"';
+               case '\\' -> '\\';
+               default -> giveUp();
+            };
+            position++;
+         } else if ( c == '\n' || c == '\r' ) {
+            terminated = true;
+         }
+         if ( !terminated ) {
+            value.append( c );
+         }
+      }
+      return giveUp();
+   }
+
+   private String fieldIdentifier() {
+      return fieldPath().getPath();
+   }
+
+   private RqlFieldPath fieldPath() {
+      skipWhitespace();
+      final int start = position;
+      final int end = scanWord();
+      if ( end == start || keyword( start, end ) != null ) {
+         return giveUp();
+      }
+      position = end;
+      return symbols.fieldPath( input.subSequence( start, end ).toString() );
+   }
+
+   /**
+    * @return the keyword at the current position or {@code null} if there is an identifier or something else
+    */
+   private String keyword() {
+      skipWhitespace();
+      final int start = position;
+      final int end = scanWord();
+      final String keyword = keyword( start, end );
+      if ( keyword != null ) {
+         position = end;
+      }
+      return keyword;
+   }
+
+   private String keyword( final int start, final int end ) {
+      final int wordLength = end - start;
+      if ( wordLength >= KEYWORDS_BY_LENGTH.length ) {
+         return null;
+      }
+      for ( final String keyword : KEYWORDS_BY_LENGTH[wordLength] ) {
+         if ( regionEquals( start, keyword ) ) {
+            return keyword;
+         }
+      }
+      return null;
+   }
+
+   private boolean regionEquals( final int start, final String keyword ) {
+      for ( int i = 0; i < keyword.length(); i++ ) {
+         if ( input.charAt( start + i ) != keyword.charAt( i ) ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private int scanWord() {
+      int end = position;
+      if ( end < length && isIdentifierStart( input.charAt( end ) ) ) {
+         end++;
+         while ( end < length && isIdentifierPart( input.charAt( end ) ) ) {
+            end++;
+         }
+      }
+      return end;
+   }
+
+   private boolean digits( final int count ) {
+      for ( int i = 0; i < count; i++ ) {
+         if ( !isDigit( peek() ) ) {
+            return false;
+         }
+         position++;
+      }
+      return true;
+   }
+
+   private void skipDigits() {
+      while ( isDigit( peek() ) ) {
+         position++;
+      }
+   }
+
+   private void skipWhitespace() {
+      while ( position < length ) {
+         final char c = input.charAt( position );
+         if ( c != ' ' && c != '\t' && c != '\n' && c != '\r' ) {
+            return;
+         }
+         position++;
+      }
+   }
+
+   private void expect( final char expected ) {
+      if ( !accept( expected ) ) {
+         giveUp();
+      }
+   }
+
+   private boolean accept( final char expected ) {
+      skipWhitespace();
+      return accept1( expected );
+   }
+
+   private boolean accept1( final char expected ) {
+      if ( peek() == expected ) {
+         position++;
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * @return whether the next character apart from whitespace is the expected one, without consuming it
+    */
+   private boolean isAt( final char expected ) {
+      skipWhitespace();
+      return peek() == expected;
+   }
+
+   private char peek() {
+      return peekAt( position );
+   }
+
+   private char peekAt( final int index ) {
+      return index < length ? input.charAt( index ) : '\0';
+   }
+
+   private static boolean isDigit( final char c ) {
+      return c >= '0' && c <= '9';
+   }
+
+   private static boolean isIdentifierStart( final char c ) {
+      return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_';
+   }
+
+   private static boolean isIdentifierPart( final char c ) {
+      return isIdentifierStart( c ) || isDigit( c ) || c == '.';
+   }
+
+   private static <T> T giveUp() {
+      throw GIVE_UP;
+   }
+}
@@ -0,0 +1,864 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import com.boschsemanticstack.rql.exceptions.ParseError;
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.exceptions.SourceLocation;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlTreeTraversal;
+import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlLexer;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.InputMismatchException;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.IntervalSet;
+import org.antlr.v4.runtime.misc.Pair;
+
+/**
+ * Parses a query again after each edit, as typeahead and query builder UIs do on every keystroke, reusing whatever the
+ * edit left untouched instead of starting over.
+ *
+ * <ul>
+ *    <li>Lexing restarts at the first token whose lexing looked at an edited character and ends as soon as it is back
+ *    in step with the previous tokens behind the edit, which are kept.</li>
+ *    <li>If the previous query was valid and the edit lies within one expression of its filter, only the innermost
+ *    such expression is parsed again and its model is put in place of the old one. Any other edit parses all tokens
+ *    again, but does not lex them again.</li>
+ *    <li>{@link #expectedTokensAt(int)} tells which tokens may be typed at the cursor, e.g. to propose completions.</li>
+ * </ul>
+ *
+ * <p>The outcome of every update is the one {@link RqlParser#tryParseUncached(String, RqlParserConfig)} returns for
+ * the same query, except that all errors are collected in the order of their location.</p>
+ *
+ * <p>An incremental parser holds the state of one query being edited and must only be used by one thread at a
+ * time.</p>
+ */
+public final class RqlIncrementalParser {
+
+   /**
+    * Stands in for the token at the cursor when determining the expected tokens; whitespace is skipped by the lexer,
+    * so the parser never expects it.
+    */
+   private static final int CURSOR = InternalRqlLexer.WS;
+
+   private final RqlParserConfig config;
+   private final ParserSessionPool sessionPool;
+   private final RqlParseTreeVisitor visitor;
+   private final InternalRqlLexer lexer;
+   private final InternalRqlParser parser;
+   private final DefaultErrorStrategy defaultErrorStrategy = new DefaultErrorStrategy();
+   private final CompletionStrategy completionStrategy = new CompletionStrategy();
+   private final List<ParseError> parserErrors = new ArrayList<>();
+   private final List<LexerError> pendingLexerErrors = new ArrayList<>();
+   private ParserSessionPool.SharedDfa dfa;
+
+   private String text;
+   private boolean supplementary;
+   /**
+    * The tokens of the current query, always ending with the end of input.
+    */
+   private final List<LexedToken> tokens = new ArrayList<>();
+   private int lexerErrorCount;
+   /**
+    * The longest distance any token looked ahead from where its lexing started.
+    */
+   private int maxLookahead;
+   private RqlParseOutcome outcome;
+   /**
+    * The expressions of the filter of the current query if it is valid, otherwise {@code null}.
+    */
+   private FilterNode filterRoot;
+   private int relexedTokenCount;
+   private int reparsedTokenCount;
+
+   public RqlIncrementalParser() {
+      this( RqlParserConfig.defaultConfig() );
+   }
+
+   /**
+    * @param config the limits and symbol table to parse with; the fast path and the prediction strategy do not
+    *       apply as all parsing works on the kept tokens
+    */
+   public RqlIncrementalParser( final RqlParserConfig config ) {
+      this.config = Objects.requireNonNull( config );
+      sessionPool = ParserSessionPool.forConfig( config );
+      visitor = new RqlParseTreeVisitor( config.getSymbolTable() );
+      lexer = new InternalRqlLexer( CharStreams.fromString( "" ) );
+      lexer.setTokenFactory( new LexedTokenFactory() );
+      lexer.removeErrorListeners(); // default error listener prints to System.out
+      lexer.addErrorListener( new BaseErrorListener() {
+         @Override
+         public void syntaxError(
+               final Recognizer<?, ?> recognizer,
+               final Object offendingSymbol,
+               final int line,
+               final int charPositionInLine,
+               final String msg,
+               final RecognitionException e ) {
+            pendingLexerErrors.add( new LexerError( lexer._tokenStartCharIndex, msg ) );
+         }
+      } );
+      parser = new InternalRqlParser( new CommonTokenStream( new ListTokenSource( List.of() ) ) );
+      parser.removeErrorListeners(); // default error listener prints to System.out
+      parser.addErrorListener( new BaseErrorListener() {
+         @Override
+         public void syntaxError(
+               final Recognizer<?, ?> recognizer,
+               final Object offendingSymbol,
+               final int line,
+               final int charPositionInLine,
+               final String msg,
+               final RecognitionException e ) {
+            parserErrors.add( new ParseError( msg, line < 0 || charPositionInLine < 0
+                  ? null // ANTLRs way of telling us it has no information on location
+                  : new SourceLocation( line, charPositionInLine + 1 ) ) );
+         }
+      } );
+      start( "" );
+   }
+
+   /**
+    * Updates the query to its edited version, typically differing from the previous one by a few characters.
+    *
+    * @param query the complete query after the edit
+    * @return the model of the query or the errors making it invalid
+    */
+   public RqlParseOutcome update( final String query ) {
+      relexedTokenCount = 0;
+      reparsedTokenCount = 0;
+      if ( query == null ) {
+         return RqlParseOutcome.invalid( new ParseError( "Input was null!", null ) );
+      }
+      if ( query.equals( text ) ) {
+         return outcome;
+      }
+      final ParseError limitViolation = QueryLimitGuard.findViolation( query, config );
+      if ( limitViolation != null ) {
+         start( "" );
+         return RqlParseOutcome.invalid( limitViolation );
+      }
+      useCurrentDfa();
+      if ( supplementary || hasSupplementaryCharacters( query ) ) {
+         start( query ); // token positions count code points, edits are found in chars
+         return outcome;
+      }
+
+      int editStart = 0;
+      final int commonLength = Math.min( text.length(), query.length() );
+      while ( editStart < commonLength && text.charAt( editStart ) == query.charAt( editStart ) ) {
+         editStart++;
+      }
+      int oldEditEnd = text.length();
+      int newEditEnd = query.length();
+      while ( oldEditEnd > editStart && newEditEnd > editStart && text.charAt( oldEditEnd - 1 ) == query.charAt( newEditEnd - 1 ) ) {
+         oldEditEnd--;
+         newEditEnd--;
+      }
+
+      final String previous = text;
+      text = query;
+      final TokenEdit edit = relex( previous, editStart, oldEditEnd, newEditEnd );
+      outcome = reparse( edit );
+      return outcome;
+   }
+
+   /**
+    * Updates the query to its edited version and determines the tokens expected at the cursor.
+    *
+    * @param query the complete query after the edit
+    * @param cursor the position of the cursor as index into the query
+    * @see #update(String)
+    * @see #expectedTokensAt(int)
+    */
+   public Result update( final String query, final int cursor ) {
+      final RqlParseOutcome updated = update( query );
+      return new Result( updated, query == null ? Set.of() : expectedTokensAt( cursor ) );
+   }
+
+   /**
+    * Determines the tokens that may follow the text before the cursor. Tokens ending at the cursor count as complete,
+    * a token reaching beyond it as yet to be typed.
+    *
+    * @param cursor the position of the cursor as index into the current query
+    * @return the display names of the expected tokens as given by the grammar, keywords and punctuation in single
+    *       quotes, e.g. {@code 'eq'}, {@code FieldIdentifier} or {@code EOF}; empty if the text before the cursor is
+    *       already invalid
+    */
+   public Set<String> expectedTokensAt( final int cursor ) {
+      if ( cursor < 0 || cursor > text.length() ) {
+         throw new IndexOutOfBoundsException( "Cursor " + cursor + " outside of query of length " + text.length() );
+      }
+      useCurrentDfa();
+      final int position = supplementary ? text.codePointCount( 0, cursor ) : cursor;
+      int complete = 0;
+      int end = tokens.size() - 1; // the end of input is never complete
+      while ( complete < end ) { // binary search for the first token not ending before the cursor
+         final int middle = ( complete + end ) >>> 1;
+         if ( tokens.get( middle ).getStopIndex() < position ) {
+            complete = middle + 1;
+         } else {
+            end = middle;
+         }
+      }
+      final List<Token> prefix = new ArrayList<>( complete + 1 );
+      prefix.addAll( tokens.subList( 0, complete ) );
+      prefix.add( new CommonToken( CURSOR ) );
+
+      completionStrategy.expected = null;
+      resetParser( prefix, completionStrategy );
+      parser.setBuildParseTree( false );
+      try {
+         parser.query();
+      } catch ( final ParseStoppedException e ) {
+         // reached the cursor or an error before it
+      } finally {
+         parser.setBuildParseTree( true );
+      }
+      final IntervalSet expected = completionStrategy.expected;
+      if ( expected == null ) {
+         return Set.of();
+      }
+      final Set<String> names = new LinkedHashSet<>();
+      for ( final int type : expected.toArray() ) {
+         names.add( InternalRqlParser.VOCABULARY.getDisplayName( type ) );
+      }
+      return names;
+   }
+
+   /**
+    * @return the current query
+    */
+   public String getQuery() {
+      return text;
+   }
+
+   /**
+    * @return the outcome of the last update
+    */
+   public RqlParseOutcome getOutcome() {
+      return outcome;
+   }
+
+   /**
+    * @return the number of tokens the last update lexed, including the end of input
+    */
+   int getRelexedTokenCount() {
+      return relexedTokenCount;
+   }
+
+   /**
+    * @return the number of tokens the last update parsed to build the model
+    */
+   int getReparsedTokenCount() {
+      return reparsedTokenCount;
+   }
+
+   /**
+    * Lexes and parses a query from scratch.
+    */
+   private void start( final String query ) {
+      useCurrentDfa();
+      text = query;
+      supplementary = hasSupplementaryCharacters( query );
+      tokens.clear();
+      lexerErrorCount = 0;
+      maxLookahead = 0;
+      relex( "", 0, 0, query.length() );
+      outcome = parseAll();
+   }
+
+   /**
+    * Lexes the edited query again from the first token that looked at an edited character until the lexer reaches the
+    * start of one of the previous tokens behind the edit, from which on the tokens of the old and the new query are
+    * the same as the lexer has no modes. The kept tokens behind the edit are moved to their new position.
+    */
+   private TokenEdit relex( final String previous, final int editStart, final int oldEditEnd, final int newEditEnd ) {
+      final int delta = newEditEnd - oldEditEnd;
+      int first = 0;
+      int end = tokens.size();
+      while ( first < end ) { // binary search for the first token whose lexing may have reached the edit
+         final int middle = ( first + end ) >>> 1;
+         if ( tokens.get( middle ).callStart + maxLookahead < editStart ) {
+            first = middle + 1;
+         } else {
+            end = middle;
+         }
+      }
+      while ( first < tokens.size() && tokens.get( first ).lookaheadEnd < editStart ) {
+         first++;
+      }
+
+      final RecordingCharStream input = new RecordingCharStream( CharStreams.fromString( text ) );
+      lexer.setInputStream( input );
+      if ( first > 0 ) {
+         final LexedToken before = tokens.get( first - 1 );
+         int line = before.getLine();
+         int column = before.getCharPositionInLine();
+         final String beforeText = before.getText();
+         for ( int i = 0; i < beforeText.length(); i++ ) {
+            if ( beforeText.charAt( i ) == '\n' ) {
+               line++;
+               column = 0;
+            } else {
+               column++;
+            }
+         }
+         input.seek( before.getStopIndex() + 1 );
+         lexer.setLine( line );
+         lexer.setCharPositionInLine( column );
+      }
+
+      final List<LexedToken> lexed = new ArrayList<>();
+      int resume = first;
+      while ( true ) {
+         final LexedToken token = nextToken( input );
+         if ( token.getType() != Token.EOF && token.callStart >= newEditEnd ) {
+            final int oldCallStart = token.callStart - delta;
+            while ( resume < tokens.size() && tokens.get( resume ).callStart < oldCallStart ) {
+               resume++;
+            }
+            if ( resume < tokens.size() && tokens.get( resume ).callStart == oldCallStart ) {
+               break; // back in step, the remaining tokens are the same as before
+            }
+         }
+         lexed.add( token );
+         if ( token.getType() == Token.EOF ) {
+            resume = tokens.size();
+            break;
+         }
+      }
+
+      final List<LexedToken> replaced = tokens.subList( first, resume );
+      for ( final LexedToken token : replaced ) {
+         lexerErrorCount -= token.errors.size();
+      }
+      replaced.clear();
+      replaced.addAll( lexed );
+      for ( final LexedToken token : lexed ) {
+         lexerErrorCount += token.errors.size();
+      }
+      relexedTokenCount = lexed.size();
+
+      final int keptFrom = first + lexed.size();
+      if ( keptFrom < tokens.size() ) {
+         final int lineDelta = countLineBreaks( text, editStart, newEditEnd ) - countLineBreaks( previous, editStart, oldEditEnd );
+         final int columnDelta = column( text, newEditEnd ) - column( previous, oldEditEnd );
+         final int lineBreak = previous.indexOf( '\n', oldEditEnd );
+         final int sameLineEnd = lineBreak < 0 ? Integer.MAX_VALUE : lineBreak;
+         for ( int i = keptFrom; i < tokens.size(); i++ ) {
+            tokens.get( i ).move( delta, lineDelta, columnDelta, sameLineEnd );
+         }
+      }
+      return new TokenEdit( first, resume - first, lexed.size() );
+   }
+
+   private LexedToken nextToken( final RecordingCharStream input ) {
+      final int callStart = input.index();
+      input.lookaheadEnd = callStart;
+      pendingLexerErrors.clear();
+      final LexedToken token = (LexedToken) lexer.nextToken();
+      token.callStart = callStart;
+      token.lookaheadEnd = input.lookaheadEnd;
+      if ( !pendingLexerErrors.isEmpty() ) {
+         token.errors = pendingLexerErrors.stream()
+               .map( error -> new LexerError( error.offset() - callStart, error.message() ) )
+               .toList();
+      }
+      maxLookahead = Math.max( maxLookahead, token.lookaheadEnd - callStart );
+      return token;
+   }
+
+   /**
+    * Builds the model of the edited query, parsing only the innermost filter expression containing the edit where
+    * possible.
+    */
+   private RqlParseOutcome reparse( final TokenEdit edit ) {
+      if ( filterRoot == null || lexerErrorCount > 0 || !outcome.isValid() ) {
+         return parseAll();
+      }
+      if ( edit.removed() == 0 && edit.inserted() == 0 ) {
+         return outcome;
+      }
+      final int lastRemoved = edit.first() + edit.removed() - 1;
+      FilterNode node = filterRoot.contains( edit.first(), lastRemoved ) ? filterRoot : null;
+      while ( node != null ) {
+         final FilterNode child = node.childContaining( edit.first(), lastRemoved );
+         if ( child == null ) {
+            break;
+         }
+         node = child;
+      }
+      for ( ; node != null; node = node.parent ) {
+         final FilterNode replacement = parseFilterExpression( node, edit.inserted() - edit.removed() );
+         if ( replacement != null ) {
+            return RqlParseOutcome.valid( splice( node, replacement, edit.inserted() - edit.removed() ) );
+         }
+      }
+      return parseAll();
+   }
+
+   /**
+    * Parses the tokens of a filter expression after the edit.
+    *
+    * @return the expression or {@code null} if the tokens are no valid filter expression anymore
+    */
+   private FilterNode parseFilterExpression( final FilterNode node, final int tokenDelta ) {
+      final List<LexedToken> expression = tokens.subList( node.first, node.last + tokenDelta + 1 );
+      reparsedTokenCount += expression.size();
+      parserErrors.clear();
+      resetParser( expression, defaultErrorStrategy );
+      final InternalRqlParser.FilterFragmentContext fragment = parser.filterFragment();
+      if ( !parserErrors.isEmpty() ) {
+         return null;
+      }
+      try {
+         final FilterNode replacement = buildNode( fragment.filterExpression(), node.first );
+         replacement.parent = node.parent;
+         return replacement;
+      } catch ( final ParseException | IllegalArgumentException e ) {
+         return null; // left to parsing the whole query, which reports it
+      }
+   }
+
+   /**
+    * Puts a parsed filter expression in place of the previous one and builds the models of all expressions containing
+    * it again.
+    */
+   private RqlQueryModel splice( final FilterNode node, final FilterNode replacement, final int tokenDelta ) {
+      if ( tokenDelta != 0 ) {
+         filterRoot.move( node, node.last, tokenDelta );
+      }
+      if ( node.parent == null ) {
+         filterRoot = replacement;
+      } else {
+         node.parent.children.set( node.parent.children.indexOf( node ), replacement );
+         for ( FilterNode parent = node.parent; parent != null; parent = parent.parent ) {
+            parent.combine();
+         }
+      }
+      final RqlQueryModel previous = outcome.getModel().orElseThrow();
+      return new RqlQueryModelImpl( previous.getSelect(), filterRoot.filter, previous.getOptions() );
+   }
+
+   /**
+    * Parses all tokens and builds the model of the query from scratch.
+    */
+   private RqlParseOutcome parseAll() {
+      filterRoot = null;
+      reparsedTokenCount = tokens.size();
+      parserErrors.clear();
+      resetParser( tokens, defaultErrorStrategy );
+      final InternalRqlParser.QueryContext query = parser.query();
+      if ( lexerErrorCount > 0 || !parserErrors.isEmpty() ) {
+         return RqlParseOutcome.invalid( collectErrors() );
+      }
+      try {
+         final RqlParseTreeVisitor.ModelCombiner combiner = new RqlParseTreeVisitor.ModelCombiner();
+         FilterNode root = null;
+         for ( final InternalRqlParser.QueryParameterContext parameter : query.queryParameter() ) {
+            if ( parameter.filterDeclaration() != null ) {
+               root = buildNode( parameter.filterDeclaration().filterExpression(), 0 );
+               combiner.add( root.filter );
+            } else {
+               combiner.add( visitor.visitQueryParameter( parameter ) );
+            }
+         }
+         final RqlQueryModel model = combiner.build();
+         filterRoot = root;
+         return RqlParseOutcome.valid( model );
+      } catch ( final ParseException e ) { // semantically invalid, e.g. two filters
+         return RqlParseOutcome.invalid( ParseError.of( e ), e );
+      } catch ( final IllegalArgumentException e ) { // e.g. a number out of range
+         return RqlParseOutcome.invalid( new ParseError( String.valueOf( e.getMessage() ), null ), e );
+      }
+   }
+
+   private FilterNode buildNode( final InternalRqlParser.FilterExpressionContext ctx, final int tokenOffset ) {
+      return RqlTreeTraversal.fold( ctx, new RqlTreeTraversal.Folder<>() {
+         @Override
+         public List<InternalRqlParser.FilterExpressionContext> children( final InternalRqlParser.FilterExpressionContext expression ) {
+            return null == expression.logicalOperator() ? List.of() : RqlParseTreeVisitor.operands( expression.logicalOperator() );
+         }
+
+         @Override
+         public FilterNode combine( final InternalRqlParser.FilterExpressionContext expression, final List<FilterNode> operands ) {
+            final FilterNode node = new FilterNode( tokenOffset + expression.getStart().getTokenIndex(),
+                  tokenOffset + expression.getStop().getTokenIndex() );
+            final InternalRqlParser.LogicalOperatorContext logicalOperator = expression.logicalOperator();
+            if ( logicalOperator == null ) {
+               node.filter = visitor.visitFilterExpression( expression );
+               return node;
+            }
+            node.type = switch ( logicalOperator.getStart().getText() ) {
+               case "not" -> RqlFilter.FilterType.NOT;
+               case "and" -> RqlFilter.FilterType.AND;
+               default -> RqlFilter.FilterType.OR;
+            };
+            node.children = operands;
+            operands.forEach( operand -> operand.parent = node );
+            node.combine();
+            return node;
+         }
+      } );
+   }
+
+   private void resetParser( final List<? extends Token> input, final DefaultErrorStrategy errorStrategy ) {
+      parser.setErrorHandler( errorStrategy );
+      parser.setTokenStream( new CommonTokenStream( new ListTokenSource( input ) ) );
+      parser.setState( ATNState.INVALID_STATE_NUMBER ); // not reset by the parser, but the root context must not have an invoking state
+      parser.getInterpreter().setPredictionMode( PredictionMode.LL );
+   }
+
+   private void useCurrentDfa() {
+      final ParserSessionPool.SharedDfa current = sessionPool.getDfa();
+      if ( current != dfa ) {
+         dfa = current;
+         lexer.setInterpreter( new LexerATNSimulator( lexer, InternalRqlLexer._ATN, dfa.lexerDfa(), dfa.contextCache() ) );
+         parser.setInterpreter( new ParserATNSimulator( parser, InternalRqlParser._ATN, dfa.parserDfa(), dfa.contextCache() ) );
+      }
+   }
+
+   private List<ParseError> collectErrors() {
+      final List<ParseError> errors = new ArrayList<>( parserErrors );
+      if ( lexerErrorCount > 0 ) {
+         int line = 1;
+         int column = 0;
+         int position = 0;
+         int index = 0;
+         for ( final LexedToken token : tokens ) {
+            for ( final LexerError error : token.errors ) {
+               final int offset = token.callStart + error.offset();
+               for ( ; position < offset; position++ ) {
+                  final int codePoint = text.codePointAt( index );
+                  index += Character.charCount( codePoint );
+                  if ( codePoint == '\n' ) {
+                     line++;
+                     column = 0;
+                  } else {
+                     column++;
+                  }
+               }
+               errors.add( new ParseError( error.message(), new SourceLocation( line, column + 1 ) ) );
+            }
+         }
+      }
+      errors.sort( Comparator.comparing( ( final ParseError error ) -> error.getSourceLocation().isEmpty() )
+            .thenComparing( error -> error.getSourceLocation().map( SourceLocation::getLine ).orElse( 0 ) )
+            .thenComparing( error -> error.getSourceLocation().map( SourceLocation::getColumn ).orElse( 0 ) ) );
+      return errors;
+   }
+
+   private static boolean hasSupplementaryCharacters( final String query ) {
+      for ( int i = 0; i < query.length(); i++ ) {
+         if ( Character.isSurrogate( query.charAt( i ) ) ) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private static int countLineBreaks( final String query, final int start, final int end ) {
+      int count = 0;
+      for ( int i = start; i < end; i++ ) {
+         if ( query.charAt( i ) == '\n' ) {
+            count++;
+         }
+      }
+      return count;
+   }
+
+   private static int column( final String query, final int index ) {
+      return index - ( query.lastIndexOf( '\n', index - 1 ) + 1 );
+   }
+
+   /**
+    * The outcome of an update together with the tokens expected at the cursor.
+    *
+    * @param outcome the model of the query or the errors making it invalid
+    * @param expectedTokens the display names of the tokens that may be typed at the cursor
+    */
+   public record Result( RqlParseOutcome outcome, Set<String> expectedTokens ) {
+   }
+
+   /**
+    * Old tokens {@code [first, first + removed)} were replaced by new tokens {@code [first, first + inserted)}.
+    */
+   private record TokenEdit( int first, int removed, int inserted ) {
+   }
+
+   /**
+    * An error of the lexer at an offset relative to where the lexing of the token reporting it started.
+    */
+   private record LexerError( int offset, String message ) {
+   }
+
+   /**
+    * A token that knows which characters its lexing depended on. Its text is copied, as the characters of the query it
+    * was lexed from are not kept.
+    */
+   private static final class LexedToken extends CommonToken {
+      private static final long serialVersionUID = 1L;
+
+      /**
+       * Where the lexer started the call that returned this token, before any skipped whitespace or erroneous
+       * characters.
+       */
+      private transient int callStart;
+      /**
+       * The last index the lexer looked at while lexing this token, the length of the query if it looked at its end.
+       */
+      private transient int lookaheadEnd;
+      private transient List<LexerError> errors = List.of();
+
+      LexedToken( final Pair<TokenSource, CharStream> source, final int type, final int channel, final int start, final int stop ) {
+         super( source, type, channel, start, stop );
+      }
+
+      /**
+       * Moves a token behind an edit.
+       *
+       * @param sameLineEnd the index of the line break ending the line of the end of the edit before the edit
+       */
+      void move( final int delta, final int lineDelta, final int columnDelta, final int sameLineEnd ) {
+         if ( start < sameLineEnd ) {
+            charPositionInLine += columnDelta;
+         }
+         line += lineDelta;
+         start += delta;
+         stop += delta;
+         callStart += delta;
+         lookaheadEnd += delta;
+      }
+   }
+
+   private static final class LexedTokenFactory implements TokenFactory<LexedToken> {
+
+      @Override
+      public LexedToken create(
+            final Pair<TokenSource, CharStream> source,
+            final int type,
+            final String text,
+            final int channel,
+            final int start,
+            final int stop,
+            final int line,
+            final int charPositionInLine ) {
+         final LexedToken token = new LexedToken( new Pair<>( source.a, null ), type, channel, start, stop );
+         token.setLine( line );
+         token.setCharPositionInLine( charPositionInLine );
+         if ( text != null ) {
+            token.setText( text );
+         } else if ( type == Token.EOF ) {
+            token.setText( "<EOF>" ); // as a CommonToken with its input reports it
+         } else {
+            token.setText( source.b.getText( Interval.of( start, stop ) ) );
+         }
+         return token;
+      }
+
+      @Override
+      public LexedToken create( final int type, final String text ) {
+         throw new UnsupportedOperationException( "Tokens are only created by the lexer" );
+      }
+   }
+
+   /**
+    * Records the last index the lexer looks at.
+    */
+   private static final class RecordingCharStream implements CharStream {
+      private final CharStream input;
+      private int lookaheadEnd;
+
+      RecordingCharStream( final CharStream input ) {
+         this.input = input;
+      }
+
+      @Override
+      @SuppressWarnings( "checkstyle:MethodName" ) // name given by the interface
+      public int LA( final int i ) {
+         if ( i > 0 ) {
+            lookaheadEnd = Math.max( lookaheadEnd, input.index() + i - 1 );
+         }
+         return input.LA( i );
+      }
+
+      @Override
+      public String getText( final Interval interval ) {
+         return input.getText( interval );
+      }
+
+      @Override
+      public void consume() {
+         input.consume();
+      }
+
+      @Override
+      public int mark() {
+         return input.mark();
+      }
+
+      @Override
+      public void release( final int marker ) {
+         input.release( marker );
+      }
+
+      @Override
+      public int index() {
+         return input.index();
+      }
+
+      @Override
+      public void seek( final int index ) {
+         input.seek( index );
+      }
+
+      @Override
+      public int size() {
+         return input.size();
+      }
+
+      @Override
+      public String getSourceName() {
+         return input.getSourceName();
+      }
+   }
+
+   /**
+    * A filter expression of the current query spanning the tokens {@code [first, last]}.
+    */
+   private static final class FilterNode {
+      private FilterNode parent;
+      private int first;
+      private int last;
+      private RqlFilter filter;
+      /**
+       * The type of a logical operator, {@code null} for a comparison.
+       */
+      private RqlFilter.FilterType type;
+      private List<FilterNode> children = List.of();
+
+      FilterNode( final int first, final int last ) {
+         this.first = first;
+         this.last = last;
+      }
+
+      /**
+       * @return whether the tokens {@code [from, to]} lie within this expression without touching its first or last
+       *       token, whose change could move its bounds
+       */
+      boolean contains( final int from, final int to ) {
+         return first < from && to < last;
+      }
+
+      FilterNode childContaining( final int from, final int to ) {
+         for ( final FilterNode child : children ) {
+            if ( child.contains( from, to ) ) {
+               return child;
+            }
+         }
+         return null;
+      }
+
+      void combine() {
+         filter = RqlFilterNode.logical( type, children.stream().map( child -> child.filter ).toList() );
+      }
+
+      /**
+       * Moves the expressions behind token {@code edited} and the bounds of those containing it, except for the
+       * expression being replaced.
+       */
+      void move( final FilterNode replaced, final int edited, final int tokenDelta ) {
+         final Deque<FilterNode> pending = new ArrayDeque<>();
+         pending.push( this );
+         while ( !pending.isEmpty() ) {
+            final FilterNode node = pending.pop();
+            if ( node == replaced ) {
+               continue;
+            }
+            if ( node.first > edited ) {
+               node.first += tokenDelta;
+            }
+            if ( node.last >= edited ) {
+               node.last += tokenDelta;
+            }
+            node.children.forEach( pending::push );
+         }
+      }
+   }
+
+   /**
+    * Records the tokens expected where the parser reaches the cursor and cancels the parse there, or at the first
+    * error before the cursor. The expected tokens are taken from the first decision or match at the cursor, so they
+    * include all alternatives at that position.
+    */
+   private static final class CompletionStrategy extends DefaultErrorStrategy {
+      private IntervalSet expected;
+
+      @Override
+      public void sync( final Parser recognizer ) {
+         if ( atCursor( recognizer ) ) {
+            expected = recognizer.getExpectedTokens();
+            throw ParseStoppedException.INSTANCE;
+         }
+      }
+
+      @Override
+      public Token recoverInline( final Parser recognizer ) {
+         reportError( recognizer, new InputMismatchException( recognizer ) );
+         return null; // not reached
+      }
+
+      @Override
+      public void reportError( final Parser recognizer, final RecognitionException e ) {
+         if ( atCursor( recognizer ) ) {
+            expected = recognizer.getExpectedTokens();
+         }
+         throw ParseStoppedException.INSTANCE;
+      }
+
+      private static boolean atCursor( final Parser recognizer ) {
+         return recognizer.getCurrentToken().getType() == CURSOR;
+      }
+   }
+}
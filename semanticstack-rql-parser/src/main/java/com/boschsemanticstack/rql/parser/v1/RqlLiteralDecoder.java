@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Month;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
+
+/**
+ * Converts the text of literal tokens into the values of the query model.
+ *
+ * <p>The common cases are decoded in a single pass over the text without exceptions or intermediate strings: string
+ * literals are unescaped without a tokenizer, the integer type is chosen by the number of digits and RFC 3339 times
+ * are parsed by hand. Anything else, including all invalid input, is passed on to the general purpose JDK parsers so
+ * that results and error messages stay exactly the same.</p>
+ */
+final class RqlLiteralDecoder {
+
+   private static final int MAX_FRACTION_DIGITS = 9;
+   private static final int[] NANO_SCALE = { 1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000 };
+   private static final int MAX_OFFSET_MINUTES = 18 * 60;
+   private static final int MIN_TIME_LENGTH = "0000-00-00T00:00:00Z".length();
+
+   private RqlLiteralDecoder() {
+      // utility class
+   }
+
+   /**
+    * Unescapes a string literal including its quotes, ending early at a raw line break the way {@link StreamTokenizer}
+    * does.
+    */
+   static String unescapeString( final CharSequence literal ) {
+      final int length = literal.length();
+      if ( length < 2 || literal.charAt( 0 ) != '"' ) {
+         return unescapeWithTokenizer( literal );
+      }
+      int i = 1;
+      while ( i < length ) {
+         final char c = literal.charAt( i );
+         if ( c == '"' ) {
+            return literal.subSequence( 1, i ).toString();
+         }
+         if ( c == '\\' || c == '\n' || c == '\r' ) {
+            break;
+         }
+         i++;
+      }
+      final StringBuilder value = new StringBuilder( length - 2 ).append( literal, 1, i );
+      while ( i < length ) {
+         final char c = literal.charAt( i++ );
+         if ( c == '"' || c == '\n' || c == '\r' ) {
+            return value.toString();
+         }
+         if ( c != '\\' ) {
+            value.append( c );
+            continue;
+         }
+         final char escaped = i < length ? unescape( literal.charAt( i++ ) ) : 0;
+         if ( escaped == 0 ) {
+            return unescapeWithTokenizer( literal ); // escapes the lexer never lets through
+         }
+         value.append( escaped );
+      }
+      return value.toString();
+   }
+
+   private static char unescape( final char c ) {
+      return switch ( c ) {
+         case 'b' -> '\b';
+         case 't' -> '\t';
+         case 'n' -> '\n';
+         case 'f' -> '\f';
+         case 'r' -> '\r';
+         case '"' -> '"';
+         case '\\' -> '\\';
+         default -> 0;
+      };
+   }
+
+   private static String unescapeWithTokenizer( final CharSequence literal ) {
+      final StreamTokenizer tokenizer = new StreamTokenizer( new StringReader( literal.toString() ) );
+      try {
+         tokenizer.nextToken();
+      } catch ( final IOException e ) {
+         throw new UncheckedIOException( e ); // cannot happen when reading from a string
+      }
+      return tokenizer.sval;
+   }
+
+   static Number parseIntoSmallestIntegerType( final String text ) {
+      return parseIntoSmallestIntegerType( text, 0, text.length() );
+   }
+
+   /**
+    * Parses an integer into an {@link Integer}, a {@link Long} or a {@link BigInteger}, whichever is the smallest
+    * to hold it.
+    *
+    * @throws NumberFormatException if the text is no integer
+    */
+   static Number parseIntoSmallestIntegerType( final CharSequence text, final int start, final int end ) {
+      int i = start;
+      final boolean negative = i < end && text.charAt( i ) == '-';
+      if ( i < end && ( negative || text.charAt( i ) == '+' ) ) {
+         i++;
+      }
+      if ( i == end ) {
+         return parseWithJdk( text, start, end );
+      }
+      long value = 0; // accumulated negatively like Long.parseLong to reach Long.MIN_VALUE
+      for ( ; i < end; i++ ) {
+         final int digit = text.charAt( i ) - '0';
+         if ( digit < 0 || digit > 9 ) {
+            return parseWithJdk( text, start, end );
+         }
+         if ( value < Long.MIN_VALUE / 10 || value == Long.MIN_VALUE / 10 && digit > 8 ) {
+            return parseBigInteger( text, start, end, i );
+         }
+         value = value * 10 - digit;
+      }
+      if ( !negative ) {
+         if ( value == Long.MIN_VALUE ) {
+            return parseBigInteger( text, start, end, end );
+         }
+         value = -value;
+      }
+      if ( value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ) {
+         return (int) value;
+      }
+      return value;
+   }
+
+   private static Number parseBigInteger( final CharSequence text, final int start, final int end, final int from ) {
+      for ( int i = from; i < end; i++ ) {
+         final char c = text.charAt( i );
+         if ( c < '0' || c > '9' ) {
+            return parseWithJdk( text, start, end );
+         }
+      }
+      return new BigInteger( text.subSequence( start, end ).toString() );
+   }
+
+   private static Number parseWithJdk( final CharSequence text, final int start, final int end ) {
+      final String integerString = text.subSequence( start, end ).toString();
+      try {
+         return Integer.parseInt( integerString );
+      } catch ( final NumberFormatException e ) {
+         try {
+            return Long.parseLong( integerString );
+         } catch ( final NumberFormatException e2 ) {
+            try {
+               return new BigInteger( integerString );
+            } catch ( final NumberFormatException e3 ) {
+               throw new NumberFormatException( "Can not parse '" + integerString + "' as Integer, Long or BigInteger!" );
+            }
+         }
+      }
+   }
+
+   /**
+    * @throws NumberFormatException if the text is no decimal number
+    */
+   static Number parseIntoSmallestFloatType( final String text ) {
+      try {
+         return new BigDecimal( text );
+      } catch ( final NumberFormatException e3 ) {
+         throw new NumberFormatException( "Can not parse '" + text + "' as Float, Double or BigDecimal!" );
+      }
+   }
+
+   static OffsetDateTime parseOffsetDateTime( final String text ) {
+      return parseOffsetDateTime( text, 0, text.length() );
+   }
+
+   /**
+    * Parses an RFC 3339 date-time, which may use a comma to separate the fraction of a second.
+    *
+    * @throws java.time.format.DateTimeParseException if the text is no valid date-time
+    */
+   static OffsetDateTime parseOffsetDateTime( final CharSequence text, final int start, final int end ) {
+      final OffsetDateTime dateTime = parseRfc3339( text, start, end );
+      return dateTime != null
+            ? dateTime
+            : OffsetDateTime.parse( text.subSequence( start, end ).toString().replace( ",", "." ) );
+   }
+
+   /**
+    * @return the date-time or {@code null} if the text is anything but a valid RFC 3339 date-time
+    */
+   private static OffsetDateTime parseRfc3339( final CharSequence text, final int start, final int end ) {
+      if ( end - start < MIN_TIME_LENGTH
+            || text.charAt( start + 4 ) != '-' || text.charAt( start + 7 ) != '-'
+            || ( text.charAt( start + 10 ) | 0x20 ) != 't'
+            || text.charAt( start + 13 ) != ':' || text.charAt( start + 16 ) != ':' ) {
+         return null;
+      }
+      final int year = digits( text, start, 4 );
+      final int month = digits( text, start + 5, 2 );
+      final int day = digits( text, start + 8, 2 );
+      final int hour = digits( text, start + 11, 2 );
+      final int minute = digits( text, start + 14, 2 );
+      final int second = digits( text, start + 17, 2 );
+      if ( year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of( month ).length( Year.isLeap( year ) )
+            || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59 ) {
+         return null;
+      }
+      int i = start + 19;
+      int nano = 0;
+      if ( text.charAt( i ) == '.' || text.charAt( i ) == ',' ) {
+         final int fractionStart = ++i;
+         while ( i < end && isDigit( text.charAt( i ) ) && i - fractionStart < MAX_FRACTION_DIGITS ) {
+            nano = nano * 10 + text.charAt( i++ ) - '0';
+         }
+         if ( i == fractionStart || i < end && isDigit( text.charAt( i ) ) ) {
+            return null;
+         }
+         nano *= NANO_SCALE[MAX_FRACTION_DIGITS - ( i - fractionStart )];
+      }
+      final ZoneOffset offset = parseOffset( text, i, end );
+      return offset == null ? null : OffsetDateTime.of( year, month, day, hour, minute, second, nano, offset );
+   }
+
+   private static ZoneOffset parseOffset( final CharSequence text, final int start, final int end ) {
+      if ( end - start == 1 && ( text.charAt( start ) | 0x20 ) == 'z' ) {
+         return ZoneOffset.UTC;
+      }
+      final char sign = end - start == 6 ? text.charAt( start ) : 0;
+      if ( sign != '+' && sign != '-' || text.charAt( start + 3 ) != ':' ) {
+         return null;
+      }
+      final int hours = digits( text, start + 1, 2 );
+      final int minutes = digits( text, start + 4, 2 );
+      if ( hours < 0 || minutes < 0 || minutes > 59 || hours * 60 + minutes > MAX_OFFSET_MINUTES ) {
+         return null;
+      }
+      return sign == '+'
+            ? ZoneOffset.ofHoursMinutes( hours, minutes )
+            : ZoneOffset.ofHoursMinutes( -hours, -minutes );
+   }
+
+   /**
+    * @return the value of the given number of decimal digits or {@code -1} if there is anything else
+    */
+   private static int digits( final CharSequence text, final int start, final int count ) {
+      int value = 0;
+      for ( int i = start; i < start + count; i++ ) {
+         final char c = text.charAt( i );
+         if ( !isDigit( c ) ) {
+            return -1;
+         }
+         value = value * 10 + c - '0';
+      }
+      return value;
+   }
+
+   private static boolean isDigit( final char c ) {
+      return c >= '0' && c <= '9';
+   }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import com.boschsemanticstack.rql.model.v1.RqlCursor;
+import com.boschsemanticstack.rql.model.v1.RqlFieldDirection;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
+import com.boschsemanticstack.rql.model.v1.RqlModelNode;
+import com.boschsemanticstack.rql.model.v1.RqlOrder;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlSlice;
+import com.boschsemanticstack.rql.model.v1.RqlSymbolTable;
+import com.boschsemanticstack.rql.model.v1.impl.RqlCursorImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFieldDirectionImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlOptionsImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlOrderImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlSelectImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlSliceImpl;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.misc.IntegerStack;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Builds the {@link RqlQueryModel} from parse events while the parser runs with tree building turned off.
+ *
+ * <p>Even without a parse tree the parser attaches the tokens matched by a rule to its context, so each rule exit
+ * reads its tokens from the context and the results of its sub-rules from an operand stack. The created model is the
+ * same as the one of {@link RqlParseTreeVisitor}, including the exceptions thrown for semantically invalid queries;
+ * these are only raised by {@link #getModel()} so that syntax errors found later in the query still take
+ * precedence.</p>
+ *
+ * <p>An instance is reused for many parses of one {@link ParserSession}; it only builds a model for the
+ * {@code query} rule.</p>
+ */
+class RqlModelBuildingListener implements ParseTreeListener {
+
+   /**
+    * Marks a rule whose operands are handed on to the enclosing rule unchanged.
+    */
+   private static final Object PASS_THROUGH = new Object();
+   /**
+    * Marks a rule that consumes its operands without leaving a result.
+    */
+   private static final Object NO_OPERAND = new Object();
+
+   private final List<Object> operands = new ArrayList<>();
+   private final IntegerStack frames = new IntegerStack();
+   private final LiteralListBuffer literalList = new LiteralListBuffer();
+   private ParseResult parseResult;
+   private RqlParseTreeVisitor.ModelCombiner combiner;
+   private RqlQueryModel model;
+   private RuntimeException failure;
+   private RqlSymbolTable symbols = RqlSymbolTable.shared();
+
+   /**
+    * Prepares for the next parse.
+    *
+    * @param parseResult the result collecting syntax errors, after the first of which no more model is built; or
+    *       {@code null} if parsing bails out on the first error anyway
+    */
+   void reset( final ParseResult parseResult ) {
+      this.parseResult = parseResult;
+      operands.clear();
+      frames.clear();
+      literalList.clear();
+      combiner = new RqlParseTreeVisitor.ModelCombiner();
+      model = null;
+      failure = null;
+   }
+
+   /**
+    * @param symbols the table canonicalizing fields and string literals of the models built from now on
+    */
+   void useSymbolTable( final RqlSymbolTable symbols ) {
+      this.symbols = symbols;
+   }
+
+   /**
+    * @return the model of the query parsed last
+    * @throws RuntimeException the exception {@link RqlParseTreeVisitor} would have thrown for the query
+    */
+   RqlQueryModel getModel() {
+      if ( failure != null ) {
+         throw failure;
+      }
+      return model;
+   }
+
+   @Override
+   public void enterEveryRule( final ParserRuleContext ctx ) {
+      frames.push( operands.size() );
+   }
+
+   @Override
+   public void exitEveryRule( final ParserRuleContext ctx ) {
+      final int frame = frames.pop();
+      if ( isBuildStopped() ) {
+         return;
+      }
+      try {
+         final Object result = reduce( ctx, frame );
+         if ( result != PASS_THROUGH ) {
+            operands.subList( frame, operands.size() ).clear();
+            if ( result != NO_OPERAND ) {
+               operands.add( result );
+            }
+         }
+      } catch ( final RuntimeException e ) {
+         failure = e;
+         operands.clear();
+      }
+   }
+
+   /**
+    * Converts the values of literal lists as soon as they are matched and drops their tokens from the context, so
+    * huge {@code in} lists do not keep all of their tokens in memory. The values are collected unboxed until the list
+    * ends. All other tokens are read from the rule contexts on exit.
+    */
+   @Override
+   public void visitTerminal( final TerminalNode node ) {
+      final ParserRuleContext parent = (ParserRuleContext) node.getParent();
+      if ( !( parent instanceof InternalRqlParser.StringLiteralListContext
+            || parent instanceof InternalRqlParser.FloatLiteralListContext
+            || parent instanceof InternalRqlParser.IntLiteralListContext ) ) {
+         return;
+      }
+      parent.removeLastChild();
+      if ( isBuildStopped() ) {
+         return;
+      }
+      final Token token = node.getSymbol();
+      try {
+         switch ( token.getType() ) {
+            case InternalRqlParser.StringLiteral -> literalList.addString( symbols.literal( RqlParseTreeVisitor.unescapeStringLiteral( token ) ) );
+            case InternalRqlParser.FloatLiteral -> literalList.addDouble( Double.parseDouble( token.getText() ) );
+            case InternalRqlParser.IntLiteral -> literalList.addInt( Integer.parseInt( token.getText() ) );
+            default -> {
+               // separators
+            }
+         }
+      } catch ( final RuntimeException e ) {
+         failure = e;
+         operands.clear();
+         literalList.clear();
+      }
+   }
+
+   @Override
+   public void visitErrorNode( final ErrorNode node ) {
+      // errors are collected by the error listener
+   }
+
+   private boolean isBuildStopped() {
+      return failure != null || parseResult != null && !parseResult.getErrors().isEmpty();
+   }
+
+   @SuppressWarnings( "unchecked" )
+   private Object reduce( final ParserRuleContext ctx, final int frame ) {
+      return switch ( ctx ) {
+         case final InternalRqlParser.QueryContext ignored -> {
+            model = combiner.build();
+            yield NO_OPERAND;
+         }
+         case final InternalRqlParser.QueryParameterContext ignored -> {
+            combiner.add( (RqlModelNode) operands.get( frame ) );
+            yield NO_OPERAND;
+         }
+         case final InternalRqlParser.SelectDeclarationContext ignored -> new RqlSelectImpl( (List<String>) operands.get( frame ) );
+         case final InternalRqlParser.FieldListContext fieldList -> {
+            final List<String> fields = new ArrayList<>( fieldList.FieldIdentifier().size() );
+            for ( final TerminalNode fieldIdentifier : fieldList.FieldIdentifier() ) {
+               fields.add( symbols.field( fieldIdentifier.getText() ) );
+            }
+            yield fields;
+         }
+         case final InternalRqlParser.OptionExpressionContext ignored -> createOptions( frame );
+         case final InternalRqlParser.SortExpressionContext ignored -> new RqlOrderImpl( operandsOf( frame ) );
+         case final InternalRqlParser.SortFieldIdentifierContext sortField -> new RqlFieldDirectionImpl(
+               symbols.field( sortField.FieldIdentifier().getText() ),
+               "+".equals( sortField.Sign().getText() )
+                     ? RqlFieldDirection.Direction.ASCENDING
+                     : RqlFieldDirection.Direction.DESCENDING );
+         case final InternalRqlParser.LimitExpressionContext limit -> new RqlSliceImpl(
+               Long.parseLong( limit.IntLiteral( 0 ).getText() ),
+               Long.parseLong( limit.IntLiteral( 1 ).getText() ) );
+         case final InternalRqlParser.CursorExpressionContext cursor -> cursor.StringLiteral() == null
+               ? new RqlCursorImpl( Long.parseLong( cursor.IntLiteral().getText() ) )
+               : new RqlCursorImpl( Optional.ofNullable( RqlParseTreeVisitor.unescapeStringLiteral( cursor.StringLiteral().getSymbol() ) ),
+                     Long.parseLong( cursor.IntLiteral().getText() ) );
+         case final InternalRqlParser.LogicalOperatorContext logical -> switch ( logical.getStart().getText() ) {
+            case "not" -> new RqlFilterNode.Not( (RqlFilter) operands.get( frame ) );
+            case "and" -> new RqlFilterNode.And( this.<RqlFilter> operandsOf( frame ) );
+            default -> new RqlFilterNode.Or( this.<RqlFilter> operandsOf( frame ) );
+         };
+         case final InternalRqlParser.MultiComparisonContext in -> RqlFilterNode.condition(
+               symbols.fieldPath( in.FieldIdentifier().getText() ), RqlFilter.Operator.IN, operands.get( frame ) );
+         case final InternalRqlParser.EqualityComparisonContext equality -> new RqlFilterNode.Comparison(
+               symbols.fieldPath( equality.FieldIdentifier().getText() ),
+               "eq".equals( equality.getStart().getText() ) ? RqlFilter.Operator.EQ : RqlFilter.Operator.NE,
+               operands.get( frame ) );
+         case final InternalRqlParser.OrderRelationContext relation -> new RqlFilterNode.Comparison(
+               symbols.fieldPath( relation.FieldIdentifier().getText() ),
+               switch ( relation.getStart().getText() ) {
+                  case "lt" -> RqlFilter.Operator.LT;
+                  case "le" -> RqlFilter.Operator.LE;
+                  case "gt" -> RqlFilter.Operator.GT;
+                  default -> RqlFilter.Operator.GE;
+               },
+               operands.get( frame ) );
+         case final InternalRqlParser.StringMatchContext match -> new RqlFilterNode.Like(
+               symbols.fieldPath( match.FieldIdentifier().getText() ),
+               !"like".equals( match.getStart().getText() ),
+               symbols.literal( RqlParseTreeVisitor.unescapeStringLiteral( match.StringLiteral().getSymbol() ) ) );
+         case final InternalRqlParser.StringLiteralListContext ignored -> literalList.build();
+         case final InternalRqlParser.FloatLiteralListContext ignored -> literalList.build();
+         case final InternalRqlParser.IntLiteralListContext ignored -> literalList.build();
+         case final InternalRqlParser.LiteralContext literal -> {
+            if ( literal.NullLiteral() != null ) {
+               yield null;
+            }
+            yield literal.BooleanLiteral() == null
+                  ? PASS_THROUGH
+                  : Boolean.valueOf( "true".equals( literal.BooleanLiteral().getText() ) );
+         }
+         case final InternalRqlParser.LinearilyOrderableLiteralContext literal -> createValue( literal.getStart() );
+         default -> PASS_THROUGH;
+      };
+   }
+
+   @SuppressWarnings( "unchecked" )
+   private <T> List<T> operandsOf( final int frame ) {
+      return (List<T>) operands.subList( frame, operands.size() );
+   }
+
+   private RqlOptionsImpl createOptions( final int frame ) {
+      RqlOrder order = null;
+      RqlSlice slice = null;
+      RqlCursor cursor = null;
+      for ( final Object operand : operands.subList( frame, operands.size() ) ) {
+         if ( operand instanceof final RqlOrder rqlOrder ) {
+            order = rqlOrder;
+         } else if ( operand instanceof final RqlSlice rqlSlice ) {
+            slice = rqlSlice;
+         } else {
+            cursor = (RqlCursor) operand;
+         }
+      }
+      return new RqlOptionsImpl( slice, order, cursor );
+   }
+
+   private Object createValue( final Token literal ) {
+      return switch ( literal.getType() ) {
+         case InternalRqlParser.StringLiteral -> symbols.literal( RqlParseTreeVisitor.unescapeStringLiteral( literal ) );
+         case InternalRqlParser.FloatLiteral -> RqlLiteralDecoder.parseIntoSmallestFloatType( literal.getText() );
+         case InternalRqlParser.IntLiteral -> RqlLiteralDecoder.parseIntoSmallestIntegerType( literal.getText() );
+         default -> RqlParseTreeVisitor.parseOffsetDateTime( literal );
+      };
+   }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlOptions;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlSelect;
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
+import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
+
+/**
+ * A bounded, concurrent cache for parsed {@link RqlQueryModel}s keyed by their query string.
+ *
+ * <p>Query strings are normalized before lookup: whitespace that the lexer would skip anyway is dropped and the
+ * {@code &}-separated parts are sorted, so {@code "option=limit(0,5)&filter=eq(a, 1)"} and
+ * {@code "filter=eq(a,1)&option=limit(0,5)"} share one entry. The values of single parameters, e.g. passed as
+ * separate HTTP parameters, are cached independently of each other.</p>
+ *
+ * <p>Reads are lock-free. The cache is bounded both by the number of entries and by an estimate of the heap held
+ * by the cached models. When it is full, a newly parsed model is only admitted if its query has been requested at
+ * least as often as a sampled eviction candidate, so a burst of one-off queries cannot flush the popular ones.
+ * Only successfully parsed models are cached; invalid queries are parsed (and rejected) every time.</p>
+ */
+public class RqlParseCache {
+
+   public static final int DEFAULT_MAXIMUM_ENTRIES = 1024;
+   public static final long DEFAULT_MAXIMUM_WEIGHT = 16L * 1024 * 1024;
+
+   private static final int EVICTION_SAMPLE_SIZE = 8;
+   private static final char FRAGMENT_KEY_PREFIX = '\u0000';
+   private static final long ENTRY_OVERHEAD = 96;
+   private static final long NODE_OVERHEAD = 64;
+   private static final long VALUE_OVERHEAD = 24;
+   private static final long PRIMITIVE_VALUE_SIZE = 8;
+
+   private final int maximumEntries;
+   private final long maximumWeight;
+   private final RqlParserApi parserApi;
+   private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+   private final FrequencySketch sketch;
+   private final ReentrantLock evictionLock = new ReentrantLock();
+   private volatile long weight;
+
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
+
+   public RqlParseCache() {
+      this( DEFAULT_MAXIMUM_ENTRIES, DEFAULT_MAXIMUM_WEIGHT );
+   }
+
+   /**
+    * @param maximumEntries the maximum number of cached models
+    * @param maximumWeight the maximum estimated heap size in bytes of all cached models together
+    */
+   public RqlParseCache( final int maximumEntries, final long maximumWeight ) {
+      this( maximumEntries, maximumWeight, RqlParserConfig.defaultConfig() );
+   }
+
+   /**
+    * @param maximumEntries the maximum number of cached models
+    * @param maximumWeight the maximum estimated heap size in bytes of all cached models together
+    * @param config the settings used to parse queries missing in the cache
+    */
+   public RqlParseCache( final int maximumEntries, final long maximumWeight, final RqlParserConfig config ) {
+      if ( maximumEntries <= 0 || maximumWeight <= 0 ) {
+         throw new IllegalArgumentException( "Maximum entries and maximum weight of the parse cache must be positive." );
+      }
+      this.maximumEntries = maximumEntries;
+      this.maximumWeight = maximumWeight;
+      parserApi = new RqlParserApi( Objects.requireNonNull( config ) );
+      sketch = new FrequencySketch( maximumEntries );
+   }
+
+   /**
+    * Returns the cached model for the given query or parses and caches it.
+    *
+    * @param rqlQuery the query to parse
+    * @return the (possibly shared) immutable model of the query
+    * @throws com.boschsemanticstack.rql.exceptions.ParseException if the query is not valid
+    */
+   public RqlQueryModel parse( final String rqlQuery ) {
+      if ( rqlQuery != null ) {
+         // whitespace is normalized away in the key, so a hit does not prove the query is short enough
+         QueryLimitGuard.checkLength( rqlQuery, parserApi.getConfig() );
+      }
+      return get( rqlQuery, parserApi::parseFullQuery );
+   }
+
+   /**
+    * Returns the cached model for the given query or validates and parses it without throwing, caching it if it is
+    * valid. Invalid queries are not cached.
+    *
+    * @param rqlQuery the query to parse
+    * @return the (possibly shared) immutable model of the query or the errors making it invalid
+    */
+   public RqlParseOutcome tryParse( final String rqlQuery ) {
+      if ( rqlQuery == null || rqlQuery.length() > parserApi.getConfig().getMaxInputLength() ) {
+         return parserApi.tryParseFullQuery( rqlQuery );
+      }
+      final String key = normalize( rqlQuery );
+      final RqlQueryModel cached = lookup( key );
+      if ( cached != null ) {
+         return RqlParseOutcome.valid( cached );
+      }
+      final RqlParseOutcome outcome = parserApi.tryParseFullQuery( rqlQuery );
+      outcome.getModel().ifPresent( model -> admit( key, model ) );
+      return outcome;
+   }
+
+   /**
+    * Returns the cached model for the value of a {@code select} parameter or parses and caches it.
+    *
+    * @param select the fields to parse, e.g. {@code "id,name"}
+    * @return the (possibly shared) immutable model of the fields
+    * @throws com.boschsemanticstack.rql.exceptions.ParseException if the fields are not valid
+    */
+   public RqlSelect parseSelect( final String select ) {
+      return parseFragment( "select", select, fragment -> new RqlQueryModelImpl( parserApi.parseSelect( fragment ), null, null ) )
+            .getSelect();
+   }
+
+   /**
+    * Returns the cached model for the value of a {@code filter} parameter or parses and caches it.
+    *
+    * @param filter the filter to parse, e.g. {@code "eq(name,\"x\")"}
+    * @return the (possibly shared) immutable model of the filter
+    * @throws com.boschsemanticstack.rql.exceptions.ParseException if the filter is not valid
+    */
+   public RqlFilter parseFilter( final String filter ) {
+      return parseFragment( "filter", filter, fragment -> new RqlQueryModelImpl( null, parserApi.parseFilter( fragment ), null ) )
+            .getFilter()
+            .orElseThrow();
+   }
+
+   /**
+    * Returns the cached model for the value of an {@code option} parameter or parses and caches it.
+    *
+    * @param options the options to parse, e.g. {@code "sort(+name),limit(0,10)"}
+    * @return the (possibly shared) immutable model of the options
+    * @throws com.boschsemanticstack.rql.exceptions.ParseException if the options are not valid
+    */
+   public RqlOptions parseOptions( final String options ) {
+      return parseFragment( "option", options, fragment -> new RqlQueryModelImpl( null, null, parserApi.parseOptions( fragment ) ) )
+            .getOptions();
+   }
+
+   /**
+    * Caches parameter values next to complete queries. Their keys start with a character no valid query starts with,
+    * followed by the parameter name, so they neither collide with queries nor with values of other parameters.
+    */
+   private RqlQueryModel parseFragment( final String parameter, final String fragment,
+         final Function<String, RqlQueryModel> parser ) {
+      if ( fragment == null ) {
+         return parser.apply( null );
+      }
+      QueryLimitGuard.checkLength( fragment, parserApi.getConfig() );
+      return get( FRAGMENT_KEY_PREFIX + parameter + '=' + normalize( fragment ), fragment, parser );
+   }
+
+   RqlQueryModel get( final String rqlQuery, final Function<String, RqlQueryModel> parser ) {
+      if ( rqlQuery == null ) {
+         return parser.apply( null );
+      }
+      return get( normalize( rqlQuery ), rqlQuery, parser );
+   }
+
+   private RqlQueryModel get( final String key, final String rqlQuery, final Function<String, RqlQueryModel> parser ) {
+      final RqlQueryModel cached = lookup( key );
+      if ( cached != null ) {
+         return cached;
+      }
+      final RqlQueryModel model = parser.apply( rqlQuery );
+      admit( key, model );
+      return model;
+   }
+
+   /**
+    * @return the cached model or {@code null} if the key has to be parsed and admitted
+    */
+   private RqlQueryModel lookup( final String key ) {
+      sketch.increment( key );
+      final Entry cached = entries.get( key );
+      if ( cached != null ) {
+         hits.increment();
+         return cached.model();
+      }
+      misses.increment();
+      return null;
+   }
+
+   public long getHitCount() {
+      return hits.sum();
+   }
+
+   public long getMissCount() {
+      return misses.sum();
+   }
+
+   public long getEvictionCount() {
+      return evictions.sum();
+   }
+
+   public int size() {
+      return entries.size();
+   }
+
+   /**
+    * @return the estimated heap size in bytes of all currently cached models
+    */
+   public long getEstimatedWeight() {
+      return weight;
+   }
+
+   /**
+    * Removes all cached models. Hit, miss and eviction counters are left untouched.
+    */
+   public void clear() {
+      evictionLock.lock();
+      try {
+         entries.clear();
+         weight = 0;
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   private void admit( final String key, final RqlQueryModel model ) {
+      final long entryWeight = estimateWeight( key, model );
+      if ( entryWeight > maximumWeight ) {
+         return;
+      }
+      evictionLock.lock();
+      try {
+         if ( entries.containsKey( key ) ) {
+            return;
+         }
+         while ( entries.size() >= maximumEntries || weight + entryWeight > maximumWeight ) {
+            final String victim = selectVictim();
+            if ( victim == null || sketch.frequency( key ) < sketch.frequency( victim ) ) {
+               return;
+            }
+            weight -= entries.remove( victim ).weight();
+            evictions.increment();
+         }
+         entries.put( key, new Entry( model, entryWeight ) );
+         weight += entryWeight;
+      } finally {
+         evictionLock.unlock();
+      }
+   }
+
+   private String selectVictim() {
+      final Iterator<String> keys = entries.keySet().iterator();
+      int skip = ThreadLocalRandom.current().nextInt( Math.max( 1, entries.size() - EVICTION_SAMPLE_SIZE + 1 ) );
+      while ( skip-- > 0 && keys.hasNext() ) {
+         keys.next();
+      }
+      String victim = null;
+      int victimFrequency = Integer.MAX_VALUE;
+      for ( int sampled = 0; sampled < EVICTION_SAMPLE_SIZE && keys.hasNext(); sampled++ ) {
+         final String candidate = keys.next();
+         final int frequency = sketch.frequency( candidate );
+         if ( frequency < victimFrequency ) {
+            victim = candidate;
+            victimFrequency = frequency;
+         }
+      }
+      return victim;
+   }
+
+   /**
+    * Brings a query into a canonical form that parses to the same model.
+    *
+    * <p>A whitespace run is dropped if it borders on a separator the lexer never merges with its neighbours and
+    * collapsed to a single blank otherwise, so {@code "a b"} does not turn into the (valid) identifier
+    * {@code "ab"}. Commas following a time of day are kept apart from their neighbours because they may introduce
+    * the fraction of a second of a time literal. String literals are copied unchanged.</p>
+    */
+   static String normalize( final String query ) {
+      final List<String> segments = new ArrayList<>();
+      final StringBuilder segment = new StringBuilder( query.length() );
+      final int length = query.length();
+      int i = 0;
+      while ( i < length ) {
+         final char c = query.charAt( i );
+         if ( c == '"' ) {
+            i = copyStringLiteral( query, i, segment );
+         } else if ( isWhitespace( c ) ) {
+            int end = i;
+            while ( end < length && isWhitespace( query.charAt( end ) ) ) {
+               end++;
+            }
+            if ( !isDroppable( segment, end < length ? query.charAt( end ) : '&' ) ) {
+               segment.append( ' ' );
+            }
+            i = end;
+         } else if ( c == '&' ) {
+            segments.add( segment.toString() );
+            segment.setLength( 0 );
+            i++;
+         } else {
+            segment.append( c );
+            i++;
+         }
+      }
+      segments.add( segment.toString() );
+      if ( segments.size() == 1 ) {
+         return segments.getFirst();
+      }
+      segments.sort( null );
+      return String.join( "&", segments );
+   }
+
+   private static int copyStringLiteral( final String query, final int start, final StringBuilder target ) {
+      target.append( '"' );
+      int i = start + 1;
+      while ( i < query.length() ) {
+         final char c = query.charAt( i++ );
+         target.append( c );
+         if ( c == '\\' && i < query.length() ) {
+            target.append( query.charAt( i++ ) );
+         } else if ( c == '"' ) {
+            break;
+         }
+      }
+      return i;
+   }
+
+   private static boolean isDroppable( final CharSequence before, final char after ) {
+      if ( before.isEmpty() ) {
+         return true;
+      }
+      final char last = before.charAt( before.length() - 1 );
+      if ( isSeparator( last ) || isSeparator( after ) ) {
+         return true;
+      }
+      if ( last == ',' ) {
+         return !endsWithTimeOfDay( before, before.length() - 1 );
+      }
+      if ( after == ',' ) {
+         return !endsWithTimeOfDay( before, before.length() );
+      }
+      return false;
+   }
+
+   private static boolean isSeparator( final char c ) {
+      return c == '(' || c == ')' || c == '&' || c == '=';
+   }
+
+   private static boolean isWhitespace( final char c ) {
+      return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+   }
+
+   private static boolean endsWithTimeOfDay( final CharSequence text, final int end ) {
+      final String pattern = "dd:dd:dd";
+      if ( end < pattern.length() ) {
+         return false;
+      }
+      for ( int i = 0; i < pattern.length(); i++ ) {
+         final char c = text.charAt( end - pattern.length() + i );
+         final boolean matches = pattern.charAt( i ) == 'd' ? Character.isDigit( c ) : c == ':';
+         if ( !matches ) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   static long estimateWeight( final String key, final RqlQueryModel model ) {
+      long estimate = ENTRY_OVERHEAD + 2L * key.length();
+      for ( final String attribute : model.getSelect().attributes() ) {
+         estimate += estimateValueWeight( attribute );
+      }
+      estimate += NODE_OVERHEAD * ( 1L + model.getOptions().getOrder().fieldDirections().size() );
+      final Deque<RqlFilter> pending = new ArrayDeque<>();
+      model.getFilter().ifPresent( pending::push );
+      while ( !pending.isEmpty() ) {
+         final RqlFilter filter = pending.pop();
+         estimate += NODE_OVERHEAD;
+         final List<Object> values = filter.getValues();
+         if ( values instanceof final RqlValueList valueList && valueList.getElementType() != String.class ) {
+            estimate += PRIMITIVE_VALUE_SIZE * valueList.size();
+         } else {
+            for ( final Object value : values ) {
+               estimate += estimateValueWeight( value );
+            }
+         }
+         filter.getChildren().forEach( pending::push );
+      }
+      return estimate;
+   }
+
+   private static long estimateValueWeight( final Object value ) {
+      return value instanceof final String string
+            ? VALUE_OVERHEAD + 16 + string.length()
+            : VALUE_OVERHEAD;
+   }
+
+   private record Entry( RqlQueryModel model, long weight ) {
+   }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.boschsemanticstack.rql.exceptions.ParseError;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+/**
+ * Result of validating and parsing a query without throwing, either its model or the errors making it invalid.
+ *
+ * @see RqlParser#tryParse(String)
+ */
+public final class RqlParseOutcome {
+
+   private final RqlQueryModel model;
+   private final List<ParseError> errors;
+   private final RuntimeException failure;
+
+   private RqlParseOutcome( final RqlQueryModel model, final List<ParseError> errors, final RuntimeException failure ) {
+      this.model = model;
+      this.errors = errors;
+      this.failure = failure;
+   }
+
+   static RqlParseOutcome valid( final RqlQueryModel model ) {
+      return new RqlParseOutcome( model, List.of(), null );
+   }
+
+   static RqlParseOutcome invalid( final List<ParseError> errors ) {
+      return new RqlParseOutcome( null, List.copyOf( errors ), null );
+   }
+
+   static RqlParseOutcome invalid( final ParseError error ) {
+      return new RqlParseOutcome( null, List.of( error ), null );
+   }
+
+   /**
+    * @param failure the exception thrown while building the model of a syntactically valid query, which is
+    *       rethrown as is by {@link #getModelOrThrow()}
+    */
+   static RqlParseOutcome invalid( final ParseError error, final RuntimeException failure ) {
+      return new RqlParseOutcome( null, List.of( error ), failure );
+   }
+
+   public boolean isValid() {
+      return model != null;
+   }
+
+   /**
+    * @return the model of the query or empty if it is invalid
+    */
+   public Optional<RqlQueryModel> getModel() {
+      return Optional.ofNullable( model );
+   }
+
+   /**
+    * @return the errors in the order they were found; empty if the query is valid
+    */
+   public List<ParseError> getErrors() {
+      return errors;
+   }
+
+   /**
+    * @return the model of the query
+    * @throws RuntimeException the exception {@link RqlParser#from(String)} throws for the invalid query, usually a
+    *       {@link com.boschsemanticstack.rql.exceptions.ParseException}
+    */
+   public RqlQueryModel getModelOrThrow() {
+      if ( failure != null ) {
+         throw failure;
+      }
+      if ( model == null ) {
+         throw RqlParserApi.toException( errors );
+      }
+      return model;
+   }
+
+   @Override
+   public String toString() {
+      return model == null ? "invalid " + errors : "valid " + RqlParser.toString( model );
+   }
+}
@@ -13,32 +13,30 @@
 
 package com.boschsemanticstack.rql.parser.v1;
 
-import java.io.IOException;
-import java.io.StreamTokenizer;
-import java.io.StringReader;
-import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import com.boschsemanticstack.rql.exceptions.ParseException;
 import com.boschsemanticstack.rql.exceptions.SourceLocation;
 import com.boschsemanticstack.rql.model.v1.RqlCursor;
 import com.boschsemanticstack.rql.model.v1.RqlFieldDirection;
+import com.boschsemanticstack.rql.model.v1.RqlFieldPath;
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
 import com.boschsemanticstack.rql.model.v1.RqlModelNode;
 import com.boschsemanticstack.rql.model.v1.RqlOptions;
 import com.boschsemanticstack.rql.model.v1.RqlOrder;
 import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
 import com.boschsemanticstack.rql.model.v1.RqlSelect;
 import com.boschsemanticstack.rql.model.v1.RqlSlice;
+import com.boschsemanticstack.rql.model.v1.RqlSymbolTable;
+import com.boschsemanticstack.rql.model.v1.RqlTreeTraversal;
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
 import com.boschsemanticstack.rql.model.v1.impl.RqlCursorImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlFieldDirectionImpl;
-import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlOptionsImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlOrderImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
@@ -48,12 +46,26 @@ import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlBaseVisitor;
 import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
 
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.RuleNode;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
 class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
 
+   private final RqlSymbolTable symbols;
+
+   RqlParseTreeVisitor() {
+      this( RqlSymbolTable.shared() );
+   }
+
+   /**
+    * @param symbols the table canonicalizing fields and string literals of the created models
+    */
+   RqlParseTreeVisitor( final RqlSymbolTable symbols ) {
+      this.symbols = symbols;
+   }
+
    @Override
    public RqlQueryModel visitQuery( final InternalRqlParser.QueryContext ctx ) {
 
@@ -67,12 +79,12 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
       return combiner.build();
    }
 
-   private static class ModelCombiner {
+   static class ModelCombiner {
       RqlSelect select;
       RqlFilter filter;
       RqlOptions options;
 
-      private void add( final RqlModelNode node ) {
+      void add( final RqlModelNode node ) {
          if ( node instanceof final RqlSelect rqlSelect ) {
             trySetSelect( rqlSelect );
             return;
@@ -142,7 +154,7 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
    public List<String> visitFieldList( final InternalRqlParser.FieldListContext ctx ) {
       if ( ctx.FieldIdentifier() != null ) {
          return ctx.FieldIdentifier().stream()
-               .map( terminalNode -> terminalNode.getSymbol().getText() )
+               .map( this::unescapeFieldIdentifier )
                .toList();
       }
       return Collections.emptyList();
@@ -150,8 +162,26 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
 
    @Override
    public RqlOptions visitOptionList( final InternalRqlParser.OptionListContext ctx ) {
+      return visitOptionExpression( ctx.optionExpression() );
+   }
+
+   @Override
+   public RqlSelect visitSelectFragment( final InternalRqlParser.SelectFragmentContext ctx ) {
+      return new RqlSelectImpl( visitFieldList( ctx.fieldList() ) );
+   }
 
-      final InternalRqlParser.OptionExpressionContext optionExpression = ctx.optionExpression();
+   @Override
+   public RqlFilter visitFilterFragment( final InternalRqlParser.FilterFragmentContext ctx ) {
+      return visitFilterExpression( ctx.filterExpression() );
+   }
+
+   @Override
+   public RqlOptions visitOptionFragment( final InternalRqlParser.OptionFragmentContext ctx ) {
+      return visitOptionExpression( ctx.optionExpression() );
+   }
+
+   @Override
+   public RqlOptions visitOptionExpression( final InternalRqlParser.OptionExpressionContext optionExpression ) {
       if ( optionExpression == null ) {
          return RqlOptionsImpl.emptyOptions();
       }
@@ -203,9 +233,24 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
             Long.parseLong( ctx.IntLiteral().getText() ) );
    }
 
+   /**
+    * Builds the filter and all filters nested in it without recursion, so their depth is not limited by the call stack.
+    */
    @Override
    public RqlFilter visitFilterExpression( final InternalRqlParser.FilterExpressionContext ctx ) {
-      return (RqlFilter) super.visitFilterExpression( ctx );
+      return RqlTreeTraversal.fold( ctx, new RqlTreeTraversal.Folder<>() {
+         @Override
+         public List<InternalRqlParser.FilterExpressionContext> children( final InternalRqlParser.FilterExpressionContext node ) {
+            return null == node.logicalOperator() ? List.of() : operands( node.logicalOperator() );
+         }
+
+         @Override
+         public RqlFilter combine( final InternalRqlParser.FilterExpressionContext node, final List<RqlFilter> operands ) {
+            return null == node.logicalOperator()
+                  ? (RqlFilter) RqlParseTreeVisitor.super.visitFilterExpression( node )
+                  : combineLogicalOperator( node.logicalOperator(), operands );
+         }
+      } );
    }
 
    @Override
@@ -217,24 +262,29 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
 
    @Override
    public RqlFilter visitLogicalOperator( final InternalRqlParser.LogicalOperatorContext ctx ) {
-      final RqlFilterImpl filter;
+      return combineLogicalOperator( ctx, operands( ctx ).stream().map( this::visitFilterExpression ).toList() );
+   }
 
+   static List<InternalRqlParser.FilterExpressionContext> operands( final InternalRqlParser.LogicalOperatorContext ctx ) {
+      return null == ctx.filterList() ? ctx.filterExpression() : ctx.filterList().filterExpression();
+   }
+
+   private RqlFilter combineLogicalOperator( final InternalRqlParser.LogicalOperatorContext ctx, final List<RqlFilter> operands ) {
       final ParseTree token = ctx.children.get( 0 );
-      filter = switch ( token.getText() ) {
-         case "not" -> new RqlFilterImpl( RqlFilter.FilterType.NOT, visitFilterExpression( ctx.filterExpression() ) );
-         case "and" -> new RqlFilterImpl( RqlFilter.FilterType.AND, visitFilterList( ctx.filterList() ) );
-         case "or" -> new RqlFilterImpl( RqlFilter.FilterType.OR, visitFilterList( ctx.filterList() ) );
+      return switch ( token.getText() ) {
+         case "not" -> RqlFilterNode.logical( RqlFilter.FilterType.NOT, operands );
+         case "and" -> new RqlFilterNode.And( operands );
+         case "or" -> new RqlFilterNode.Or( operands );
          default -> throw createOperationUnknownParseException( ctx );
       };
-      return filter;
    }
 
    @Override
    public RqlFilter visitMultiComparison( final InternalRqlParser.MultiComparisonContext ctx ) {
-      final String fieldIdentifier = unescapeFieldIdentifier( ctx.FieldIdentifier() );
+      final RqlFieldPath fieldIdentifier = fieldPath( ctx.FieldIdentifier() );
       final List<Object> comparisonList = visitLiteralList( ctx.literalList() );
       return switch ( ctx.getChild( 0 ).getText() ) {
-         case "in" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.IN, comparisonList );
+         case "in" -> new RqlFilterNode.In( fieldIdentifier, comparisonList );
          case "out" -> throw createOperationUnknownParseException( ctx );
          default -> throw new ParseException( "Syntax error parsing!", getSourceLocation( ctx ) );
       };
@@ -242,38 +292,38 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
 
    @Override
    public RqlFilter visitEqualityComparison( final InternalRqlParser.EqualityComparisonContext ctx ) {
-      final String fieldIdentifier = unescapeFieldIdentifier( ctx.FieldIdentifier() );
+      final RqlFieldPath fieldIdentifier = fieldPath( ctx.FieldIdentifier() );
       final Object literal = visitLiteral( ctx.literal() );
 
       return switch ( ctx.getChild( 0 ).getText() ) {
-         case "eq" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.EQ, literal );
-         case "ne" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.NE, literal );
+         case "eq" -> new RqlFilterNode.Comparison( fieldIdentifier, RqlFilter.Operator.EQ, literal );
+         case "ne" -> new RqlFilterNode.Comparison( fieldIdentifier, RqlFilter.Operator.NE, literal );
          default -> throw createOperationUnknownParseException( ctx );
       };
    }
 
    @Override
    public RqlFilter visitOrderRelation( final InternalRqlParser.OrderRelationContext ctx ) {
-      final String fieldIdentifier = unescapeFieldIdentifier( ctx.FieldIdentifier() );
+      final RqlFieldPath fieldIdentifier = fieldPath( ctx.FieldIdentifier() );
       final Object literal = visitLinearilyOrderableLiteral( ctx.linearilyOrderableLiteral() );
 
       return switch ( ctx.getChild( 0 ).getText() ) {
-         case "lt" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.LT, literal );
-         case "le" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.LE, literal );
-         case "gt" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.GT, literal );
-         case "ge" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.GE, literal );
+         case "lt" -> new RqlFilterNode.Comparison( fieldIdentifier, RqlFilter.Operator.LT, literal );
+         case "le" -> new RqlFilterNode.Comparison( fieldIdentifier, RqlFilter.Operator.LE, literal );
+         case "gt" -> new RqlFilterNode.Comparison( fieldIdentifier, RqlFilter.Operator.GT, literal );
+         case "ge" -> new RqlFilterNode.Comparison( fieldIdentifier, RqlFilter.Operator.GE, literal );
          default -> throw new ParseException( "Operation unknown: '" + ctx.getChild( 0 ).getText() + "'.", getSourceLocation( ctx ) );
       };
    }
 
    @Override
    public RqlFilter visitStringMatch( final InternalRqlParser.StringMatchContext ctx ) {
-      final String fieldIdentifier = unescapeFieldIdentifier( ctx.FieldIdentifier() );
-      final Object literal = unescapeStringLiteral( ctx.StringLiteral() );
+      final RqlFieldPath fieldIdentifier = fieldPath( ctx.FieldIdentifier() );
+      final String literal = unescapeStringLiteral( ctx.StringLiteral() );
 
       return switch ( ctx.getChild( 0 ).getText() ) {
-         case "like" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.LIKE, literal );
-         case "likeIgnoreCase" -> new RqlFilterImpl( fieldIdentifier, RqlFilter.Operator.LIKE_IGNORE_CASE, literal );
+         case "like" -> new RqlFilterNode.Like( fieldIdentifier, false, literal );
+         case "likeIgnoreCase" -> new RqlFilterNode.Like( fieldIdentifier, true, literal );
          default -> throw createOperationUnknownParseException( ctx );
       };
    }
@@ -291,23 +341,32 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
 
    @Override
    public List<Object> visitFloatLiteralList( final InternalRqlParser.FloatLiteralListContext ctx ) {
-      return ctx.FloatLiteral().stream()
-            .map( literal -> Double.valueOf( literal.getText() ) )
-            .collect( Collectors.toList() );
+      final List<TerminalNode> literals = ctx.FloatLiteral();
+      final double[] values = new double[literals.size()];
+      for ( int i = 0; i < values.length; i++ ) {
+         values[i] = Double.parseDouble( literals.get( i ).getText() );
+      }
+      return RqlValueList.ofDoubles( values );
    }
 
    @Override
    public List<Object> visitIntLiteralList( final InternalRqlParser.IntLiteralListContext ctx ) {
-      return ctx.IntLiteral().stream()
-            .map( literal -> Integer.valueOf( literal.getText() ) )
-            .collect( Collectors.toList() );
+      final List<TerminalNode> literals = ctx.IntLiteral();
+      final int[] values = new int[literals.size()];
+      for ( int i = 0; i < values.length; i++ ) {
+         values[i] = Integer.parseInt( literals.get( i ).getText() );
+      }
+      return RqlValueList.ofInts( values );
    }
 
    @Override
    public List<Object> visitStringLiteralList( final InternalRqlParser.StringLiteralListContext ctx ) {
-      return ctx.StringLiteral().stream()
-            .map( this::unescapeStringLiteral )
-            .collect( Collectors.toList() );
+      final List<TerminalNode> literals = ctx.StringLiteral();
+      final String[] values = new String[literals.size()];
+      for ( int i = 0; i < values.length; i++ ) {
+         values[i] = unescapeStringLiteral( literals.get( i ) );
+      }
+      return RqlValueList.ofStrings( values );
    }
 
    @Override
@@ -332,38 +391,23 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
    }
 
    private OffsetDateTime parseOffsetDateTime( final InternalRqlParser.LinearilyOrderableLiteralContext ctx ) {
+      return parseOffsetDateTime( ctx.getStart() );
+   }
+
+   static OffsetDateTime parseOffsetDateTime( final Token timeLiteral ) {
       try {
-         return OffsetDateTime.parse( ctx.getText().replace( ",", "." ) );
+         return RqlLiteralDecoder.parseOffsetDateTime( timeLiteral.getText() );
       } catch ( final DateTimeParseException e ) {
-         throw new ParseException( e.getMessage(),
-               new SourceLocation( ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine() + 1 ), e );
+         throw new ParseException( e.getMessage(), getSourceLocation( timeLiteral ), e );
       }
    }
 
    private Number parseIntoSmallestIntegerType( final InternalRqlParser.LinearilyOrderableLiteralContext ctx ) {
-      final String integerString = ctx.IntLiteral().getText();
-      try {
-         return Integer.parseInt( integerString );
-      } catch ( final NumberFormatException e ) {
-         try {
-            return Long.parseLong( integerString );
-         } catch ( final NumberFormatException e2 ) {
-            try {
-               return new BigInteger( integerString );
-            } catch ( final NumberFormatException e3 ) {
-               throw new NumberFormatException( "Can not parse '" + integerString + "' as Integer, Long or BigInteger!" );
-            }
-         }
-      }
+      return RqlLiteralDecoder.parseIntoSmallestIntegerType( ctx.IntLiteral().getText() );
    }
 
    private Number parseIntoSmallestFloatType( final InternalRqlParser.LinearilyOrderableLiteralContext ctx ) {
-      final String floatString = ctx.FloatLiteral().getText();
-      try {
-         return new BigDecimal( floatString );
-      } catch ( final NumberFormatException e3 ) {
-         throw new NumberFormatException( "Can not parse '" + floatString + "' as Float, Double or BigDecimal!" );
-      }
+      return RqlLiteralDecoder.parseIntoSmallestFloatType( ctx.FloatLiteral().getText() );
    }
 
    /**
@@ -382,8 +426,8 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
       return new SourceLocation( ctx.getStart().getLine(), ctx.getStart().getCharPositionInLine() + 1 );
    }
 
-   private SourceLocation getSourceLocation( final TerminalNode token ) {
-      return new SourceLocation( token.getSymbol().getLine(), token.getSymbol().getCharPositionInLine() + 1 );
+   private static SourceLocation getSourceLocation( final Token token ) {
+      return new SourceLocation( token.getLine(), token.getCharPositionInLine() + 1 );
    }
 
    private ParseException createOperationUnknownParseException( final ParserRuleContext ctx ) {
@@ -391,16 +435,18 @@ class RqlParseTreeVisitor extends InternalRqlBaseVisitor<Object> {
    }
 
    private String unescapeStringLiteral( final TerminalNode stringLiteral ) {
-      final StreamTokenizer parser = new StreamTokenizer( new StringReader( stringLiteral.getSymbol().getText() ) );
-      try {
-         parser.nextToken();
-      } catch ( final IOException e ) {
-         throw new ParseException( "Cannot untokenize string", getSourceLocation( stringLiteral ), e );
-      }
-      return parser.sval;
+      return symbols.literal( unescapeStringLiteral( stringLiteral.getSymbol() ) );
+   }
+
+   static String unescapeStringLiteral( final Token stringLiteral ) {
+      return RqlLiteralDecoder.unescapeString( stringLiteral.getText() );
    }
 
    private String unescapeFieldIdentifier( final TerminalNode fieldIdentifier ) {
-      return fieldIdentifier.getSymbol().getText();
+      return symbols.field( fieldIdentifier.getSymbol().getText() );
+   }
+
+   private RqlFieldPath fieldPath( final TerminalNode fieldIdentifier ) {
+      return symbols.fieldPath( fieldIdentifier.getSymbol().getText() );
    }
 }
@@ -13,32 +13,44 @@
 
 package com.boschsemanticstack.rql.parser.v1;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Optional;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import com.boschsemanticstack.rql.model.v1.RqlBuilder;
 import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
 import com.boschsemanticstack.rql.model.v1.RqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.RqlOptions;
 import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlRewriteEngine;
+import com.boschsemanticstack.rql.model.v1.RqlSelect;
 import com.boschsemanticstack.rql.model.v1.RqlSlice;
-import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlOptionsImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlSliceImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlToStringWriter;
 import com.boschsemanticstack.rql.model.v1.impl.preprocessor.AndNeToNotInRqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.BooleanSimplificationRqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.InNormalizationRqlFilterPreProcessor;
 import com.boschsemanticstack.rql.model.v1.impl.preprocessor.NotNeToEqRqlFilterPreProcessor;
 import com.boschsemanticstack.rql.model.v1.impl.preprocessor.OrEqToInRqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.RangeMergingRqlFilterPreProcessor;
 
 public class RqlParser {
 
@@ -48,12 +60,241 @@ public class RqlParser {
          new OrEqToInRqlFilterPreProcessor()
    );
 
+   /**
+    * The {@link #DEFAULT_FILTER_PREPROCESSORS}, preceded by the ones simplifying boolean structure, merging value ranges
+    * and normalizing IN lists. Callers opt in to these by passing this list to
+    * {@link #preProcessFilter(RqlQueryModel, List)}, as they change the shape of the filters the defaults produce.
+    *
+    * <p>
+    * This list treats every attribute as possibly holding several values, so it never proves a filter contradictory. Use
+    * {@link #simplifyingFilterPreProcessors(Predicate)} to replace contradictions with the empty {@code or()}.
+    * </p>
+    */
+   public static final List<RqlFilterPreProcessor> SIMPLIFYING_FILTER_PREPROCESSORS = List.of(
+         new BooleanSimplificationRqlFilterPreProcessor(),
+         new RangeMergingRqlFilterPreProcessor(),
+         new InNormalizationRqlFilterPreProcessor(),
+         new NotNeToEqRqlFilterPreProcessor(),
+         new AndNeToNotInRqlFilterPreProcessor(),
+         new OrEqToInRqlFilterPreProcessor()
+   );
+
+   private static final RqlRewriteEngine DEFAULT_REWRITE_ENGINE = new RqlRewriteEngine( DEFAULT_FILTER_PREPROCESSORS );
+   private static final RqlRewriteEngine SIMPLIFYING_REWRITE_ENGINE = new RqlRewriteEngine( SIMPLIFYING_FILTER_PREPROCESSORS );
+
+   private static final RqlParseCache PARSE_CACHE = new RqlParseCache();
+
    private RqlParser() {
       // utility class
    }
 
+   /**
+    * Parses the given query, reusing the model of an earlier call with an equivalent query if it is still cached.
+    *
+    * @param rqlQuery the query to parse
+    * @return the immutable model of the query
+    * @see #getParseCache()
+    * @see #fromUncached(String)
+    */
    public static RqlQueryModel from( final String rqlQuery ) {
-      return new RqlParserApi().parseFullQuery( rqlQuery );
+      return PARSE_CACHE.parse( rqlQuery );
+   }
+
+   /**
+    * Validates and parses the given query without throwing for invalid input, e.g. to cheaply reject malformed
+    * queries. Valid queries are cached like with {@link #from(String)}.
+    *
+    * @param rqlQuery the query to parse
+    * @return the immutable model of the query or the errors making it invalid
+    */
+   public static RqlParseOutcome tryParse( final String rqlQuery ) {
+      return PARSE_CACHE.tryParse( rqlQuery );
+   }
+
+   /**
+    * Validates and parses the given query with custom settings without throwing for invalid input and without
+    * consulting or populating the parse cache, see {@link RqlParserConfig.Builder#stopAtFirstError(boolean)}.
+    *
+    * @param rqlQuery the query to parse
+    * @param config the settings to parse with
+    * @return a newly created model of the query or the errors making it invalid
+    */
+   public static RqlParseOutcome tryParseUncached( final String rqlQuery, final RqlParserConfig config ) {
+      return new RqlParserApi( config ).tryParseFullQuery( rqlQuery );
+   }
+
+   /**
+    * Validates and parses a batch of queries concurrently on virtual threads, see {@link RqlBatchParser}.
+    *
+    * @param rqlQueries the queries to parse
+    * @return the outcome of each query in the order of the queries
+    */
+   public static List<RqlParseOutcome> tryParseAll( final Collection<String> rqlQueries ) {
+      return RqlBatchParser.defaultParser().parseAll( rqlQueries );
+   }
+
+   /**
+    * Parses the given query without consulting or populating the parse cache.
+    *
+    * @param rqlQuery the query to parse
+    * @return a newly created model of the query
+    */
+   public static RqlQueryModel fromUncached( final String rqlQuery ) {
+      return fromUncached( rqlQuery, RqlParserConfig.defaultConfig() );
+   }
+
+   /**
+    * Parses the given query with custom settings without consulting or populating the parse cache.
+    *
+    * @param rqlQuery the query to parse
+    * @param config the settings to parse with
+    * @return a newly created model of the query
+    */
+   public static RqlQueryModel fromUncached( final String rqlQuery, final RqlParserConfig config ) {
+      return new RqlParserApi( config ).parseFullQuery( rqlQuery );
+   }
+
+   /**
+    * Parses a query while reading it, e.g. the body of a request carrying a huge {@code in} list. Neither the
+    * complete query text nor all of its tokens are held in memory at any time; streamed queries are therefore
+    * neither cached nor handled by the fast path, and are always parsed in LL mode.
+    *
+    * @param rqlQuery the query to parse; it is read up to its end, but not closed
+    * @return a newly created model of the query
+    * @throws java.io.UncheckedIOException if reading the query fails
+    */
+   public static RqlQueryModel from( final Reader rqlQuery ) {
+      return from( rqlQuery, RqlParserConfig.defaultConfig() );
+   }
+
+   /**
+    * Parses a query while reading it with custom settings, see {@link #from(Reader)}.
+    *
+    * @param rqlQuery the query to parse; it is read up to its end, but not closed
+    * @param config the settings to parse with
+    * @return a newly created model of the query
+    * @throws java.io.UncheckedIOException if reading the query fails
+    */
+   public static RqlQueryModel from( final Reader rqlQuery, final RqlParserConfig config ) {
+      return new RqlParserApi( config ).parseFullQuery( rqlQuery );
+   }
+
+   /**
+    * Parses a UTF-8 encoded query while reading it, see {@link #from(Reader)}.
+    *
+    * @param rqlQuery the query to parse; it is read up to its end, but not closed
+    * @return a newly created model of the query
+    * @throws java.io.UncheckedIOException if reading the query fails
+    */
+   public static RqlQueryModel from( final InputStream rqlQuery ) {
+      return from( rqlQuery == null ? null : new InputStreamReader( rqlQuery, StandardCharsets.UTF_8 ) );
+   }
+
+   /**
+    * Parses a UTF-8 encoded query from the remaining bytes of a buffer, e.g. a memory mapped file, see
+    * {@link #from(Reader)}. The bytes are decoded while parsing and the position of the buffer is left unchanged.
+    *
+    * @param rqlQuery the query to parse
+    * @return a newly created model of the query
+    */
+   public static RqlQueryModel from( final ByteBuffer rqlQuery ) {
+      return from( rqlQuery == null ? null : new ByteBufferInputStream( rqlQuery.duplicate() ) );
+   }
+
+   /**
+    * Parses the RQL parameters of a raw, still percent-encoded URL query such as
+    * {@code select=name&filter=eq(name,%22x%20y%22)&page=3}, or of a complete request URL. The query is decoded while
+    * it is parsed; parameters other than {@code select}, {@code filter} and {@code option} are skipped. A {@code +}
+    * is taken literally, so spaces must be encoded as {@code %20}. Like {@link #from(Reader)}, the parse cache and
+    * the fast path are not used.
+    *
+    * @param urlQuery the raw query; percent escapes are decoded as UTF-8
+    * @return a newly created model of the query
+    */
+   public static RqlQueryModel fromUrlQuery( final CharSequence urlQuery ) {
+      return from( urlQuery == null ? null : UrlQueryInputStream.of( urlQuery ) );
+   }
+
+   /**
+    * Parses the RQL parameters of a raw, still percent-encoded URL query given as bytes, see
+    * {@link #fromUrlQuery(CharSequence)}.
+    *
+    * @param urlQuery the raw query; percent escapes and unencoded non ASCII bytes are decoded as UTF-8
+    * @return a newly created model of the query
+    */
+   public static RqlQueryModel fromUrlQuery( final byte[] urlQuery ) {
+      return from( urlQuery == null ? null : UrlQueryInputStream.of( urlQuery ) );
+   }
+
+   /**
+    * Parses the value of a {@code select} parameter passed on its own, e.g. as a separate HTTP parameter. Values are
+    * cached independently of the other parameters they are combined with.
+    *
+    * @param select the fields to parse, e.g. {@code "id,name"}
+    * @return the immutable model of the fields
+    */
+   public static RqlSelect parseSelect( final String select ) {
+      return PARSE_CACHE.parseSelect( select );
+   }
+
+   /**
+    * Parses the value of a {@code filter} parameter passed on its own, see {@link #parseSelect(String)}.
+    *
+    * @param filter the filter to parse, e.g. {@code "eq(name,\"x\")"}
+    * @return the immutable model of the filter
+    */
+   public static RqlFilter parseFilter( final String filter ) {
+      return PARSE_CACHE.parseFilter( filter );
+   }
+
+   /**
+    * Parses the value of an {@code option} parameter passed on its own, see {@link #parseSelect(String)}.
+    *
+    * @param options the options to parse, e.g. {@code "sort(+name),limit(0,10)"}
+    * @return the immutable model of the options
+    */
+   public static RqlOptions parseOptions( final String options ) {
+      return PARSE_CACHE.parseOptions( options );
+   }
+
+   /**
+    * Combines the separately passed parameters of a query, the counterpart of {@link #toQueryParameters(RqlQueryModel)}.
+    *
+    * @param select the value of the {@code select} parameter or {@code null} if absent
+    * @param filter the value of the {@code filter} parameter or {@code null} if absent
+    * @param options the value of the {@code option} parameter or {@code null} if absent
+    * @return the immutable model of the query
+    */
+   public static RqlQueryModel fromQueryParameters( final String select, final String filter, final String options ) {
+      return new RqlQueryModelImpl(
+            select == null ? null : parseSelect( select ),
+            filter == null ? null : parseFilter( filter ),
+            options == null ? null : parseOptions( options ) );
+   }
+
+   /**
+    * @return the cache used by {@link #from(String)}, e.g. to read its hit, miss and eviction counters
+    */
+   public static RqlParseCache getParseCache() {
+      return PARSE_CACHE;
+   }
+
+   /**
+    * Returns the {@link #SIMPLIFYING_FILTER_PREPROCESSORS}, with value ranges merged also across directions for the
+    * attributes the predicate tells to hold a single value. An AND filter with no matching value on such an attribute,
+    * like {@code and(eq(status,"A"),eq(status,"B"))}, is replaced with the empty {@code or()}, which matches nothing.
+    *
+    * @param singleValued tells whether an attribute path holds a single value rather than a collection
+    */
+   public static List<RqlFilterPreProcessor> simplifyingFilterPreProcessors( final Predicate<String> singleValued ) {
+      return List.of(
+            new BooleanSimplificationRqlFilterPreProcessor(),
+            new RangeMergingRqlFilterPreProcessor( singleValued ),
+            new InNormalizationRqlFilterPreProcessor(),
+            new NotNeToEqRqlFilterPreProcessor(),
+            new AndNeToNotInRqlFilterPreProcessor(),
+            new OrEqToInRqlFilterPreProcessor()
+      );
    }
 
    public static RqlQueryModel preProcessFilter( final RqlQueryModel model ) {
@@ -66,11 +307,26 @@ public class RqlParser {
       if ( model == null ) {
          throw new IllegalArgumentException( "Model must not be null for pre-processing." );
       }
-      Optional<RqlFilter> result = model.getFilter();
-      for ( RqlFilterPreProcessor preProcessor : filterPreProcessors ) {
-         result = result.map( preProcessor::visit );
+      final RqlRewriteEngine engine;
+      if ( filterPreProcessors == DEFAULT_FILTER_PREPROCESSORS ) {
+         engine = DEFAULT_REWRITE_ENGINE;
+      } else if ( filterPreProcessors == SIMPLIFYING_FILTER_PREPROCESSORS ) {
+         engine = SIMPLIFYING_REWRITE_ENGINE;
+      } else {
+         engine = new RqlRewriteEngine( filterPreProcessors );
+      }
+      return preProcessFilter( model, engine );
+   }
+
+   /**
+    * Rewrites the filter of the model with the rules of the engine in a single pass, until none of them matches.
+    */
+   public static RqlQueryModel preProcessFilter( final RqlQueryModel model, final RqlRewriteEngine engine ) {
+      if ( model == null ) {
+         throw new IllegalArgumentException( "Model must not be null for pre-processing." );
       }
-      return new RqlQueryModelImpl( model.getSelect(), result.orElse( null ), model.getOptions() );
+      final RqlFilter filter = model.getFilter().map( engine::rewrite ).orElse( null );
+      return new RqlQueryModelImpl( model.getSelect(), filter, model.getOptions() );
    }
 
    public static RqlBuilder builder() {
@@ -117,18 +373,50 @@ public class RqlParser {
          final List<RqlFilter> combinedList = new ArrayList<>( currentFilter.getChildren().size() + additionalFilters.length );
          combinedList.addAll( currentFilter.getChildren() );
          combinedList.addAll( Arrays.asList( additionalFilters ) );
-         return new RqlFilterImpl( RqlFilter.FilterType.AND, combinedList );
+         return new RqlFilterNode.And( combinedList );
       }
       final List<RqlFilter> combinedList = new ArrayList<>( 1 + additionalFilters.length );
       combinedList.add( currentFilter );
       combinedList.addAll( Arrays.asList( additionalFilters ) );
-      return new RqlFilterImpl( RqlFilter.FilterType.AND, combinedList );
+      return new RqlFilterNode.And( combinedList );
    }
 
    public static Iterator<RqlQueryModel> getPagedQuery( final RqlQueryModel model, final long pageSize ) {
       return new PagingIterator( model, pageSize );
    }
 
+   private static class ByteBufferInputStream extends InputStream {
+
+      private final ByteBuffer buffer;
+
+      ByteBufferInputStream( final ByteBuffer buffer ) {
+         this.buffer = buffer;
+      }
+
+      @Override
+      public int read() {
+         return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+      }
+
+      @Override
+      public int read( final byte[] target, final int offset, final int length ) {
+         if ( length == 0 ) {
+            return 0;
+         }
+         if ( !buffer.hasRemaining() ) {
+            return -1;
+         }
+         final int count = Math.min( length, buffer.remaining() );
+         buffer.get( target, offset, count );
+         return count;
+      }
+
+      @Override
+      public int available() {
+         return buffer.remaining();
+      }
+   }
+
    private static class PagingIterator implements Iterator<RqlQueryModel> {
 
       private final RqlQueryModel originalModel;
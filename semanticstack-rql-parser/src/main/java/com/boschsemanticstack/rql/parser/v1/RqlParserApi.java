@@ -13,39 +13,172 @@
 
 package com.boschsemanticstack.rql.parser.v1;
 
+import java.io.Reader;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import com.boschsemanticstack.rql.exceptions.ParseError;
 import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterInterner;
+import com.boschsemanticstack.rql.model.v1.RqlOptions;
 import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlSelect;
+import com.boschsemanticstack.rql.model.v1.RqlSymbolTable;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
+
+import org.antlr.v4.runtime.ParserRuleContext;
 
 class RqlParserApi extends BaseRqlParserApi {
 
+   RqlParserApi() {
+      this( RqlParserConfig.defaultConfig() );
+   }
+
+   RqlParserApi( final RqlParserConfig config ) {
+      super( config );
+   }
+
    public RqlQueryModel parseFullQuery( final String rqlQuery ) {
       if ( rqlQuery == null ) {
          throw new ParseException( "Input was null!" );
       }
-      final ParseResult parseResult = createParseTree( rqlQuery );
-      return createModelFromParseTree( parseResult );
+      QueryLimitGuard.check( rqlQuery, getConfig() );
+      if ( getConfig().isFastPathEnabled() ) {
+         final RqlQueryModel model = RqlFastParser.tryParse( rqlQuery, getConfig().getSymbolTable() );
+         if ( model != null ) {
+            return intern( model );
+         }
+      }
+      return intern( parseWithAntlr( rqlQuery ) );
+   }
+
+   /**
+    * Validates and parses a query without throwing for invalid input. The errors are plain values without stack
+    * traces, so rejecting a query costs about as much as parsing a valid one.
+    *
+    * @param rqlQuery the query to parse
+    * @return the model of the query or the errors making it invalid
+    */
+   public RqlParseOutcome tryParseFullQuery( final String rqlQuery ) {
+      if ( rqlQuery == null ) {
+         return RqlParseOutcome.invalid( new ParseError( "Input was null!", null ) );
+      }
+      final ParseError limitViolation = QueryLimitGuard.findViolation( rqlQuery, getConfig() );
+      if ( limitViolation != null ) {
+         return RqlParseOutcome.invalid( limitViolation );
+      }
+      if ( getConfig().isFastPathEnabled() ) {
+         final RqlQueryModel model = RqlFastParser.tryParse( rqlQuery, getConfig().getSymbolTable() );
+         if ( model != null ) {
+            return RqlParseOutcome.valid( intern( model ) );
+         }
+      }
+      final ParseResult parseResult = parseQuery( rqlQuery );
+      if ( !parseResult.getErrors().isEmpty() ) {
+         return RqlParseOutcome.invalid( parseResult.getErrors() );
+      }
+      try {
+         return RqlParseOutcome.valid( intern( createModelFromParseTree( parseResult ) ) );
+      } catch ( final ParseException e ) { // semantically invalid, e.g. two filters; rare enough to keep throwing
+         return RqlParseOutcome.invalid( ParseError.of( e ), e );
+      } catch ( final IllegalArgumentException e ) { // e.g. a number out of range
+         return RqlParseOutcome.invalid( new ParseError( String.valueOf( e.getMessage() ), null ), e );
+      }
+   }
+
+   /**
+    * Parses a query that has already been checked against the limits of the config with the ANTLR parser, skipping
+    * the fast path.
+    */
+   RqlQueryModel parseWithAntlr( final String rqlQuery ) {
+      return createModelFromParseTree( parseQuery( rqlQuery ) );
+   }
+
+   public RqlQueryModel parseFullQuery( final Reader rqlQuery ) {
+      if ( rqlQuery == null ) {
+         throw new ParseException( "Input was null!" );
+      }
+      return intern( createModelFromParseTree( parseQuery( rqlQuery ) ) );
+   }
+
+   public RqlSelect parseSelect( final String select ) {
+      return parseFragment( select, "select", RqlFastParser::tryParseSelect, InternalRqlParser::selectFragment, RqlSelect.class );
+   }
+
+   public RqlFilter parseFilter( final String filter ) {
+      final RqlFilter parsed = parseFragment( filter, "filter", RqlFastParser::tryParseFilter, InternalRqlParser::filterFragment, RqlFilter.class );
+      final RqlFilterInterner interner = getConfig().getFilterInterner();
+      return interner == null ? parsed : interner.intern( parsed );
+   }
+
+   public RqlOptions parseOptions( final String options ) {
+      return parseFragment( options, "option", RqlFastParser::tryParseOptions, InternalRqlParser::optionFragment, RqlOptions.class );
+   }
+
+   private <T> T parseFragment(
+         final String fragment,
+         final String parameter,
+         final BiFunction<CharSequence, RqlSymbolTable, T> fastParser,
+         final Function<InternalRqlParser, ParserRuleContext> startingRule,
+         final Class<T> type ) {
+      if ( fragment == null ) {
+         throw new ParseException( "Input was null!" );
+      }
+      QueryLimitGuard.checkFragment( fragment, parameter, getConfig() );
+      if ( getConfig().isFastPathEnabled() ) {
+         final T model = fastParser.apply( fragment, getConfig().getSymbolTable() );
+         if ( model != null ) {
+            return model;
+         }
+      }
+      return createModel( parseFragment( fragment, startingRule ), type );
+   }
+
+   /**
+    * @return the model with its filter interned if the config has a {@link RqlParserConfig#getFilterInterner() table}
+    */
+   private RqlQueryModel intern( final RqlQueryModel model ) {
+      final RqlFilterInterner interner = getConfig().getFilterInterner();
+      return interner == null ? model : interner.intern( model );
    }
 
    private RqlQueryModel createModelFromParseTree( final ParseResult parseResult ) {
+      if ( parseResult.getErrors().isEmpty() && parseResult.hasModel() ) {
+         return parseResult.getModel();
+      }
+      return createModel( parseResult, RqlQueryModel.class );
+   }
+
+   private <T> T createModel( final ParseResult parseResult, final Class<T> type ) {
       if ( parseResult.getErrors().isEmpty() && parseResult.getParseTree() != null ) {
-         return (RqlQueryModel) new RqlParseTreeVisitor().visit( parseResult.getParseTree() );
+         return type.cast( new RqlParseTreeVisitor( getConfig().getSymbolTable() ).visit( parseResult.getParseTree() ) );
       }
-      final Optional<ParseException> firstAvailableErrorWithLocation = parseResult.getErrors().stream()
-            .filter( exception -> exception.getSourceLocation().isPresent() )
+      throw toException( parseResult.getErrors() );
+   }
+
+   /**
+    * @return the exception for the first error with a location, or one summarizing all errors
+    */
+   static ParseException toException( final List<ParseError> errors ) {
+      final Optional<ParseError> firstAvailableErrorWithLocation = errors.stream()
+            .filter( error -> error.getSourceLocation().isPresent() )
             .findFirst();
 
-      throw firstAvailableErrorWithLocation.orElse( createFallbackException( parseResult ) );
+      return firstAvailableErrorWithLocation
+            .map( ParseError::toException )
+            .orElseGet( () -> createFallbackException( errors ) );
    }
 
-   private ParseException createFallbackException( final ParseResult parseResult ) {
+   private static ParseException createFallbackException( final List<ParseError> errors ) {
       final ParseException argumentException = new ParseException( "Not a valid rqlQuery: "
-            + parseResult.getErrors().stream()
-            .map( Exception::getMessage )
+            + errors.stream()
+            .map( ParseError::toString )
             .collect( Collectors.joining( "\n" ) ) );
-      parseResult.getErrors().forEach( argumentException::addSuppressed );
+      errors.forEach( error -> argumentException.addSuppressed( error.toException() ) );
       return argumentException;
    }
 }
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.Objects;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilterInterner;
+import com.boschsemanticstack.rql.model.v1.RqlSymbolTable;
+
+/**
+ * Immutable settings controlling how RQL queries are parsed.
+ *
+ * <p>Use {@link #builder()} to create a customized instance or {@link #defaultConfig()} for the settings used by
+ * {@link RqlParser#from(String)}.</p>
+ */
+public final class RqlParserConfig {
+
+   /**
+    * How the parser predicts which grammar alternative to follow.
+    */
+   public enum PredictionStrategy {
+      /**
+       * Always parse in full LL mode, collecting all syntax errors.
+       */
+      LL,
+      /**
+       * Parse in the faster SLL mode first and bail out on the first problem. Only queries failing there are parsed
+       * again in full LL mode, so syntax errors are reported exactly as with {@link #LL}.
+       */
+      SLL_THEN_LL
+   }
+
+   /**
+    * How the ANTLR parser turns a query into its {@link com.boschsemanticstack.rql.model.v1.RqlQueryModel}.
+    */
+   public enum ModelConstruction {
+      /**
+       * Build a complete parse tree first and create the model from it afterwards.
+       */
+      PARSE_TREE,
+      /**
+       * Create the model from the parser's rule events while parsing, without building a parse tree.
+       */
+      PARSE_EVENTS
+   }
+
+   /**
+    * Default maximum number of idle lexer/parser sessions kept for reuse.
+    */
+   public static final int DEFAULT_SESSION_POOL_SIZE = 32;
+   /**
+    * Default number of DFA states the parser may cache before the shared DFA is discarded and rebuilt.
+    */
+   public static final int DEFAULT_DFA_STATE_LIMIT = 50_000;
+   /**
+    * Default maximum nesting of parentheses, which keeps the recursive parsers far from a {@link StackOverflowError} on a
+    * thread with the default stack size while allowing about a hundred nested logical operators.
+    */
+   public static final int DEFAULT_MAX_NESTING_DEPTH = 256;
+   /**
+    * Default maximum number of logical operators and comparisons in a filter.
+    */
+   public static final int DEFAULT_MAX_FILTER_NODES = 10_000;
+   /**
+    * Value of a limit that is not enforced.
+    */
+   public static final int UNLIMITED = Integer.MAX_VALUE;
+
+   private static final RqlParserConfig DEFAULT = builder().build();
+
+   private final PredictionStrategy predictionStrategy;
+   private final boolean fastPathEnabled;
+   private final boolean stopAtFirstError;
+   private final RqlSymbolTable symbolTable;
+   private final RqlFilterInterner filterInterner;
+   private final ModelConstruction modelConstruction;
+   private final int sessionPoolSize;
+   private final int dfaStateLimit;
+   private final int maxInputLength;
+   private final int maxNestingDepth;
+   private final int maxFilterNodes;
+   private final int maxInListValues;
+   private final int maxSortFields;
+
+   private RqlParserConfig( final Builder builder ) {
+      predictionStrategy = builder.predictionStrategy;
+      fastPathEnabled = builder.fastPathEnabled;
+      stopAtFirstError = builder.stopAtFirstError;
+      symbolTable = builder.symbolTable;
+      filterInterner = builder.filterInterner;
+      modelConstruction = builder.modelConstruction;
+      sessionPoolSize = builder.sessionPoolSize;
+      dfaStateLimit = builder.dfaStateLimit;
+      maxInputLength = builder.maxInputLength;
+      maxNestingDepth = builder.maxNestingDepth;
+      maxFilterNodes = builder.maxFilterNodes;
+      maxInListValues = builder.maxInListValues;
+      maxSortFields = builder.maxSortFields;
+   }
+
+   public static RqlParserConfig defaultConfig() {
+      return DEFAULT;
+   }
+
+   public static Builder builder() {
+      return new Builder();
+   }
+
+   public PredictionStrategy getPredictionStrategy() {
+      return predictionStrategy;
+   }
+
+   public boolean isFastPathEnabled() {
+      return fastPathEnabled;
+   }
+
+   public boolean isStopAtFirstError() {
+      return stopAtFirstError;
+   }
+
+   public RqlSymbolTable getSymbolTable() {
+      return symbolTable;
+   }
+
+   /**
+    * @return the table the filters of parsed models are interned in, {@code null} if they are not interned
+    */
+   public RqlFilterInterner getFilterInterner() {
+      return filterInterner;
+   }
+
+   public ModelConstruction getModelConstruction() {
+      return modelConstruction;
+   }
+
+   public int getSessionPoolSize() {
+      return sessionPoolSize;
+   }
+
+   public int getDfaStateLimit() {
+      return dfaStateLimit;
+   }
+
+   public int getMaxInputLength() {
+      return maxInputLength;
+   }
+
+   public int getMaxNestingDepth() {
+      return maxNestingDepth;
+   }
+
+   public int getMaxFilterNodes() {
+      return maxFilterNodes;
+   }
+
+   public int getMaxInListValues() {
+      return maxInListValues;
+   }
+
+   public int getMaxSortFields() {
+      return maxSortFields;
+   }
+
+   /**
+    * @return whether any of the resource limits is enforced
+    */
+   boolean hasLimits() {
+      return maxInputLength != UNLIMITED
+            || maxNestingDepth != UNLIMITED
+            || maxFilterNodes != UNLIMITED
+            || maxInListValues != UNLIMITED
+            || maxSortFields != UNLIMITED;
+   }
+
+   /**
+    * Builder for {@link RqlParserConfig} instances.
+    */
+   public static final class Builder {
+      private PredictionStrategy predictionStrategy = PredictionStrategy.SLL_THEN_LL;
+      private boolean fastPathEnabled = true;
+      private boolean stopAtFirstError;
+      private RqlSymbolTable symbolTable = RqlSymbolTable.shared();
+      private RqlFilterInterner filterInterner;
+      private ModelConstruction modelConstruction = ModelConstruction.PARSE_EVENTS;
+      private int sessionPoolSize = DEFAULT_SESSION_POOL_SIZE;
+      private int dfaStateLimit = DEFAULT_DFA_STATE_LIMIT;
+      private int maxInputLength = UNLIMITED;
+      private int maxNestingDepth = DEFAULT_MAX_NESTING_DEPTH;
+      private int maxFilterNodes = DEFAULT_MAX_FILTER_NODES;
+      private int maxInListValues = UNLIMITED;
+      private int maxSortFields = UNLIMITED;
+
+      private Builder() {
+      }
+
+      public Builder predictionStrategy( final PredictionStrategy predictionStrategy ) {
+         this.predictionStrategy = Objects.requireNonNull( predictionStrategy );
+         return this;
+      }
+
+      /**
+       * @param fastPathEnabled whether valid queries are parsed by a hand-written parser building the model directly;
+       *       the ANTLR parser is still used for all queries the fast path cannot handle and to report errors
+       */
+      public Builder fastPath( final boolean fastPathEnabled ) {
+         this.fastPathEnabled = fastPathEnabled;
+         return this;
+      }
+
+      /**
+       * @param stopAtFirstError whether parsing an invalid query ends with its first syntax error, which makes
+       *       rejecting it about as cheap as parsing a valid query; otherwise all errors are collected. Queries are
+       *       then parsed in a single LL pass, as an SLL pass failing on the first error would have to be repeated
+       */
+      public Builder stopAtFirstError( final boolean stopAtFirstError ) {
+         this.stopAtFirstError = stopAtFirstError;
+         return this;
+      }
+
+      /**
+       * @param symbolTable the table canonicalizing the fields and string literals of parsed models, by default
+       *       {@link RqlSymbolTable#shared()} which canonicalizes fields only
+       */
+      public Builder symbolTable( final RqlSymbolTable symbolTable ) {
+         this.symbolTable = Objects.requireNonNull( symbolTable );
+         return this;
+      }
+
+      /**
+       * @param filterInterner the table the filters of parsed models are interned in, so equal subtrees of different
+       *       queries share one instance; {@code null}, the default, to not intern filters
+       */
+      public Builder filterInterner( final RqlFilterInterner filterInterner ) {
+         this.filterInterner = filterInterner;
+         return this;
+      }
+
+      public Builder modelConstruction( final ModelConstruction modelConstruction ) {
+         this.modelConstruction = Objects.requireNonNull( modelConstruction );
+         return this;
+      }
+
+      /**
+       * @param sessionPoolSize how many idle lexer/parser sessions are kept for reuse, {@code 0} disables reuse
+       */
+      public Builder sessionPoolSize( final int sessionPoolSize ) {
+         if ( sessionPoolSize < 0 ) {
+            throw new IllegalArgumentException( "Session pool size must not be negative." );
+         }
+         this.sessionPoolSize = sessionPoolSize;
+         return this;
+      }
+
+      /**
+       * @param dfaStateLimit how many DFA states the shared parser DFA may grow to before it is discarded
+       */
+      public Builder dfaStateLimit( final int dfaStateLimit ) {
+         if ( dfaStateLimit <= 0 ) {
+            throw new IllegalArgumentException( "DFA state limit must be positive." );
+         }
+         this.dfaStateLimit = dfaStateLimit;
+         return this;
+      }
+
+      /**
+       * @param maxInputLength how many characters a query may have
+       */
+      public Builder maxInputLength( final int maxInputLength ) {
+         this.maxInputLength = requirePositiveLimit( maxInputLength );
+         return this;
+      }
+
+      /**
+       * Limits the nesting of parentheses, by default to {@link #DEFAULT_MAX_NESTING_DEPTH}. Raising it to parse deeper
+       * queries needs a correspondingly larger stack for the recursive parsers.
+       *
+       * @param maxNestingDepth how deeply parentheses may be nested, e.g. {@code 2} for {@code and(eq(a,1))}
+       */
+      public Builder maxNestingDepth( final int maxNestingDepth ) {
+         this.maxNestingDepth = requirePositiveLimit( maxNestingDepth );
+         return this;
+      }
+
+      /**
+       * @param maxFilterNodes how many logical operators and comparisons the filter may have in total, by default
+       *       {@link #DEFAULT_MAX_FILTER_NODES}
+       */
+      public Builder maxFilterNodes( final int maxFilterNodes ) {
+         this.maxFilterNodes = requirePositiveLimit( maxFilterNodes );
+         return this;
+      }
+
+      /**
+       * @param maxInListValues how many values a single {@code in} comparison may list
+       */
+      public Builder maxInListValues( final int maxInListValues ) {
+         this.maxInListValues = requirePositiveLimit( maxInListValues );
+         return this;
+      }
+
+      /**
+       * @param maxSortFields how many fields the {@code sort} option may list
+       */
+      public Builder maxSortFields( final int maxSortFields ) {
+         this.maxSortFields = requirePositiveLimit( maxSortFields );
+         return this;
+      }
+
+      private static int requirePositiveLimit( final int limit ) {
+         if ( limit <= 0 ) {
+            throw new IllegalArgumentException( "Limits must be positive, use UNLIMITED to disable a limit." );
+         }
+         return limit;
+      }
+
+      public RqlParserConfig build() {
+         return new RqlParserConfig( this );
+      }
+   }
+}
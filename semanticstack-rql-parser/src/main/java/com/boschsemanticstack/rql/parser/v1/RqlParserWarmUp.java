@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlLexer;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.atn.Transition;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.misc.IntervalSet;
+
+/**
+ * Prepares the parser for serving traffic at steady-state latency, e.g. before a new instance reports itself ready.
+ *
+ * <p>The first queries parsed by a JVM pay for loading and deserializing the ANTLR grammar, for building the lexer
+ * DFA and for loading the model classes. A warm-up parses a corpus of representative queries through the same
+ * settings, session pool and shared DFA as {@link RqlParser#fromUncached(String, RqlParserConfig)}, so all of this
+ * is done up front. The parser itself decides with a single token of lookahead and needs no DFA; all learned
+ * prediction state is in the lexer DFA.</p>
+ *
+ * <p>Each warm-up records which of its queries taught a fresh lexer DFA something new. This {@link Snapshot} is
+ * usually a small subset of the corpus; it can be persisted, e.g. by a build or an instance warmed with recorded
+ * traffic, and restored on other instances to reach the same DFA state without replaying the whole corpus.</p>
+ */
+public final class RqlParserWarmUp {
+
+   private static final List<String> BUILT_IN_CORPUS = List.of(
+         "",
+         "select=id,name.first,_x9",
+         "filter=eq(name,\"x\")",
+         "filter=ne(a,null)",
+         "filter=eq(flag,true)",
+         "filter=ne(flag,false)",
+         "filter=and(lt(a,1),le(b,-2.5),gt(c,1e3),ge(d,2021-03-04T05:06:07Z))",
+         "filter=or(like(a,\"*x?\"),likeIgnoreCase(b,\"\\\"y\\\\\"))",
+         "filter=not(in(a,1,2,3))",
+         "filter=in(a,\"x\",\"y\")",
+         "filter=in(a,0.5,-1.25E-3,+7.0e+2)",
+         "filter=eq(t,2021-03-04t05:06:07.123+01:00)",
+         "filter=eq(t,2021-03-04T05:06:07,5-02:30)",
+         "filter=eq(a,0)",
+         "option=sort(+a,-b),limit(0,100)",
+         "option=limit(10,20),sort(-a)",
+         "option=cursor(\"abc\",50)",
+         "option=cursor(50)",
+         "select=a&filter=eq(b,0)&option=sort(+a)",
+         "filter = and ( eq( a , 1 ) ,\n\tne( b , \"c d\" ) )",
+         // invalid queries warm up error reporting
+         "filter=eq(a,1",
+         "filter=foo(a,1)",
+         "select=a&&option=limit(1)",
+         "filter=eq(a,@)"
+   );
+
+   private static final BitSet PARSER_TOKEN_TYPES = collectParserTokenTypes();
+
+   private static volatile Report lastReport;
+
+   private RqlParserWarmUp() {
+      // utility class
+   }
+
+   /**
+    * @return the queries used by {@link #warmUp()}, covering every token type of the grammar
+    */
+   public static List<String> builtInCorpus() {
+      return BUILT_IN_CORPUS;
+   }
+
+   /**
+    * Warms up the parser used by {@link RqlParser#from(String)} with the built-in corpus.
+    *
+    * @return the metrics of the warm-up
+    */
+   public static Report warmUp() {
+      return warmUp( BUILT_IN_CORPUS, RqlParserConfig.defaultConfig() );
+   }
+
+   /**
+    * Warms up parsers using the given settings by parsing each of the queries once. Invalid queries are allowed and
+    * warm up error reporting.
+    *
+    * @param queries representative queries, e.g. recorded from production traffic
+    * @param config the settings of the parsers to warm up
+    * @return the metrics of the warm-up, including a snapshot to restore its state elsewhere
+    */
+   public static Report warmUp( final Collection<String> queries, final RqlParserConfig config ) {
+      final long start = System.nanoTime();
+      final RqlParserApi parserApi = new RqlParserApi( config );
+      final DFA[] scratchDfa = new ParserSessionPool.SharedDfa().lexerDfa();
+      final InternalRqlLexer scratchLexer = new InternalRqlLexer( CharStreams.fromString( "" ) );
+      scratchLexer.removeErrorListeners();
+      scratchLexer.setInterpreter( new LexerATNSimulator( scratchLexer, InternalRqlLexer._ATN, scratchDfa, new PredictionContextCache() ) );
+      final BitSet tokenTypes = new BitSet();
+      final List<String> snapshotQueries = new ArrayList<>();
+      int failedQueries = 0;
+      for ( final String query : queries ) {
+         if ( learnsNewStates( scratchLexer, scratchDfa, query, tokenTypes ) ) {
+            snapshotQueries.add( query );
+         }
+         try {
+            QueryLimitGuard.check( query, config );
+            if ( config.isFastPathEnabled() ) {
+               RqlFastParser.tryParse( query, config.getSymbolTable() );
+            }
+            parserApi.parseWithAntlr( query );
+         } catch ( final RuntimeException e ) {
+            failedQueries++;
+         }
+      }
+      final Report report = new Report(
+            Duration.ofNanos( System.nanoTime() - start ),
+            queries.size(),
+            failedQueries,
+            parserApi.getSessionPool().getDfa().stateCount(),
+            coverage( tokenTypes ),
+            new Snapshot( grammarFingerprint(), snapshotQueries ) );
+      lastReport = report;
+      return report;
+   }
+
+   /**
+    * Brings parsers using the given settings into the state of the warm-up the snapshot was taken of.
+    *
+    * @param snapshot the snapshot of an earlier warm-up
+    * @param config the settings of the parsers to warm up
+    * @return the metrics of replaying the snapshot
+    * @throws IllegalArgumentException if the snapshot was taken with a different version of the RQL grammar
+    */
+   public static Report restore( final Snapshot snapshot, final RqlParserConfig config ) {
+      if ( snapshot.grammarFingerprint != grammarFingerprint() ) {
+         throw new IllegalArgumentException( "Warm-up snapshot was taken with a different version of the RQL grammar." );
+      }
+      return warmUp( snapshot.getQueries(), config );
+   }
+
+   /**
+    * @return the metrics of the last warm-up or restore in this JVM, e.g. to expose them to monitoring
+    */
+   public static Optional<Report> getLastReport() {
+      return Optional.ofNullable( lastReport );
+   }
+
+   private static boolean learnsNewStates( final InternalRqlLexer lexer, final DFA[] dfa, final String query,
+         final BitSet tokenTypes ) {
+      final int statesBefore = countStates( dfa );
+      lexer.setInputStream( CharStreams.fromString( query ) );
+      for ( Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken() ) {
+         tokenTypes.set( token.getType() );
+      }
+      return countStates( dfa ) > statesBefore;
+   }
+
+   /**
+    * @return the fraction of the token types the parser consumes that occurred in the queries
+    */
+   private static double coverage( final BitSet tokenTypes ) {
+      final BitSet covered = (BitSet) tokenTypes.clone();
+      covered.and( PARSER_TOKEN_TYPES );
+      return (double) covered.cardinality() / PARSER_TOKEN_TYPES.cardinality();
+   }
+
+   private static BitSet collectParserTokenTypes() {
+      final BitSet tokenTypes = new BitSet();
+      for ( final ATNState state : InternalRqlParser._ATN.states ) {
+         for ( final Transition transition : state.getTransitions() ) {
+            final IntervalSet label = transition.label();
+            if ( label != null ) {
+               label.toList().stream().filter( type -> type > 0 ).forEach( tokenTypes::set );
+            }
+         }
+      }
+      return tokenTypes;
+   }
+
+   private static int countStates( final DFA[] dfa ) {
+      int count = 0;
+      for ( final DFA decision : dfa ) {
+         count += decision.states.size();
+      }
+      return count;
+   }
+
+   private static int grammarFingerprint() {
+      return 31 * InternalRqlLexer._serializedATN.hashCode() + InternalRqlParser._serializedATN.hashCode();
+   }
+
+   /**
+    * Metrics of a warm-up.
+    *
+    * @param duration how long the warm-up took
+    * @param queryCount how many queries were parsed
+    * @param failedQueryCount how many of them were invalid
+    * @param dfaStateCount how many states the shared DFA holds afterwards
+    * @param tokenTypeCoverage the fraction of the token types used by the grammar's rules that the queries contained,
+    *       from 0 to 1
+    * @param snapshot the queries needed to reproduce the DFA state of the warm-up
+    */
+   public record Report( Duration duration, int queryCount, int failedQueryCount, int dfaStateCount, double tokenTypeCoverage,
+         Snapshot snapshot ) {
+   }
+
+   /**
+    * The queries of a warm-up that taught the lexer DFA something new, in a form that can be persisted.
+    *
+    * <p>As the snapshot consists of queries of the warm-up corpus, it contains whatever values these queries do.</p>
+    */
+   public static final class Snapshot {
+
+      private static final int MAGIC = 0x52514c57; // "RQLW"
+
+      private final int grammarFingerprint;
+      private final List<String> queries;
+
+      private Snapshot( final int grammarFingerprint, final List<String> queries ) {
+         this.grammarFingerprint = grammarFingerprint;
+         this.queries = List.copyOf( queries );
+      }
+
+      public List<String> getQueries() {
+         return queries;
+      }
+
+      /**
+       * Writes the snapshot in a compact binary form; the stream is not closed.
+       */
+      public void writeTo( final OutputStream output ) throws IOException {
+         final DataOutputStream data = new DataOutputStream( output );
+         data.writeInt( MAGIC );
+         data.writeInt( grammarFingerprint );
+         data.writeInt( queries.size() );
+         for ( final String query : queries ) {
+            final byte[] bytes = query.getBytes( StandardCharsets.UTF_8 );
+            data.writeInt( bytes.length );
+            data.write( bytes );
+         }
+         data.flush();
+      }
+
+      /**
+       * Reads a snapshot written by {@link #writeTo(OutputStream)}; the stream is not closed.
+       *
+       * @throws IOException if reading fails or the data is not a warm-up snapshot
+       */
+      public static Snapshot readFrom( final InputStream input ) throws IOException {
+         final DataInputStream data = new DataInputStream( Objects.requireNonNull( input ) );
+         if ( data.readInt() != MAGIC ) {
+            throw new IOException( "Not an RQL warm-up snapshot." );
+         }
+         final int grammarFingerprint = data.readInt();
+         final int count = data.readInt();
+         if ( count < 0 ) {
+            throw new IOException( "Corrupt RQL warm-up snapshot." );
+         }
+         final List<String> queries = new ArrayList<>( Math.min( count, 1024 ) );
+         for ( int i = 0; i < count; i++ ) {
+            final int length = data.readInt();
+            if ( length < 0 ) {
+               throw new IOException( "Corrupt RQL warm-up snapshot." );
+            }
+            final byte[] bytes = new byte[length];
+            data.readFully( bytes );
+            queries.add( new String( bytes, StandardCharsets.UTF_8 ) );
+         }
+         return new Snapshot( grammarFingerprint, queries );
+      }
+   }
+}
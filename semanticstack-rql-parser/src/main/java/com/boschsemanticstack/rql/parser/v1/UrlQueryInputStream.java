@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Turns a raw, still percent-encoded URL query into the UTF-8 encoded RQL query the parser reads, while it is read.
+ *
+ * <p>Everything up to a {@code ?} in front of the first parameter is skipped, so a complete request URL may be
+ * passed, as is a {@code #} fragment. Only the {@code select}, {@code filter} and {@code option} parameters are
+ * kept, all others are dropped. Percent escapes are decoded, whereas a {@code +} stays a plus sign as RQL uses it
+ * for sort directions; spaces have to be encoded as {@code %20}. Malformed escapes are passed on unchanged for the
+ * parser to report.</p>
+ */
+final class UrlQueryInputStream extends InputStream {
+
+   private static final byte[][] RQL_PARAMETERS = {
+         "select".getBytes( StandardCharsets.US_ASCII ),
+         "filter".getBytes( StandardCharsets.US_ASCII ),
+         "option".getBytes( StandardCharsets.US_ASCII )
+   };
+   private static final int PARAMETER_NAME_LENGTH = 6;
+
+   private final byte[] bytes;
+   private final CharSequence chars;
+   private final int end;
+   private final byte[] name = new byte[PARAMETER_NAME_LENGTH];
+   private final byte[] pending = new byte[4];
+   private int pendingStart;
+   private int pendingEnd;
+   private int position;
+   private boolean inParameter;
+   private boolean parameterWritten;
+
+   private UrlQueryInputStream( final byte[] bytes, final CharSequence chars, final int length ) {
+      this.bytes = bytes;
+      this.chars = chars;
+      int queryStart = 0;
+      int queryEnd = length;
+      boolean parameterSeen = false;
+      for ( int i = 0; i < length; i++ ) {
+         final int c = unit( i );
+         if ( c == '#' ) {
+            queryEnd = i;
+            break;
+         }
+         if ( c == '?' && !parameterSeen && queryStart == 0 ) {
+            queryStart = i + 1;
+         }
+         parameterSeen |= c == '=' || c == '&';
+      }
+      end = queryEnd;
+      position = queryStart;
+   }
+
+   /**
+    * @param urlQuery the raw query in US-ASCII, unencoded non ASCII characters are taken as UTF-8
+    */
+   static UrlQueryInputStream of( final byte[] urlQuery ) {
+      return new UrlQueryInputStream( urlQuery, null, urlQuery.length );
+   }
+
+   /**
+    * @param urlQuery the raw query, unencoded non ASCII characters are encoded as UTF-8
+    */
+   static UrlQueryInputStream of( final CharSequence urlQuery ) {
+      return new UrlQueryInputStream( null, urlQuery, urlQuery.length() );
+   }
+
+   @Override
+   public int read() {
+      while ( true ) {
+         if ( pendingStart < pendingEnd ) {
+            return pending[pendingStart++] & 0xFF;
+         }
+         if ( position >= end ) {
+            return -1;
+         }
+         if ( inParameter && unit( position ) != '&' ) {
+            return decode();
+         }
+         inParameter = selectParameter();
+      }
+   }
+
+   @Override
+   public int read( final byte[] target, final int offset, final int length ) {
+      int count = 0;
+      while ( count < length ) {
+         final int b = read();
+         if ( b < 0 ) {
+            return count == 0 && length > 0 ? -1 : count;
+         }
+         target[offset + count++] = (byte) b;
+      }
+      return count;
+   }
+
+   /**
+    * Moves to the next RQL parameter, separating it from the previous one by an {@code &}.
+    *
+    * @return whether there is one
+    */
+   private boolean selectParameter() {
+      while ( position < end ) {
+         if ( unit( position ) == '&' ) {
+            position++;
+         } else if ( isRqlParameter() ) {
+            if ( parameterWritten ) {
+               pending[0] = '&';
+               pendingStart = 0;
+               pendingEnd = 1;
+            }
+            parameterWritten = true;
+            return true;
+         } else {
+            while ( position < end && unit( position ) != '&' ) {
+               position++;
+            }
+         }
+      }
+      return false;
+   }
+
+   private boolean isRqlParameter() {
+      int length = 0;
+      int i = position;
+      while ( i < end ) {
+         final int c = unit( i );
+         if ( c == '=' ) {
+            break;
+         }
+         if ( c == '&' || length == PARAMETER_NAME_LENGTH ) {
+            return false;
+         }
+         final int escaped = escapedByte( i );
+         name[length++] = (byte) ( escaped < 0 ? c : escaped );
+         i += escaped < 0 ? 1 : 3;
+      }
+      if ( i == end || length != PARAMETER_NAME_LENGTH ) {
+         return false;
+      }
+      for ( final byte[] parameter : RQL_PARAMETERS ) {
+         if ( Arrays.equals( parameter, name ) ) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private int decode() {
+      final int escaped = escapedByte( position );
+      if ( escaped >= 0 ) {
+         position += 3;
+         return escaped;
+      }
+      final int c = unit( position++ );
+      if ( c < 0x80 || chars == null ) {
+         return c;
+      }
+      int codePoint = c;
+      if ( Character.isHighSurrogate( (char) c ) && position < end && Character.isLowSurrogate( chars.charAt( position ) ) ) {
+         codePoint = Character.toCodePoint( (char) c, chars.charAt( position++ ) );
+      } else if ( Character.isSurrogate( (char) c ) ) {
+         codePoint = 0xFFFD;
+      }
+      encodeUtf8( codePoint );
+      return pending[pendingStart++] & 0xFF;
+   }
+
+   private void encodeUtf8( final int codePoint ) {
+      pendingStart = 0;
+      if ( codePoint < 0x800 ) {
+         pending[0] = (byte) ( 0xC0 | codePoint >> 6 );
+         pendingEnd = 1;
+      } else if ( codePoint < 0x10000 ) {
+         pending[0] = (byte) ( 0xE0 | codePoint >> 12 );
+         pending[1] = (byte) ( 0x80 | codePoint >> 6 & 0x3F );
+         pendingEnd = 2;
+      } else {
+         pending[0] = (byte) ( 0xF0 | codePoint >> 18 );
+         pending[1] = (byte) ( 0x80 | codePoint >> 12 & 0x3F );
+         pending[2] = (byte) ( 0x80 | codePoint >> 6 & 0x3F );
+         pendingEnd = 3;
+      }
+      pending[pendingEnd++] = (byte) ( 0x80 | codePoint & 0x3F );
+   }
+
+   /**
+    * @return the byte encoded by a percent escape starting at the given index, or {@code -1} if there is none
+    */
+   private int escapedByte( final int index ) {
+      if ( unit( index ) != '%' || index + 2 >= end ) {
+         return -1;
+      }
+      final int high = Character.digit( unit( index + 1 ), 16 );
+      final int low = Character.digit( unit( index + 2 ), 16 );
+      return high < 0 || low < 0 ? -1 : high << 4 | low;
+   }
+
+   private int unit( final int index ) {
+      return bytes != null ? bytes[index] & 0xFF : chars.charAt( index );
+   }
+}
@@ -14,6 +14,7 @@
 package com.boschsemanticstack.rql.language;
 
 import static com.boschsemanticstack.rql.assertj.RqlQueryModelAssert.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.boschsemanticstack.rql.assertj.RqlFilterAssert;
@@ -25,6 +26,7 @@ import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
 import com.boschsemanticstack.rql.model.v1.impl.RqlCursorImpl;
 import com.boschsemanticstack.rql.model.v1.impl.RqlFieldDirectionImpl;
 import com.boschsemanticstack.rql.parser.v1.RqlParser;
+import com.boschsemanticstack.rql.parser.v1.RqlParserConfig;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -275,4 +277,20 @@ class RqlRepresentationTest {
             .hasOffset( 5 )
             .hasLimit( 10 );
    }
+
+   @ParameterizedTest
+   @ValueSource( booleans = { true, false } )
+   void shouldParseEmptyOrAsFilterMatchingNothing( final boolean fastPath ) {
+      final RqlParserConfig config = RqlParserConfig.builder().fastPath( fastPath ).build();
+
+      final RqlQueryModel model = RqlParser.fromUncached( "filter=or( )", config );
+      final RqlQueryModel nested = RqlParser.fromUncached( "filter=and(eq(a,1),or())", config );
+
+      assertThat( model.isAlwaysFalse() ).isTrue();
+      assertThat( model.getFilter().orElseThrow().getChildren() ).isEmpty();
+      assertThat( nested.getFilter().orElseThrow().getChildren().get( 1 ).isAlwaysFalse() ).isTrue();
+      assertThat( RqlParser.toString( model ) ).isEqualTo( "filter=or()" );
+      assertThatThrownBy( () -> RqlParser.fromUncached( "filter=or(,)", config ) ).isInstanceOf( ParseException.class );
+      assertThatThrownBy( () -> RqlParser.fromUncached( "filter=not()", config ) ).isInstanceOf( ParseException.class );
+   }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.time.OffsetDateTime;
+
+/**
+ * The literal decoding {@link RqlParseTreeVisitor} used before {@link RqlLiteralDecoder}, kept as the reference the
+ * decoder has to match.
+ */
+final class LegacyLiteralDecoding {
+
+   private LegacyLiteralDecoding() {
+      // utility class
+   }
+
+   static String unescapeString( final String literal ) {
+      final StreamTokenizer parser = new StreamTokenizer( new StringReader( literal ) );
+      try {
+         parser.nextToken();
+      } catch ( final IOException e ) {
+         throw new UncheckedIOException( e );
+      }
+      return parser.sval;
+   }
+
+   static Number parseIntoSmallestIntegerType( final String integerString ) {
+      try {
+         return Integer.parseInt( integerString );
+      } catch ( final NumberFormatException e ) {
+         try {
+            return Long.parseLong( integerString );
+         } catch ( final NumberFormatException e2 ) {
+            try {
+               return new BigInteger( integerString );
+            } catch ( final NumberFormatException e3 ) {
+               throw new NumberFormatException( "Can not parse '" + integerString + "' as Integer, Long or BigInteger!" );
+            }
+         }
+      }
+   }
+
+   static OffsetDateTime parseOffsetDateTime( final String text ) {
+      return OffsetDateTime.parse( text.replace( ",", "." ) );
+   }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.parser.v1.internal.InternalRqlParser;
+
+import org.junit.jupiter.api.Test;
+
+class ParserSessionPoolTest {
+
+   private static final String QUERY = RqlParserBenchmark.TYPICAL_QUERY;
+
+   @Test
+   void shouldReuseReleasedSession() {
+      final ParserSessionPool pool = new ParserSessionPool( 2, RqlParserConfig.DEFAULT_DFA_STATE_LIMIT );
+
+      final ParserSession session = pool.acquire();
+      pool.release( session );
+
+      assertThat( pool.getIdleSessionCount() ).isEqualTo( 1 );
+      assertThat( pool.acquire() ).isSameAs( session );
+      assertThat( pool.getIdleSessionCount() ).isZero();
+   }
+
+   @Test
+   void shouldNotKeepSessionsWithoutPool() {
+      final ParserSessionPool pool = new ParserSessionPool( 0, RqlParserConfig.DEFAULT_DFA_STATE_LIMIT );
+
+      final ParserSession session = pool.acquire();
+      pool.release( session );
+
+      assertThat( pool.getIdleSessionCount() ).isZero();
+      assertThat( pool.acquire() ).isNotSameAs( session );
+   }
+
+   @Test
+   void shouldShareOnePoolPerSettings() {
+      final RqlParserConfig config = RqlParserConfig.builder().predictionStrategy( RqlParserConfig.PredictionStrategy.LL ).build();
+
+      assertThat( ParserSessionPool.forConfig( config ) ).isSameAs( ParserSessionPool.forConfig( RqlParserConfig.defaultConfig() ) );
+      assertThat( ParserSessionPool.forConfig( RqlParserConfig.builder().dfaStateLimit( 10 ).build() ) )
+            .isNotSameAs( ParserSessionPool.forConfig( RqlParserConfig.defaultConfig() ) );
+   }
+
+   @Test
+   void shouldReplaceDfaGrowingPastLimitAndRewireIdleSessions() {
+      final ParserSessionPool pool = new ParserSessionPool( 1, 1 );
+      final ParserSession session = pool.acquire();
+      final ParserSessionPool.SharedDfa initialDfa = pool.getDfa();
+
+      session.parseLl( QUERY, InternalRqlParser::query, false );
+      pool.release( session );
+
+      assertThat( pool.getDfaResetCount() ).isEqualTo( 1 );
+      assertThat( pool.getDfa() ).isNotSameAs( initialDfa );
+      assertThat( pool.acquire().getDfa() ).isSameAs( pool.getDfa() );
+   }
+
+   @Test
+   void shouldParseCorrectlyWithReusedSessionsAndDfaResets() {
+      final RqlParserApi parser = new RqlParserApi( RqlParserConfig.builder()
+            .fastPath( false )
+            .sessionPoolSize( 1 )
+            .dfaStateLimit( 5 )
+            .build() );
+      final String expected = RqlParser.toString( RqlParser.fromUncached( QUERY ) );
+
+      for ( int i = 0; i < 5; i++ ) {
+         assertThat( RqlParser.toString( parser.parseFullQuery( QUERY ) ) ).isEqualTo( expected );
+         assertThatThrownBy( () -> parser.parseFullQuery( "filter=eq(a" ) )
+               .isInstanceOf( ParseException.class )
+               .hasMessageContaining( "<EOF>" );
+      }
+   }
+
+   @Test
+   void shouldRecoverFromErrorsInReusedSession() {
+      final RqlParserApi parser = new RqlParserApi( RqlParserConfig.builder().fastPath( false ).sessionPoolSize( 1 ).build() );
+
+      parser.parseFullQuery( QUERY );
+
+      assertThatThrownBy( () -> parser.parseFullQuery( "@[line:1" ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( "token recognition error at: '@'" );
+   }
+
+   @Test
+   void shouldStopAtFirstErrorWithoutKeepingStateOnSharedException() {
+      final RqlParserApi parser = new RqlParserApi( RqlParserConfig.builder().fastPath( false ).stopAtFirstError( true ).sessionPoolSize( 1 ).build() );
+
+      for ( int i = 0; i < 2; i++ ) {
+         assertThat( parser.tryParseFullQuery( "filter=eq(a,1)&@&select=b,@" ).getErrors() ).hasSize( 1 );
+      }
+      ParseStoppedException.INSTANCE.addSuppressed( new IllegalStateException() );
+
+      assertThat( ParseStoppedException.INSTANCE.getSuppressed() ).isEmpty();
+      assertThat( ParseStoppedException.INSTANCE.getStackTrace() ).isEmpty();
+   }
+
+   @Test
+   void shouldParseConcurrentlyWithSharedPool() throws Exception {
+      final RqlParserApi parser = new RqlParserApi( RqlParserConfig.builder().fastPath( false ).sessionPoolSize( 2 ).build() );
+      final String expected = RqlParser.toString( RqlParser.fromUncached( QUERY ) );
+      final List<Future<String>> results = new ArrayList<>();
+
+      try ( final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor() ) {
+         for ( int i = 0; i < 200; i++ ) {
+            results.add( executor.submit( () -> RqlParser.toString( parser.parseFullQuery( QUERY ) ) ) );
+         }
+         for ( final Future<String> result : results ) {
+            assertThat( result.get() ).isEqualTo( expected );
+         }
+      }
+   }
+}
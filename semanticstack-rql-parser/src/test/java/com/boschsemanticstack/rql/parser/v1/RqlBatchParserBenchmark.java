@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how {@link RqlBatchParser} scales with its parallelism on a batch of distinct queries, parsed without cache
+ * and with the fast path turned off so that every query runs through the ANTLR parser.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.boschsemanticstack.rql.parser.v1.RqlBatchParserBenchmark} or from the IDE. Parallelism beyond
+ * the number of cores of the machine is not expected to help.</p>
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class RqlBatchParserBenchmark {
+
+   @Param( { "1", "2", "4", "8" } )
+   private int parallelism;
+
+   @Param( { "100", "500" } )
+   private int batchSize;
+
+   private List<String> batch;
+   private RqlBatchParser parser;
+
+   @Setup
+   public void setUp() {
+      batch = new ArrayList<>( batchSize );
+      for ( int i = 0; i < batchSize; i++ ) {
+         batch.add( RqlParserBenchmark.TYPICAL_QUERY.replace( "4711", Integer.toString( i ) ) );
+      }
+      parser = RqlBatchParser.builder()
+            .parallelism( parallelism )
+            .uncached( RqlParserConfig.builder().fastPath( false ).build() )
+            .build();
+   }
+
+   @Benchmark
+   public List<RqlParseOutcome> parseBatch() {
+      return parser.parseAll( batch );
+   }
+
+   public static void main( final String[] args ) throws RunnerException {
+      new Runner( new OptionsBuilder()
+            .include( RqlBatchParserBenchmark.class.getSimpleName() )
+            .build() ).run();
+   }
+}
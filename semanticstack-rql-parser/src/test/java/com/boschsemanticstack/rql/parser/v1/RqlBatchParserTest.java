@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+import org.junit.jupiter.api.Test;
+
+class RqlBatchParserTest {
+
+   private static List<String> queries( final int count ) {
+      final List<String> queries = new ArrayList<>( count );
+      for ( int i = 0; i < count; i++ ) {
+         queries.add( i % 10 == 3 ? "filter=eq(a," + i : "filter=eq(a," + i + ")&option=limit(0," + ( i + 1 ) + ")" );
+      }
+      return queries;
+   }
+
+   @Test
+   void shouldKeepOrderAndReportInvalidQueriesPerItem() {
+      final List<String> queries = queries( 500 );
+
+      final List<RqlParseOutcome> outcomes = RqlBatchParser.builder().parallelism( 8 ).uncached( RqlParserConfig.defaultConfig() ).build()
+            .parseAll( queries );
+
+      assertThat( outcomes ).hasSize( queries.size() );
+      for ( int i = 0; i < queries.size(); i++ ) {
+         final RqlParseOutcome outcome = outcomes.get( i );
+         if ( i % 10 == 3 ) {
+            assertThat( outcome.isValid() ).isFalse();
+            assertThat( outcome.getErrors() ).isNotEmpty();
+         } else {
+            assertThat( RqlParser.toString( outcome.getModelOrThrow() ) ).isEqualTo( queries.get( i ) );
+         }
+      }
+   }
+
+   @Test
+   void shouldRejectDeeplyNestedQueryPerItem() {
+      final String deep = "filter=" + "not(".repeat( 1_000_000 ) + "eq(a,1)" + ")".repeat( 1_000_000 );
+      final List<String> queries = List.of( "filter=eq(a,1)", deep, "filter=eq(b,2)" );
+
+      final List<RqlParseOutcome> outcomes = RqlBatchParser.builder().parallelism( 2 ).uncached( RqlParserConfig.defaultConfig() ).build()
+            .parseAll( queries );
+
+      assertThat( outcomes ).extracting( RqlParseOutcome::isValid ).containsExactly( true, false, true );
+      assertThat( outcomes.get( 1 ).getErrors() ).singleElement()
+            .satisfies( error -> assertThat( error.getMessage() ).contains( "maximum nesting depth" ) );
+   }
+
+   @Test
+   void shouldShareParseCache() {
+      final RqlParseCache cache = new RqlParseCache();
+      final RqlBatchParser parser = RqlBatchParser.builder().parseCache( cache ).build();
+      final List<String> queries = List.of( "filter=eq(a,1)", "filter=eq(b,2)" );
+
+      final List<RqlParseOutcome> first = parser.parseAll( queries );
+      final List<RqlParseOutcome> second = parser.parseAll( queries.stream() );
+
+      assertThat( cache.getHitCount() ).isEqualTo( 2 );
+      assertThat( second.get( 1 ).getModelOrThrow() ).isSameAs( first.get( 1 ).getModelOrThrow() );
+   }
+
+   @Test
+   void shouldRunOnConfiguredExecutor() {
+      final Set<String> threads = ConcurrentHashMap.newKeySet();
+      try ( final ExecutorService executor = Executors.newFixedThreadPool( 2 ) ) {
+         final RqlBatchParser parser = RqlBatchParser.builder()
+               .executor( task -> executor.execute( () -> {
+                  threads.add( Thread.currentThread().getName() );
+                  task.run();
+               } ) )
+               .parallelism( 4 )
+               .build();
+
+         assertThat( parser.parseAll( queries( 40 ) ) ).hasSize( 40 );
+      }
+      assertThat( threads ).isNotEmpty().allMatch( name -> name.startsWith( "pool-" ) );
+   }
+
+   @Test
+   void shouldParseSmallBatchesOnCallingThread() {
+      final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+      final RqlBatchParser parser = RqlBatchParser.builder()
+            .executor( task -> threads.add( Thread.currentThread() ) )
+            .build();
+
+      final List<RqlParseOutcome> outcomes = parser.parseAll( List.of( "filter=eq(a,1)" ) );
+
+      assertThat( outcomes.get( 0 ).isValid() ).isTrue();
+      assertThat( threads ).isEmpty();
+      assertThat( parser.parseAll( List.of() ) ).isEmpty();
+   }
+
+   @Test
+   void shouldReportNullQueries() {
+      final List<String> queries = new ArrayList<>( List.of( "filter=eq(a,1)" ) );
+      queries.add( null );
+
+      final List<RqlParseOutcome> outcomes = RqlParser.tryParseAll( queries );
+
+      assertThat( outcomes.get( 0 ).isValid() ).isTrue();
+      assertThat( outcomes.get( 1 ).isValid() ).isFalse();
+   }
+
+   @Test
+   void shouldAgreeWithSequentialParsing() {
+      final List<String> queries = Stream.of( RqlParserWarmUp.builtInCorpus(), queries( 100 ) ).flatMap( List::stream ).toList();
+
+      final List<RqlParseOutcome> outcomes = RqlBatchParser.builder().parallelism( 7 ).build().parseAll( queries );
+
+      IntStream.range( 0, queries.size() ).forEach( i -> assertThat( describe( outcomes.get( i ) ) )
+            .as( queries.get( i ) )
+            .isEqualTo( describe( RqlParser.tryParseUncached( queries.get( i ), RqlParserConfig.defaultConfig() ) ) ) );
+   }
+
+   @Test
+   void shouldRejectInvalidParallelism() {
+      assertThatThrownBy( () -> RqlBatchParser.builder().parallelism( 0 ) ).isInstanceOf( IllegalArgumentException.class );
+   }
+
+   private static String describe( final RqlParseOutcome outcome ) {
+      return outcome.getModel().map( RqlQueryModel.class::cast ).map( RqlParser::toString ).orElseGet( () -> outcome.getErrors().toString() );
+   }
+}
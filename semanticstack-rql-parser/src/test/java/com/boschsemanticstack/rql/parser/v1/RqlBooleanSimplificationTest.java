@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.BooleanSimplificationRqlFilterPreProcessor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class RqlBooleanSimplificationTest {
+
+   private final BooleanSimplificationRqlFilterPreProcessor simplification = new BooleanSimplificationRqlFilterPreProcessor();
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "and(and(eq(a,1)),and(eq(a,1),eq(b,2)))                  | and(eq(a,1),eq(b,2))",
+         "or(eq(a,1),or(eq(b,2),or(eq(c,3))))                     | or(eq(a,1),eq(b,2),eq(c,3))",
+         "and(eq(a,1),eq(b,2),eq(a,1))                            | and(eq(a,1),eq(b,2))",
+         "or(eq(x,1),and(eq(x,1),eq(y,2)))                        | eq(x,1)",
+         "and(or(eq(x,1),eq(y,2)),eq(x,1))                        | eq(x,1)",
+         "not(not(eq(a,1)))                                       | eq(a,1)",
+         "not(not(not(eq(a,1))))                                  | not(eq(a,1))",
+         "and(eq(a,1))                                            | eq(a,1)",
+         "or(and(or(eq(a,1))))                                    | eq(a,1)",
+         "and(not(not(and(eq(a,1),eq(b,2)))),eq(c,3))             | and(eq(a,1),eq(b,2),eq(c,3))",
+         "and(and(eq(a,1)),and(eq(a,1),eq(b,2)),or(eq(b,2),eq(c,3)),not(not(eq(d,4)))) | and(eq(a,1),eq(b,2),eq(d,4))",
+   } )
+   void shouldSimplify( final String filter, final String expected ) {
+      assertThat( simplification.visit( filter( filter ) ) ).hasToString( expected );
+   }
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "and(eq(a,1),eq(b,2))",
+         "or(eq(a,1),and(eq(b,1),eq(c,2)))",
+         "and(or(eq(a,1),eq(b,2)),or(eq(a,1),eq(c,3)))",
+         "not(and(eq(a,1),eq(b,2)))",
+   } )
+   void shouldKeepSimpleFilter( final String filter ) {
+      final RqlFilter parsed = filter( filter );
+
+      assertThat( simplification.visit( parsed ) ).isSameAs( parsed );
+   }
+
+   @Test
+   void shouldSimplifyWideFiltersToNodes() {
+      final String operands = "eq(a,1),eq(b,1),eq(c,1),eq(d,1),eq(e,1),eq(f,1),eq(g,1),eq(h,1),eq(i,1),eq(j,1),eq(k,1),eq(l,1),eq(m,1),eq(n,1),eq(o,1),eq(p,1)";
+      final RqlFilter duplicate = filter( "and(" + operands + ",eq(a,1))" );
+      final RqlFilter absorbed = filter( "and(" + operands + ",or(eq(p,1),eq(q,1)))" );
+      final RqlFilter simple = filter( "and(" + operands + ",eq(q,1))" );
+
+      assertThat( simplification.visit( duplicate ) ).isInstanceOf( RqlFilterNode.And.class ).hasToString( "and(" + operands + ")" );
+      assertThat( simplification.visit( absorbed ) ).isInstanceOf( RqlFilterNode.And.class ).hasToString( "and(" + operands + ")" );
+      assertThat( simplification.visit( simple ) ).isSameAs( simple );
+   }
+
+   @Test
+   void shouldSimplifyOnlyWhenOptedIn() {
+      final String query = "filter=or(eq(x,1),and(eq(x,1),eq(y,2)),or(not(not(eq(x,2)))))";
+
+      final RqlQueryModel model = RqlParser.from( query );
+
+      assertThat( RqlParser.toString( RqlParser.preProcessFilter( model, RqlParser.SIMPLIFYING_FILTER_PREPROCESSORS ) ) )
+            .isEqualTo( "filter=in(x,1,2)" );
+      assertThat( RqlParser.toString( RqlParser.preProcessFilter( model ) ) ).isNotEqualTo( "filter=in(x,1,2)" );
+   }
+
+   private static RqlFilter filter( final String filter ) {
+      return RqlParser.from( "filter=" + filter ).getFilter().orElseThrow();
+   }
+}
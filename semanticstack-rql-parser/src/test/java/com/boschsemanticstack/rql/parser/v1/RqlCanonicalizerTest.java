@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.boschsemanticstack.rql.model.v1.RqlCanonicalizer;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class RqlCanonicalizerTest {
+
+   @Test
+   void shouldConsiderStructurallyEqualModelsEqual() {
+      final String query = "select=a,b&filter=and(eq(a,1),or(like(b,\"x*\"),in(c,1,2)),not(eq(d,null)))&option=sort(+a,-b),limit(0,5)";
+      final RqlQueryModel model = RqlParser.tryParseUncached( query, RqlParserConfig.defaultConfig() ).getModelOrThrow();
+      final RqlQueryModel other = RqlParser.tryParseUncached( query, RqlParserConfig.defaultConfig() ).getModelOrThrow();
+
+      assertThat( model ).isNotSameAs( other ).isEqualTo( other ).hasSameHashCodeAs( other );
+      assertThat( model.getFilter() ).isEqualTo( other.getFilter() );
+      assertThat( model.getOptions() ).isEqualTo( other.getOptions() ).hasSameHashCodeAs( other.getOptions() );
+   }
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "filter=eq(a,1)                        | filter=eq(a,2)",
+         "filter=eq(a,1)                        | filter=eq(a,\"1\")",
+         "filter=eq(a,1)                        | filter=ne(a,1)",
+         "filter=and(eq(a,1),eq(b,2))           | filter=or(eq(a,1),eq(b,2))",
+         "filter=and(eq(a,1),eq(b,2))           | filter=and(eq(b,2),eq(a,1))",
+         "filter=in(a,1,2)                      | filter=in(a,2,1)",
+         "filter=eq(a,1)&option=limit(0,5)      | filter=eq(a,1)&option=limit(0,6)",
+         "select=a,b&filter=eq(a,1)             | select=b,a&filter=eq(a,1)",
+   } )
+   void shouldConsiderStructurallyDifferentModelsDifferent( final String query, final String other ) {
+      assertThat( RqlParser.from( query ) ).isNotEqualTo( RqlParser.from( other ) );
+   }
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "filter=and(eq(b,2),eq(a,1))                  | filter=and(eq(a,1),eq(b,2))",
+         "filter=or(eq(a,1),and(eq(c,3),eq(b,2)))      | filter=or(and(eq(b,2),eq(c,3)),eq(a,1))",
+         "filter=and(eq(a,1),and(eq(b,2),and(eq(c,3))))| filter=and(eq(c,3),eq(b,2),eq(a,1))",
+         "filter=or(eq(a,1),or(eq(b,2),eq(a,1)))       | filter=or(eq(a,1),eq(a,1),eq(b,2))",
+         "filter=in(a,3,1,2,1)                         | filter=in(a,1,2,3)",
+         "filter=in(a,\"y\",\"x\")                     | filter=in(a,\"x\",\"y\")",
+         "filter=in(a,1.5,0.5,1.5)                     | filter=in(a,0.5,1.5)",
+         "filter=not(and(eq(b,1),eq(a,1)))             | filter=not(and(eq(a,1),eq(b,1)))",
+         "filter=and(eq(a,2),eq(a,1),eq(a,\"1\"))      | filter=and(eq(a,\"1\"),eq(a,1),eq(a,2))",
+   } )
+   void shouldMapSemanticallyEqualFiltersToOneCanonicalModel( final String query, final String other ) {
+      final RqlQueryModel canonical = RqlCanonicalizer.canonicalize( RqlParser.from( query ) );
+
+      assertThat( canonical ).isEqualTo( RqlCanonicalizer.canonicalize( RqlParser.from( other ) ) )
+            .hasSameHashCodeAs( RqlCanonicalizer.canonicalize( RqlParser.from( other ) ) );
+   }
+
+   @Test
+   void shouldReturnCanonicalModelAsIs() {
+      final RqlQueryModel canonical = RqlCanonicalizer.canonicalize( RqlParser.from( "filter=or(in(c,3,1),and(eq(b,2),eq(a,1)))" ) );
+
+      assertThat( RqlCanonicalizer.canonicalize( canonical ) ).isSameAs( canonical );
+      assertThat( canonical ).hasToString( "filter=or(and(eq(a,1),eq(b,2)),in(c,1,3))" );
+      assertThat( RqlCanonicalizer.canonicalize( (RqlFilter) null ) ).isNull();
+   }
+
+   @Test
+   void shouldKeepValuesOfInCompact() {
+      final RqlFilter filter = new RqlFilterImpl( "a", RqlFilter.Operator.IN, RqlValueList.ofLongs( 5L, 1L, 5L ) );
+
+      final List<Object> values = RqlCanonicalizer.canonicalize( filter ).getValues();
+
+      assertThat( values ).isInstanceOf( RqlValueList.class ).containsExactly( 1L, 5L );
+   }
+
+   @Test
+   void shouldOrderMixedValuesDeterministically() {
+      final RqlFilter filter = new RqlFilterImpl( "a", RqlFilter.Operator.IN, List.of( "b", 2.5, true, 2, 10L, "a" ) );
+
+      assertThat( RqlCanonicalizer.canonicalize( filter ).getValues() ).containsExactly( true, 2, 2.5, 10L, "a", "b" );
+   }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.boschsemanticstack.rql.model.v1.RqlCanonicalizer;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlTreeTraversal;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.NotNeToEqRqlFilterPreProcessor;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Processes filters nested far deeper than a small call stack could hold if the passes were recursive.
+ */
+class RqlDeepFilterTest {
+
+   private static final int DEPTH = 10_000;
+   private static final long SMALL_STACK_SIZE = 128 * 1024;
+
+   @Test
+   void shouldFoldTreeInOrder() {
+      final RqlFilter filter = RqlParser.from( "filter=and(eq(a,1),or(eq(b,2),eq(c,3)),not(eq(d,4)))" ).getFilter().orElseThrow();
+
+      final String attributes = RqlTreeTraversal.fold( filter, new RqlTreeTraversal.FilterFolder<>() {
+         @Override
+         public String combine( final RqlFilter node, final List<String> childResults ) {
+            return node.getAttribute() != null ? node.getAttribute() : String.join( "", childResults );
+         }
+      } );
+
+      assertThat( attributes ).isEqualTo( "abcd" );
+   }
+
+   @Test
+   void shouldWriteDeepFilter() {
+      final RqlQueryModel model = new RqlQueryModelImpl( null, deepFilter( new RqlFilterImpl( "a", RqlFilter.Operator.EQ, 1 ) ), null );
+
+      final String query = onSmallStack( () -> RqlParser.toString( model ) );
+
+      assertThat( query ).startsWith( "filter=and(not(and(" ).endsWith( "eq(a,1)" + ")".repeat( DEPTH ) );
+   }
+
+   @Test
+   void shouldPreProcessDeepFilter() {
+      final RqlFilter filter = deepFilter( new RqlFilterImpl( RqlFilter.FilterType.NOT, new RqlFilterImpl( "a", RqlFilter.Operator.NE, 1 ) ) );
+
+      RqlFilter processed = onSmallStack( () -> new NotNeToEqRqlFilterPreProcessor().visit( filter ) );
+
+      for ( int i = 0; i < DEPTH; i++ ) {
+         processed = processed.getChildren().get( 0 );
+      }
+      assertThat( processed.getOperator() ).isEqualTo( RqlFilter.Operator.EQ );
+   }
+
+   @Test
+   void shouldCompareAndCanonicalizeDeepFilters() {
+      final RqlFilter filter = deepFilter( new RqlFilterImpl( "a", RqlFilter.Operator.IN, List.of( 2, 1 ) ) );
+      final RqlFilter other = deepFilter( new RqlFilterImpl( "a", RqlFilter.Operator.IN, List.of( 2, 1 ) ) );
+
+      assertThat( onSmallStack( () -> filter.equals( other ) && filter.hashCode() == other.hashCode() ) ).isTrue();
+      assertThat( onSmallStack( () -> RqlCanonicalizer.canonicalize( filter ) ) ).isNotEqualTo( filter );
+   }
+
+   @Test
+   void shouldBuildDeepFilterFromParseTree() throws InterruptedException {
+      final String query = "filter=" + "not(".repeat( DEPTH ) + "eq(a,1)" + ")".repeat( DEPTH );
+      final RqlParserApi parser = new RqlParserApi( RqlParserConfig.builder().maxNestingDepth( DEPTH + 1 ).maxFilterNodes( DEPTH + 1 ).build() );
+      final AtomicReference<ParserRuleContext> parseTree = new AtomicReference<>();
+      final Thread parsing = new Thread( null, () -> parseTree.set( parser.createParseTree( query ).getParseTree() ),
+            "parse", 512L * 1024 * 1024 ); // parsing itself stays recursive
+      parsing.start();
+      parsing.join();
+
+      final RqlQueryModel model = onSmallStack( () -> (RqlQueryModel) new RqlParseTreeVisitor().visit( parseTree.get() ) );
+
+      assertThat( model.getFilter().orElseThrow().getFilterType() ).isEqualTo( RqlFilter.FilterType.NOT );
+   }
+
+   /**
+    * Nests the filter in alternating {@code and} and {@code not} operations.
+    */
+   private static RqlFilter deepFilter( final RqlFilter innermost ) {
+      RqlFilter filter = innermost;
+      for ( int i = 0; i < DEPTH; i++ ) {
+         filter = new RqlFilterImpl( i % 2 == 0 ? RqlFilter.FilterType.NOT : RqlFilter.FilterType.AND, filter );
+      }
+      return filter;
+   }
+
+   private static <T> T onSmallStack( final Supplier<T> task ) {
+      final AtomicReference<T> result = new AtomicReference<>();
+      final AtomicReference<Throwable> failure = new AtomicReference<>();
+      final Thread thread = new Thread( null, () -> {
+         try {
+            result.set( task.get() );
+         } catch ( final Throwable e ) {
+            failure.set( e );
+         }
+      }, "small-stack", SMALL_STACK_SIZE );
+      thread.start();
+      try {
+         thread.join();
+      } catch ( final InterruptedException e ) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException( e );
+      }
+      assertThat( failure.get() ).isNull();
+      return result.get();
+   }
+}
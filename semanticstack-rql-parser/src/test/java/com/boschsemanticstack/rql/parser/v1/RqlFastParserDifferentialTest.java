@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Makes sure {@link RqlFastParser} cannot drift from the grammar: whenever it produces a model, the ANTLR parser
+ * must produce the very same one.
+ */
+class RqlFastParserDifferentialTest {
+
+   private static final List<Path> CORPUS_SOURCES = List.of(
+         Path.of( "src/test/java/com/boschsemanticstack/rql/parser/v1/RqlParserTest.java" ),
+         Path.of( "src/test/java/com/boschsemanticstack/rql/language/RqlRepresentationTest.java" )
+   );
+   private static final String MUTATION_ALPHABET = "()=&,+-.eE019\"\\ \n\tTtZz:a_";
+   private static final String[] FIELDS = { "a", "att1", "x.y_z", "_b", "selectx", "likeX", "nul", "T", "e", "in" };
+   private static final String[] LITERALS = {
+         "0", "7", "-42", "+5", "2147483648", "-9223372036854775809", "01", "-0",
+         "0.5", "-1.5e3", "1e5", "+2.25E-2", "1.", "1e", "1.5e+", "0e5",
+         "\"\"", "\"x y\"", "\"a\\\"b\"", "\"tab\\t\\\\\"", "\"line\nbreak\"", "\"bad\\q\"",
+         "2020-01-01T10:00:00Z", "2020-01-01t10:00:00,5+01:00", "2020-01-01T10:00:00.123-02:30", "2020-13-01T10:00:00Z",
+         "2020-01-01T10:00:00", "2020-01-01", "null", "true", "false"
+   };
+   private static final String[] OPERATORS = { "eq", "ne", "lt", "le", "gt", "ge", "like", "likeIgnoreCase", "in", "out" };
+
+   private final RqlParserApi referenceParser = new RqlParserApi( RqlParserConfig.builder().fastPath( false ).build() );
+
+   static Stream<String> corpus() throws IOException {
+      final List<String> queries = new ArrayList<>();
+      for ( final Path source : CORPUS_SOURCES ) {
+         queries.addAll( extractStringLiterals( Files.readString( source ) ) );
+      }
+      return queries.stream().distinct();
+   }
+
+   @ParameterizedTest
+   @MethodSource( "corpus" )
+   void shouldAgreeWithAntlrOnTestCorpus( final String query ) {
+      assertSameOutcome( query );
+   }
+
+   @ParameterizedTest
+   @MethodSource( "corpus" )
+   void shouldHandleAllValidCorpusQueries( final String query ) {
+      final boolean valid = parseWithReference( query ) != null;
+
+      assertThat( RqlFastParser.tryParse( query ) != null ).as( query ).isEqualTo( valid );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "",
+         " \t\n",
+         "select=",
+         "select=&filter=eq(a,1)",
+         "select = a , b.c &option = sort( + a , -b ) , cursor( \"c\" , 5 )",
+         "option=limit(+0,-5),sort(+a)",
+         "option=cursor(5)",
+         "filter=eq(a,\"line\nbreak\")",
+         "filter=eq(a,\"cr\rx\\\"y\")",
+         "filter=in(a,1,2147483648)",
+         "filter=in(a,1.5,2)",
+         "filter=in(a,2020-01-01T10:00:00Z)",
+         "filter=eq(a,2020-01-01T10:00:00,5)",
+         "filter=eq(a,-0)",
+         "filter=eq(a,- 1)",
+         "filter=eq(a,1)&filter=eq(b,1)",
+         "filter=eq(select,1)",
+         "filter=and()",
+         "filter=or()",
+         "filter=or(,)",
+         "filter=or(eq(a,1),)",
+         "filter=not(eq(a,1),eq(b,2))",
+         "filter=like(a,1)",
+         "option=limit(0,99999999999999999999)",
+         "filter=eq(a,1)%"
+   } )
+   void shouldAgreeWithAntlrOnEdgeCases( final String query ) {
+      assertSameOutcome( query );
+   }
+
+   @Test
+   void shouldAgreeWithAntlrOnFuzzedQueries() {
+      final Random random = new Random( 4711 );
+      for ( int i = 0; i < 20_000; i++ ) {
+         final String query = randomQuery( random );
+         assertSameOutcome( query );
+         assertSameOutcome( mutate( query, random ) );
+      }
+   }
+
+   private void assertSameOutcome( final String query ) {
+      final RqlQueryModel fast = RqlFastParser.tryParse( query );
+      if ( fast == null ) {
+         return; // left to the ANTLR parser
+      }
+      final RqlQueryModel reference = parseWithReference( query );
+      if ( reference == null ) {
+         fail( "Fast parser accepted a query the grammar rejects: " + query );
+      }
+      assertThat( describe( fast ) ).as( query ).isEqualTo( describe( reference ) );
+   }
+
+   private RqlQueryModel parseWithReference( final String query ) {
+      try {
+         return referenceParser.parseFullQuery( query );
+      } catch ( final RuntimeException e ) {
+         return null;
+      }
+   }
+
+   /**
+    * Renders everything the parsers decide on, including the Java types of the values.
+    */
+   static String describe( final RqlQueryModel model ) {
+      final StringBuilder result = new StringBuilder( RqlParser.toString( model ) )
+            .append( '|' ).append( model.getSelect() )
+            .append( '|' ).append( model.getOptions().getOrder() )
+            .append( '|' ).append( model.getOptions().getSlice() )
+            .append( '|' ).append( model.getOptions().getCursor() );
+      model.getFilter().ifPresent( filter -> describe( filter, result ) );
+      return result.toString();
+   }
+
+   private static void describe( final RqlFilter filter, final StringBuilder result ) {
+      result.append( '|' ).append( filter.getFilterType() ).append( ' ' ).append( filter.getOperator() )
+            .append( ' ' ).append( filter.getAttribute() );
+      for ( final Object value : filter.getValues() ) {
+         result.append( ' ' ).append( value == null ? null : value.getClass().getSimpleName() ).append( ':' ).append( value );
+      }
+      filter.getChildren().forEach( child -> describe( child, result ) );
+   }
+
+   static String randomQuery( final Random random ) {
+      final List<String> parameters = new ArrayList<>();
+      if ( random.nextInt( 3 ) == 0 ) {
+         final List<String> fields = new ArrayList<>();
+         for ( int i = random.nextInt( 3 ); i >= 0; i-- ) {
+            fields.add( pick( FIELDS, random ) );
+         }
+         parameters.add( "select=" + String.join( ws( random ) + "," + ws( random ), fields ) );
+      }
+      if ( random.nextInt( 4 ) > 0 ) {
+         parameters.add( "filter" + ws( random ) + "=" + randomFilter( random, 3 ) );
+      }
+      if ( random.nextInt( 3 ) == 0 ) {
+         final String sort = "sort(" + ( random.nextBoolean() ? "+" : "-" ) + ws( random ) + pick( FIELDS, random ) + ")";
+         final String page = random.nextBoolean()
+               ? "limit(" + pick( LITERALS, random ) + "," + pick( LITERALS, random ) + ")"
+               : "cursor(" + ( random.nextBoolean() ? pick( LITERALS, random ) + "," : "" ) + pick( LITERALS, random ) + ")";
+         parameters.add( "option=" + switch ( random.nextInt( 4 ) ) {
+            case 0 -> sort;
+            case 1 -> page;
+            case 2 -> sort + "," + page;
+            default -> page + ",sort(-" + pick( FIELDS, random ) + ")";
+         } );
+      }
+      if ( random.nextInt( 10 ) == 0 && !parameters.isEmpty() ) {
+         parameters.add( parameters.get( 0 ) );
+      }
+      return String.join( ws( random ) + "&" + ws( random ), parameters );
+   }
+
+   private static String randomFilter( final Random random, final int depth ) {
+      if ( depth > 0 && random.nextInt( 3 ) == 0 ) {
+         final String operator = pick( new String[] { "and", "or", "not" }, random );
+         final List<String> children = new ArrayList<>();
+         for ( int i = random.nextInt( operator.equals( "not" ) ? 1 : 3 ); i >= 0; i-- ) {
+            children.add( randomFilter( random, depth - 1 ) );
+         }
+         return operator + ws( random ) + "(" + String.join( ",", children ) + ")";
+      }
+      final String operator = pick( OPERATORS, random );
+      final StringBuilder values = new StringBuilder( pick( LITERALS, random ) );
+      if ( operator.equals( "in" ) ) {
+         final String sample = pick( LITERALS, random );
+         for ( int i = random.nextInt( 4 ); i > 0; i-- ) {
+            values.append( ',' ).append( ws( random ) ).append( random.nextInt( 4 ) == 0 ? pick( LITERALS, random ) : sample );
+         }
+      }
+      return operator + "(" + ws( random ) + pick( FIELDS, random ) + "," + ws( random ) + values + ws( random ) + ")";
+   }
+
+   static String mutate( final String query, final Random random ) {
+      final StringBuilder result = new StringBuilder( query );
+      for ( int i = random.nextInt( 3 ); i >= 0; i-- ) {
+         final int position = result.isEmpty() ? 0 : random.nextInt( result.length() );
+         final char c = MUTATION_ALPHABET.charAt( random.nextInt( MUTATION_ALPHABET.length() ) );
+         switch ( random.nextInt( 3 ) ) {
+            case 0 -> result.insert( position, c );
+            case 1 -> {
+               if ( !result.isEmpty() ) {
+                  result.deleteCharAt( position );
+               }
+            }
+            default -> {
+               if ( !result.isEmpty() ) {
+                  result.setCharAt( position, c );
+               }
+            }
+         }
+      }
+      return result.toString();
+   }
+
+   private static String ws( final Random random ) {
+      return switch ( random.nextInt( 12 ) ) {
+         case 0 -> " ";
+         case 1 -> "\n\t";
+         default -> "";
+      };
+   }
+
+   private static String pick( final String[] candidates, final Random random ) {
+      return candidates[random.nextInt( candidates.length )];
+   }
+
+   /**
+    * Collects the values of all string literals and text blocks in a Java source file.
+    */
+   private static List<String> extractStringLiterals( final String source ) {
+      final List<String> literals = new ArrayList<>();
+      int i = 0;
+      while ( i < source.length() ) {
+         if ( source.startsWith( "//", i ) ) {
+            i = source.indexOf( '\n', i );
+            i = i < 0 ? source.length() : i;
+         } else if ( source.startsWith( "/*", i ) ) {
+            i = source.indexOf( "*/", i + 2 ) + 2;
+         } else if ( source.charAt( i ) == '\'' ) {
+            i = endOfQuoted( source, i + 1, "'" );
+         } else if ( source.startsWith( "\"\"\"", i ) ) {
+            final int start = source.indexOf( '\n', i ) + 1;
+            final int end = endOfQuoted( source, start, "\"\"\"" );
+            literals.add( source.substring( start, end - 3 ).stripIndent().translateEscapes() );
+            i = end;
+         } else if ( source.charAt( i ) == '"' ) {
+            final int end = endOfQuoted( source, i + 1, "\"" );
+            literals.add( source.substring( i + 1, end - 1 ).translateEscapes() );
+            i = end;
+         } else {
+            i++;
+         }
+      }
+      return literals;
+   }
+
+   private static int endOfQuoted( final String source, final int start, final String delimiter ) {
+      int i = start;
+      while ( !source.startsWith( delimiter, i ) ) {
+         i += source.charAt( i ) == '\\' ? 2 : 1;
+      }
+      return i + delimiter.length();
+   }
+}
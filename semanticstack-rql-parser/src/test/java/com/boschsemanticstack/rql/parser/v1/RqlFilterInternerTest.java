@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.boschsemanticstack.rql.model.v1.RqlBuilder;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterInterner;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+import org.junit.jupiter.api.Test;
+
+class RqlFilterInternerTest {
+
+   private static final String TENANT = "and(eq(tenant,\"acme\"),in(region,\"eu\",\"us\"))";
+
+   private final RqlFilterInterner interner = new RqlFilterInterner();
+
+   @Test
+   void shouldShareEqualSubtreesOfDifferentFilters() {
+      final RqlFilter first = interner.intern( filter( "and(" + TENANT + ",ge(ts,2024-01-01T00:00:00Z))" ) );
+      final RqlFilter second = interner.intern( filter( "or(" + TENANT + ",ge(ts,2024-02-01T00:00:00Z))" ) );
+
+      assertThat( second ).isNotEqualTo( first );
+      assertThat( second.getChildren().get( 0 ) ).isSameAs( first.getChildren().get( 0 ) );
+      assertThat( second.getChildren().get( 0 ).getChildren().get( 1 ) ).isSameAs( first.getChildren().get( 0 ).getChildren().get( 1 ) );
+   }
+
+   @Test
+   void shouldReturnFirstInternedInstanceOfEqualFilters() {
+      final RqlFilter parsed = filter( "and(" + TENANT + ",eq(a,1))" );
+      final RqlFilter built = RqlBuilder.and(
+            RqlBuilder.and( RqlBuilder.eq( "tenant", "acme" ), RqlBuilder.in( "region", "eu", "us" ) ),
+            RqlBuilder.eq( "a", 1 ) );
+
+      assertThat( interner.intern( parsed ) ).isSameAs( parsed );
+      assertThat( interner.intern( built ) ).isSameAs( parsed );
+      assertThat( interner.intern( parsed ) ).isSameAs( parsed );
+      assertThat( interner.size() ).isEqualTo( 5 );
+   }
+
+   @Test
+   void shouldKeepFiltersOnlyWeakly() throws InterruptedException {
+      interner.intern( filter( TENANT ) );
+
+      for ( int i = 0; i < 100 && interner.size() > 0; i++ ) {
+         System.gc();
+         Thread.sleep( 10 );
+      }
+
+      assertThat( interner.size() ).isZero();
+   }
+
+   @Test
+   void shouldInternParsedModelsIfConfigured() {
+      final RqlParserConfig config = RqlParserConfig.builder().filterInterner( interner ).build();
+
+      final RqlQueryModel first = RqlParser.fromUncached( "filter=and(" + TENANT + ",eq(a,1))", config );
+      final RqlQueryModel second = RqlParser.tryParseUncached( "select=id&filter=and(" + TENANT + ",eq(a,2))", config ).getModel().orElseThrow();
+      final RqlQueryModel third = new RqlParseCache( 10, 1_000_000, config ).parse( "filter=" + TENANT );
+
+      final RqlFilter tenant = first.getFilter().orElseThrow().getChildren().get( 0 );
+      assertThat( second.getFilter().orElseThrow().getChildren().get( 0 ) ).isSameAs( tenant );
+      assertThat( third.getFilter() ).containsSame( tenant );
+      assertThat( new RqlParseCache( 10, 1_000_000, config ).parseFilter( TENANT ) ).isSameAs( tenant );
+   }
+
+   @Test
+   void shouldNotInternByDefault() {
+      assertThat( RqlParserConfig.defaultConfig().getFilterInterner() ).isNull();
+      assertThat( RqlParser.fromUncached( "filter=" + TENANT ).getFilter() )
+            .isNotSameAs( RqlParser.fromUncached( "filter=" + TENANT ).getFilter() );
+   }
+
+   private static RqlFilter filter( final String filter ) {
+      return RqlParser.fromUncached( "filter=" + filter ).getFilter().orElseThrow();
+   }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.boschsemanticstack.rql.model.v1.RqlBuilder;
+import com.boschsemanticstack.rql.model.v1.RqlFieldPath;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterNode;
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class RqlFilterNodeTest {
+
+   private static final String FILTER = "and(eq(a,1),not(ne(b,null)),or(in(c,\"x\",\"y\"),likeIgnoreCase(d,\"*z*\")),gt(e,2.5))";
+
+   enum Parser {
+      FAST_PATH, PARSE_EVENTS, PARSE_TREE
+   }
+
+   @ParameterizedTest
+   @EnumSource( Parser.class )
+   void shouldParseIntoRecords( final Parser parser ) {
+      final RqlParserConfig config = RqlParserConfig.builder()
+            .fastPath( parser == Parser.FAST_PATH )
+            .modelConstruction( parser == Parser.PARSE_TREE
+                  ? RqlParserConfig.ModelConstruction.PARSE_TREE
+                  : RqlParserConfig.ModelConstruction.PARSE_EVENTS )
+            .build();
+
+      final RqlFilter filter = RqlParser.fromUncached( "filter=" + FILTER, config ).getFilter().orElseThrow();
+
+      assertThat( filter ).isEqualTo( new RqlFilterNode.And( List.of(
+            new RqlFilterNode.Comparison( "a", RqlFilter.Operator.EQ, 1 ),
+            new RqlFilterNode.Not( new RqlFilterNode.Comparison( "b", RqlFilter.Operator.NE, null ) ),
+            new RqlFilterNode.Or( List.of(
+                  new RqlFilterNode.In( "c", List.of( "x", "y" ) ),
+                  new RqlFilterNode.Like( "d", true, "*z*" ) ) ),
+            new RqlFilterNode.Comparison( "e", RqlFilter.Operator.GT, new BigDecimal( "2.5" ) ) ) ) );
+      assertThat( describe( filter ) ).isEqualTo( "and[a eq 1, not[b ne null], or[c in 2, d ilike *z*], e gt 2.5]" );
+   }
+
+   @Test
+   void shouldEqualFiltersOfOtherImplementations() {
+      final RqlFilter parsed = RqlParser.from( "filter=" + FILTER ).getFilter().orElseThrow();
+      final RqlFilter built = RqlBuilder.and(
+            RqlBuilder.eq( "a", 1 ),
+            RqlBuilder.not( RqlBuilder.ne( "b", null ) ),
+            RqlBuilder.or( RqlBuilder.in( "c", "x", "y" ), RqlBuilder.likeIgnoreCase( "d", "*z*" ) ),
+            RqlBuilder.gt( "e", new BigDecimal( "2.5" ) ) );
+
+      assertThat( parsed ).isInstanceOf( RqlFilterNode.And.class ).isEqualTo( built ).hasSameHashCodeAs( built ).hasToString( FILTER );
+      assertThat( built ).isInstanceOf( RqlFilterImpl.class ).isEqualTo( parsed );
+      assertThat( RqlFilterNode.of( built ) ).isEqualTo( parsed ).hasSameHashCodeAs( parsed );
+      assertThat( parsed ).isNotEqualTo( RqlBuilder.and( RqlBuilder.eq( "a", 1 ) ) );
+   }
+
+   @Test
+   void shouldKeepPrimitiveValueLists() {
+      final RqlFilterNode in = RqlFilterNode.condition( "a", RqlFilter.Operator.IN, RqlValueList.ofLongs( new long[] { 1, 2 } ) );
+
+      assertThat( in.getValues() ).isInstanceOf( RqlValueList.class );
+      assertThat( in ).isEqualTo( new RqlFilterImpl( "a", RqlFilter.Operator.IN, List.of( 1L, 2L ) ) );
+   }
+
+   @Test
+   void shouldExposeSingleOperandsAsLists() {
+      final RqlFilterNode.Comparison comparison = new RqlFilterNode.Comparison( "a", RqlFilter.Operator.EQ, null );
+      final RqlFilterNode.Like like = new RqlFilterNode.Like( "b", false, "*x" );
+      final RqlFilterNode.Not not = new RqlFilterNode.Not( comparison );
+
+      assertThat( comparison.getValues() ).containsExactly( (Object) null ).isEqualTo( comparison.values() );
+      assertThat( like.getValues() ).containsExactly( "*x" ).isEqualTo( like.values() );
+      assertThat( not.getChildren() ).containsExactly( comparison ).isEqualTo( not.children() );
+   }
+
+   @Test
+   void shouldRejectInvalidNodes() {
+      assertThatThrownBy( () -> new RqlFilterNode.Comparison( "a", RqlFilter.Operator.IN, 1 ) ).isInstanceOf( IllegalArgumentException.class );
+      assertThatThrownBy( () -> RqlFilterNode.logical( RqlFilter.FilterType.NOT, List.of() ) ).isInstanceOf( IllegalArgumentException.class );
+      assertThatThrownBy( () -> RqlFilterNode.logical( RqlFilter.FilterType.VALUE, List.of() ) ).isInstanceOf( IllegalArgumentException.class );
+   }
+
+   @Test
+   void shouldCompareAndHashDeepFiltersWithoutRecursion() {
+      RqlFilter node = new RqlFilterNode.Comparison( "a", RqlFilter.Operator.EQ, 1 );
+      RqlFilter impl = new RqlFilterImpl( "a", RqlFilter.Operator.EQ, 1 );
+      for ( int i = 0; i < 100_000; i++ ) {
+         node = new RqlFilterNode.And( List.of( node ) );
+         impl = new RqlFilterImpl( RqlFilter.FilterType.AND, impl );
+      }
+
+      assertThat( node.hashCode() ).isEqualTo( impl.hashCode() ).isEqualTo( node.hashCode() );
+      assertThat( node ).isEqualTo( impl );
+      assertThat( impl ).isEqualTo( node );
+   }
+
+   @Test
+   void shouldDispatchToVisitor() {
+      final RqlFilterNode filter = RqlFilterNode.of( RqlParser.from( "filter=" + FILTER ).getFilter().orElseThrow() );
+
+      final int conditions = filter.accept( new RqlFilterNode.Visitor<Integer>() {
+         @Override
+         public Integer visitAnd( final RqlFilterNode.And and ) {
+            return sum( and.children() );
+         }
+
+         @Override
+         public Integer visitOr( final RqlFilterNode.Or or ) {
+            return sum( or.children() );
+         }
+
+         @Override
+         public Integer visitNot( final RqlFilterNode.Not not ) {
+            return RqlFilterNode.of( not.child() ).accept( this );
+         }
+
+         @Override
+         public Integer visitComparison( final RqlFilterNode.Comparison comparison ) {
+            return 1;
+         }
+
+         @Override
+         public Integer visitIn( final RqlFilterNode.In in ) {
+            return 1;
+         }
+
+         @Override
+         public Integer visitLike( final RqlFilterNode.Like like ) {
+            return 1;
+         }
+
+         private int sum( final List<RqlFilter> children ) {
+            return children.stream().mapToInt( child -> RqlFilterNode.of( child ).accept( this ) ).sum();
+         }
+      } );
+
+      assertThat( conditions ).isEqualTo( 5 );
+   }
+
+   private static String describe( final RqlFilter filter ) {
+      return switch ( RqlFilterNode.of( filter ) ) {
+         case RqlFilterNode.And( List<RqlFilter> children ) -> "and" + describeAll( children );
+         case RqlFilterNode.Or( List<RqlFilter> children ) -> "or" + describeAll( children );
+         case RqlFilterNode.Not( RqlFilter child ) -> "not[" + describe( child ) + "]";
+         case RqlFilterNode.Comparison( RqlFieldPath attribute, RqlFilter.Operator operator, Object value ) ->
+               attribute + " " + operator.getName() + " " + value;
+         case RqlFilterNode.In( RqlFieldPath attribute, List<Object> values ) -> attribute + " in " + values.size();
+         case RqlFilterNode.Like( RqlFieldPath attribute, boolean ignoreCase, String pattern ) ->
+               attribute + ( ignoreCase ? " ilike " : " like " ) + pattern;
+      };
+   }
+
+   private static String describeAll( final List<RqlFilter> filters ) {
+      return filters.stream().map( RqlFilterNodeTest::describe ).collect( Collectors.joining( ", ", "[", "]" ) );
+   }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlOptions;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlSelect;
+import com.boschsemanticstack.rql.model.v1.RqlSymbolTable;
+import com.boschsemanticstack.rql.model.v1.impl.RqlQueryModelImpl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlFragmentParserTest {
+
+   private static final String SELECT = "id, name ,address.city";
+   private static final String FILTER = "and(eq(name,\"x\"),in(age,1,2,3),not(like(city,\"M*\")))";
+   private static final String OPTIONS = "sort(+name,-age),limit(0,10)";
+
+   private final RqlParserApi fastParser = new RqlParserApi( RqlParserConfig.defaultConfig() );
+   private final RqlParserApi antlrParser = new RqlParserApi( RqlParserConfig.builder().fastPath( false ).build() );
+
+   @Test
+   void shouldParseFragmentsLikeFullQuery() {
+      final RqlQueryModel expected = RqlParser.fromUncached( "select=" + SELECT + "&filter=" + FILTER + "&option=" + OPTIONS );
+
+      for ( final RqlParserApi parser : new RqlParserApi[] { fastParser, antlrParser } ) {
+         final RqlQueryModel combined = new RqlQueryModelImpl(
+               parser.parseSelect( SELECT ), parser.parseFilter( FILTER ), parser.parseOptions( OPTIONS ) );
+
+         assertThat( RqlParser.toString( combined ) ).isEqualTo( RqlParser.toString( expected ) );
+      }
+      assertThat( RqlParser.toString( RqlParser.fromQueryParameters( SELECT, FILTER, OPTIONS ) ) )
+            .isEqualTo( RqlParser.toString( expected ) );
+   }
+
+   @Test
+   void shouldTreatMissingParametersAsAbsent() {
+      final RqlQueryModel model = RqlParser.fromQueryParameters( null, "eq(a,1)", null );
+
+      assertThat( model.getSelect().isEmpty() ).isTrue();
+      assertThat( model.getOptions().isEmpty() ).isTrue();
+      assertThat( RqlParser.toString( model ) ).isEqualTo( "filter=eq(a,1)" );
+   }
+
+   @Test
+   void shouldHandleEmptyFragmentsLikeEmptyParameters() {
+      assertThat( RqlParser.parseSelect( "" ).isEmpty() ).isTrue();
+      assertThat( antlrParser.parseSelect( " " ).isEmpty() ).isTrue();
+      assertThatThrownBy( () -> RqlParser.parseOptions( " " ) ).isInstanceOf( ParseException.class );
+      assertThatThrownBy( () -> RqlParser.fromUncached( "option=" ) ).isInstanceOf( ParseException.class );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = { "eq(a,1)&option=limit(0,1)", "eq(a,1))", "eq(a,1),eq(b,2)", "filter=eq(a,1)", "" } )
+   void shouldRejectInvalidFilterFragment( final String filter ) {
+      assertThatThrownBy( () -> RqlParser.parseFilter( filter ) ).isInstanceOf( ParseException.class );
+      assertThatThrownBy( () -> antlrParser.parseFilter( filter ) ).isInstanceOf( ParseException.class );
+   }
+
+   @Test
+   void shouldRejectFragmentsOfOtherParameters() {
+      assertThatThrownBy( () -> RqlParser.parseSelect( "eq(a,1)" ) ).isInstanceOf( ParseException.class );
+      assertThatThrownBy( () -> RqlParser.parseOptions( "a,b" ) ).isInstanceOf( ParseException.class );
+      assertThatThrownBy( () -> RqlParser.parseFilter( null ) ).isInstanceOf( ParseException.class );
+   }
+
+   @Test
+   void shouldReportErrorLocationRelativeToFragment() {
+      assertThatThrownBy( () -> RqlParser.parseFilter( "eq(a,1" ) )
+            .isInstanceOfSatisfying( ParseException.class, e -> {
+               assertThat( e.getSourceLocation() ).isPresent();
+               assertThat( e.getSourceLocation().get().getColumn() ).isEqualTo( 7 );
+            } );
+   }
+
+   @Test
+   void shouldCacheFragmentsIndependently() {
+      final RqlParseCache cache = new RqlParseCache();
+
+      final RqlFilter filter = cache.parseFilter( FILTER );
+      final RqlOptions firstOptions = cache.parseOptions( "limit(0,10)" );
+      final RqlOptions secondOptions = cache.parseOptions( "limit(10,10)" );
+
+      assertThat( cache.getMissCount() ).isEqualTo( 3 );
+      assertThat( cache.parseFilter( FILTER ) ).isSameAs( filter );
+      assertThat( cache.parseFilter( " " + FILTER.replace( ",", ", " ) ) ).isSameAs( filter );
+      assertThat( cache.parseOptions( "limit(0,10)" ) ).isSameAs( firstOptions );
+      assertThat( secondOptions ).isNotSameAs( firstOptions );
+      assertThat( cache.getHitCount() ).isEqualTo( 3 );
+   }
+
+   @Test
+   void shouldNotConfuseFragmentsWithQueries() {
+      final RqlParseCache cache = new RqlParseCache();
+
+      final RqlSelect select = cache.parseSelect( "a" );
+      final RqlQueryModel query = cache.parse( "select=a" );
+
+      assertThat( select.attributes() ).containsExactly( "a" );
+      assertThat( query.getSelect().attributes() ).containsExactly( "a" );
+      assertThat( cache.getMissCount() ).isEqualTo( 2 );
+   }
+
+   @Test
+   void shouldApplyLimitsToFragments() {
+      final RqlParserApi parser = new RqlParserApi( RqlParserConfig.builder().maxInListValues( 2 ).maxSortFields( 1 ).build() );
+
+      assertThat( parser.parseFilter( "in(a,1,2)" ).getValues() ).hasSize( 2 );
+      assertThatThrownBy( () -> parser.parseFilter( "in(a,1,2,3)" ) ).isInstanceOf( ParseException.class );
+      assertThatThrownBy( () -> parser.parseOptions( "sort(+a,-b)" ) ).isInstanceOf( ParseException.class );
+   }
+
+   @Test
+   void shouldAgreeWithAntlrOnFuzzedFilters() {
+      final Random random = new Random( 815 );
+      for ( int i = 0; i < 5_000; i++ ) {
+         final String query = RqlFastParserDifferentialTest.mutate( RqlFastParserDifferentialTest.randomQuery( random ), random );
+         final int start = query.indexOf( "filter=" );
+         if ( start < 0 ) {
+            continue;
+         }
+         final String filter = query.substring( start + "filter=".length() );
+         final RqlFilter fast = RqlFastParser.tryParseFilter( filter, RqlSymbolTable.shared() );
+         if ( fast != null ) {
+            assertThat( RqlParser.toString( new RqlQueryModelImpl( null, antlrParser.parseFilter( filter ), null ) ) )
+                  .as( filter )
+                  .isEqualTo( RqlParser.toString( new RqlQueryModelImpl( null, fast, null ) ) );
+         }
+      }
+   }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.InNormalizationRqlFilterPreProcessor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlInNormalizationTest {
+
+   private final InNormalizationRqlFilterPreProcessor inNormalization = new InNormalizationRqlFilterPreProcessor();
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "or(in(a,1,2),eq(a,3),in(a,2,4))                   | in(a,1,2,3,4)",
+         "or(in(a,5,1,2),eq(a,3),gt(b,7),in(a,2,4))         | or(in(a,1,2,3,4,5),gt(b,7))",
+         "or(eq(b,\"y\"),eq(a,1),eq(b,\"x\"),eq(a,1))       | or(in(b,\"x\",\"y\"),eq(a,1))",
+         "or(eq(a,1),eq(a,1))                               | eq(a,1)",
+         "in(a,3,1,3,2)                                     | in(a,1,2,3)",
+         "in(a,2.5,-1.0,2.5)                                | in(a,-1.0,2.5)",
+         "and(in(a,2,1),or(eq(b,2),eq(b,1)))                | and(in(a,1,2),in(b,1,2))",
+         "or(eq(a,1),eq(a,null),eq(a,2))                    | or(in(a,1,2),eq(a,null))",
+   } )
+   void shouldMergeSortAndDedupe( final String filter, final String expected ) {
+      assertThat( inNormalization.visit( filter( filter ) ) ).hasToString( expected );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "in(a,1,2,3)",
+         "or(eq(a,1),eq(b,1))",
+         "or(in(a,1,2),ne(a,3))",
+         "and(eq(a,1),eq(a,2))",
+   } )
+   void shouldKeepNormalizedFilter( final String filter ) {
+      final RqlFilter parsed = filter( filter );
+
+      assertThat( inNormalization.visit( parsed ) ).isSameAs( parsed );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "in(a,1,2,3)",
+         "in(a,1,1,2)",
+         "in(a,2,1)",
+         "in(a,-1.0,2.5)",
+         "in(a,2.5,-1.0)",
+         "in(a,\"x\",\"y\")",
+         "in(a,\"y\",\"x\")",
+         "or(eq(a,1),eq(b,1))",
+         "or(eq(a,1),gt(a,1))",
+         "or(eq(a,1),in(a,2,3))",
+         "or(eq(a,null),eq(a,1))",
+         "or(eq(a,1),eq(b,1),eq(c,1),eq(d,1),eq(e,1),eq(f,1),eq(g,1),eq(h,1),eq(i,1),eq(j,1),eq(k,1),eq(l,1),eq(m,1),eq(n,1),eq(o,1),eq(p,1),eq(q,1))",
+         "or(eq(a,1),eq(b,1),eq(c,1),eq(d,1),eq(e,1),eq(f,1),eq(g,1),eq(h,1),eq(i,1),eq(j,1),eq(k,1),eq(l,1),eq(m,1),eq(n,1),eq(o,1),eq(p,1),eq(a,2))",
+   } )
+   void shouldMatchExactlyTheFiltersItChanges( final String filter ) {
+      final RqlFilter parsed = filter( filter );
+
+      assertThat( inNormalization.matches( parsed ) ).isEqualTo( !inNormalization.replaceSubTree( parsed ).equals( parsed ) );
+   }
+
+   @Test
+   void shouldMatchInWithMixedValuesOnlyIfUnsorted() {
+      final RqlFilter sorted = new RqlFilterImpl( "a", RqlFilter.Operator.IN, List.of( 1, 2L, 2.5 ) );
+      final RqlFilter unsorted = new RqlFilterImpl( "a", RqlFilter.Operator.IN, List.of( 2L, 1, 2.5 ) );
+
+      assertThat( inNormalization.matches( sorted ) ).isFalse();
+      assertThat( inNormalization.matches( unsorted ) ).isTrue();
+      assertThat( inNormalization.visit( unsorted ).getValues() ).containsExactly( 1, 2L, 2.5 );
+   }
+
+   @Test
+   void shouldSortNumbersAsPrimitives() {
+      final RqlFilter filter = new RqlFilterImpl( RqlFilter.FilterType.OR,
+            new RqlFilterImpl( "a", RqlFilter.Operator.IN, List.of( 5L, 3L ) ),
+            new RqlFilterImpl( "a", RqlFilter.Operator.EQ, 4L ) );
+
+      final List<Object> values = inNormalization.visit( filter ).getValues();
+
+      assertThat( values ).isInstanceOf( RqlValueList.class ).containsExactly( 3L, 4L, 5L );
+      assertThat( ( (RqlValueList) values ).getElementType() ).isEqualTo( Long.class );
+   }
+
+   @Test
+   void shouldNormalizeOnlyWhenOptedIn() {
+      final String query = "filter=or(in(a,1,2),eq(a,3),in(a,2,4),not(ne(a,0)))";
+
+      final RqlQueryModel model = RqlParser.from( query );
+
+      assertThat( RqlParser.toString( RqlParser.preProcessFilter( model, RqlParser.SIMPLIFYING_FILTER_PREPROCESSORS ) ) )
+            .isEqualTo( "filter=in(a,0,1,2,3,4)" );
+      assertThat( RqlParser.toString( RqlParser.preProcessFilter( model ) ) ).isNotEqualTo( "filter=in(a,0,1,2,3,4)" );
+   }
+
+   private static RqlFilter filter( final String filter ) {
+      return RqlParser.from( "filter=" + filter ).getFilter().orElseThrow();
+   }
+}
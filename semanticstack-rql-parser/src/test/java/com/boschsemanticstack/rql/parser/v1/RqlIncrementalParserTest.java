@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.boschsemanticstack.rql.exceptions.ParseError;
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlIncrementalParserTest {
+
+   private final RqlIncrementalParser parser = new RqlIncrementalParser();
+
+   @Test
+   void shouldStartWithEmptyQuery() {
+      assertThat( parser.getQuery() ).isEmpty();
+      assertThat( parser.getOutcome().isValid() ).isTrue();
+   }
+
+   @Test
+   void shouldAgreeWithParserWhileTypingQuery() {
+      final String query = "select=a,b.c&filter=and(eq(a,\"x y\"),or(gt(b,2020-01-01T10:00:00Z),\nin(c,1,2,3)))&option=sort(+a),limit(0,5)";
+      for ( int i = 0; i <= query.length(); i++ ) {
+         assertSameOutcome( query.substring( 0, i ) );
+      }
+      for ( int i = query.length(); i >= 0; i-- ) {
+         assertSameOutcome( query.substring( 0, i ) );
+      }
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "filter=eq(a,\"x) & b",
+         "filter=eq(a,2020-01-01T10:00:00Z)",
+         "filter=eq(a,1.5e3)&option=limit(0,5)",
+         "filter=eq(a,1)&filter=eq(b,2)",
+         "filter=in(a,1,99999999999999999999)",
+         "filter=eq(a,\"😀\")&select=b",
+         "filter=eq(a,1)\n&\nselect=a,\n b",
+   } )
+   void shouldAgreeWithParserWhenEditingInTheMiddle( final String query ) {
+      for ( int i = 0; i <= query.length(); i++ ) {
+         assertSameOutcome( query.substring( 0, i ) + "," + query.substring( i ) );
+         assertSameOutcome( query.substring( 0, i ) + "\"" + query.substring( i ) );
+         assertSameOutcome( query.substring( 0, i ) + "\n" + query.substring( i ) );
+         if ( i < query.length() ) {
+            assertSameOutcome( query.substring( 0, i ) + query.substring( i + 1 ) );
+         }
+         assertSameOutcome( query );
+      }
+   }
+
+   @Test
+   void shouldAgreeWithParserOnRandomEdits() {
+      final Random random = new Random( 4711 );
+      for ( int i = 0; i < 2_000; i++ ) {
+         String query = RqlFastParserDifferentialTest.randomQuery( random );
+         assertSameOutcome( query );
+         for ( int edit = 0; edit < 10; edit++ ) {
+            query = RqlFastParserDifferentialTest.mutate( query, random );
+            assertSameOutcome( query );
+         }
+      }
+   }
+
+   @Test
+   void shouldOnlyReparseEditedFilterExpression() {
+      final String conditions = IntStream.range( 0, 200 )
+            .mapToObj( i -> "eq(a" + i + "," + i + ")" )
+            .collect( Collectors.joining( "," ) );
+      final String query = "select=a&filter=and(" + conditions + ")&option=limit(0,5)";
+      parser.update( query );
+
+      final RqlParseOutcome outcome = parser.update( query.replace( "eq(a100,100)", "eq(a100,1001)" ) );
+
+      assertThat( parser.getRelexedTokenCount() ).isLessThanOrEqualTo( 2 );
+      assertThat( parser.getReparsedTokenCount() ).isEqualTo( 6 );
+      final RqlFilter edited = outcome.getModel().orElseThrow().getFilter().orElseThrow().getChildren().get( 100 );
+      assertThat( edited.getValues() ).containsExactly( 1001 );
+      assertThat( outcome.getModel().orElseThrow().getOptions().getSlice() ).isPresent();
+   }
+
+   @Test
+   void shouldReparseEnclosingExpressionIfEditedOneIsSplit() {
+      final String query = "filter=and(eq(x,0),eq(y,0),eq(z,0),or(eq(a,1),eq(b,2),eq(c,3)))&select=a,b,c,d,e";
+      parser.update( query );
+
+      final RqlParseOutcome outcome = parser.update( query.replace( "eq(b,2),", "eq(b,2),eq(d,4)," ) );
+
+      final RqlFilter or = outcome.getModel().orElseThrow().getFilter().orElseThrow().getChildren().get( 3 );
+      assertThat( or.getChildren() ).hasSize( 4 );
+      assertThat( parser.getReparsedTokenCount() ).isLessThan( 50 ); // of 70
+   }
+
+   @Test
+   void shouldReportErrorsOfInvalidQuery() {
+      final RqlParseOutcome outcome = parser.update( "filter=eq(a,1" );
+
+      assertThat( outcome.isValid() ).isFalse();
+      assertThat( outcome.getErrors() ).isEqualTo( RqlParser.tryParseUncached( "filter=eq(a,1", RqlParserConfig.defaultConfig() ).getErrors() );
+      assertThatThrownBy( outcome::getModelOrThrow ).isInstanceOf( ParseException.class );
+   }
+
+   @Test
+   void shouldRejectNullAndOverLimitQueries() {
+      final RqlIncrementalParser limited = new RqlIncrementalParser( RqlParserConfig.builder().maxInputLength( 10 ).build() );
+
+      assertThat( limited.update( null ).isValid() ).isFalse();
+      assertThat( limited.update( "filter=eq(a,1)" ).getErrors() ).singleElement()
+            .extracting( ParseError::getMessage ).asString().contains( "10" );
+      assertThat( limited.update( "select=a" ).isValid() ).isTrue();
+   }
+
+   @Test
+   void shouldProposeTokensAtCursor() {
+      assertThat( parser.update( "", 0 ).expectedTokens() ).containsExactlyInAnyOrder( "'select'", "'filter'", "'option'", "EOF" );
+      assertThat( parser.update( "filter=", 7 ).expectedTokens() )
+            .contains( "'and'", "'or'", "'not'", "'eq'", "'in'", "'likeIgnoreCase'" )
+            .doesNotContain( "EOF" );
+      assertThat( parser.update( "filter=eq(", 10 ).expectedTokens() ).containsExactly( "FieldIdentifier" );
+      assertThat( parser.update( "filter=and(eq(a,1)", 18 ).expectedTokens() ).containsExactlyInAnyOrder( "','", "')'" );
+      assertThat( parser.update( "filter=eq(a,1)", 14 ).expectedTokens() ).containsExactlyInAnyOrder( "'&'", "EOF" );
+      assertThat( parser.update( "filter=lt(a,", 12 ).expectedTokens() )
+            .containsExactlyInAnyOrder( "FloatLiteral", "IntLiteral", "StringLiteral", "TimeLiteral" );
+   }
+
+   @Test
+   void shouldTreatTokenReachingBeyondCursorAsBeingTyped() {
+      parser.update( "filter=eq(a,1)&select=b" );
+
+      assertThat( parser.expectedTokensAt( 8 ) ).contains( "'eq'", "'and'" );
+      assertThat( parser.expectedTokensAt( 9 ) ).containsExactly( "'('" );
+      assertThat( parser.expectedTokensAt( 15 ) ).containsExactlyInAnyOrder( "'select'", "'filter'", "'option'" );
+   }
+
+   @Test
+   void shouldProposeNothingAfterError() {
+      assertThat( parser.update( "filter=eq(a,1))&", 16 ).expectedTokens() ).isEmpty();
+      assertThatThrownBy( () -> parser.expectedTokensAt( 17 ) ).isInstanceOf( IndexOutOfBoundsException.class );
+   }
+
+   private void assertSameOutcome( final String query ) {
+      final RqlParseOutcome expected = RqlParser.tryParseUncached( query, RqlParserConfig.defaultConfig() );
+      final RqlParseOutcome actual = parser.update( query );
+
+      assertThat( actual.isValid() ).as( query ).isEqualTo( expected.isValid() );
+      if ( expected.isValid() ) {
+         assertThat( RqlFastParserDifferentialTest.describe( actual.getModel().orElseThrow() ) ).as( query )
+               .isEqualTo( RqlFastParserDifferentialTest.describe( expected.getModel().orElseThrow() ) );
+      } else {
+         assertThat( sorted( actual.getErrors() ) ).as( query ).isEqualTo( sorted( expected.getErrors() ) );
+      }
+   }
+
+   private static List<String> sorted( final List<ParseError> errors ) {
+      return errors.stream().map( ParseError::toString ).sorted().toList();
+   }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.concurrent.TimeUnit;
+
+import com.boschsemanticstack.rql.exceptions.ParseException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares rejecting malformed queries by exception with {@link RqlParserApi#tryParseFullQuery(String)}, against
+ * parsing a valid query of about the same size in the ANTLR parser.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.boschsemanticstack.rql.parser.v1.RqlInvalidQueryBenchmark} or from the IDE.</p>
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class RqlInvalidQueryBenchmark {
+
+   static final String VALID_QUERY = "filter=and(eq(a,1),eq(b,2))&option=sort(+a)";
+   static final String INVALID_QUERY = "filter=and(eq(a,1) eq(b,2))&option=sort(a)";
+
+   private RqlParserApi parser;
+   private RqlParserApi stoppingParser;
+
+   @Setup
+   public void setUp() {
+      parser = new RqlParserApi( RqlParserConfig.builder().fastPath( false ).build() );
+      stoppingParser = new RqlParserApi( RqlParserConfig.builder().fastPath( false ).stopAtFirstError( true ).build() );
+   }
+
+   @Benchmark
+   public Object validQuery() {
+      return parser.tryParseFullQuery( VALID_QUERY );
+   }
+
+   @Benchmark
+   public Object invalidQueryThrowing() {
+      try {
+         return parser.parseFullQuery( INVALID_QUERY );
+      } catch ( final ParseException e ) {
+         return e;
+      }
+   }
+
+   @Benchmark
+   public Object invalidQuery() {
+      return parser.tryParseFullQuery( INVALID_QUERY );
+   }
+
+   @Benchmark
+   public Object invalidQueryStoppingAtFirstError() {
+      return stoppingParser.tryParseFullQuery( INVALID_QUERY );
+   }
+
+   public static void main( final String[] args ) throws RunnerException {
+      new Runner( new OptionsBuilder()
+            .include( RqlInvalidQueryBenchmark.class.getSimpleName() )
+            .build() ).run();
+   }
+}
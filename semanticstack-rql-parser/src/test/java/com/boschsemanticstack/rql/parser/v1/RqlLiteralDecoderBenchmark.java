@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares {@link RqlLiteralDecoder} with the {@link LegacyLiteralDecoding} it replaced.
+ *
+ * <p>Run like {@link RqlParserBenchmark}.</p>
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+public class RqlLiteralDecoderBenchmark {
+
+   private String plainString = "\"Some plain value\"";
+   private String escapedString = "\"Quoted \\\"value\\\" with\\ttab\"";
+   private String smallInteger = "4711";
+   private String longInteger = "9007199254740993";
+   private String bigInteger = "92233720368547758070";
+   private String time = "2024-01-01T10:15:30,123+02:00";
+
+   @Benchmark
+   public String unescapePlainString() {
+      return RqlLiteralDecoder.unescapeString( plainString );
+   }
+
+   @Benchmark
+   public String unescapePlainStringLegacy() {
+      return LegacyLiteralDecoding.unescapeString( plainString );
+   }
+
+   @Benchmark
+   public String unescapeEscapedString() {
+      return RqlLiteralDecoder.unescapeString( escapedString );
+   }
+
+   @Benchmark
+   public String unescapeEscapedStringLegacy() {
+      return LegacyLiteralDecoding.unescapeString( escapedString );
+   }
+
+   @Benchmark
+   public Number parseSmallInteger() {
+      return RqlLiteralDecoder.parseIntoSmallestIntegerType( smallInteger );
+   }
+
+   @Benchmark
+   public Number parseSmallIntegerLegacy() {
+      return LegacyLiteralDecoding.parseIntoSmallestIntegerType( smallInteger );
+   }
+
+   @Benchmark
+   public Number parseLongInteger() {
+      return RqlLiteralDecoder.parseIntoSmallestIntegerType( longInteger );
+   }
+
+   @Benchmark
+   public Number parseLongIntegerLegacy() {
+      return LegacyLiteralDecoding.parseIntoSmallestIntegerType( longInteger );
+   }
+
+   @Benchmark
+   public Number parseBigInteger() {
+      return RqlLiteralDecoder.parseIntoSmallestIntegerType( bigInteger );
+   }
+
+   @Benchmark
+   public Number parseBigIntegerLegacy() {
+      return LegacyLiteralDecoding.parseIntoSmallestIntegerType( bigInteger );
+   }
+
+   @Benchmark
+   public OffsetDateTime parseTime() {
+      return RqlLiteralDecoder.parseOffsetDateTime( time );
+   }
+
+   @Benchmark
+   public OffsetDateTime parseTimeLegacy() {
+      return LegacyLiteralDecoding.parseOffsetDateTime( time );
+   }
+
+   public static void main( final String[] args ) throws RunnerException {
+      new Runner( new OptionsBuilder()
+            .include( RqlLiteralDecoderBenchmark.class.getSimpleName() )
+            .build() ).run();
+   }
+}
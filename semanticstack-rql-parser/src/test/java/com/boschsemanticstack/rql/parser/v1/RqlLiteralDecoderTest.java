@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Proves that {@link RqlLiteralDecoder} decodes exactly like {@link LegacyLiteralDecoding}, including the type of the
+ * results and the exceptions thrown.
+ */
+class RqlLiteralDecoderTest {
+
+   private static final String STRING_ALPHABET = "ab \t\n\r\"\\btnfr'/0ü€😀";
+   private static final String TIME_ALPHABET = "0123456789-:.,TtZz+x";
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "\"\"", "\"plain\"", "\"a\\\"b\"", "\"\\b\\t\\n\\f\\r\\\"\\\\\"", "\"line\nbreak\"", "\"cr\rx\\\"y\"",
+         "\"unterminated", "\"", "x", "", "\"bad\\q\"", "\"octal\\101\"", "\"ends\\", "\"a\"b\"", "'single'", "\"ü€😀\""
+   } )
+   void shouldUnescapeStringsLikeTokenizer( final String literal ) {
+      assertSameOutcome( literal, RqlLiteralDecoder::unescapeString, LegacyLiteralDecoding::unescapeString );
+   }
+
+   @Test
+   void shouldUnescapeRandomStringsLikeTokenizer() {
+      final Random random = new Random( 42 );
+      for ( int i = 0; i < 50_000; i++ ) {
+         final String literal = ( random.nextInt( 20 ) == 0 ? "" : "\"" ) + randomText( STRING_ALPHABET, random, 12 )
+               + ( random.nextInt( 10 ) == 0 ? "" : "\"" );
+         assertSameOutcome( literal, RqlLiteralDecoder::unescapeString, LegacyLiteralDecoding::unescapeString );
+      }
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "0", "-0", "+0", "7", "-42", "+5", "007", "-007",
+         "2147483647", "2147483648", "-2147483648", "-2147483649",
+         "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+         "99999999999999999999", "00000000000000000000000001", "-00000000009223372036854775808",
+         "", "-", "+", "--1", "1-", "1a", "12345678901234567890x", " 1", "1.0", "١٢٣", "9999999999999999999١"
+   } )
+   void shouldParseIntegersLikeJdk( final String text ) {
+      assertSameOutcome( text, RqlLiteralDecoder::parseIntoSmallestIntegerType, LegacyLiteralDecoding::parseIntoSmallestIntegerType );
+   }
+
+   @Test
+   void shouldParseRandomIntegersLikeJdk() {
+      final Random random = new Random( 7 );
+      for ( int i = 0; i < 100_000; i++ ) {
+         final String sign = switch ( random.nextInt( 4 ) ) {
+            case 0 -> "-";
+            case 1 -> "+";
+            default -> "";
+         };
+         final String text = sign + randomText( "0123456789", random, 1 + random.nextInt( 24 ) );
+         assertSameOutcome( text, RqlLiteralDecoder::parseIntoSmallestIntegerType, LegacyLiteralDecoding::parseIntoSmallestIntegerType );
+      }
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "2020-01-01T10:00:00Z", "2020-01-01t10:00:00z", "2020-01-01T10:00:00,5+01:00", "2020-01-01T10:00:00.123456789-02:30",
+         "2020-01-01T10:00:00.1234567890Z", "2020-01-01T10:00:00.Z", "2020-02-29T00:00:00Z", "2021-02-29T00:00:00Z",
+         "2020-04-31T00:00:00Z", "2020-13-01T10:00:00Z", "2020-00-01T10:00:00Z", "2020-01-00T10:00:00Z",
+         "2020-01-01T24:00:00Z", "2020-01-01T23:60:00Z", "2020-01-01T23:59:60Z", "0000-01-01T00:00:00Z",
+         "2020-01-01T10:00:00+18:00", "2020-01-01T10:00:00-18:00", "2020-01-01T10:00:00+18:01", "2020-01-01T10:00:00+01:60",
+         "2020-01-01T10:00:00-00:00", "2020-01-01T10:00:00+0100", "2020-01-01T10:00:00", "2020-01-01T10:00Z", "2020-01-01",
+         "2020-01-01 10:00:00Z", "2020-01-01T10:00:00ZZ", "+2020-01-01T10:00:00Z", "2020-1-01T10:00:00Z", ""
+   } )
+   void shouldParseTimesLikeJdk( final String text ) {
+      assertSameOutcome( text, RqlLiteralDecoder::parseOffsetDateTime, LegacyLiteralDecoding::parseOffsetDateTime );
+   }
+
+   @Test
+   void shouldParseRandomTimesLikeJdk() {
+      final Random random = new Random( 11 );
+      for ( int i = 0; i < 50_000; i++ ) {
+         final StringBuilder text = new StringBuilder( String.format( "%04d-%02d-%02d%c%02d:%02d:%02d",
+               random.nextInt( 10_000 ), random.nextInt( 14 ), random.nextInt( 33 ), random.nextBoolean() ? 'T' : 't',
+               random.nextInt( 26 ), random.nextInt( 62 ), random.nextInt( 62 ) ) );
+         if ( random.nextBoolean() ) {
+            text.append( random.nextBoolean() ? '.' : ',' ).append( randomText( "0123456789", random, random.nextInt( 12 ) ) );
+         }
+         text.append( switch ( random.nextInt( 3 ) ) {
+            case 0 -> random.nextBoolean() ? "Z" : "z";
+            case 1 -> String.format( "%c%02d:%02d", random.nextBoolean() ? '+' : '-', random.nextInt( 20 ), random.nextInt( 62 ) );
+            default -> "";
+         } );
+         if ( random.nextInt( 10 ) == 0 ) {
+            text.setCharAt( random.nextInt( text.length() ), TIME_ALPHABET.charAt( random.nextInt( TIME_ALPHABET.length() ) ) );
+         }
+         assertSameOutcome( text.toString(), RqlLiteralDecoder::parseOffsetDateTime, LegacyLiteralDecoding::parseOffsetDateTime );
+      }
+   }
+
+   private static <T> void assertSameOutcome( final String text, final Function<String, T> decoder, final Function<String, T> reference ) {
+      assertThat( outcome( text, decoder ) ).as( text ).isEqualTo( outcome( text, reference ) );
+   }
+
+   private static <T> String outcome( final String text, final Function<String, T> decoding ) {
+      try {
+         final T value = decoding.apply( text );
+         return value == null ? "null" : value.getClass().getName() + ": " + value;
+      } catch ( final RuntimeException e ) {
+         return e.getClass().getName() + ": " + e.getMessage();
+      }
+   }
+
+   private static String randomText( final String alphabet, final Random random, final int maxLength ) {
+      final StringBuilder text = new StringBuilder();
+      for ( int i = random.nextInt( maxLength + 1 ); i > 0; i-- ) {
+         text.appendCodePoint( alphabet.codePointAt( alphabet.offsetByCodePoints( 0, random.nextInt( alphabet.codePointCount( 0, alphabet.length() ) ) ) ) );
+      }
+      return text.toString();
+   }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Makes sure building the model from parse events yields the same models and errors as the parse tree visitor.
+ */
+class RqlModelConstructionTest {
+
+   private final RqlParserApi treeParser = parser( RqlParserConfig.ModelConstruction.PARSE_TREE );
+   private final RqlParserApi eventParser = parser( RqlParserConfig.ModelConstruction.PARSE_EVENTS );
+
+   @ParameterizedTest
+   @MethodSource( "com.boschsemanticstack.rql.parser.v1.RqlFastParserDifferentialTest#corpus" )
+   void shouldAgreeOnTestCorpus( final String query ) {
+      assertSameOutcome( query );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "filter=eq(a,1)&filter=eq(b,1)",
+         "filter=eq(a,2020-13-01T10:00:00Z)",
+         "filter=eq(a,2020-13-01T10:00:00Z)&filter=eq(b",
+         "option=limit(0,99999999999999999999)",
+         "filter=in(a,2147483648)",
+         "filter=eq(a,null)&select=a,b&option=sort(-a,+b),cursor(\"x\",3)"
+   } )
+   void shouldAgreeOnEdgeCases( final String query ) {
+      assertSameOutcome( query );
+   }
+
+   @Test
+   void shouldAgreeOnFuzzedQueries() {
+      final Random random = new Random( 815 );
+      for ( int i = 0; i < 5_000; i++ ) {
+         final String query = RqlFastParserDifferentialTest.randomQuery( random );
+         assertSameOutcome( query );
+         assertSameOutcome( RqlFastParserDifferentialTest.mutate( query, random ) );
+      }
+   }
+
+   @Test
+   void shouldNotKeepParseTreeWhenBuildingModelFromEvents() {
+      final ParseResult result = eventParser.parseQuery( RqlParserBenchmark.TYPICAL_QUERY );
+
+      assertThat( result.getParseTree() ).isNull();
+      assertThat( RqlParser.toString( result.getModel() ) )
+            .isEqualTo( RqlParser.toString( treeParser.parseFullQuery( RqlParserBenchmark.TYPICAL_QUERY ) ) );
+   }
+
+   private void assertSameOutcome( final String query ) {
+      assertThat( outcome( eventParser, query ) ).as( query ).isEqualTo( outcome( treeParser, query ) );
+   }
+
+   private static String outcome( final RqlParserApi parser, final String query ) {
+      try {
+         return RqlFastParserDifferentialTest.describe( parser.parseFullQuery( query ) );
+      } catch ( final RuntimeException e ) {
+         return e.getClass().getName() + ": " + e.getMessage();
+      }
+   }
+
+   private static RqlParserApi parser( final RqlParserConfig.ModelConstruction modelConstruction ) {
+      return new RqlParserApi( RqlParserConfig.builder()
+            .fastPath( false )
+            .modelConstruction( modelConstruction )
+            .sessionPoolSize( 0 )
+            .build() );
+   }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlParseCacheTest {
+
+   @Test
+   void shouldReturnCachedModelForRepeatedQuery() {
+      final RqlParseCache cache = new RqlParseCache();
+
+      final RqlQueryModel first = cache.parse( "filter=eq(a,1)&option=limit(0,5)" );
+      final RqlQueryModel second = cache.parse( "filter=eq(a,1)&option=limit(0,5)" );
+
+      assertThat( second ).isSameAs( first );
+      assertThat( cache.getMissCount() ).isEqualTo( 1 );
+      assertThat( cache.getHitCount() ).isEqualTo( 1 );
+      assertThat( cache.size() ).isEqualTo( 1 );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = { "filter=in(a,\"x\",\"y\")", "filter=and(ne(a,\"x\"),ne(a,\"y\"))" } )
+   @SuppressWarnings( "unchecked" )
+   void shouldNotExposeMutableValuesOfSharedModels( final String query ) {
+      final RqlParseCache cache = new RqlParseCache();
+      RqlFilter in = RqlParser.preProcessFilter( cache.parse( query ) ).getFilter().orElseThrow();
+      while ( in.getFilterType() != RqlFilter.FilterType.VALUE ) {
+         in = in.getChildren().get( 0 );
+      }
+      final List<Object> values = (List<Object>) in.getValue();
+
+      assertThat( values ).containsExactly( "x", "y" );
+      assertThatThrownBy( () -> values.add( "z" ) ).isInstanceOf( UnsupportedOperationException.class );
+      assertThat( in.getValues() ).containsExactly( "x", "y" );
+   }
+
+   @Test
+   void shouldHitForQueriesDifferingInWhitespaceAndParameterOrder() {
+      final RqlParseCache cache = new RqlParseCache();
+
+      final RqlQueryModel first = cache.parse( "filter=and(eq(a,1),like(b,\"x y\"))&option=limit(0,5)" );
+      final RqlQueryModel second = cache.parse( " option = limit( 0, 5 ) & filter = and( eq( a, 1 ),\n like( b, \"x y\" ) ) " );
+
+      assertThat( second ).isSameAs( first );
+      assertThat( cache.getHitCount() ).isEqualTo( 1 );
+   }
+
+   @Test
+   void shouldNotNormalizeAwayWhitespaceSeparatingTokens() {
+      assertThat( RqlParseCache.normalize( "select=a b" ) ).isNotEqualTo( RqlParseCache.normalize( "select=ab" ) );
+      assertThat( RqlParseCache.normalize( "filter=eq(a,+ 1)" ) ).isNotEqualTo( RqlParseCache.normalize( "filter=eq(a,+1)" ) );
+      assertThat( RqlParseCache.normalize( "filter=eq(a,\"x  y\")" ) ).isNotEqualTo( RqlParseCache.normalize( "filter=eq(a,\"x y\")" ) );
+      assertThat( RqlParseCache.normalize( "filter=eq(t,2020-01-01T10:00:00, 5Z)" ) )
+            .isNotEqualTo( RqlParseCache.normalize( "filter=eq(t,2020-01-01T10:00:00,5Z)" ) );
+   }
+
+   @Test
+   void shouldNotSplitOnAmpersandInsideStringLiterals() {
+      assertThat( RqlParseCache.normalize( "filter=eq(a,\"x&b \\\" &a\")" ) ).isEqualTo( "filter=eq(a,\"x&b \\\" &a\")" );
+   }
+
+   @Test
+   void shouldNotCacheInvalidQueries() {
+      final RqlParseCache cache = new RqlParseCache();
+
+      assertThatThrownBy( () -> cache.parse( "filter=eq(a" ) ).isInstanceOf( ParseException.class );
+      assertThatThrownBy( () -> cache.parse( "filter=eq(a" ) ).isInstanceOf( ParseException.class );
+
+      assertThat( cache.size() ).isZero();
+      assertThat( cache.getMissCount() ).isEqualTo( 2 );
+   }
+
+   @Test
+   void shouldPassNullInputToParser() {
+      final RqlParseCache cache = new RqlParseCache();
+
+      assertThatThrownBy( () -> cache.parse( null ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( "Input was null" );
+   }
+
+   @Test
+   void shouldEvictWhenEntryLimitIsReached() {
+      final RqlParseCache cache = new RqlParseCache( 4, RqlParseCache.DEFAULT_MAXIMUM_WEIGHT );
+
+      for ( int i = 0; i < 20; i++ ) {
+         cache.parse( "filter=eq(a," + i + ")" );
+      }
+
+      assertThat( cache.size() ).isEqualTo( 4 );
+      assertThat( cache.getEvictionCount() ).isPositive();
+   }
+
+   @Test
+   void shouldKeepFrequentlyUsedQueriesWhenFlushedWithOneOffQueries() {
+      final RqlParseCache cache = new RqlParseCache( 4, RqlParseCache.DEFAULT_MAXIMUM_WEIGHT );
+      final String popular = "filter=eq(popular,true)";
+      for ( int i = 0; i < 10; i++ ) {
+         cache.parse( popular );
+      }
+
+      for ( int i = 0; i < 50; i++ ) {
+         cache.parse( "filter=eq(a," + i + ")" );
+      }
+      final long hitsBefore = cache.getHitCount();
+      cache.parse( popular );
+
+      assertThat( cache.getHitCount() ).isEqualTo( hitsBefore + 1 );
+   }
+
+   @Test
+   void shouldRespectMaximumWeight() {
+      final RqlParseCache cache = new RqlParseCache( 1000, 2000 );
+
+      for ( int i = 0; i < 100; i++ ) {
+         cache.parse( "filter=in(a,\"" + i + "\",\"b\",\"c\")" );
+      }
+
+      assertThat( cache.getEstimatedWeight() ).isLessThanOrEqualTo( 2000 );
+      assertThat( cache.size() ).isLessThan( 100 );
+   }
+
+   @Test
+   void uncachedParsingShouldNotUseTheCache() {
+      final long missesBefore = RqlParser.getParseCache().getMissCount();
+      final long hitsBefore = RqlParser.getParseCache().getHitCount();
+
+      final RqlQueryModel first = RqlParser.fromUncached( "filter=eq(uncached,1)" );
+      final RqlQueryModel second = RqlParser.fromUncached( "filter=eq(uncached,1)" );
+
+      assertThat( second ).isNotSameAs( first );
+      assertThat( RqlParser.getParseCache().getMissCount() ).isEqualTo( missesBefore );
+      assertThat( RqlParser.getParseCache().getHitCount() ).isEqualTo( hitsBefore );
+   }
+}
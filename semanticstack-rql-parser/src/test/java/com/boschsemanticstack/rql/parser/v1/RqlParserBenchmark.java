@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import java.util.concurrent.TimeUnit;
+
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the parsing strategies of {@link RqlParserApi} and the hand-written {@link RqlFastParser} on typical
+ * queries.
+ *
+ * <p>Run from the IDE, or write the test classpath from the root directory and start the JMH runner in the module
+ * directory:</p>
+ * <pre>
+ * mvn -pl semanticstack-rql-parser -am test-compile dependency:build-classpath \
+ *       -Dmdep.outputFile=target/test.classpath -Dmdep.includeScope=test
+ * cd semanticstack-rql-parser
+ * java -cp target/test-classes:target/classes:$(cat target/test.classpath) org.openjdk.jmh.Main RqlParserBenchmark
+ * </pre>
+ *
+ * <p>Add {@code -prof gc} to the runner arguments to compare the allocation rates.</p>
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class RqlParserBenchmark {
+
+   static final String SIMPLE_QUERY = "filter=eq(name,\"blue\")";
+   static final String TYPICAL_QUERY = """
+         select=id,name,subEntity.name\
+         &filter=and(eq(tenant,"4711"),or(like(name,"*blue*"),gt(created,2024-01-01T00:00:00Z)),ne(state,"DELETED"))\
+         &option=limit(0,100),sort(+name,-created)""";
+   static final String IN_LIST_QUERY = "filter=in(id," + "1,2,3,4,5,6,7,8,9,10,".repeat( 20 ) + "0)";
+
+   @Param( { "SIMPLE", "TYPICAL", "IN_LIST" } )
+   private String queryKind;
+
+   private String query;
+   private RqlParserApi llParser;
+   private RqlParserApi sllThenLlParser;
+   private RqlParserApi parseTreeParser;
+   private RqlParserApi fastPathParser;
+
+   @Setup
+   public void setUp() {
+      query = switch ( queryKind ) {
+         case "SIMPLE" -> SIMPLE_QUERY;
+         case "TYPICAL" -> TYPICAL_QUERY;
+         default -> IN_LIST_QUERY;
+      };
+      llParser = new RqlParserApi( RqlParserConfig.builder()
+            .predictionStrategy( RqlParserConfig.PredictionStrategy.LL )
+            .fastPath( false )
+            .build() );
+      sllThenLlParser = new RqlParserApi( RqlParserConfig.builder()
+            .predictionStrategy( RqlParserConfig.PredictionStrategy.SLL_THEN_LL )
+            .fastPath( false )
+            .build() );
+      parseTreeParser = new RqlParserApi( RqlParserConfig.builder()
+            .predictionStrategy( RqlParserConfig.PredictionStrategy.SLL_THEN_LL )
+            .modelConstruction( RqlParserConfig.ModelConstruction.PARSE_TREE )
+            .fastPath( false )
+            .build() );
+      fastPathParser = new RqlParserApi( RqlParserConfig.defaultConfig() );
+   }
+
+   @Benchmark
+   public RqlQueryModel llOnly() {
+      return llParser.parseFullQuery( query );
+   }
+
+   @Benchmark
+   public RqlQueryModel sllThenLl() {
+      return sllThenLlParser.parseFullQuery( query );
+   }
+
+   @Benchmark
+   public RqlQueryModel sllThenLlWithParseTree() {
+      return parseTreeParser.parseFullQuery( query );
+   }
+
+   @Benchmark
+   public RqlQueryModel fastPath() {
+      return fastPathParser.parseFullQuery( query );
+   }
+
+   public static void main( final String[] args ) throws RunnerException {
+      new Runner( new OptionsBuilder()
+            .include( RqlParserBenchmark.class.getSimpleName() )
+            .build() ).run();
+   }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.StringReader;
+
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.exceptions.SourceLocation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlParserLimitsTest {
+
+   private static final RqlParserConfig LIMITED = RqlParserConfig.builder()
+         .maxInputLength( 200 )
+         .maxNestingDepth( 3 )
+         .maxFilterNodes( 5 )
+         .maxInListValues( 3 )
+         .maxSortFields( 2 )
+         .build();
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "filter=and(eq(a,1),or(eq(b,2),in(c,1,2,3)))",
+         "filter=in(c,\"(\",\",\",\"\\\",(\")",
+         "option=sort(+a,-b),limit(0,5)&select=a,b,c,d",
+         "filter=in ( c , 1 , 2 , 3 )&option=sort( +a , -b )",
+         "select=insert,sorted&filter=eq(sorted,\"in(\")"
+   } )
+   void shouldAcceptQueriesWithinLimits( final String query ) {
+      assertThat( parse( query ) ).isNotNull();
+      assertThat( RqlParser.from( new StringReader( query ), LIMITED ) ).isNotNull();
+   }
+
+   @ParameterizedTest
+   @ValueSource( booleans = { true, false } )
+   void shouldRejectTooLongQuery( final boolean streamed ) {
+      final String query = "filter=eq(a,\"" + "x".repeat( 300 ) + "\")";
+
+      assertLimitExceeded( query, streamed, "maximum length of 200 characters", new SourceLocation( 1, 201 ) );
+   }
+
+   @ParameterizedTest
+   @ValueSource( booleans = { true, false } )
+   void shouldRejectTooDeeplyNestedFilter( final boolean streamed ) {
+      assertLimitExceeded( "filter=not(not(\nnot(not(eq(a,1)))))", streamed, "maximum nesting depth of 3", new SourceLocation( 2, 8 ) );
+   }
+
+   @ParameterizedTest
+   @ValueSource( booleans = { true, false } )
+   void shouldRejectTooManyFilterNodes( final boolean streamed ) {
+      assertLimitExceeded( "filter=and(eq(a,1),eq(b,2),eq(c,3),eq(d,4),eq(e,5))", streamed, "maximum of 5 nodes",
+            new SourceLocation( 1, 46 ) );
+   }
+
+   @ParameterizedTest
+   @ValueSource( booleans = { true, false } )
+   void shouldRejectTooLongInList( final boolean streamed ) {
+      assertLimitExceeded( "filter=in(a,\"x\",\"y\",\"z\",\"w\")", streamed, "maximum of 3 values", new SourceLocation( 1, 24 ) );
+   }
+
+   @ParameterizedTest
+   @ValueSource( booleans = { true, false } )
+   void shouldRejectTooManySortFields( final boolean streamed ) {
+      assertLimitExceeded( "option=limit(0,1),sort(+a,+b,+c)", streamed, "maximum of 2 fields", new SourceLocation( 1, 29 ) );
+   }
+
+   @Test
+   void shouldCountFilterNodesOfAllFilterParameters() {
+      assertThatThrownBy( () -> parse( "filter=and(eq(a,1),eq(b,2))&select=a&filter=and(eq(c,3),eq(d,4))" ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( "maximum of 5 nodes" );
+   }
+
+   @Test
+   void shouldLimitNestingAndFilterNodesByDefault() {
+      final String nested = "filter=" + "not(".repeat( 255 ) + "eq(a,1)" + ")".repeat( 255 );
+      final String wide = "filter=and(" + "eq(a,1),".repeat( 10_000 ) + "eq(a,1))";
+      final RqlParserConfig unlimited = RqlParserConfig.builder()
+            .maxNestingDepth( RqlParserConfig.UNLIMITED )
+            .maxFilterNodes( RqlParserConfig.UNLIMITED )
+            .build();
+
+      assertThat( RqlParser.fromUncached( nested ).getFilter() ).isPresent();
+      assertThatThrownBy( () -> RqlParser.fromUncached( "filter=not(" + nested.substring( 7 ) + ")" ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( "maximum nesting depth of " + RqlParserConfig.DEFAULT_MAX_NESTING_DEPTH );
+      assertThatThrownBy( () -> RqlParser.from( wide ) ).isInstanceOf( ParseException.class );
+      assertThat( RqlParser.fromUncached( wide, unlimited ).getFilter() ).isPresent();
+   }
+
+   @Test
+   void shouldRejectHostileNestingBeforeParsing() {
+      final String query = "filter=" + "not(".repeat( 100_000 ) + "eq(a,1)" + ")".repeat( 100_000 );
+      final RqlParserConfig config = RqlParserConfig.builder().maxNestingDepth( 256 ).build();
+
+      assertThatThrownBy( () -> RqlParser.fromUncached( query, config ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( "maximum nesting depth of 256" );
+   }
+
+   @Test
+   void shouldParseNestingUpToLimit() {
+      final String query = "filter=" + "not(".repeat( 255 ) + "eq(a,1)" + ")".repeat( 255 );
+
+      assertThat( RqlParser.fromUncached( query, RqlParserConfig.builder().maxNestingDepth( 256 ).fastPath( false ).build() ).getFilter() )
+            .isPresent();
+      assertThat( RqlParser.fromUncached( query, RqlParserConfig.builder().maxNestingDepth( 256 ).build() ).getFilter() ).isPresent();
+   }
+
+   @Test
+   void shouldCheckLimitsOfCacheOnHit() {
+      final RqlParseCache cache = new RqlParseCache( 10, RqlParseCache.DEFAULT_MAXIMUM_WEIGHT, LIMITED );
+      cache.parse( "filter=eq(a,1)" );
+
+      assertThatThrownBy( () -> cache.parse( "filter=eq(a," + " ".repeat( 300 ) + "1)" ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( "maximum length" );
+      assertThat( cache.getHitCount() ).isZero();
+   }
+
+   @Test
+   void shouldCheckLimitsWhenCreatingParseTree() {
+      assertThatThrownBy( () -> new RqlParserApi( LIMITED ).createParseTree( "filter=in(a,1,2,3,4)" ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( "maximum of 3 values" );
+   }
+
+   @Test
+   void shouldRejectInvalidLimits() {
+      final RqlParserConfig.Builder builder = RqlParserConfig.builder();
+
+      assertThatThrownBy( () -> builder.maxInListValues( 0 ) ).isInstanceOf( IllegalArgumentException.class );
+      assertThat( builder.maxFilterNodes( RqlParserConfig.UNLIMITED ).build().getMaxFilterNodes() ).isEqualTo( Integer.MAX_VALUE );
+   }
+
+   private static Object parse( final String query ) {
+      return RqlParser.fromUncached( query, LIMITED );
+   }
+
+   private static void assertLimitExceeded( final String query, final boolean streamed, final String message,
+         final SourceLocation location ) {
+      assertThatThrownBy( () -> {
+         if ( streamed ) {
+            RqlParser.from( new StringReader( query ), LIMITED );
+         } else {
+            parse( query );
+         }
+      } )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( message )
+            .satisfies( e -> assertThat( ( (ParseException) e ).getSourceLocation() ).contains( location ) );
+   }
+}
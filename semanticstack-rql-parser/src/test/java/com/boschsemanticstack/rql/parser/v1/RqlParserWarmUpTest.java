@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class RqlParserWarmUpTest {
+
+   @Test
+   void shouldWarmUpWithBuiltInCorpus() {
+      final RqlParserWarmUp.Report report = RqlParserWarmUp.warmUp();
+
+      assertThat( report.queryCount() ).isEqualTo( RqlParserWarmUp.builtInCorpus().size() );
+      assertThat( report.failedQueryCount() ).isEqualTo( 4 );
+      assertThat( report.tokenTypeCoverage() ).isEqualTo( 1.0 );
+      assertThat( report.dfaStateCount() ).isPositive();
+      assertThat( report.duration() ).isPositive();
+      assertThat( report.snapshot().getQueries() ).isNotEmpty().isSubsetOf( RqlParserWarmUp.builtInCorpus() );
+      assertThat( RqlParserWarmUp.getLastReport() ).isPresent();
+   }
+
+   @Test
+   void shouldReproduceDfaStateFromSnapshot() throws IOException {
+      final List<String> corpus = new ArrayList<>( RqlParserWarmUp.builtInCorpus() );
+      final Random random = new Random( 42 );
+      for ( int i = 0; i < 2_000; i++ ) {
+         corpus.add( RqlFastParserDifferentialTest.randomQuery( random ) );
+      }
+      final RqlParserConfig warmedConfig = RqlParserConfig.builder().dfaStateLimit( 1_000_001 ).build();
+      final RqlParserConfig restoredConfig = RqlParserConfig.builder().dfaStateLimit( 1_000_002 ).build();
+
+      final RqlParserWarmUp.Report warmed = RqlParserWarmUp.warmUp( corpus, warmedConfig );
+      final ByteArrayOutputStream persisted = new ByteArrayOutputStream();
+      warmed.snapshot().writeTo( persisted );
+      final RqlParserWarmUp.Snapshot snapshot = RqlParserWarmUp.Snapshot.readFrom( new ByteArrayInputStream( persisted.toByteArray() ) );
+      final RqlParserWarmUp.Report restored = RqlParserWarmUp.restore( snapshot, restoredConfig );
+
+      assertThat( snapshot.getQueries() ).isEqualTo( warmed.snapshot().getQueries() ).hasSizeLessThan( corpus.size() / 10 );
+      assertThat( restored.dfaStateCount() ).isEqualTo( warmed.dfaStateCount() );
+      assertThat( restored.tokenTypeCoverage() ).isEqualTo( warmed.tokenTypeCoverage() );
+      assertThat( ParserSessionPool.forConfig( restoredConfig ).getDfa().stateCount() )
+            .isEqualTo( ParserSessionPool.forConfig( warmedConfig ).getDfa().stateCount() );
+   }
+
+   @Test
+   void shouldRejectSnapshotOfOtherGrammar() throws IOException {
+      final ByteArrayOutputStream persisted = new ByteArrayOutputStream();
+      final DataOutputStream data = new DataOutputStream( persisted );
+      data.writeInt( 0x52514c57 );
+      data.writeInt( 0 );
+      data.writeInt( 0 );
+      final RqlParserWarmUp.Snapshot snapshot = RqlParserWarmUp.Snapshot.readFrom( new ByteArrayInputStream( persisted.toByteArray() ) );
+
+      assertThatThrownBy( () -> RqlParserWarmUp.restore( snapshot, RqlParserConfig.defaultConfig() ) )
+            .isInstanceOf( IllegalArgumentException.class )
+            .hasMessageContaining( "different version" );
+   }
+
+   @Test
+   void shouldRejectCorruptSnapshot() throws IOException {
+      final ByteArrayOutputStream persisted = new ByteArrayOutputStream();
+      RqlParserWarmUp.warmUp().snapshot().writeTo( persisted );
+      final byte[] truncated = new byte[persisted.size() - 3];
+      System.arraycopy( persisted.toByteArray(), 0, truncated, 0, truncated.length );
+
+      assertThatThrownBy( () -> RqlParserWarmUp.Snapshot.readFrom( new ByteArrayInputStream( truncated ) ) )
+            .isInstanceOf( IOException.class );
+      assertThatThrownBy( () -> RqlParserWarmUp.Snapshot.readFrom( new ByteArrayInputStream( new byte[] { 1, 2, 3, 4 } ) ) )
+            .isInstanceOf( IOException.class )
+            .hasMessageContaining( "Not an RQL warm-up snapshot" );
+   }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlPredictionStrategyTest {
+
+   private final RqlParserApi llParser = new RqlParserApi( RqlParserConfig.builder()
+         .predictionStrategy( RqlParserConfig.PredictionStrategy.LL )
+         .fastPath( false )
+         .build() );
+   private final RqlParserApi sllThenLlParser = new RqlParserApi( RqlParserConfig.builder()
+         .predictionStrategy( RqlParserConfig.PredictionStrategy.SLL_THEN_LL )
+         .fastPath( false )
+         .build() );
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "",
+         "select=id,name",
+         RqlParserBenchmark.SIMPLE_QUERY,
+         RqlParserBenchmark.TYPICAL_QUERY,
+         "filter=in(id,1,2,3,4,5,6,7,8,9,10)",
+         "filter=not(in(xyz,\"a\", \"b\"))&option=cursor(\"abc\",5)",
+         "option=sort(-a),cursor(500)&filter=or(eq(a,null),le(b,-1.5e3),ge(c,2020-01-01T10:00:00,5+01:00))"
+   } )
+   void shouldProduceSameModelAsLlParsing( final String query ) {
+      final RqlQueryModel expected = llParser.parseFullQuery( query );
+      final RqlQueryModel actual = sllThenLlParser.parseFullQuery( query );
+
+      assertThat( RqlParser.toString( actual ) ).isEqualTo( RqlParser.toString( expected ) );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "select=id,/name",
+         "select=id,\"name\"",
+         "filter=in(id,4.6,null,9.0)",
+         "filter=eq(a",
+         "filter=eq(a,1)&filter=eq(b,2)",
+         "select = att1%%%&filter = eq(att2%%%,\"SomeThing\")"
+   } )
+   void shouldReportSameErrorsAsLlParsing( final String query ) {
+      final ParseException expected = catchThrowableOfType( ParseException.class, () -> llParser.parseFullQuery( query ) );
+      final ParseException actual = catchThrowableOfType( ParseException.class, () -> sllThenLlParser.parseFullQuery( query ) );
+
+      assertThat( actual ).isNotNull();
+      assertThat( actual.getMessage() ).isEqualTo( expected.getMessage() );
+      assertThat( actual.getSourceLocation() ).isEqualTo( expected.getSourceLocation() );
+   }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.BooleanSimplificationRqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.RangeMergingRqlFilterPreProcessor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlRangeMergingTest {
+
+   private final RangeMergingRqlFilterPreProcessor rangeMerging = new RangeMergingRqlFilterPreProcessor( attribute -> true );
+   private final RangeMergingRqlFilterPreProcessor collectionSafeRangeMerging = new RangeMergingRqlFilterPreProcessor();
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "and(ge(ts,2024-01-01T00:00:00Z),lt(ts,2024-02-01T00:00:00Z),ge(ts,2024-01-15T00:00:00Z)) | and(ge(ts,2024-01-15T00:00Z),lt(ts,2024-02-01T00:00Z))",
+         "and(gt(a,1),ge(a,1))                          | gt(a,1)",
+         "and(ge(a,1),gt(a,1),lt(a,5),le(a,5),lt(a,7))  | and(gt(a,1),lt(a,5))",
+         "and(ge(a,1),le(a,1.0))                        | eq(a,1)",
+         "and(in(a,1,2,3,4),gt(a,1),le(a,3))            | in(a,2,3)",
+         "and(in(a,1,2,3),in(a,3,2,5))                  | in(a,2,3)",
+         "and(in(a,1,2),eq(a,2))                        | eq(a,2)",
+         "and(in(s,\"x\",\"y\"),eq(s,\"y\"),eq(b,1))    | and(eq(s,\"y\"),eq(b,1))",
+         "and(eq(x,1),ge(a,1),ne(a,3),ge(a,2))          | and(eq(x,1),ge(a,2),ne(a,3))",
+         "and(eq(a,1),eq(a,1))                          | eq(a,1)",
+         "and(eq(ts,2024-01-01T01:00:00+01:00),eq(ts,2024-01-01T00:00:00Z)) | eq(ts,2024-01-01T01:00+01:00)",
+   } )
+   void shouldMergeConditionsOnSameAttribute( final String filter, final String expected ) {
+      assertThat( rangeMerging.visit( filter( filter ) ) ).hasToString( expected );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "and(eq(status,\"A\"),eq(status,\"B\"))",
+         "and(gt(a,5),lt(a,3))",
+         "and(gt(a,5),le(a,5))",
+         "and(in(a,1,2),gt(a,2))",
+         "and(in(a,1,2),in(a,3,4))",
+         "and(lt(ts,2024-01-01T00:00:00Z),ge(ts,2024-01-01T00:00:00Z))",
+         "and(eq(x,1),or(and(eq(a,1),eq(a,2)),and(eq(b,1),eq(b,2))))",
+   } )
+   void shouldDetectContradictions( final String filter ) {
+      final RqlQueryModel model = preProcess( "filter=" + filter );
+
+      assertThat( model.isAlwaysFalse() ).isTrue();
+      assertThat( model.getFilter().orElseThrow().isAlwaysFalse() ).isTrue();
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "and(ge(a,1),lt(a,5))",
+         "and(gt(s,\"a\"),lt(s,\"b\"),lt(s,\"c\"))",
+         "and(eq(a,1),eq(a,\"1\"))",
+         "and(eq(a,null),eq(a,1))",
+         "and(like(a,\"x*\"),eq(a,\"y\"))",
+         "and(eq(a,1),eq(b,2))",
+         "or(eq(a,1),eq(a,2))",
+   } )
+   void shouldKeepFilterWithoutMergeableConditions( final String filter ) {
+      final RqlFilter parsed = filter( filter );
+
+      assertThat( rangeMerging.visit( parsed ) ).isSameAs( parsed );
+   }
+
+   @ParameterizedTest
+   @ValueSource( booleans = { true, false } )
+   void shouldRoundTripContradictionThroughWriter( final boolean fastPath ) {
+      final RqlQueryModel model = preProcess( "select=id&filter=and(eq(status,\"A\"),eq(status,\"B\"))&option=limit(0,5)" );
+      final RqlParserConfig config = RqlParserConfig.builder().fastPath( fastPath ).build();
+
+      final String written = RqlParser.toString( model );
+      final RqlQueryModel reparsed = RqlParser.fromUncached( written, config );
+
+      assertThat( written ).isEqualTo( "select=id&filter=or()&option=limit(0,5)" );
+      assertThat( reparsed.isAlwaysFalse() ).isTrue();
+      assertThat( reparsed ).isEqualTo( model );
+      assertThat( RqlParser.fromUncached( "filter=or( )", config ).isAlwaysFalse() ).isTrue();
+   }
+
+   @Test
+   void shouldKeepAlternativesOfContradiction() {
+      final RqlQueryModel model = preProcess( "filter=or(eq(x,1),and(eq(a,1),eq(a,2)))" );
+
+      assertThat( model.isAlwaysFalse() ).isFalse();
+      assertThat( RqlParser.toString( model ) ).isEqualTo( "filter=eq(x,1)" );
+   }
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "and(gt(tags,1),ge(tags,5),lt(tags,9),lt(tags,7))  | and(ge(tags,5),lt(tags,7))",
+         "and(gt(tags,5),lt(tags,3),eq(x,1))                | and(gt(tags,5),lt(tags,3),eq(x,1))",
+         "and(eq(tags,\"a\"),eq(tags,\"b\"))                | and(eq(tags,\"a\"),eq(tags,\"b\"))",
+         "and(in(tags,1,2),gt(tags,2))                      | and(in(tags,1,2),gt(tags,2))",
+   } )
+   void shouldOnlyMergeBoundsInSameDirectionByDefault( final String filter, final String expected ) {
+      assertThat( collectionSafeRangeMerging.visit( filter( filter ) ) ).hasToString( expected );
+      assertThat( RqlParser.preProcessFilter( RqlParser.from( "filter=" + filter ), RqlParser.SIMPLIFYING_FILTER_PREPROCESSORS ).isAlwaysFalse() ).isFalse();
+   }
+
+   @Test
+   void shouldDetectContradictionsWithSimplifyingPreProcessorsForSingleValuedAttributes() {
+      final List<RqlFilterPreProcessor> preProcessors = RqlParser.simplifyingFilterPreProcessors( "status"::equals );
+
+      final RqlQueryModel contradiction = RqlParser.preProcessFilter( RqlParser.from( "filter=and(eq(status,\"A\"),eq(status,\"B\"))" ), preProcessors );
+      final RqlQueryModel collection = RqlParser.preProcessFilter( RqlParser.from( "filter=and(eq(tags,\"A\"),eq(tags,\"B\"))" ), preProcessors );
+
+      assertThat( RqlParser.toString( contradiction ) ).isEqualTo( "filter=or()" );
+      assertThat( collection.isAlwaysFalse() ).isFalse();
+   }
+
+   private RqlQueryModel preProcess( final String query ) {
+      return RqlParser.preProcessFilter( RqlParser.from( query ), List.of( new BooleanSimplificationRqlFilterPreProcessor(), rangeMerging ) );
+   }
+
+   private static RqlFilter filter( final String filter ) {
+      return RqlParser.from( "filter=" + filter ).getFilter().orElseThrow();
+   }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.List;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.RqlRewriteEngine;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.AndNeToNotInRqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.NotNeToEqRqlFilterPreProcessor;
+import com.boschsemanticstack.rql.model.v1.impl.preprocessor.OrEqToInRqlFilterPreProcessor;
+
+import org.junit.jupiter.api.Test;
+
+class RqlRewriteEngineTest {
+
+   private static final RqlFilterPreProcessor NOT_NOT_TO_FILTER = new RqlFilterPreProcessor() {
+      @Override
+      public boolean matches( final RqlFilter filter ) {
+         return filter.getFilterType() == RqlFilter.FilterType.NOT
+               && filter.getChildren().get( 0 ).getFilterType() == RqlFilter.FilterType.NOT;
+      }
+
+      @Override
+      public RqlFilter replaceSubTree( final RqlFilter filter ) {
+         return filter.getChildren().get( 0 ).getChildren().get( 0 );
+      }
+   };
+
+   private final RqlRewriteEngine defaultEngine = new RqlRewriteEngine( RqlParser.DEFAULT_FILTER_PREPROCESSORS );
+
+   @Test
+   void shouldApplyRulesToResultsOfLaterRules() {
+      final RqlFilterPreProcessor andNeToNotIn = new AndNeToNotInRqlFilterPreProcessor();
+      final RqlFilter filter = filter( "not(and(ne(a,1),ne(a,2)))" );
+      RqlFilter sequential = filter;
+      for ( final RqlFilterPreProcessor rule : List.of( NOT_NOT_TO_FILTER, andNeToNotIn ) ) {
+         sequential = rule.visit( sequential );
+      }
+
+      final RqlRewriteEngine.Result result = new RqlRewriteEngine( List.of( NOT_NOT_TO_FILTER, andNeToNotIn ) ).rewriteAndCount( filter );
+
+      assertThat( sequential ).hasToString( "not(not(in(a,1,2)))" );
+      assertThat( result.filter() ).hasToString( "in(a,1,2)" );
+      assertThat( result.fireCounts() ).containsExactly( entry( NOT_NOT_TO_FILTER, 1 ), entry( andNeToNotIn, 1 ) );
+   }
+
+   @Test
+   void shouldRewriteNewPartsOfReplacement() {
+      final RqlFilter filter = filter( "not(not(or(not(ne(a,1)),eq(a,2))))" );
+
+      final RqlRewriteEngine.Result result = new RqlRewriteEngine(
+            List.of( NOT_NOT_TO_FILTER, new NotNeToEqRqlFilterPreProcessor(), new OrEqToInRqlFilterPreProcessor() ) )
+            .rewriteAndCount( filter );
+
+      assertThat( result.filter() ).hasToString( "in(a,1,2)" );
+      assertThat( result.totalFireCount() ).isEqualTo( 3 );
+   }
+
+   @Test
+   void shouldShareUnchangedSubtrees() {
+      final RqlFilter filter = filter( "and(or(eq(a,1),eq(b,2)),not(ne(c,3)),eq(d,4))" );
+
+      final RqlFilter rewritten = defaultEngine.rewrite( filter );
+
+      assertThat( rewritten ).hasToString( "and(or(eq(a,1),eq(b,2)),eq(c,3),eq(d,4))" );
+      assertThat( rewritten.getChildren().get( 0 ) ).isSameAs( filter.getChildren().get( 0 ) );
+      assertThat( rewritten.getChildren().get( 2 ) ).isSameAs( filter.getChildren().get( 2 ) );
+      final RqlFilter unchanged = filter( "or(eq(a,1),eq(b,2))" );
+      assertThat( defaultEngine.rewriteAndCount( unchanged ) ).satisfies( result -> {
+         assertThat( result.filter() ).isSameAs( unchanged );
+         assertThat( result.totalFireCount() ).isZero();
+      } );
+      assertThat( defaultEngine.rewrite( null ) ).isNull();
+   }
+
+   @Test
+   void shouldRewriteSharedSubtreeOnce() {
+      final RqlFilter shared = filter( "not(ne(a,1))" );
+      final RqlFilter filter = new RqlFilterImpl( RqlFilter.FilterType.AND, shared, shared );
+
+      final RqlRewriteEngine.Result result = new RqlRewriteEngine( List.of( new NotNeToEqRqlFilterPreProcessor() ) ).rewriteAndCount( filter );
+
+      assertThat( result.filter().getChildren().get( 0 ) ).isSameAs( result.filter().getChildren().get( 1 ) );
+      assertThat( result.totalFireCount() ).isEqualTo( 1 );
+   }
+
+   @Test
+   void shouldRejectRulesReplacingEachOther() {
+      final RqlFilterPreProcessor flip = new RqlFilterPreProcessor() {
+         @Override
+         public boolean matches( final RqlFilter filter ) {
+            return filter.getFilterType() == RqlFilter.FilterType.VALUE;
+         }
+
+         @Override
+         public RqlFilter replaceSubTree( final RqlFilter filter ) {
+            final RqlFilter.Operator operator = filter.getOperator() == RqlFilter.Operator.EQ ? RqlFilter.Operator.NE : RqlFilter.Operator.EQ;
+            return new RqlFilterImpl( filter.getAttribute(), operator, filter.getValues() );
+         }
+      };
+
+      assertThatThrownBy( () -> new RqlRewriteEngine( List.of( flip ) ).rewrite( filter( "eq(a,1)" ) ) )
+            .isInstanceOf( IllegalStateException.class );
+   }
+
+   private static RqlFilter filter( final String filter ) {
+      return RqlParser.from( "filter=" + filter ).getFilter().orElseThrow();
+   }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.OffsetDateTime;
+
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlShape;
+import com.boschsemanticstack.rql.model.v1.impl.RqlFilterImpl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class RqlShapeTest {
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "filter=and(eq(a,1),gt(b,\"x\"))                    | filter=and(eq(a,7),gt(b,\"y\"))",
+         "filter=in(a,1,2,3)                                 | filter=in(a,7,8,9,10)",
+         "filter=eq(a,2020-01-01T10:00:00Z)                  | filter=eq(a,2024-12-24T18:00:00+01:00)",
+         "select=a,b&filter=like(a,\"x*\")&option=limit(0,5) | select=a,b&filter=like(a,\"*y\")&option=limit(20,10)",
+         "option=sort(+a,-b),cursor(\"x\",5)                 | option=sort(+a,-b),cursor(\"y\",10)",
+   } )
+   void shouldIgnoreLiterals( final String query, final String other ) {
+      assertThat( RqlShape.fingerprint( RqlParser.from( query ) ) ).isEqualTo( RqlShape.fingerprint( RqlParser.from( other ) ) );
+   }
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "filter=and(eq(a,1),gt(b,\"x\"))     | filter=or(eq(a,1),gt(b,\"x\"))",
+         "filter=and(eq(a,1),gt(b,\"x\"))     | filter=and(gt(b,\"x\"),eq(a,1))",
+         "filter=and(eq(a,1),gt(b,\"x\"))     | filter=and(eq(a,1),ge(b,\"x\"))",
+         "filter=and(eq(a,1),gt(b,\"x\"))     | filter=and(eq(a,1),gt(c,\"x\"))",
+         "filter=and(eq(a,1),eq(b,1))         | filter=and(and(eq(a,1)),eq(b,1))",
+         "filter=eq(a,1)                      | filter=eq(a,\"1\")",
+         "filter=eq(a,1)                      | filter=eq(a,null)",
+         "filter=in(a,1,2)                    | filter=in(a,1,2,3)",
+         "filter=in(a,1,2,3,4)                | filter=in(a,1,2,3,4,5)",
+         "select=a&filter=eq(a,1)             | select=b&filter=eq(a,1)",
+         "filter=eq(a,1)                      | filter=eq(a,1)&option=limit(0,5)",
+         "option=sort(+a)                     | option=sort(-a)",
+         "option=limit(0,5)                   | option=cursor(5)",
+         "option=cursor(5)                    | option=cursor(\"x\",5)",
+         "select=ab                           | select=a,b",
+   } )
+   void shouldDistinguishShapes( final String query, final String other ) {
+      assertThat( RqlShape.fingerprint( RqlParser.from( query ) ) ).isNotEqualTo( RqlShape.fingerprint( RqlParser.from( other ) ) );
+   }
+
+   @Test
+   void shouldBeStableAcrossRuns() {
+      assertThat( RqlShape.fingerprint( RqlParser.from( "select=a&filter=and(eq(a,1),in(b,1,2))&option=sort(+a),limit(0,5)" ) ) )
+            .isEqualTo( -7_417_268_188_929_930_258L );
+   }
+
+   @Test
+   void shouldExtractLiteralsInFixedOrder() {
+      assertThat( RqlShape.literals( RqlParser.from( "filter=and(eq(a,1),or(in(b,\"x\",\"y\"),not(eq(c,null))),gt(d,2020-01-01T10:00:00Z))"
+            + "&option=limit(5,10)" ) ) )
+            .containsExactly( 1, "x", "y", null, OffsetDateTime.parse( "2020-01-01T10:00:00Z" ), 5L, 10L );
+      assertThat( RqlShape.literals( RqlParser.from( "select=a&option=cursor(\"x\",5)" ) ) ).containsExactly( "x", 5L );
+   }
+
+   @Test
+   void shouldFingerprintFiltersDeeperThanRecursionLimit() {
+      RqlFilter filter = new RqlFilterImpl( "a", RqlFilter.Operator.EQ, 1 );
+      RqlFilter other = new RqlFilterImpl( "a", RqlFilter.Operator.EQ, 2 );
+      RqlFilter different = new RqlFilterImpl( "b", RqlFilter.Operator.EQ, 1 );
+      for ( int i = 0; i < 1_000; i++ ) {
+         filter = new RqlFilterImpl( RqlFilter.FilterType.NOT, filter );
+         other = new RqlFilterImpl( RqlFilter.FilterType.NOT, other );
+         different = new RqlFilterImpl( RqlFilter.FilterType.NOT, different );
+      }
+
+      assertThat( RqlShape.fingerprint( filter ) ).isEqualTo( RqlShape.fingerprint( other ) ).isNotEqualTo( RqlShape.fingerprint( different ) );
+      assertThat( RqlShape.literals( filter ) ).containsExactly( 1 );
+   }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlStreamingParserTest {
+
+   private final RqlParserApi stringParser = new RqlParserApi( RqlParserConfig.builder()
+         .fastPath( false )
+         .predictionStrategy( RqlParserConfig.PredictionStrategy.LL )
+         .build() );
+
+   @ParameterizedTest
+   @MethodSource( "com.boschsemanticstack.rql.parser.v1.RqlFastParserDifferentialTest#corpus" )
+   void shouldAgreeWithStringInputOnTestCorpus( final String query ) {
+      assertSameOutcome( query );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = {
+         "",
+         "filter=and(eq(a,1),xx(b,2))",
+         "filter=in(a,1,2,\"x\")",
+         "filter=eq(a,2020-13-01T10:00:00Z)&filter=eq(b",
+         "filter=in(a,1,2147483648)",
+         "select=a,b&option=sort(-a,+b),cursor(\"x\",3)&filter=eq(a,null)",
+         "@[line:1"
+   } )
+   void shouldAgreeWithStringInputOnEdgeCases( final String query ) {
+      assertSameOutcome( query );
+   }
+
+   @Test
+   void shouldAgreeWithStringInputOnFuzzedQueries() {
+      final Random random = new Random( 1337 );
+      for ( int i = 0; i < 5_000; i++ ) {
+         final String query = RqlFastParserDifferentialTest.randomQuery( random );
+         assertSameOutcome( query );
+         assertSameOutcome( RqlFastParserDifferentialTest.mutate( query, random ) );
+      }
+   }
+
+   @Test
+   void shouldParseHugeInListWithoutReadingItIntoString() {
+      final int size = 200_000;
+      final Reader query = new Reader() {
+         private final String prefix = "filter=in(id";
+         private long position;
+         private final long length = prefix.length() + 8L * size + 1;
+
+         @Override
+         public int read( final char[] target, final int offset, final int length ) {
+            int count = 0;
+            while ( count < length && position < this.length ) {
+               target[offset + count++] = charAt( position++ );
+            }
+            return count == 0 ? -1 : count;
+         }
+
+         private char charAt( final long index ) {
+            if ( index < prefix.length() ) {
+               return prefix.charAt( (int) index );
+            }
+            if ( index == this.length - 1 ) {
+               return ')';
+            }
+            final long inValue = index - prefix.length();
+            return inValue % 8 == 0 ? ',' : (char) ( '0' + inValue % 8 );
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+
+      final RqlFilter filter = RqlParser.from( query ).getFilter().orElseThrow();
+
+      assertThat( filter.getOperator() ).isEqualTo( RqlFilter.Operator.IN );
+      assertThat( filter.getValues() ).hasSize( size ).startsWith( 1234567 ).endsWith( 1234567 );
+   }
+
+   @Test
+   void shouldDecodeUtf8InputStream() {
+      final byte[] query = "filter=eq(name,\"Grüße €\")".getBytes( StandardCharsets.UTF_8 );
+
+      final RqlQueryModel model = RqlParser.from( new ByteArrayInputStream( query ) );
+
+      assertThat( model.getFilter().orElseThrow().getValues() ).containsExactly( "Grüße €" );
+   }
+
+   @Test
+   void shouldParseRemainingBytesOfBufferWithoutMovingIt() {
+      final ByteBuffer buffer = ByteBuffer.wrap( "xxselect=a,b".getBytes( StandardCharsets.UTF_8 ) ).position( 2 );
+
+      final RqlQueryModel model = RqlParser.from( buffer );
+
+      assertThat( model.getSelect().attributes() ).containsExactly( "a", "b" );
+      assertThat( buffer.position() ).isEqualTo( 2 );
+   }
+
+   @Test
+   void shouldReportErrorsWithLocationOfStreamedInput() {
+      assertThatThrownBy( () -> RqlParser.from( new StringReader( "filter=eq(a,1)\n&filter=eq(b" ) ) )
+            .isInstanceOf( ParseException.class )
+            .satisfies( e -> assertThat( ( (ParseException) e ).getSourceLocation() ).isPresent() );
+   }
+
+   @Test
+   void shouldRejectNullInput() {
+      assertThatThrownBy( () -> RqlParser.from( (Reader) null ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessage( "Input was null!" );
+   }
+
+   @Test
+   void shouldPropagateReadFailures() {
+      final Reader failing = new Reader() {
+         @Override
+         public int read( final char[] target, final int offset, final int length ) throws IOException {
+            throw new IOException( "connection reset" );
+         }
+
+         @Override
+         public void close() {
+         }
+      };
+
+      assertThatThrownBy( () -> RqlParser.from( failing ) ).isInstanceOf( UncheckedIOException.class );
+   }
+
+   @Test
+   void shouldParseStringsAgainAfterStreaming() {
+      final RqlParserApi parser = new RqlParserApi( RqlParserConfig.builder().fastPath( false ).sessionPoolSize( 1 ).build() );
+
+      parser.parseFullQuery( new StringReader( RqlParserBenchmark.TYPICAL_QUERY ) );
+
+      assertThat( RqlParser.toString( parser.parseFullQuery( RqlParserBenchmark.TYPICAL_QUERY ) ) )
+            .isEqualTo( RqlParser.toString( RqlParser.fromUncached( RqlParserBenchmark.TYPICAL_QUERY ) ) );
+   }
+
+   private void assertSameOutcome( final String query ) {
+      assertThat( outcome( () -> stringParser.parseFullQuery( new StringReader( query ) ) ) ).as( query )
+            .isEqualTo( outcome( () -> stringParser.parseFullQuery( query ) ) );
+   }
+
+   private static String outcome( final Supplier<RqlQueryModel> parse ) {
+      try {
+         return RqlFastParserDifferentialTest.describe( parse.get() );
+      } catch ( final RuntimeException e ) {
+         return e.getClass().getName() + ": " + e.getMessage();
+      }
+   }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import com.boschsemanticstack.rql.model.v1.RqlFieldPath;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+import com.boschsemanticstack.rql.model.v1.RqlSymbolTable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlSymbolTableTest {
+
+   private static final String QUERY = "select=subEntity.name&filter=and(eq(subEntity.name,\"OPEN\"),in(state,\"OPEN\",\"DONE\"))"
+         + "&option=sort(+subEntity.name)";
+
+   enum Parser {
+      FAST_PATH, PARSE_EVENTS, PARSE_TREE
+   }
+
+   @ParameterizedTest
+   @EnumSource( Parser.class )
+   void shouldShareFieldsAndLiteralsBetweenParses( final Parser parser ) {
+      final RqlSymbolTable symbols = new RqlSymbolTable( 100, 8 );
+      final RqlParserConfig config = RqlParserConfig.builder()
+            .symbolTable( symbols )
+            .fastPath( parser == Parser.FAST_PATH )
+            .modelConstruction( parser == Parser.PARSE_TREE
+                  ? RqlParserConfig.ModelConstruction.PARSE_TREE
+                  : RqlParserConfig.ModelConstruction.PARSE_EVENTS )
+            .build();
+
+      final RqlQueryModel first = RqlParser.fromUncached( QUERY, config );
+      final RqlQueryModel second = RqlParser.fromUncached( QUERY, config );
+
+      final RqlFilter firstEq = first.getFilter().orElseThrow().getChildren().get( 0 );
+      final RqlFilter secondEq = second.getFilter().orElseThrow().getChildren().get( 0 );
+      final RqlFilter secondIn = second.getFilter().orElseThrow().getChildren().get( 1 );
+      assertThat( secondEq.getAttribute() ).isSameAs( firstEq.getAttribute() )
+            .isSameAs( second.getSelect().attributes().get( 0 ) )
+            .isSameAs( second.getOptions().getOrder().fieldDirections().get( 0 ).attribute() )
+            .isSameAs( symbols.fieldPath( "subEntity.name" ).getPath() );
+      assertThat( secondEq.getValue() ).isSameAs( firstEq.getValue() ).isSameAs( secondIn.getValues().get( 0 ) );
+      assertThat( symbols.getFieldCount() ).isEqualTo( 2 );
+      assertThat( symbols.getLiteralCount() ).isEqualTo( 2 );
+   }
+
+   @Test
+   void shouldNotInternLongLiteralsOrLiteralsByDefault() {
+      final RqlSymbolTable symbols = new RqlSymbolTable( 100, 3 );
+
+      assertThat( symbols.literal( new String( "abcd" ) ) ).isNotSameAs( symbols.literal( new String( "abcd" ) ) );
+      assertThat( symbols.literal( new String( "abc" ) ) ).isSameAs( symbols.literal( new String( "abc" ) ) );
+      assertThat( RqlSymbolTable.shared().literal( new String( "a" ) ) ).isNotSameAs( RqlSymbolTable.shared().literal( "a" ) );
+   }
+
+   @Test
+   void shouldEvictSymbolsUnusedForTwoGenerations() {
+      final RqlSymbolTable symbols = new RqlSymbolTable( 4, 0 );
+
+      final RqlFieldPath a = symbols.fieldPath( "a" );
+      final RqlFieldPath b = symbols.fieldPath( "b" );
+      symbols.fieldPath( "c" );
+      symbols.fieldPath( "a" );
+      symbols.fieldPath( "d" );
+
+      assertThat( symbols.getFieldCount() ).isEqualTo( 3 );
+      assertThat( symbols.fieldPath( "a" ) ).isSameAs( a );
+      assertThat( symbols.fieldPath( "b" ) ).isNotSameAs( b ).isEqualTo( b );
+      for ( int i = 0; i < 1_000; i++ ) {
+         symbols.fieldPath( "f" + i );
+      }
+      assertThat( symbols.getFieldCount() ).isLessThanOrEqualTo( 4 );
+   }
+
+   @Test
+   void shouldResolveAttributePathsWithConfiguredTable() {
+      final RqlSymbolTable symbols = new RqlSymbolTable( 100, 0 );
+      final RqlParserConfig config = RqlParserConfig.builder().symbolTable( symbols ).build();
+
+      final RqlFilter filter = RqlParser.fromUncached( "filter=eq(subEntity.name,1)", config ).getFilter().orElseThrow();
+
+      assertThat( filter.getAttributePath() ).isSameAs( symbols.fieldPath( "subEntity.name" ) )
+            .isNotSameAs( RqlFieldPath.of( "subEntity.name" ) );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = { "a", "subEntity.name", "a/b.c", "a..b", "a.", ".a", "a..", "", ".", "//" } )
+   void shouldSplitLikeRegularExpression( final String path ) {
+      assertThat( RqlFieldPath.of( path ).getSegments() ).containsExactly( path.split( "[./]" ) );
+   }
+
+   @Test
+   void shouldProvideCanonicalAttributePaths() {
+      final RqlFilter filter = RqlParser.from( "filter=eq(subEntity.name,1)" ).getFilter().orElseThrow();
+
+      assertThat( filter.getAttributePath() ).isSameAs( RqlFieldPath.of( "subEntity.name" ) );
+      assertThat( filter.getAttributePath().getSegments() ).isEqualTo( List.of( "subEntity", "name" ) );
+      assertThat( RqlParser.from( "filter=not(eq(a,1))" ).getFilter().orElseThrow().getAttributePath() ).isNull();
+   }
+}
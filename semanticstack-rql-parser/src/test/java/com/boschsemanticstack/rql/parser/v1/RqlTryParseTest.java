@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import java.io.StringReader;
+
+import com.boschsemanticstack.rql.exceptions.ParseError;
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.exceptions.SourceLocation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RqlTryParseTest {
+
+   private static final String INVALID_QUERY = "filter=and(eq(a,1) eq(b,2))&option=sort(a)";
+
+   @Test
+   void shouldReturnModelOfValidQuery() {
+      final RqlParseOutcome outcome = RqlParser.tryParse( RqlParserBenchmark.TYPICAL_QUERY );
+
+      assertThat( outcome.isValid() ).isTrue();
+      assertThat( outcome.getErrors() ).isEmpty();
+      assertThat( outcome.getModelOrThrow() ).isSameAs( RqlParser.from( RqlParserBenchmark.TYPICAL_QUERY ) );
+   }
+
+   @Test
+   void shouldReturnErrorsOfInvalidQuery() {
+      final RqlParseOutcome outcome = RqlParser.tryParse( INVALID_QUERY );
+
+      assertThat( outcome.isValid() ).isFalse();
+      assertThat( outcome.getModel() ).isEmpty();
+      assertThat( outcome.getErrors() ).hasSizeGreaterThan( 1 );
+      assertThat( outcome.getErrors().get( 0 ).getSourceLocation() ).contains( new SourceLocation( 1, 20 ) );
+   }
+
+   @Test
+   void shouldStopAtFirstErrorIfConfigured() {
+      final RqlParseOutcome outcome = RqlParser.tryParseUncached( INVALID_QUERY,
+            RqlParserConfig.builder().stopAtFirstError( true ).build() );
+
+      assertThat( outcome.getErrors() ).containsExactly( RqlParser.tryParse( INVALID_QUERY ).getErrors().get( 0 ) );
+   }
+
+   @Test
+   void shouldStopStreamedQueryAtFirstErrorIfConfigured() {
+      final RqlParserConfig config = RqlParserConfig.builder().stopAtFirstError( true ).build();
+
+      assertThatThrownBy( () -> RqlParser.from( new StringReader( INVALID_QUERY ), config ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessage( RqlParser.tryParse( INVALID_QUERY ).getErrors().get( 0 ).toString() );
+   }
+
+   @ParameterizedTest
+   @ValueSource( strings = { "filter=eq(a,1", "filter=eq(a,1)&filter=eq(b,2)", "filter=out(a,1)", "@", "option=limit(0,99999999999999999999)" } )
+   void shouldThrowSameErrorAsParsing( final String query ) {
+      final RqlParseOutcome outcome = RqlParser.tryParse( query );
+      final RuntimeException expected = catchThrowableOfType( RuntimeException.class, () -> RqlParser.fromUncached( query ) );
+
+      assertThat( outcome.isValid() ).isFalse();
+      assertThatThrownBy( outcome::getModelOrThrow ).isInstanceOf( expected.getClass() ).hasMessage( expected.getMessage() );
+   }
+
+   @Test
+   void shouldReportNullInput() {
+      assertThat( RqlParser.tryParse( null ).getErrors() ).containsExactly( new ParseError( "Input was null!", null ) );
+   }
+
+   @Test
+   void shouldReportExceededLimit() {
+      final RqlParseOutcome outcome = RqlParser.tryParseUncached( "filter=in(a,1,2,3)",
+            RqlParserConfig.builder().maxInListValues( 2 ).build() );
+
+      assertThat( outcome.getErrors() ).hasSize( 1 );
+      assertThat( outcome.getErrors().get( 0 ).getMessage() ).isEqualTo( "In list exceeds the maximum of 2 values." );
+      assertThat( outcome.getErrors().get( 0 ).getSourceLocation() ).contains( new SourceLocation( 1, 16 ) );
+   }
+
+   @Test
+   void shouldNotCacheInvalidQueries() {
+      final RqlParseCache cache = new RqlParseCache();
+
+      cache.tryParse( INVALID_QUERY );
+      cache.tryParse( "filter=eq(a,1)" );
+
+      assertThat( cache.size() ).isEqualTo( 1 );
+      assertThat( cache.tryParse( "filter=eq(a, 1)" ).isValid() ).isTrue();
+      assertThat( cache.getHitCount() ).isEqualTo( 1 );
+   }
+
+   @Test
+   void shouldConvertExceptionToError() {
+      final ParseError error = ParseError.of( new ParseException( "broken", new SourceLocation( 2, 3 ) ) );
+
+      assertThat( error.getMessage() ).isEqualTo( "broken" );
+      assertThat( error.getSourceLocation() ).contains( new SourceLocation( 2, 3 ) );
+      assertThat( error.toString() ).isEqualTo( error.toException().getMessage() );
+   }
+}
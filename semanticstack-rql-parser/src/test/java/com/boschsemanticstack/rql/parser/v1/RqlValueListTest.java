@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import com.boschsemanticstack.rql.model.v1.RqlBuilder;
+import com.boschsemanticstack.rql.model.v1.RqlFilter;
+import com.boschsemanticstack.rql.model.v1.RqlValueList;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class RqlValueListTest {
+
+   @ParameterizedTest
+   @EnumSource( RqlParserConfig.ModelConstruction.class )
+   void shouldStoreIntListsUnboxed( final RqlParserConfig.ModelConstruction modelConstruction ) {
+      final RqlValueList values = parseInList( "filter=in(a,1,-2,+3)", modelConstruction );
+
+      assertThat( values.getElementType() ).isEqualTo( Integer.class );
+      assertThat( values.getInt( 1 ) ).isEqualTo( -2 );
+      assertThat( values.getLong( 2 ) ).isEqualTo( 3L );
+      assertThat( values ).containsExactly( 1, -2, 3 );
+   }
+
+   @ParameterizedTest
+   @EnumSource( RqlParserConfig.ModelConstruction.class )
+   void shouldStoreFloatListsUnboxed( final RqlParserConfig.ModelConstruction modelConstruction ) {
+      final RqlValueList values = parseInList( "filter=in(a,1.5,-2e3)", modelConstruction );
+
+      assertThat( values.getElementType() ).isEqualTo( Double.class );
+      assertThat( values.getDouble( 1 ) ).isEqualTo( -2000.0 );
+      assertThat( values ).containsExactly( 1.5, -2000.0 );
+   }
+
+   @ParameterizedTest
+   @EnumSource( RqlParserConfig.ModelConstruction.class )
+   void shouldStoreStringListsInArray( final RqlParserConfig.ModelConstruction modelConstruction ) {
+      final RqlValueList values = parseInList( "filter=in(a,\"x\",\"y\\\"z\")", modelConstruction );
+
+      assertThat( values.getElementType() ).isEqualTo( String.class );
+      assertThat( values.getString( 1 ) ).isEqualTo( "y\"z" );
+      assertThatThrownBy( () -> values.getInt( 0 ) ).isInstanceOf( UnsupportedOperationException.class );
+   }
+
+   @Test
+   void shouldUseCompactListsOnFastPath() {
+      assertThat( RqlFastParser.tryParse( "filter=in(a,1,2)" ).getFilter().orElseThrow().getValues() )
+            .isInstanceOf( RqlValueList.class )
+            .containsExactly( 1, 2 );
+   }
+
+   @Test
+   void shouldEqualBoxedLists() {
+      assertThat( RqlValueList.ofInts( 1, 2 ) )
+            .isEqualTo( List.of( 1, 2 ) )
+            .hasSameHashCodeAs( List.of( 1, 2 ) )
+            .isNotEqualTo( List.of( 1L, 2L ) );
+      assertThat( List.of( 1.5, Double.NaN ) ).isEqualTo( RqlValueList.ofDoubles( 1.5, Double.NaN ) );
+      assertThat( RqlValueList.ofLongs( new long[] { 4, 5, 6 }, 2 ) ).isEqualTo( RqlValueList.ofLongs( 4, 5 ) );
+   }
+
+   @Test
+   void shouldBeImmutable() {
+      final RqlValueList values = RqlValueList.ofInts( 1, 2 );
+
+      assertThatThrownBy( () -> values.add( 3 ) ).isInstanceOf( UnsupportedOperationException.class );
+      assertThatThrownBy( () -> values.set( 0, 3 ) ).isInstanceOf( UnsupportedOperationException.class );
+   }
+
+   @Test
+   void shouldBuildInFiltersFromPrimitiveArrays() {
+      final RqlFilter filter = RqlBuilder.in( "a", new long[] { 1L, 2L } );
+
+      assertThat( filter.getValues() ).isInstanceOf( RqlValueList.class ).containsExactly( 1L, 2L );
+      assertThat( filter.getValue() ).isEqualTo( List.of( 1L, 2L ) );
+      assertThat( RqlBuilder.in( "a", new int[] { 7 } ).getValue() ).isEqualTo( 7 );
+      assertThat( RqlBuilder.in( "a", (double[]) null ).getValues() ).isEmpty();
+      assertThat( RqlParser.toString( RqlParser.builder().filter( RqlBuilder.in( "a", new int[] { 1, 2 } ) ).build() ) )
+            .isEqualTo( "filter=in(a,1,2)" );
+   }
+
+   private static RqlValueList parseInList( final String query, final RqlParserConfig.ModelConstruction modelConstruction ) {
+      final RqlParserApi parser = new RqlParserApi( RqlParserConfig.builder()
+            .fastPath( false )
+            .modelConstruction( modelConstruction )
+            .build() );
+      return (RqlValueList) parser.parseFullQuery( query ).getFilter().orElseThrow().getValues();
+   }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2024 Robert Bosch Manufacturing Solutions GmbH
+ *
+ * See the AUTHORS file(s) distributed with this work for additional
+ * information regarding authorship.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+
+
+package com.boschsemanticstack.rql.parser.v1;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.boschsemanticstack.rql.exceptions.ParseException;
+import com.boschsemanticstack.rql.model.v1.RqlQueryModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class UrlQueryInputStreamTest {
+
+   @ParameterizedTest
+   @CsvSource( delimiter = '|', value = {
+         "filter=eq(a,1)|filter=eq(a,1)",
+         "https://example.com/api/burgers?filter=eq(a,1)&page=3#top|filter=eq(a,1)",
+         "/burgers?page=3&option=limit(0%2C5)&select=a,b|option=limit(0,5)&select=a,b",
+         "filter=eq(a,%22what?%22)|filter=eq(a,\"what?\")",
+         "filter=eq(a,%22x%26y%22)|filter=eq(a,\"x&y\")",
+         "option=sort(+a)|option=sort(+a)",
+         "%66ilter=eq(a,1)|filter=eq(a,1)",
+         "filters=eq(a,1)&filter&filter=|filter=",
+         "&&select=a&&|select=a",
+         "filter=eq(a,%2)&filter=eq(b,%zz)|filter=eq(a,%2)&filter=eq(b,%zz)",
+         "filter=eq(a,%C3%BC)|filter=eq(a,ü)",
+         "filter=eq(a,\"ü€😀\")|filter=eq(a,\"ü€😀\")",
+         "page=1|''"
+   } )
+   void shouldDecodeRqlParameters( final String urlQuery, final String expected ) throws IOException {
+      assertThat( readAll( UrlQueryInputStream.of( urlQuery ) ) ).isEqualTo( expected );
+      assertThat( readAll( UrlQueryInputStream.of( urlQuery.getBytes( StandardCharsets.UTF_8 ) ) ) ).isEqualTo( expected );
+   }
+
+   static List<String> validCorpusQueries() throws IOException {
+      final List<String> queries = new ArrayList<>();
+      RqlFastParserDifferentialTest.corpus()
+            .filter( query -> query.matches( "((select|filter|option)=[^&]*)(&(select|filter|option)=[^&]*)*" ) )
+            .filter( UrlQueryInputStreamTest::isValid )
+            .forEach( queries::add );
+      return queries;
+   }
+
+   @ParameterizedTest
+   @MethodSource( "validCorpusQueries" )
+   void shouldParseEncodedCorpusQueriesLikeDecodedOnes( final String query ) {
+      final StringBuilder urlQuery = new StringBuilder( "https://example.com/menu?page=1" );
+      for ( final String parameter : query.split( "&" ) ) {
+         final int separator = parameter.indexOf( '=' );
+         urlQuery.append( '&' ).append( parameter, 0, separator + 1 )
+               .append( URLEncoder.encode( parameter.substring( separator + 1 ), StandardCharsets.UTF_8 ).replace( "+", "%20" ) );
+      }
+
+      final RqlQueryModel model = RqlParser.fromUrlQuery( urlQuery );
+
+      assertThat( RqlFastParserDifferentialTest.describe( model ) )
+            .isEqualTo( RqlFastParserDifferentialTest.describe( RqlParser.fromUncached( query ) ) );
+   }
+
+   @Test
+   void shouldReportMalformedEscapesAsParseErrors() {
+      assertThatThrownBy( () -> RqlParser.fromUrlQuery( "filter=eq(a,%zz)" ) )
+            .isInstanceOf( ParseException.class )
+            .hasMessageContaining( "'%'" );
+   }
+
+   @Test
+   void shouldParseRequestUrlGivenAsBytes() {
+      final byte[] url = "/menu?option=sort(-name),limit(0%2C10)&filter=like(name,%22*Rql%22)".getBytes( StandardCharsets.US_ASCII );
+
+      final RqlQueryModel model = RqlParser.fromUrlQuery( url );
+
+      assertThat( RqlParser.toString( model ) ).isEqualTo( RqlParser.toString(
+            RqlParser.from( "filter=like(name,\"*Rql\")&option=sort(-name),limit(0,10)" ) ) );
+   }
+
+   private static boolean isValid( final String query ) {
+      try {
+         RqlParser.fromUncached( query );
+         return true;
+      } catch ( final RuntimeException e ) {
+         return false;
+      }
+   }
+
+   private static String readAll( final InputStream input ) throws IOException {
+      return new String( input.readAllBytes(), StandardCharsets.UTF_8 );
+   }
+}